@@ -241,7 +241,8 @@ CREATE TABLE IF NOT EXISTS message
 (
     3
 ),
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号'
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_created_at ON message (created_at);
@@ -352,7 +353,8 @@ CREATE TABLE IF NOT EXISTS run
 (
     3
 ),
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号'
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_created_at ON run (created_at);
@@ -416,7 +418,8 @@ CREATE TABLE IF NOT EXISTS run_step
     llm_input LONGTEXT NULL,
     reasoning_time INT DEFAULT 0 NOT NULL COMMENT '模型推理耗时，以秒为单位',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号'
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_step_assistant_id ON run_step (assistant_Id);
@@ -506,4 +509,3 @@ CREATE TABLE IF NOT EXISTS id_sequence
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     UNIQUE KEY unique_prefix (prefix)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='ID序列生成表';
-
@@ -0,0 +1,11 @@
+-- 已有库升级：为 message、run、run_step 增加乐观锁版本号
+-- 升级到该版本前必须执行：所有读写 message、run、run_step 的语句都包含 version 列，与 optimistic-lock.enabled 无关
+-- 新建的库由 01-init-tables.sql 创建，无需执行
+ALTER TABLE message ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+ALTER TABLE run ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+ALTER TABLE run_step ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+
+-- 开启分表（sharding.shard-count > 1）且分表已存在时，对每个分表执行同样的语句，例如分表数为4时：
+-- ALTER TABLE message_0 ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+-- ALTER TABLE run_step_0 ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+-- ... 直到 message_3、run_step_3
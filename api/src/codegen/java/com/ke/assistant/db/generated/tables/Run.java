@@ -219,6 +219,11 @@ public class Run extends TableImpl<RunRecord> {
      */
     public final TableField<RunRecord, LocalDateTime> UPDATED_AT = createField(DSL.name("updated_at"), SQLDataType.LOCALDATETIME(0).nullable(false).defaultValue(DSL.field("CURRENT_TIMESTAMP", SQLDataType.LOCALDATETIME)), this, "");
 
+    /**
+     * The column <code>run.version</code>. 乐观锁版本号
+     */
+    public final TableField<RunRecord, Long> VERSION = createField(DSL.name("version"), SQLDataType.BIGINT.nullable(false).defaultValue(DSL.inline("0", SQLDataType.BIGINT)), this, "乐观锁版本号");
+
     private Run(Name alias, Table<RunRecord> aliased) {
         this(alias, aliased, null);
     }
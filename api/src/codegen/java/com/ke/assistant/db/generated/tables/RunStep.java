@@ -18,7 +18,7 @@ import org.jooq.ForeignKey;
 import org.jooq.Index;
 import org.jooq.Name;
 import org.jooq.Record;
-import org.jooq.Row20;
+import org.jooq.Row21;
 import org.jooq.Schema;
 import org.jooq.Table;
 import org.jooq.TableField;
@@ -150,6 +150,11 @@ public class RunStep extends TableImpl<RunStepRecord> {
      */
     public final TableField<RunStepRecord, LocalDateTime> UPDATED_AT = createField(DSL.name("updated_at"), SQLDataType.LOCALDATETIME(0).nullable(false).defaultValue(DSL.field("CURRENT_TIMESTAMP", SQLDataType.LOCALDATETIME)), this, "");
 
+    /**
+     * The column <code>run_step.version</code>. 乐观锁版本号
+     */
+    public final TableField<RunStepRecord, Long> VERSION = createField(DSL.name("version"), SQLDataType.BIGINT.nullable(false).defaultValue(DSL.inline("0", SQLDataType.BIGINT)), this, "乐观锁版本号");
+
     private RunStep(Name alias, Table<RunStepRecord> aliased) {
         this(alias, aliased, null);
     }
@@ -230,11 +235,11 @@ public class RunStep extends TableImpl<RunStepRecord> {
     }
 
     // -------------------------------------------------------------------------
-    // Row20 type methods
+    // Row21 type methods
     // -------------------------------------------------------------------------
 
     @Override
-    public Row20<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime> fieldsRow() {
-        return (Row20) super.fieldsRow();
+    public Row21<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime, Long> fieldsRow() {
+        return (Row21) super.fieldsRow();
     }
 }
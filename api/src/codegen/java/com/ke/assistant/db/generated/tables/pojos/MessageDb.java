@@ -36,6 +36,7 @@ public class MessageDb implements Timed, Serializable {
     private String        messageStatus;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long          version;
 
     public MessageDb() {}
 
@@ -58,6 +59,7 @@ public class MessageDb implements Timed, Serializable {
         this.messageStatus = value.messageStatus;
         this.createdAt = value.createdAt;
         this.updatedAt = value.updatedAt;
+        this.version = value.version;
     }
 
     public MessageDb(
@@ -78,7 +80,8 @@ public class MessageDb implements Timed, Serializable {
         String        summarizedBy,
         String        messageStatus,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long          version
     ) {
         this.id = id;
         this.role = role;
@@ -98,6 +101,7 @@ public class MessageDb implements Timed, Serializable {
         this.messageStatus = messageStatus;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     /**
@@ -352,6 +356,20 @@ public class MessageDb implements Timed, Serializable {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Getter for <code>message.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Setter for <code>message.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("MessageDb (");
@@ -374,6 +392,7 @@ public class MessageDb implements Timed, Serializable {
         sb.append(", ").append(messageStatus);
         sb.append(", ").append(createdAt);
         sb.append(", ").append(updatedAt);
+        sb.append(", ").append(version);
 
         sb.append(")");
         return sb.toString();
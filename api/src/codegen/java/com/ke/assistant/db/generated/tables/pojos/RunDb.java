@@ -52,6 +52,7 @@ public class RunDb implements Timed, Serializable {
     private String        reasoningEffort;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long          version;
 
     public RunDb() {}
 
@@ -90,6 +91,7 @@ public class RunDb implements Timed, Serializable {
         this.reasoningEffort = value.reasoningEffort;
         this.createdAt = value.createdAt;
         this.updatedAt = value.updatedAt;
+        this.version = value.version;
     }
 
     public RunDb(
@@ -126,7 +128,8 @@ public class RunDb implements Timed, Serializable {
         Integer       reasoningTime,
         String        reasoningEffort,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long          version
     ) {
         this.id = id;
         this.object = object;
@@ -162,6 +165,7 @@ public class RunDb implements Timed, Serializable {
         this.reasoningEffort = reasoningEffort;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     /**
@@ -640,6 +644,20 @@ public class RunDb implements Timed, Serializable {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Getter for <code>run.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Setter for <code>run.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("RunDb (");
@@ -678,6 +696,7 @@ public class RunDb implements Timed, Serializable {
         sb.append(", ").append(reasoningEffort);
         sb.append(", ").append(createdAt);
         sb.append(", ").append(updatedAt);
+        sb.append(", ").append(version);
 
         sb.append(")");
         return sb.toString();
@@ -38,6 +38,7 @@ public class RunStepDb implements Timed, Serializable {
     private Integer       reasoningTime;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long          version;
 
     public RunStepDb() {}
 
@@ -62,6 +63,7 @@ public class RunStepDb implements Timed, Serializable {
         this.reasoningTime = value.reasoningTime;
         this.createdAt = value.createdAt;
         this.updatedAt = value.updatedAt;
+        this.version = value.version;
     }
 
     public RunStepDb(
@@ -84,7 +86,8 @@ public class RunStepDb implements Timed, Serializable {
         String        llmInput,
         Integer       reasoningTime,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long          version
     ) {
         this.id = id;
         this.status = status;
@@ -106,6 +109,7 @@ public class RunStepDb implements Timed, Serializable {
         this.reasoningTime = reasoningTime;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     /**
@@ -388,6 +392,20 @@ public class RunStepDb implements Timed, Serializable {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Getter for <code>run_step.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Setter for <code>run_step.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("RunStepDb (");
@@ -412,6 +430,7 @@ public class RunStepDb implements Timed, Serializable {
         sb.append(", ").append(reasoningTime);
         sb.append(", ").append(createdAt);
         sb.append(", ").append(updatedAt);
+        sb.append(", ").append(version);
 
         sb.append(")");
         return sb.toString();
@@ -11,8 +11,8 @@ import java.time.LocalDateTime;
 
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record18;
-import org.jooq.Row18;
+import org.jooq.Record19;
+import org.jooq.Row19;
 import org.jooq.impl.UpdatableRecordImpl;
 
 
@@ -20,7 +20,7 @@ import org.jooq.impl.UpdatableRecordImpl;
  * This class is generated by jOOQ.
  */
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
-public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements Timed, Record18<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime> {
+public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements Timed, Record19<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, Long> {
 
     private static final long serialVersionUID = 1L;
 
@@ -276,6 +276,20 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         return (LocalDateTime) get(17);
     }
 
+    /**
+     * Setter for <code>message.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long value) {
+        set(18, value);
+    }
+
+    /**
+     * Getter for <code>message.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return (Long) get(18);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -286,17 +300,17 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
     }
 
     // -------------------------------------------------------------------------
-    // Record18 type implementation
+    // Record19 type implementation
     // -------------------------------------------------------------------------
 
     @Override
-    public Row18<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime> fieldsRow() {
-        return (Row18) super.fieldsRow();
+    public Row19<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, Long> fieldsRow() {
+        return (Row19) super.fieldsRow();
     }
 
     @Override
-    public Row18<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime> valuesRow() {
-        return (Row18) super.valuesRow();
+    public Row19<String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, Long> valuesRow() {
+        return (Row19) super.valuesRow();
     }
 
     @Override
@@ -389,6 +403,11 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         return Message.MESSAGE.UPDATED_AT;
     }
 
+    @Override
+    public Field<Long> field19() {
+        return Message.MESSAGE.VERSION;
+    }
+
     @Override
     public String component1() {
         return getId();
@@ -479,6 +498,11 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         return getUpdatedAt();
     }
 
+    @Override
+    public Long component19() {
+        return getVersion();
+    }
+
     @Override
     public String value1() {
         return getId();
@@ -569,6 +593,11 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         return getUpdatedAt();
     }
 
+    @Override
+    public Long value19() {
+        return getVersion();
+    }
+
     @Override
     public MessageRecord value1(String value) {
         setId(value);
@@ -678,7 +707,13 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
     }
 
     @Override
-    public MessageRecord values(String value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, String value11, String value12, String value13, String value14, String value15, String value16, LocalDateTime value17, LocalDateTime value18) {
+    public MessageRecord value19(Long value) {
+        setVersion(value);
+        return this;
+    }
+
+    @Override
+    public MessageRecord values(String value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, String value11, String value12, String value13, String value14, String value15, String value16, LocalDateTime value17, LocalDateTime value18, Long value19) {
         value1(value1);
         value2(value2);
         value3(value3);
@@ -697,6 +732,7 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         value16(value16);
         value17(value17);
         value18(value18);
+        value19(value19);
         return this;
     }
 
@@ -714,7 +750,7 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
     /**
      * Create a detached, initialised MessageRecord
      */
-    public MessageRecord(String id, String role, String threadId, String object, String status, String content, String reasoningContent, String attachments, String fileIds, String metadata, String assistantId, String runId, String name, String messageType, String summarizedBy, String messageStatus, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    public MessageRecord(String id, String role, String threadId, String object, String status, String content, String reasoningContent, String attachments, String fileIds, String metadata, String assistantId, String runId, String name, String messageType, String summarizedBy, String messageStatus, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         super(Message.MESSAGE);
 
         setId(id);
@@ -735,5 +771,6 @@ public class MessageRecord extends UpdatableRecordImpl<MessageRecord> implements
         setMessageStatus(messageStatus);
         setCreatedAt(createdAt);
         setUpdatedAt(updatedAt);
+        setVersion(version);
     }
 }
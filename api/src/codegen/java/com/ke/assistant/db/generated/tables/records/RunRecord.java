@@ -497,6 +497,20 @@ public class RunRecord extends UpdatableRecordImpl<RunRecord> implements Timed {
         return (LocalDateTime) get(33);
     }
 
+    /**
+     * Setter for <code>run.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long value) {
+        set(34, value);
+    }
+
+    /**
+     * Getter for <code>run.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return (Long) get(34);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -520,7 +534,7 @@ public class RunRecord extends UpdatableRecordImpl<RunRecord> implements Timed {
     /**
      * Create a detached, initialised RunRecord
      */
-    public RunRecord(String id, String object, String assistantId, String threadId, String status, String model, String instructions, Double temperature, Double topP, Integer maxPromptTokens, Integer maxCompletionTokens, String truncationStrategy, String toolChoice, Byte parallelToolCalls, String responseFormat, String user, String fileIds, String metadata, String lastError, String requiredAction, String incompleteDetails, String usage, LocalDateTime startedAt, LocalDateTime completedAt, LocalDateTime cancelledAt, LocalDateTime expiresAt, LocalDateTime failedAt, String taskId, Byte saveMessage, String additionalMessageIds, Integer reasoningTime, String reasoningEffort, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    public RunRecord(String id, String object, String assistantId, String threadId, String status, String model, String instructions, Double temperature, Double topP, Integer maxPromptTokens, Integer maxCompletionTokens, String truncationStrategy, String toolChoice, Byte parallelToolCalls, String responseFormat, String user, String fileIds, String metadata, String lastError, String requiredAction, String incompleteDetails, String usage, LocalDateTime startedAt, LocalDateTime completedAt, LocalDateTime cancelledAt, LocalDateTime expiresAt, LocalDateTime failedAt, String taskId, Byte saveMessage, String additionalMessageIds, Integer reasoningTime, String reasoningEffort, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         super(Run.RUN);
 
         setId(id);
@@ -557,5 +571,6 @@ public class RunRecord extends UpdatableRecordImpl<RunRecord> implements Timed {
         setReasoningEffort(reasoningEffort);
         setCreatedAt(createdAt);
         setUpdatedAt(updatedAt);
+        setVersion(version);
     }
 }
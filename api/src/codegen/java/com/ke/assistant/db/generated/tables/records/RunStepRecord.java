@@ -11,8 +11,8 @@ import java.time.LocalDateTime;
 
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record20;
-import org.jooq.Row20;
+import org.jooq.Record21;
+import org.jooq.Row21;
 import org.jooq.impl.UpdatableRecordImpl;
 
 
@@ -20,7 +20,7 @@ import org.jooq.impl.UpdatableRecordImpl;
  * This class is generated by jOOQ.
  */
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
-public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements Timed, Record20<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime> {
+public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements Timed, Record21<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime, Long> {
 
     private static final long serialVersionUID = 1L;
 
@@ -304,6 +304,20 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         return (LocalDateTime) get(19);
     }
 
+    /**
+     * Setter for <code>run_step.version</code>. 乐观锁版本号
+     */
+    public void setVersion(Long value) {
+        set(20, value);
+    }
+
+    /**
+     * Getter for <code>run_step.version</code>. 乐观锁版本号
+     */
+    public Long getVersion() {
+        return (Long) get(20);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -314,17 +328,17 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
     }
 
     // -------------------------------------------------------------------------
-    // Record20 type implementation
+    // Record21 type implementation
     // -------------------------------------------------------------------------
 
     @Override
-    public Row20<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime> fieldsRow() {
-        return (Row20) super.fieldsRow();
+    public Row21<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime, Long> fieldsRow() {
+        return (Row21) super.fieldsRow();
     }
 
     @Override
-    public Row20<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime> valuesRow() {
-        return (Row20) super.valuesRow();
+    public Row21<String, String, String, String, String, String, String, String, String, String, LocalDateTime, LocalDateTime, LocalDateTime, LocalDateTime, String, String, String, Integer, LocalDateTime, LocalDateTime, Long> valuesRow() {
+        return (Row21) super.valuesRow();
     }
 
     @Override
@@ -427,6 +441,11 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         return RunStep.RUN_STEP.UPDATED_AT;
     }
 
+    @Override
+    public Field<Long> field21() {
+        return RunStep.RUN_STEP.VERSION;
+    }
+
     @Override
     public String component1() {
         return getId();
@@ -527,6 +546,11 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         return getUpdatedAt();
     }
 
+    @Override
+    public Long component21() {
+        return getVersion();
+    }
+
     @Override
     public String value1() {
         return getId();
@@ -627,6 +651,11 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         return getUpdatedAt();
     }
 
+    @Override
+    public Long value21() {
+        return getVersion();
+    }
+
     @Override
     public RunStepRecord value1(String value) {
         setId(value);
@@ -748,7 +777,13 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
     }
 
     @Override
-    public RunStepRecord values(String value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, LocalDateTime value11, LocalDateTime value12, LocalDateTime value13, LocalDateTime value14, String value15, String value16, String value17, Integer value18, LocalDateTime value19, LocalDateTime value20) {
+    public RunStepRecord value21(Long value) {
+        setVersion(value);
+        return this;
+    }
+
+    @Override
+    public RunStepRecord values(String value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, LocalDateTime value11, LocalDateTime value12, LocalDateTime value13, LocalDateTime value14, String value15, String value16, String value17, Integer value18, LocalDateTime value19, LocalDateTime value20, Long value21) {
         value1(value1);
         value2(value2);
         value3(value3);
@@ -769,6 +804,7 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         value18(value18);
         value19(value19);
         value20(value20);
+        value21(value21);
         return this;
     }
 
@@ -786,7 +822,7 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
     /**
      * Create a detached, initialised RunStepRecord
      */
-    public RunStepRecord(String id, String status, String type, String assistantId, String threadId, String runId, String object, String metadata, String lastError, String stepDetails, LocalDateTime completedAt, LocalDateTime cancelledAt, LocalDateTime expiresAt, LocalDateTime failedAt, String messageId, String usage, String llmInput, Integer reasoningTime, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    public RunStepRecord(String id, String status, String type, String assistantId, String threadId, String runId, String object, String metadata, String lastError, String stepDetails, LocalDateTime completedAt, LocalDateTime cancelledAt, LocalDateTime expiresAt, LocalDateTime failedAt, String messageId, String usage, String llmInput, Integer reasoningTime, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         super(RunStep.RUN_STEP);
 
         setId(id);
@@ -809,5 +845,6 @@ public class RunStepRecord extends UpdatableRecordImpl<RunStepRecord> implements
         setReasoningTime(reasoningTime);
         setCreatedAt(createdAt);
         setUpdatedAt(updatedAt);
+        setVersion(version);
     }
 }
@@ -0,0 +1,26 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * Assistant配置缓存
+ * 创建run时读取的完整配置（assistant、工具、文件）缓存在本地，更新或删除时通过ServiceMesh广播失效
+ */
+@Data
+public class AssistantCacheProperties {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存条数
+     */
+    private long maxSize = 10000;
+
+    /**
+     * 过期时间（分钟），广播丢失时最多使用该时长的旧配置
+     */
+    private long expireMinutes = 10;
+}
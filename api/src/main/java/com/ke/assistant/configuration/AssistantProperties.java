@@ -10,6 +10,26 @@ public class AssistantProperties {
     private String keyPrefix = "bella_assistant";
     private Integer maxExecutionMinutes = 10;
     private Integer maxExecutionSteps;
+    /**
+     * 复制、合并、fork thread时批量插入消息的每条INSERT语句行数
+     */
+    private int bulkInsertBatchSize = 500;
     private ToolProperties tools = new ToolProperties();
     private S3Properties s3 = new S3Properties();
+    private RunLogProperties runLog = new RunLogProperties();
+    private SenderQueueProperties senderQueue = new SenderQueueProperties();
+    private OptimisticLockProperties optimisticLock = new OptimisticLockProperties();
+    private ChartProperties chart = new ChartProperties();
+    private ShardingProperties sharding = new ShardingProperties();
+    private ThreadLockProperties threadLock = new ThreadLockProperties();
+    private MeshProperties mesh = new MeshProperties();
+    private DrainProperties drain = new DrainProperties();
+    private ResponseCacheProperties responseCache = new ResponseCacheProperties();
+    private AssistantCacheProperties assistantCache = new AssistantCacheProperties();
+    private ToolCacheProperties toolCache = new ToolCacheProperties();
+    private ToolExecutionProperties toolExecution = new ToolExecutionProperties();
+    private ChatRetryProperties chatRetry = new ChatRetryProperties();
+    private RunSchedulerProperties runScheduler = new RunSchedulerProperties();
+    private ThreadRunQueueProperties threadRunQueue = new ThreadRunQueueProperties();
+    private LongMemoryProperties longMemory = new LongMemoryProperties();
 }
@@ -0,0 +1,74 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * 图表渲染配置
+ * 渲染是CPU密集型任务，使用独立的有界线程池，避免占用工具调用线程；
+ * 相同内容的图表按内容哈希缓存渲染结果和上传后的URL
+ */
+@Data
+public class ChartProperties {
+
+    /**
+     * 渲染线程数，默认为CPU核数
+     */
+    private int renderThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 渲染等待队列长度，队列满时直接拒绝
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 单次渲染最长等待时间（秒），包含排队时间
+     */
+    private long renderTimeoutSeconds = 30;
+
+    /**
+     * 默认输出格式，各图表工具可单独配置
+     */
+    private Format defaultFormat = Format.JPG;
+
+    /**
+     * 允许的最大宽高（像素）
+     */
+    private int maxWidth = 4096;
+    private int maxHeight = 4096;
+
+    /**
+     * 渲染结果缓存的最大字节数，0表示不缓存
+     */
+    private long imageCacheMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 上传URL缓存的最大条数，0表示不缓存
+     */
+    private long urlCacheSize = 10000;
+
+    /**
+     * 缓存过期时间（分钟），URL缓存不应超过对象存储中文件的保留时间
+     */
+    private long cacheExpireMinutes = 60;
+
+    public enum Format {
+        JPG("jpg", "image/jpeg"),
+        PNG("png", "image/png");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+}
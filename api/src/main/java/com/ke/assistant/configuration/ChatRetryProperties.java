@@ -0,0 +1,85 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * LLM请求的重试和对冲配置
+ * 重试预算按模型共享：失败和对冲消耗令牌、成功补充令牌，令牌不足一半时停止重试和对冲，避免服务商过载时所有run同时重试放大压力
+ */
+@Data
+public class ChatRetryProperties {
+
+    /**
+     * 单次请求的最大重试次数
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 每个模型的令牌上限
+     */
+    private double budgetMaxTokens = 10;
+
+    /**
+     * 每次成功请求补充的令牌数
+     */
+    private double budgetTokenRatio = 0.1;
+
+    /**
+     * 退避的基础时间（毫秒），按重试次数指数增长并随机抖动
+     */
+    private long backoffBaseMillis = 500;
+
+    /**
+     * 退避的最长时间（毫秒）
+     */
+    private long backoffMaxMillis = 10000;
+
+    /**
+     * 是否遵循服务端返回的Retry-After
+     */
+    private boolean honorRetryAfter = true;
+
+    /**
+     * Retry-After的最长等待时间（毫秒），超过时不再重试
+     */
+    private long maxRetryAfterMillis = 30000;
+
+    private HedgeProperties hedge = new HedgeProperties();
+
+    /**
+     * 对冲请求：首个token在延迟阈值内未到达时发起第二个请求，先返回token的请求胜出，另一个取消
+     */
+    @Data
+    public static class HedgeProperties {
+
+        /**
+         * 是否开启，对冲会增加服务商的请求量
+         */
+        private boolean enabled = false;
+
+        /**
+         * 按首token延迟的该分位数作为对冲阈值
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 模型的延迟样本数少于该值时不对冲
+         */
+        private int minSamples = 50;
+
+        /**
+         * 保留的延迟样本数
+         */
+        private int sampleSize = 500;
+
+        /**
+         * 对冲阈值的下限（毫秒）
+         */
+        private long minDelayMillis = 1000;
+
+        /**
+         * 对冲阈值的上限（毫秒）
+         */
+        private long maxDelayMillis = 20000;
+    }
+}
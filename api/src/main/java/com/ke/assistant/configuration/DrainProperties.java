@@ -0,0 +1,42 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * 实例下线时的排空配置
+ * 下线时先将readiness置为拒绝流量并拒绝新的run，执行中的run在下一次调用LLM前保存检查点并交给其他实例通过resumeRun继续执行，
+ * 超过等待时间仍未结束的run标记为失败，避免客户端一直等待
+ */
+@Data
+public class DrainProperties {
+
+    /**
+     * 是否开启排空，关闭时下线直接中断执行中的run
+     */
+    private boolean enabled = true;
+
+    /**
+     * 等待执行中的run结束或交接的最长时间（秒），需小于容器的优雅退出时间（terminationGracePeriodSeconds）
+     */
+    private int timeoutSeconds = 25;
+
+    /**
+     * 是否将执行中的run交接给其他实例，关闭时只等待run自然结束
+     */
+    private boolean handoff = true;
+
+    /**
+     * 交接事件最多转发次数，接收实例也在排空时会继续转发
+     */
+    private int maxHandoffHops = 3;
+
+    /**
+     * 交接租约的有效时间（秒），超过该时间仍未被接手实例释放的run由其他实例的清扫任务重新接手
+     */
+    private int leaseSeconds = 30;
+
+    /**
+     * 清扫交接租约的间隔（秒）
+     */
+    private int sweepIntervalSeconds = 10;
+}
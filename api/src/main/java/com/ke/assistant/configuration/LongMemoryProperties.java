@@ -0,0 +1,73 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * 长期记忆配置
+ * 消息完成后异步向量化并写入按thread分区的本地HNSW索引，查询记忆时返回语义相关的历史消息
+ */
+@Data
+public class LongMemoryProperties {
+
+    /**
+     * 是否开启，开启后每条消息都会调用一次向量化服务
+     */
+    private boolean enabled = false;
+
+    /**
+     * 向量化实现，OPENAI调用向量化模型，HASHING为本地确定性实现（用于测试和离线环境）
+     */
+    private EmbeddingType embeddingType = EmbeddingType.OPENAI;
+
+    /**
+     * 向量化模型
+     */
+    private String embeddingModel = "text-embedding-ada-002";
+
+    /**
+     * HASHING实现的向量维度
+     */
+    private int hashingDimension = 256;
+
+    /**
+     * 索引文件目录，每个thread一个文件；目录在各实例本地，实例之间不共享，请求落到不同实例时召回结果不同
+     */
+    private String dataDir = "data/memory";
+
+    /**
+     * HNSW每个节点的连接数
+     */
+    private int m = 16;
+
+    /**
+     * 构建索引时的候选集大小
+     */
+    private int efConstruction = 100;
+
+    /**
+     * 查询时的候选集大小
+     */
+    private int efSearch = 64;
+
+    /**
+     * 单条消息参与向量化的最大字符数
+     */
+    private int maxTextChars = 2000;
+
+    /**
+     * 索引线程数及等待队列长度，队列满时丢弃
+     */
+    private int indexThreads = 2;
+    private int indexQueueCapacity = 1000;
+
+    /**
+     * 内存中保留的分区数及空闲过期时间（分钟）
+     */
+    private long maxOpenPartitions = 1000;
+    private long partitionExpireMinutes = 30;
+
+    public enum EmbeddingType {
+        OPENAI,
+        HASHING
+    }
+}
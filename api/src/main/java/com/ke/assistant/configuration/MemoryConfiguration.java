@@ -0,0 +1,28 @@
+package com.ke.assistant.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ke.assistant.core.memory.vector.EmbeddingProvider;
+import com.ke.assistant.core.memory.vector.HashingEmbeddingProvider;
+import com.ke.assistant.core.memory.vector.OpenAiEmbeddingProvider;
+import com.ke.bella.openapi.server.OpenAiServiceFactory;
+
+/**
+ * 长期记忆配置类
+ * 根据配置选择向量化实现，声明了EmbeddingProvider Bean时使用自定义实现
+ */
+@Configuration
+public class MemoryConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EmbeddingProvider embeddingProvider(AssistantProperties assistantProperties, OpenAiServiceFactory openAiServiceFactory) {
+        LongMemoryProperties properties = assistantProperties.getLongMemory();
+        if(properties.getEmbeddingType() == LongMemoryProperties.EmbeddingType.HASHING) {
+            return new HashingEmbeddingProvider(properties.getHashingDimension());
+        }
+        return new OpenAiEmbeddingProvider(openAiServiceFactory, properties.getEmbeddingModel());
+    }
+}
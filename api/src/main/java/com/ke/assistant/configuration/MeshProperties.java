@@ -0,0 +1,53 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * Service Mesh配置
+ * REDIS实现中事件使用紧凑的二进制编码发布，接收端同时兼容旧版本的JSON事件；
+ * 监听器按事件key分配到固定的单线程通道执行，同一run的事件保持顺序，不占用Redisson的IO线程；running run映射的写入合并后批量提交
+ */
+@Data
+public class MeshProperties {
+
+    /**
+     * Mesh实现：REDIS为多实例部署；LOCAL为进程内实现，适用于单实例部署、CI和压测，不访问Redis
+     */
+    private Type type = Type.REDIS;
+
+    /**
+     * 发送事件使用的编码，滚动升级期间仍有旧实例时使用JSON
+     */
+    private Codec codec = Codec.BINARY;
+
+    /**
+     * 事件监听器线程数，每个线程为一个串行通道
+     */
+    private int listenerThreads = 4;
+
+    /**
+     * 事件监听器等待队列总长度，平均分配到各通道；通道队列满后的事件作为溢出继续排队并计入bella.mesh.listener.overflow，
+     * 不阻塞接收线程，也不丢弃事件
+     */
+    private int listenerQueueCapacity = 1024;
+
+    /**
+     * running run映射合并写入的间隔（毫秒），0表示每次直接写入Redis
+     */
+    private long runningRunFlushMillis = 20;
+
+    /**
+     * 待写入的running run映射达到该数量时立即提交
+     */
+    private int runningRunBatchSize = 256;
+
+    public enum Type {
+        REDIS,
+        LOCAL
+    }
+
+    public enum Codec {
+        BINARY,
+        JSON
+    }
+}
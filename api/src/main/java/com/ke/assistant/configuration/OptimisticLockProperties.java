@@ -0,0 +1,28 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * 乐观锁配置
+ * 开启后run、run_step、message的状态更新不再使用SELECT ... FOR UPDATE，而是基于version列做CAS写入并有限次重试
+ * 在事务中执行的更新冲突后直接退化为加锁读（REPEATABLE READ下事务内重试读取的是同一快照），不在事务中时才按以下配置退避重试
+ * 无论是否开启，所有写入都会递增version列，已有库需先执行 sql/02-add-version-columns.sql
+ */
+@Data
+public class OptimisticLockProperties {
+
+    /**
+     * 是否开启乐观锁模式，关闭时沿用行锁
+     */
+    private boolean enabled = false;
+
+    /**
+     * 版本冲突后的最大重试次数，超过后最后一次使用加锁读保证写入成功
+     */
+    private int maxRetries = 5;
+
+    /**
+     * 重试退避基准时间（毫秒），实际等待时间随重试次数线性增长并叠加随机抖动
+     */
+    private long backoffMillis = 10;
+}
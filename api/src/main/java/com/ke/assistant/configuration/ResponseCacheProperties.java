@@ -0,0 +1,36 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * Response查询缓存配置
+ * 终态的Response不会再变化，物化后缓存在本地和Redis中；执行中的Response缓存基础信息，轮询时只查询run状态
+ */
+@Data
+public class ResponseCacheProperties {
+
+    /**
+     * 是否开启缓存，关闭时每次查询都从数据库重建Response
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地终态快照缓存条数
+     */
+    private long localMaxSize = 10000;
+
+    /**
+     * 本地缓存过期时间（分钟），执行中的基础信息同样使用该时间
+     */
+    private long localExpireMinutes = 10;
+
+    /**
+     * 是否将终态快照写入Redis，供其他实例共享
+     */
+    private boolean redisEnabled = true;
+
+    /**
+     * Redis中快照的过期时间（分钟）
+     */
+    private long redisTtlMinutes = 60;
+}
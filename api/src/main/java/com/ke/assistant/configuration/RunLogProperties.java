@@ -0,0 +1,46 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * Run日志配置
+ */
+@Data
+public class RunLogProperties {
+
+    /**
+     * 是否开启异步日志，关闭时在调用线程同步序列化并输出
+     */
+    private boolean async = true;
+
+    /**
+     * 环形缓冲区容量，会向上取整为2的幂
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 编码线程单次批量处理的最大条数
+     */
+    private int batchSize = 256;
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * BLOCK策略下的最长等待时间（毫秒），超时后丢弃
+     */
+    private long blockTimeoutMillis = 50;
+
+    public enum OverflowPolicy {
+        /**
+         * 直接丢弃并计数
+         */
+        DROP,
+        /**
+         * 阻塞等待，超时后丢弃并计数
+         */
+        BLOCK
+    }
+}
@@ -0,0 +1,57 @@
+package com.ke.assistant.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * run调度配置
+ * run在进入runner线程池前按优先级和租户排队：优先级之间、同一优先级的租户之间按权重公平分配执行名额，
+ * 单个租户的并发受限，避免单个租户的大量后台run占满runner线程，使交互式的流式请求排在其后
+ */
+@Data
+public class RunSchedulerProperties {
+
+    /**
+     * 是否开启，关闭时run按到达顺序直接提交到runner线程池
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时执行的run上限，需小于runner线程池的最大线程数（500）
+     */
+    private int maxRunning = 400;
+
+    /**
+     * 每个租户同时执行的run上限，0为不限制
+     * 租户按tenantKey划分，run没有user时按assistant划分：同一assistant下所有未传user的请求共用一个上限，
+     * 按需开启前需确认调用方是否传入user
+     */
+    private int maxRunningPerTenant = 0;
+
+    /**
+     * 排队的run上限，超过时run直接失败
+     */
+    private int maxQueued = 10000;
+
+    /**
+     * 租户的划分方式：user或assistant，run没有user时按assistant划分
+     */
+    private String tenantKey = "user";
+
+    /**
+     * 交互式run（流式或同步等待结果）的权重
+     */
+    private int interactiveWeight = 9;
+
+    /**
+     * 后台run（非流式、后台response、交接的run）的权重，两类run都在排队时后台run至少获得 1/(9+1) 的执行名额
+     */
+    private int backgroundWeight = 1;
+
+    /**
+     * 租户的权重，默认1
+     */
+    private Map<String, Integer> tenantWeights = new HashMap<>();
+}
@@ -78,6 +78,26 @@ public class S3Properties {
          * 默认图表格式
          */
         private String defaultChartFormat = "jpg";
+
+        /**
+         * 超过该大小（字节）时使用分片上传
+         */
+        private long multipartThreshold = 8 * 1024 * 1024;
+
+        /**
+         * 分片大小（字节），S3要求除最后一片外不小于5MB
+         */
+        private int partSize = 8 * 1024 * 1024;
+
+        /**
+         * 同时上传中的分片数，决定了分片上传的内存上限（partSize * maxConcurrentParts）
+         */
+        private int maxConcurrentParts = 4;
+
+        /**
+         * 同步等待上传完成的超时时间（秒）
+         */
+        private int timeoutSeconds = 120;
     }
     
     @Data
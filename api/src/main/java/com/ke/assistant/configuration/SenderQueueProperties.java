@@ -0,0 +1,41 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * Run发送队列配置
+ * 每个run的客户端消息队列容量有限，客户端读取过慢导致队列满时按overflowPolicy处理
+ */
+@Data
+public class SenderQueueProperties {
+
+    /**
+     * 队列容量（消息条数）
+     */
+    private int capacity = 2048;
+
+    /**
+     * 队列满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+
+    /**
+     * 阻塞生产者的最长时间（毫秒），超时后断开客户端
+     */
+    private long blockTimeoutMillis = 5000;
+
+    public enum OverflowPolicy {
+        /**
+         * 阻塞生产者，超时后断开客户端
+         */
+        BLOCK,
+        /**
+         * 将文本增量合并到队尾，无法合并时阻塞生产者
+         */
+        COALESCE,
+        /**
+         * 立即断开客户端，run继续执行并落库，客户端可通过查询接口获取结果
+         */
+        DETACH
+    }
+}
@@ -1,6 +1,7 @@
 package com.ke.assistant.configuration;
 
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -10,8 +11,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
 import com.ke.assistant.mesh.ServiceMesh;
+import com.ke.assistant.mesh.impl.LocalMesh;
 import com.ke.assistant.mesh.impl.RedisMesh;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -28,8 +31,17 @@ public class ServiceMeshConfiguration implements ApplicationRunner {
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceMesh serviceMesh(RedissonClient redissonClient, AssistantProperties assistantProperties) {
-        return new RedisMesh(redissonClient, assistantProperties);
+    public ServiceMesh serviceMesh(ObjectProvider<RedissonClient> redissonClient, AssistantProperties assistantProperties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        if(assistantProperties.getMesh().getType() == MeshProperties.Type.LOCAL) {
+            log.info("Using local service mesh, cross-instance events are disabled");
+            LocalMesh mesh = new LocalMesh(assistantProperties);
+            mesh.setMeterRegistry(meterRegistry.getIfAvailable());
+            return mesh;
+        }
+        RedisMesh mesh = new RedisMesh(redissonClient.getObject(), assistantProperties);
+        mesh.setMeterRegistry(meterRegistry.getIfAvailable());
+        return mesh;
     }
     
     @Override
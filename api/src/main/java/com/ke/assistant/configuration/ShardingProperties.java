@@ -0,0 +1,27 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * message、run_step 分表配置
+ * 按threadId哈希路由到 message_{n}、run_step_{n} 物理表，同一thread的数据始终落在同一张表；shardCount为1时使用原表
+ * 调整分表数前需先执行迁移（见 ShardMigrator），迁移期间应停止写入
+ */
+@Data
+public class ShardingProperties {
+
+    /**
+     * 分表数量，1表示不分表
+     */
+    private int shardCount = 1;
+
+    /**
+     * 迁移时每批处理的行数
+     */
+    private int migrationBatchSize = 500;
+
+    /**
+     * 启动时从该分表数迁移到shardCount，迁移完成后应移除此配置；只应在单个实例上配置
+     */
+    private Integer migrateFrom;
+}
@@ -0,0 +1,33 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * thread读写锁配置
+ * REDIS模式下每次加锁都访问Redis；HIERARCHICAL模式先获取进程内按threadId分段的读写锁，
+ * 同一实例内同时持有某个thread读锁的请求共用一次Redis读锁，写锁仍独占Redis写锁
+ */
+@Data
+public class ThreadLockProperties {
+
+    /**
+     * 加锁模式
+     */
+    private Mode mode = Mode.REDIS;
+
+    /**
+     * 进程内读写锁的分段数，不同thread可能落在同一分段：同一分段内一个thread的写锁会阻塞其他thread的读写，
+     * 分段越多误阻塞越少，但每个分段常驻一把读写锁；按实例上同时加锁的thread数的若干倍设置
+     */
+    private int stripes = 1024;
+
+    /**
+     * 未指定超时时间时的默认加锁等待时间（毫秒）
+     */
+    private long defaultTimeoutMillis = 10000;
+
+    public enum Mode {
+        REDIS,
+        HIERARCHICAL
+    }
+}
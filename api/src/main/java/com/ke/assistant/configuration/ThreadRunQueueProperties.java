@@ -0,0 +1,33 @@
+package com.ke.assistant.configuration;
+
+import lombok.Data;
+
+/**
+ * thread内的run排队配置
+ * 开启后在已有未结束run的thread上创建run时进入该thread的队列，前一个run进入终止状态后自动启动，客户端无需轮询run状态后重试；
+ * 队列保存在Redis中，run结束的实例通过ServiceMesh通知发起排队的实例启动下一个run（流式请求的连接在该实例上）
+ */
+@Data
+public class ThreadRunQueueProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每个thread排队等待的run上限（不含执行中的run），超过时创建run返回429
+     */
+    private int maxDepth = 10;
+
+    /**
+     * 队列的过期时间（分钟），每次变更时刷新；执行中的run所在实例异常退出时，队列最多阻塞该时长
+     */
+    private int ttlMinutes = 60;
+
+    /**
+     * 检查本实例等待中的run的间隔（秒）：刷新队列过期时间，清理已结束的run，
+     * 队列已过期或启动通知丢失时由本实例重新入队或直接启动
+     */
+    private int reapIntervalSeconds = 30;
+}
@@ -0,0 +1,65 @@
+package com.ke.assistant.configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * 工具结果缓存
+ * 只缓存显式配置的工具，相同的调用在TTL内直接返回缓存结果，并发的相同调用只执行一次
+ */
+@Data
+public class ToolCacheProperties {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存条数，所有工具共享
+     */
+    private long maxSize = 10000;
+
+    /**
+     * 按工具名配置的缓存策略，未配置的工具不缓存
+     */
+    private Map<String, ToolCachePolicy> tools = new HashMap<>();
+
+    @Data
+    public static class ToolCachePolicy {
+
+        /**
+         * 是否缓存
+         */
+        private boolean cacheable = true;
+
+        /**
+         * 缓存时间（秒）
+         */
+        private long ttlSeconds = 300;
+
+        /**
+         * 缓存key是否包含用户，结果与用户权限相关时开启
+         */
+        private boolean perUser = false;
+
+        /**
+         * 字符串参数是否忽略大小写
+         */
+        private boolean ignoreCase = false;
+
+        /**
+         * 列表参数是否忽略顺序
+         */
+        private boolean sortLists = false;
+
+        /**
+         * 不参与缓存key的参数
+         */
+        private List<String> ignoredArgs = new ArrayList<>();
+    }
+}
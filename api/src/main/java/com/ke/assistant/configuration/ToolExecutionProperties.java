@@ -0,0 +1,58 @@
+package com.ke.assistant.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * 工具执行限制
+ * 单个工具超时后返回超时错误作为工具结果，模型可以继续执行；并发超出限制的调用直接返回繁忙错误，不占用共享的工具线程池
+ */
+@Data
+public class ToolExecutionProperties {
+
+    /**
+     * 默认超时时间（秒）
+     */
+    private long defaultTimeoutSeconds = 120;
+
+    /**
+     * 单个工具的默认最大并发数（全实例），0表示不限制
+     */
+    private int defaultMaxConcurrency = 200;
+
+    /**
+     * 单个assistant的最大并发工具调用数，0表示不限制
+     */
+    private int maxConcurrencyPerAssistant = 100;
+
+    /**
+     * 按工具名配置的限制，未配置的项使用默认值
+     */
+    private Map<String, ToolLimit> tools = new HashMap<>();
+
+    @Data
+    public static class ToolLimit {
+
+        /**
+         * 超时时间（秒）
+         */
+        private Long timeoutSeconds;
+
+        /**
+         * 最大并发数，0表示不限制
+         */
+        private Integer maxConcurrency;
+    }
+
+    public long getTimeoutSeconds(String toolName) {
+        ToolLimit limit = tools.get(toolName);
+        return limit == null || limit.getTimeoutSeconds() == null ? defaultTimeoutSeconds : limit.getTimeoutSeconds();
+    }
+
+    public int getMaxConcurrency(String toolName) {
+        ToolLimit limit = tools.get(toolName);
+        return limit == null || limit.getMaxConcurrency() == null ? defaultMaxConcurrency : limit.getMaxConcurrency();
+    }
+}
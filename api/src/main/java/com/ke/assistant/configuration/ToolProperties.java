@@ -86,6 +86,10 @@ public class ToolProperties {
         private int width = 800;
         private int height = 600;
         private boolean isFinal = true;
+        /**
+         * 输出格式，未配置时使用bella.assistant.chart.default-format
+         */
+        private ChartProperties.Format format;
     }
     
     @Data
@@ -93,6 +97,10 @@ public class ToolProperties {
         private int width = 800;
         private int height = 600;
         private boolean isFinal = true;
+        /**
+         * 输出格式，未配置时使用bella.assistant.chart.default-format
+         */
+        private ChartProperties.Format format;
     }
     
     @Data
@@ -100,6 +108,10 @@ public class ToolProperties {
         private int width = 800;
         private int height = 600;
         private boolean isFinal = true;
+        /**
+         * 输出格式，未配置时使用bella.assistant.chart.default-format
+         */
+        private ChartProperties.Format format;
     }
 
     @Data
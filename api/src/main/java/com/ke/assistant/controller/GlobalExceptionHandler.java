@@ -15,6 +15,8 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ke.assistant.core.run.ServerDrainingException;
+import com.ke.assistant.core.run.ThreadRunQueueFullException;
 import com.ke.bella.openapi.common.exception.ChannelException;
 import com.ke.bella.openapi.protocol.OpenapiResponse;
 
@@ -42,6 +44,10 @@ public class GlobalExceptionHandler implements HandlerExceptionResolver {
                 handleValidationException(response, manve);
             } else if(ex instanceof ConstraintViolationException cve) {
                 handleConstraintViolationException(response, cve);
+            } else if(ex instanceof ServerDrainingException sde) {
+                handleServerDrainingException(response, sde);
+            } else if(ex instanceof ThreadRunQueueFullException tqe) {
+                handleThreadRunQueueFullException(response, tqe);
             } else if(ex instanceof IllegalArgumentException iae) {
                 handleIllegalArgumentException(response, iae);
             } else if(ex instanceof RuntimeException re) {
@@ -93,6 +99,18 @@ public class GlobalExceptionHandler implements HandlerExceptionResolver {
         writeErrorResponse(response, error, HttpStatus.BAD_REQUEST.value());
     }
 
+    private void handleServerDrainingException(HttpServletResponse response, ServerDrainingException e) {
+        OpenapiResponse.OpenapiError error = new OpenapiResponse.OpenapiError("server_draining", e.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value());
+        writeErrorResponse(response, error, HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    private void handleThreadRunQueueFullException(HttpServletResponse response, ThreadRunQueueFullException e) {
+        OpenapiResponse.OpenapiError error = new OpenapiResponse.OpenapiError("thread_run_queue_full", e.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS.value());
+        writeErrorResponse(response, error, HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
     private void handleRuntimeException(HttpServletResponse response, RuntimeException e) {
         log.error("RuntimeException: {}", e.getMessage(), e);
 
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.ke.assistant.core.run.ExecutionContext;
+import com.ke.assistant.core.run.RunDrainManager;
 import com.ke.assistant.core.run.RunExecutor;
 import com.ke.assistant.db.context.RepoContext;
 import com.ke.assistant.model.ResponseCreateResult;
@@ -39,6 +40,9 @@ public class ResponseController {
     @Autowired
     private RunExecutor runExecutor;
 
+    @Autowired
+    private RunDrainManager runDrainManager;
+
     /**
      * Create a new response
      * POST /v1/responses
@@ -46,6 +50,7 @@ public class ResponseController {
     @PostMapping
     public Object createResponses(@RequestBody CreateResponseRequest request) throws ExecutionException, InterruptedException, TimeoutException {
         log.info("Creating response with model: {}, stream: {}", request.getModel(), request.getStream());
+        runDrainManager.checkAdmission();
 
         request.setUser(BellaContext.getOwnerCode());
 
@@ -16,12 +16,15 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ke.assistant.core.run.RunDrainManager;
 import com.ke.assistant.core.run.RunExecutor;
 import com.ke.assistant.core.run.RunStateManager;
+import com.ke.assistant.core.run.ThreadRunQueue;
 import com.ke.assistant.db.generated.tables.pojos.MessageDb;
 import com.ke.assistant.model.CommonPage;
 import com.ke.assistant.model.RunCreateResult;
 import com.ke.assistant.model.RunStepListRequest;
+import com.ke.assistant.model.ThreadRunQueueStatus;
 import com.ke.assistant.service.MessageService;
 import com.ke.assistant.service.RunService;
 import com.ke.assistant.service.ThreadService;
@@ -56,9 +59,13 @@ public class RunController {
     @Autowired
     private RunExecutor runExecutor;
     @Autowired
+    private RunDrainManager runDrainManager;
+    @Autowired
     private RunStateManager runStateManager;
     @Autowired
     private MessageService messageService;
+    @Autowired
+    private ThreadRunQueue threadRunQueue;
 
     /**
      * 创建 Run
@@ -69,11 +76,13 @@ public class RunController {
             @RequestBody RunCreateRequest request) {
 
         ToolUtils.checkTools(request.getTools());
+        runDrainManager.checkAdmission();
 
         // 验证thread是否存在
         if(threadService.getThreadById(threadId) == null) {
             throw new ResourceNotFoundException("Thread not found");
         }
+        threadRunQueue.checkCapacity(threadId);
 
         // 创建Run和初始消息
         RunCreateResult result = runService.createRun(threadId, request, MessageUtils.getAttachments(request.getAdditionalMessages()));
@@ -96,6 +105,7 @@ public class RunController {
             @PathVariable("thread_id") String threadId,
             @PathVariable("run_id") String runId,
             @RequestBody SubmitToolOutputsRequest request) {
+        runDrainManager.checkAdmission();
 
         // 验证run是否存在且属于指定的thread
         Run run = runService.getRunById(threadId, runId);
@@ -164,12 +174,22 @@ public class RunController {
             throw new BizParamCheckException("Run does not belong to this thread");
         }
 
-        // 取消run
-        runStateManager.toCancelling(threadId, runId);
+        // 取消run，在thread队列中等待的run尚未执行，直接取消
+        if(!runStateManager.toCancelling(threadId, runId)) {
+            runExecutor.cancelWaitingRun(threadId, runId);
+        }
         
         return runService.getRunById(threadId, runId);
     }
 
+    /**
+     * 获取 Thread 的 Run 队列状态
+     */
+    @GetMapping("/queue")
+    public ThreadRunQueueStatus getRunQueue(@PathVariable("thread_id") String threadId) {
+        return threadRunQueue.status(threadId);
+    }
+
     /**
      * 获取 Run 详情
      */
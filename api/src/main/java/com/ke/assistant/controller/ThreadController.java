@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ke.assistant.core.run.RunDrainManager;
 import com.ke.assistant.core.run.RunExecutor;
 import com.ke.assistant.db.generated.tables.pojos.ThreadDb;
 import com.ke.assistant.model.CommonPage;
@@ -44,6 +45,8 @@ public class ThreadController {
     private ThreadService threadService;
     @Autowired
     private RunExecutor runExecutor;
+    @Autowired
+    private RunDrainManager runDrainManager;
 
     /**
      * 创建 Thread
@@ -191,6 +194,7 @@ public class ThreadController {
     @PostMapping("/runs")
     public Object createThreadAndRun(@RequestBody CreateThreadAndRunRequest request) {
         ToolUtils.checkTools(request.getTools());
+        runDrainManager.checkAdmission();
 
         // 在事务中创建 thread 和 run (调用 service 层的事务方法)
         RunCreateResult result = threadService.createThreadAndRun(request);
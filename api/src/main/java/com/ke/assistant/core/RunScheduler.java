@@ -0,0 +1,336 @@
+package com.ke.assistant.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.RunSchedulerProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * run调度器，位于runner线程池之前
+ * 执行中的run达到上限后新的run进入等待队列，有名额释放时按以下规则选择下一个run：
+ * 1、优先级之间按权重分配名额（stride调度），交互式run优先但后台run不会饿死
+ * 2、同一优先级内按租户权重公平排队（加权公平队列，每个run计为相同的开销），同一租户的run按到达顺序执行
+ * 3、执行中的run达到租户并发上限的租户暂不参与选择
+ * 实例排空时清空等待队列，排队中的run交给提交方（交接给其他实例或标记失败）；排空期间没有空闲名额的run直接拒绝，不再排队
+ */
+@Slf4j
+@Component
+public class RunScheduler {
+
+    // 每次被选中时pass增加 STRIDE/权重，使用整数避免浮点累积误差
+    private static final long STRIDE = 1L << 20;
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private RunSchedulerProperties properties;
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    private final Map<String, Integer> runningByTenant = new HashMap<>();
+    private int running;
+    private int queued;
+    private boolean draining;
+    private final Map<Priority, Timer> queueTimers = new EnumMap<>(Priority.class);
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getRunScheduler();
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ClassQueue(priority));
+        }
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(registry == null) {
+            return;
+        }
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            queueTimers.put(priority, Timer.builder("bella.run.queue.time").tag("priority", tag).register(registry));
+            Gauge.builder("bella.run.queue.size", this, s -> s.getQueued(priority)).tag("priority", tag).register(registry);
+        }
+        Gauge.builder("bella.run.running", this, RunScheduler::getRunning).register(registry);
+        rejections = Counter.builder("bella.run.queue.rejections").register(registry);
+    }
+
+    /**
+     * 按配置的划分方式确定租户
+     */
+    public String tenantOf(String user, String assistantId) {
+        if("assistant".equals(properties.getTenantKey()) || StringUtils.isBlank(user)) {
+            return StringUtils.defaultString(assistantId);
+        }
+        return user;
+    }
+
+    public boolean submit(String tenant, Priority priority, Runnable task) {
+        return submit(tenant, priority, task, null);
+    }
+
+    /**
+     * 提交run，有名额时立即提交到runner线程池，否则排队
+     * 任务以提交线程的Context执行
+     * @param onDrained 实例排空时run仍在排队、不会再执行，以提交线程的Context调用，由提交方交接或标记失败
+     * @return 排队的run已达上限、或排空中没有空闲名额时返回false，任务未被接收
+     */
+    public boolean submit(String tenant, Priority priority, Runnable task, Runnable onDrained) {
+        if(!properties.isEnabled()) {
+            TaskExecutor.addRunner(task);
+            return true;
+        }
+        Task entry = new Task(StringUtils.defaultString(tenant), priority, TaskExecutor.wrapWithContext(task),
+                onDrained == null ? null : TaskExecutor.wrapWithContext(onDrained));
+        synchronized (this) {
+            if(queued >= properties.getMaxQueued() || (draining && (running >= properties.getMaxRunning() || atCapacity(entry.tenant)))) {
+                if(rejections != null) {
+                    rejections.increment();
+                }
+                return false;
+            }
+            queues.get(priority).offer(entry, weight(entry.tenant));
+            queued++;
+            dispatch();
+        }
+        return true;
+    }
+
+    /**
+     * 开始排空：清空等待队列并在当前线程通知提交方，之后没有空闲名额的run不再排队
+     * @return 被移出队列的run数量
+     */
+    public int drain() {
+        List<Task> drained = new ArrayList<>();
+        synchronized (this) {
+            draining = true;
+            for (ClassQueue queue : queues.values()) {
+                queue.drainTo(drained);
+            }
+            queued = 0;
+        }
+        for (Task task : drained) {
+            if(task.onDrained == null) {
+                continue;
+            }
+            try {
+                task.onDrained.run();
+            } catch (Exception e) {
+                log.error("Failed to hand over queued run", e);
+            }
+        }
+        if(!drained.isEmpty()) {
+            log.info("Drained {} queued runs", drained.size());
+        }
+        return drained.size();
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getQueued(Priority priority) {
+        return queues.get(priority).size;
+    }
+
+    public synchronized int getRunning(String tenant) {
+        return runningByTenant.getOrDefault(tenant, 0);
+    }
+
+    // 调用方持有锁
+    private void dispatch() {
+        while (running < properties.getMaxRunning()) {
+            Task task = next();
+            if(task == null) {
+                return;
+            }
+            queued--;
+            running++;
+            runningByTenant.merge(task.tenant, 1, Integer::sum);
+            Timer timer = queueTimers.get(task.priority);
+            if(timer != null) {
+                timer.record(System.nanoTime() - task.enqueueNanos, TimeUnit.NANOSECONDS);
+            }
+            try {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        task.runnable.run();
+                    } finally {
+                        release(task.tenant);
+                    }
+                }, TaskExecutor.runner);
+            } catch (RejectedExecutionException e) {
+                // runner线程池已满，放回队首，等待执行中的run结束后再次调度
+                log.warn("runner pool is full, {} runs are running", running);
+                running--;
+                runningByTenant.merge(task.tenant, -1, Integer::sum);
+                runningByTenant.remove(task.tenant, 0);
+                queues.get(task.priority).requeue(task);
+                queued++;
+                return;
+            }
+        }
+    }
+
+    private synchronized void release(String tenant) {
+        running--;
+        runningByTenant.merge(tenant, -1, Integer::sum);
+        runningByTenant.remove(tenant, 0);
+        dispatch();
+    }
+
+    /**
+     * 在有可执行租户的优先级中选择pass最小的，被选中后pass增加 STRIDE/权重
+     */
+    private Task next() {
+        ClassQueue selected = null;
+        TenantQueue tenant = null;
+        for (Priority priority : Priority.values()) {
+            ClassQueue queue = queues.get(priority);
+            if(queue.size == 0 || (selected != null && selected.pass <= queue.pass)) {
+                continue;
+            }
+            TenantQueue candidate = queue.eligible();
+            if(candidate != null) {
+                selected = queue;
+                tenant = candidate;
+            }
+        }
+        if(selected == null) {
+            return null;
+        }
+        selected.pass += STRIDE / Math.max(1, classWeight(selected.priority));
+        return selected.poll(tenant);
+    }
+
+    private int classWeight(Priority priority) {
+        return priority == Priority.INTERACTIVE ? properties.getInteractiveWeight() : properties.getBackgroundWeight();
+    }
+
+    private int weight(String tenant) {
+        return Math.max(1, properties.getTenantWeights().getOrDefault(tenant, 1));
+    }
+
+    private boolean atCapacity(String tenant) {
+        int max = properties.getMaxRunningPerTenant();
+        return max > 0 && runningByTenant.getOrDefault(tenant, 0) >= max;
+    }
+
+    private static class Task {
+        private final String tenant;
+        private final Priority priority;
+        private final Runnable runnable;
+        private final Runnable onDrained;
+        private final long enqueueNanos = System.nanoTime();
+
+        private Task(String tenant, Priority priority, Runnable runnable, Runnable onDrained) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.runnable = runnable;
+            this.onDrained = onDrained;
+        }
+    }
+
+    /**
+     * 同一优先级的等待队列，租户按pass排序，新加入的租户从当前虚拟时间开始，不能累积空闲期间的份额
+     */
+    private class ClassQueue {
+        private final Priority priority;
+        private final Map<String, TenantQueue> tenants = new LinkedHashMap<>();
+        private long pass;
+        private long virtualTime;
+        private int size;
+
+        private ClassQueue(Priority priority) {
+            this.priority = priority;
+        }
+
+        private void offer(Task task, int weight) {
+            if(size == 0) {
+                // 从空闲恢复时不能累积份额，从其他优先级的当前进度开始
+                for (ClassQueue other : queues.values()) {
+                    if(other != this && other.size > 0) {
+                        pass = Math.max(pass, other.pass);
+                    }
+                }
+            }
+            TenantQueue tenant = tenants.computeIfAbsent(task.tenant, key -> new TenantQueue(key, virtualTime));
+            tenant.weight = weight;
+            tenant.tasks.addLast(task);
+            size++;
+        }
+
+        private void requeue(Task task) {
+            TenantQueue tenant = tenants.computeIfAbsent(task.tenant, key -> new TenantQueue(key, virtualTime));
+            tenant.tasks.addFirst(task);
+            size++;
+        }
+
+        private void drainTo(List<Task> drained) {
+            for (TenantQueue tenant : tenants.values()) {
+                drained.addAll(tenant.tasks);
+            }
+            tenants.clear();
+            size = 0;
+        }
+
+        private TenantQueue eligible() {
+            TenantQueue best = null;
+            for (TenantQueue tenant : tenants.values()) {
+                if((best == null || tenant.pass < best.pass) && !atCapacity(tenant.tenant)) {
+                    best = tenant;
+                }
+            }
+            return best;
+        }
+
+        private Task poll(TenantQueue tenant) {
+            Task task = tenant.tasks.pollFirst();
+            size--;
+            virtualTime = Math.max(virtualTime, tenant.pass);
+            tenant.pass += STRIDE / tenant.weight;
+            if(tenant.tasks.isEmpty()) {
+                tenants.remove(tenant.tenant);
+            }
+            return task;
+        }
+    }
+
+    private static class TenantQueue {
+        private final String tenant;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private long pass;
+        private int weight = 1;
+
+        private TenantQueue(String tenant, long pass) {
+            this.tenant = tenant;
+            this.pass = pass;
+        }
+    }
+}
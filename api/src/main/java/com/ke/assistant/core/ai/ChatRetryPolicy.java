@@ -0,0 +1,148 @@
+package com.ke.assistant.core.ai;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ChatRetryProperties;
+import com.theokanning.openai.OpenAiHttpException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import retrofit2.HttpException;
+
+/**
+ * LLM请求的重试策略
+ * 维护每个模型的重试预算和首token延迟，计算退避时间、Retry-After和对冲阈值
+ */
+@Component
+public class ChatRetryPolicy {
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ChatRetryProperties properties;
+    private MeterRegistry meterRegistry;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getChatRetry();
+        this.meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+    }
+
+    public int getMaxRetries() {
+        return properties.getMaxRetries();
+    }
+
+    public RetryBudget budget(String model) {
+        return budgets.computeIfAbsent(StringUtils.defaultString(model),
+                key -> new RetryBudget(properties.getBudgetMaxTokens(), properties.getBudgetTokenRatio()));
+    }
+
+    /**
+     * 是否可以重试：499、429、5xx（503除外）和非HTTP错误（连接失败、读取中断等）
+     */
+    public boolean isRetryable(Throwable throwable) {
+        if(throwable instanceof OpenAiHttpException httpException) {
+            return httpException.statusCode == 499 ||
+                    httpException.statusCode == 429 ||
+                    (httpException.statusCode > 500 && httpException.statusCode != 503);
+        }
+        return true;
+    }
+
+    /**
+     * 第attempt次重试前的等待时间（毫秒），指数退避加全抖动；
+     * 服务端返回了Retry-After时至少等待该时间，超过maxRetryAfterMillis时返回-1表示不再重试
+     */
+    public long retryDelayMillis(int attempt, Throwable throwable) {
+        long cap = Math.min(properties.getBackoffMaxMillis(),
+                properties.getBackoffBaseMillis() << Math.min(attempt - 1, 20));
+        long delay = cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        if(properties.isHonorRetryAfter()) {
+            long retryAfter = retryAfterMillis(throwable);
+            if(retryAfter > properties.getMaxRetryAfterMillis()) {
+                return -1;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+        return delay;
+    }
+
+    /**
+     * 从错误的cause链中查找HTTP响应的Retry-After，支持秒数和HTTP日期两种格式，没有时返回0
+     */
+    static long retryAfterMillis(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if(cause instanceof HttpException httpException && httpException.response() != null) {
+                return parseRetryAfter(httpException.response().headers().get(RETRY_AFTER));
+            }
+        }
+        return 0;
+    }
+
+    static long parseRetryAfter(String value) {
+        if(StringUtils.isBlank(value)) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // HTTP日期格式
+        }
+        try {
+            ZonedDateTime time = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(time.getZone()), time).toMillis());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 对冲阈值（毫秒），未开启或样本不足时返回-1
+     */
+    public long hedgeDelayMillis(String model) {
+        ChatRetryProperties.HedgeProperties hedge = properties.getHedge();
+        if(!hedge.isEnabled()) {
+            return -1;
+        }
+        long delay = latency(model).percentile(hedge.getPercentile(), hedge.getMinSamples());
+        if(delay < 0) {
+            return -1;
+        }
+        return Math.min(hedge.getMaxDelayMillis(), Math.max(hedge.getMinDelayMillis(), delay));
+    }
+
+    public void recordFirstToken(String model, long millis) {
+        latency(model).record(millis);
+    }
+
+    private LatencyTracker latency(String model) {
+        return latencies.computeIfAbsent(StringUtils.defaultString(model),
+                key -> new LatencyTracker(properties.getHedge().getSampleSize()));
+    }
+
+    public void record(String name, String model, String result) {
+        if(meterRegistry != null) {
+            meterRegistry.counter(name, "model", StringUtils.defaultString(model), "result", result).increment();
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.ke.assistant.core.ai;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.core.run.Deadline;
 import com.ke.assistant.core.run.ExecutionContext;
 import com.ke.bella.openapi.server.OpenAiServiceFactory;
 import com.theokanning.openai.OpenAiHttpException;
@@ -13,86 +24,335 @@ import com.theokanning.openai.service.OpenAiService;
 
 @Component
 public class ChatService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
+    // 剩余时间少于该值时不再重试
+    private static final long MIN_RETRY_SECONDS = 10;
+
     @Autowired
     private OpenAiServiceFactory openAiServiceFactory;
-    
+
+    @Autowired
+    private ChatRetryPolicy retryPolicy;
+
+    private ScheduledThreadPoolExecutor deadlineTimer;
+
+    @PostConstruct
+    public void init() {
+        this.deadlineTimer = new ScheduledThreadPoolExecutor(1, new TaskExecutor.NamedThreadFactory("bella-llm-deadline-", true));
+        this.deadlineTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        deadlineTimer.shutdownNow();
+    }
+
     /**
      * 流式聊天完成
      */
     public void chat(ExecutionContext context) {
-        tryStreamChat(openAiServiceFactory.create(), context,0, 3);
+        // 已取消或已超时的run不再发起请求，超时由Planner在下一轮处理
+        if(context.isCanceled() || context.isTimeout()) {
+            return;
+        }
+        ChatCompletionRequest request;
+        try {
+            request = buildRequest(context);
+        } catch (Exception e) {
+            logger.error("Stream chat completion failed for model: {}", context.getModel(), e);
+            context.setError("server_error", e.getMessage());
+            return;
+        }
+        new ChatCall(openAiServiceFactory.create(), context, request).start();
     }
 
+    private ChatCompletionRequest buildRequest(ExecutionContext context) {
+        ChatCompletionRequest request = ChatCompletionRequest.builder()
+                .model(context.getModel())
+                .messages(context.getChatMessages())
+                .promptCacheKey(context.getPromptCacheKey())
+                .build();
+        if(context.getChatTools() != null && !context.getChatTools().isEmpty()) {
+            request.setTools(context.getChatTools());
+            request.setToolChoice(context.getToolChoice());
+        }
 
-    private void tryStreamChat(OpenAiService aiService, ExecutionContext context, int time, int maxTimes) {
-        ++time;
-        try {
-            logger.debug("Starting stream chat completion with model: {}", context.getModel());
+        // 添加支持的参数
+        if(context.isSupportTemperature()) {
+            request.setTemperature(context.getTemperature());
+        }
+
+        if(context.isSupportTopP()) {
+            request.setTopP(context.getTopP());
+        }
+
+        if(context.isSupportMaxTokens()) {
+            request.setMaxTokens(context.getMaxCompletionTokens());
+        }
+
+        // 开启深度思考，通常深度思考模型不支持温度参数
+        if(context.isReasoningMode()) {
+            request.setReasoningEffort(context.getRun().getReasoningEffort());
+            request.setTemperature(null);
+        }
+
+        // 启用流式响应
+        request.setStream(true);
+        return request;
+    }
+
+    private static boolean hasRetryBudget(ExecutionContext context, long delayMillis) {
+        Deadline deadline = context.getDeadline();
+        return deadline == null || deadline.hasRemaining(TimeUnit.SECONDS.toMillis(MIN_RETRY_SECONDS) + delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancel(ScheduledFuture<?> future) {
+        if(future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 一次LLM调用，包含多轮重试；每轮有一个主请求，首token超过对冲阈值时再发起一个对冲请求，
+     * 先返回token（或完成）的请求胜出，另一个请求被释放，只有胜出请求的输出会发布给run
+     * 对冲阈值来自首token延迟样本：每轮的所有请求都从该轮主请求发出时计时，被释放的请求按释放时已等待的时长记录，
+     * 只记录胜出请求会使样本偏快，阈值随之下降，对冲越来越多
+     */
+    private class ChatCall {
+        private final OpenAiService aiService;
+        private final ExecutionContext context;
+        private final ChatCompletionRequest request;
+        private final String model;
+        private final RetryBudget budget;
+        private ScheduledFuture<?> expiry;
+        private ScheduledFuture<?> pending;
+        private Round current;
+        private boolean closed;
 
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(context.getModel())
-                    .messages(context.getChatMessages())
-                    .promptCacheKey(context.getPromptCacheKey())
-                    .build();
-            if(context.getChatTools() != null && !context.getChatTools().isEmpty()) {
-                request.setTools(context.getChatTools());
-                request.setToolChoice(context.getToolChoice());
+        private ChatCall(OpenAiService aiService, ExecutionContext context, ChatCompletionRequest request) {
+            this.aiService = aiService;
+            this.context = context;
+            this.request = request;
+            this.model = context.getModel();
+            this.budget = retryPolicy.budget(model);
+        }
+
+        private synchronized void start() {
+            // 到达run的截止时间时释放订阅，唤醒RunExecutor按超时结束
+            if(context.getDeadline() != null) {
+                expiry = deadlineTimer.schedule(this::expire, context.getDeadline().remaining(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+            }
+            startRound(1);
+        }
+
+        private synchronized void startRound(int attempt) {
+            if(closed) {
+                return;
+            }
+            if(context.isCanceled() || context.isTimeout()) {
+                close();
+                return;
+            }
+            logger.debug("Starting stream chat completion with model: {}, attempt: {}", model, attempt);
+            Round round = new Round(attempt);
+            current = round;
+            round.launch(false);
+            long hedgeDelay = retryPolicy.hedgeDelayMillis(model);
+            if(hedgeDelay >= 0) {
+                pending = deadlineTimer.schedule(round::hedge, hedgeDelay, TimeUnit.MILLISECONDS);
             }
+        }
 
-            // 添加支持的参数
-            if(context.isSupportTemperature()) {
-                request.setTemperature(context.getTemperature());
+        private void expire() {
+            synchronized (this) {
+                if(closed) {
+                    return;
+                }
+                close();
+                if(current != null) {
+                    current.dispose();
+                }
             }
+            context.signalRunner();
+        }
 
-            if(context.isSupportTopP()) {
-                request.setTopP(context.getTopP());
+        private synchronized void close() {
+            closed = true;
+            cancel(expiry);
+            cancel(pending);
+        }
+
+        private class Round {
+            private final int attempt;
+            private final long startNanos = System.nanoTime();
+            private final List<Stream> streams = new ArrayList<>();
+            private volatile Stream winner;
+
+            private Round(int attempt) {
+                this.attempt = attempt;
             }
 
-            if(context.isSupportMaxTokens()) {
-                request.setMaxTokens(context.getMaxCompletionTokens());
+            private void hedge() {
+                synchronized (ChatCall.this) {
+                    if(closed || winner != null || streams.stream().noneMatch(s -> s.alive) || !budget.tryAcquire()) {
+                        return;
+                    }
+                    retryPolicy.record("bella.llm.hedges", model, "launched");
+                    launch(true);
+                }
             }
 
-            // 开启深度思考，通常深度思考模型不支持温度参数
-            if(context.isReasoningMode()) {
-                request.setReasoningEffort(context.getRun().getReasoningEffort());
-                request.setTemperature(null);
+            // 调用方持有ChatCall的锁
+            private void launch(boolean hedged) {
+                Stream stream = new Stream(hedged);
+                streams.add(stream);
+                try {
+                    var subscription = aiService.streamChatCompletion(request)
+                            .subscribe(chunk -> onChunk(stream, chunk), throwable -> onError(stream, throwable), () -> onComplete(stream));
+                    stream.dispose = subscription::dispose;
+                    // 取消时释放订阅，底层读取流的循环随之退出并关闭HTTP连接，不再继续消费token；请求结束后注销
+                    stream.unregister = context.onCancel(subscription::dispose);
+                    if(stream.finished) {
+                        // 订阅过程中请求已同步结束
+                        stream.unregister();
+                    }
+                    if(closed || (winner != null && winner != stream)) {
+                        stream.dispose();
+                    }
+                } catch (Exception e) {
+                    onError(stream, e);
+                }
             }
 
-            // 启用流式响应
-            request.setStream(true);
+            private void onChunk(Stream stream, Object chunk) {
+                if(winner != stream && !claim(stream)) {
+                    return;
+                }
+                context.publish(chunk);
+            }
 
-            int finalTime = time;
-            aiService.streamChatCompletion(request)
-                    .subscribe(context::publish, throwable -> {
-                        logger.warn(throwable.getMessage(), throwable);
-                        String code = "llm_error";
-                        String message = throwable.getMessage();
-                        boolean retry = true;
-                        if(throwable instanceof OpenAiHttpException httpException) {
-                            code = httpException.type;
-                            message = httpException.getMessage();
-                            retry = httpException.statusCode == 499 ||
-                                    httpException.statusCode == 429 ||
-                                    (httpException.statusCode > 500 && httpException.statusCode != 503);
+            /**
+             * 第一个返回的请求胜出，释放其他请求
+             */
+            private boolean claim(Stream stream) {
+                synchronized (ChatCall.this) {
+                    if(winner != null || closed) {
+                        return winner == stream;
+                    }
+                    winner = stream;
+                    cancel(pending);
+                    // 被释放的请求的首token延迟不短于当前已等待的时长，按该时长记录
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    for (Stream other : streams) {
+                        if(other == stream || other.alive) {
+                            retryPolicy.recordFirstToken(model, elapsed);
+                        }
+                        if(other != stream) {
+                            other.dispose();
                         }
-                        if(!retry || finalTime > maxTimes) {
-                            context.setError(code, message);
+                    }
+                    if(stream.hedged) {
+                        retryPolicy.record("bella.llm.hedges", model, "won");
+                    }
+                    return true;
+                }
+            }
+
+            private void onComplete(Stream stream) {
+                stream.unregister();
+                if(!claim(stream)) {
+                    return;
+                }
+                close();
+                budget.recordSuccess();
+                context.publish("[LLM_DONE]");
+            }
+
+            private void onError(Stream stream, Throwable throwable) {
+                stream.unregister();
+                logger.warn(throwable.getMessage(), throwable);
+                long delay;
+                synchronized (ChatCall.this) {
+                    stream.alive = false;
+                    // 被释放的请求、或仍有其他请求在进行时忽略该错误
+                    if(closed || (winner != null && winner != stream)
+                            || (winner == null && streams.stream().anyMatch(s -> s.alive))) {
+                        return;
+                    }
+                    boolean retryable = retryPolicy.isRetryable(throwable);
+                    delay = -1;
+                    if(retryable) {
+                        budget.recordFailure();
+                        if(attempt > retryPolicy.getMaxRetries()) {
+                            retryPolicy.record("bella.llm.retries", model, "exhausted");
+                        } else if(!budget.allowRetry()) {
+                            retryPolicy.record("bella.llm.retries", model, "throttled");
                         } else {
-                            tryStreamChat(aiService, context, finalTime, maxTimes);
+                            delay = retryPolicy.retryDelayMillis(attempt, throwable);
+                            if(delay < 0 || !hasRetryBudget(context, delay)) {
+                                delay = -1;
+                                retryPolicy.record("bella.llm.retries", model, "deadline");
+                            }
                         }
-                    }, () -> context.publish("[LLM_DONE]"));
+                    }
+                    if(delay >= 0) {
+                        retryPolicy.record("bella.llm.retries", model, "scheduled");
+                        logger.info("retry stream chat completion with model: {} in {}ms, attempt: {}", model, delay, attempt + 1);
+                        cancel(pending);
+                        pending = deadlineTimer.schedule(() -> startRound(attempt + 1), delay, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                    close();
+                }
+                String code = "llm_error";
+                String message = throwable.getMessage();
+                if(throwable instanceof OpenAiHttpException httpException) {
+                    code = httpException.type;
+                    message = httpException.getMessage();
+                }
+                context.setError(code, message);
+            }
 
-        } catch (Exception e) {
-            logger.warn(e.getMessage(), e);
-            if(time < maxTimes) {
-                tryStreamChat(aiService, context, time, maxTimes);
-                return;
+            private void dispose() {
+                for (Stream stream : streams) {
+                    stream.dispose();
+                }
+            }
+        }
+
+        private class Stream {
+            private final boolean hedged;
+            private volatile Runnable dispose;
+            private volatile Runnable unregister;
+            private volatile boolean finished;
+            private volatile boolean alive = true;
+
+            private Stream(boolean hedged) {
+                this.hedged = hedged;
+            }
+
+            private void dispose() {
+                alive = false;
+                Runnable dispose = this.dispose;
+                if(dispose != null) {
+                    dispose.run();
+                }
+                unregister();
+            }
+
+            /**
+             * 注销取消回调，避免已结束的请求在整个run期间留在取消信号上
+             */
+            private void unregister() {
+                finished = true;
+                Runnable unregister = this.unregister;
+                if(unregister != null) {
+                    this.unregister = null;
+                    unregister.run();
+                }
             }
-            logger.error("Stream chat completion failed for model: {}", context.getModel(), e);
-            context.setError("server_error", e.getMessage());
         }
     }
 }
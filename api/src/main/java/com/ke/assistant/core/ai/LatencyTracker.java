@@ -0,0 +1,41 @@
+package com.ke.assistant.core.ai;
+
+import java.util.Arrays;
+
+/**
+ * 首token延迟的滑动窗口，保留最近的sampleSize个样本用于计算分位数
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int sampleSize) {
+        this.samples = new long[Math.max(1, sampleSize)];
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if(count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * 样本数不足minSamples时返回-1
+     */
+    public long percentile(double percentile, int minSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if(count == 0 || count < minSamples) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+}
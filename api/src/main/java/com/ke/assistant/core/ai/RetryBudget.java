@@ -0,0 +1,46 @@
+package com.ke.assistant.core.ai;
+
+/**
+ * 按模型共享的重试令牌桶
+ * 每次可重试的失败和每个发出的对冲请求消耗1个令牌，每次成功补充tokenRatio个令牌，令牌不超过上限的一半时不再重试和对冲；
+ * 服务商持续失败时重试量被限制在成功量的tokenRatio倍以内
+ */
+public class RetryBudget {
+
+    private final double maxTokens;
+    private final double tokenRatio;
+    private double tokens;
+
+    public RetryBudget(double maxTokens, double tokenRatio) {
+        this.maxTokens = maxTokens;
+        this.tokenRatio = tokenRatio;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized boolean allowRetry() {
+        return tokens > maxTokens / 2;
+    }
+
+    /**
+     * 令牌充足时消耗1个令牌，用于发出对冲请求
+     */
+    public synchronized boolean tryAcquire() {
+        if(!allowRetry()) {
+            return false;
+        }
+        tokens = Math.max(0, tokens - 1);
+        return true;
+    }
+
+    public synchronized void recordFailure() {
+        tokens = Math.max(0, tokens - 1);
+    }
+
+    public synchronized void recordSuccess() {
+        tokens = Math.min(maxTokens, tokens + tokenRatio);
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ke.assistant.core.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形缓冲区，多生产者单消费者
+ * 每个槽位维护一个序号，生产者通过CAS抢占写入位置，消费者按序号顺序读取
+ */
+public class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        int size = 1;
+        while (size < Math.max(capacity, 2)) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素，缓冲区已满时返回false
+     */
+    public boolean offer(E e) {
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) (index & mask);
+            long seq = sequences.get(slot);
+            if(seq == index) {
+                if(producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(slot, e);
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+            } else if(seq < index) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 批量取出元素，只能由单个消费者线程调用
+     *
+     * @return 实际取出的条数
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int count = 0;
+        long index = consumerIndex.get();
+        while (count < limit) {
+            int slot = (int) (index & mask);
+            if(sequences.get(slot) != index + 1) {
+                break;
+            }
+            E e = elements.get(slot);
+            elements.lazySet(slot, null);
+            sequences.set(slot, index + mask + 1);
+            index++;
+            count++;
+            consumer.accept(e);
+        }
+        consumerIndex.lazySet(index);
+        return count;
+    }
+
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.ke.assistant.core.log;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,10 @@ public class RunLog {
     private Map<String, FileInfo> fileInfos;
     private Map<String, Object> additionalInfo;
     private boolean isMock;
+    // 发送队列统计
+    private Integer senderQueuePeakDepth;
+    private Long senderQueueCoalesced;
+    private Boolean clientDetached;
 
     public RunLog(String event, ExecutionContext context, Map<String, Object> bellaContextSnapshot) {
         this.event = event;
@@ -76,13 +81,18 @@ public class RunLog {
             this.requestTime = context.getStartTime().atZone(ZoneId.systemDefault()).toEpochSecond();
             this.duration = LocalDateTime.now().atZone(ZoneId.systemDefault()).toEpochSecond() - this.requestTime;
         }
-        // 执行的数据信息
-        this.fileInfos = context.getFileInfos();
-        this.tools = context.getTools();
-        this.toolFiles = context.getToolFiles();
+        // 执行的数据信息，异步输出时run仍在修改这些集合，需要复制
+        this.fileInfos = context.getFileInfos() == null ? null : new HashMap<>(context.getFileInfos());
+        this.tools = context.getTools() == null ? null : new ArrayList<>(context.getTools());
+        this.toolFiles = copy(context.getToolFiles());
         this.totalSteps = context.getCurrentStep();
         this.assistantMessageId = context.getAssistantMessageId();
         this.error = context.getLastError();
+        if (context.getSenderQueue() != null) {
+            this.senderQueuePeakDepth = context.getSenderQueue().getPeakDepth();
+            this.senderQueueCoalesced = context.getSenderQueue().getCoalescedCount();
+            this.clientDetached = context.getSenderQueue().isDetached();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -105,4 +115,17 @@ public class RunLog {
         this.accountType = apikeyInfo.getOwnerType();
         this.akSha = apikeyInfo.getAkSha();
     }
+
+    private static ToolFiles copy(ToolFiles toolFiles) {
+        if(toolFiles == null) {
+            return null;
+        }
+        ToolFiles copy = new ToolFiles();
+        if(toolFiles.getTools() != null) {
+            Map<String, List<String>> tools = new HashMap<>();
+            toolFiles.getTools().forEach((tool, fileIds) -> tools.put(tool, fileIds == null ? null : new ArrayList<>(fileIds)));
+            copy.setTools(tools);
+        }
+        return copy;
+    }
 }
@@ -1,24 +1,148 @@
 package com.ke.assistant.core.log;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.RunLogProperties;
+import com.ke.assistant.core.TaskExecutor;
 import com.ke.assistant.core.run.ExecutionContext;
 import com.ke.bella.openapi.utils.JacksonUtils;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Run日志记录
+ * 异步模式下调用线程只负责构建RunLog并写入环形缓冲区，序列化和输出由独立的编码线程批量完成
+ */
 @Component
 @Slf4j
 public class RunLogger {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private RunLogProperties properties;
+    private RingBuffer<RunLog> buffer;
+    private Thread encoder;
+    private volatile boolean running;
+    // 编码线程因缓冲区为空而挂起
+    private volatile boolean idle;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getRunLog();
+        if(!properties.isAsync()) {
+            return;
+        }
+        this.buffer = new RingBuffer<>(properties.getBufferSize());
+        this.running = true;
+        this.encoder = new TaskExecutor.NamedThreadFactory("bella-run-logger-", true,
+                (t, e) -> log.error("run logger encoder error", e)).newThread(this::encodeLoop);
+        this.encoder.start();
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if(registry != null) {
+            FunctionCounter.builder("bella.run.log.dropped", dropped, AtomicLong::get).register(registry);
+            Gauge.builder("bella.run.log.buffer.size", buffer, RingBuffer::size).register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if(encoder == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(encoder);
+        try {
+            encoder.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(dropped.get() > 0) {
+            log.warn("run logger dropped {} entries", dropped.get());
+        }
+    }
+
     public void log(String event, ExecutionContext context, Map<String, Object> bellaContext) {
-        RunLog runLog = new RunLog(event, context, bellaContext);
-        log.info(JacksonUtils.serialize(runLog));
+        publish(new RunLog(event, context, bellaContext));
     }
 
     public void log(String event, Map<String, Object> bellaContext, Map<String, Object> additionalInfo) {
-        RunLog runLog = new RunLog(event, bellaContext, additionalInfo);
-        log.info(JacksonUtils.serialize(runLog));
+        publish(new RunLog(event, bellaContext, additionalInfo));
+    }
+
+    /**
+     * 因缓冲区满被丢弃的日志条数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void publish(RunLog runLog) {
+        if(buffer == null || !running) {
+            write(runLog);
+            return;
+        }
+        if(buffer.offer(runLog)) {
+            if(idle) {
+                LockSupport.unpark(encoder);
+            }
+            return;
+        }
+        if(properties.getOverflowPolicy() == RunLogProperties.OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMillis());
+            while (System.nanoTime() < deadline && running) {
+                LockSupport.unpark(encoder);
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if(buffer.offer(runLog)) {
+                    return;
+                }
+            }
+        }
+        dropped.incrementAndGet();
+    }
+
+    private void encodeLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        while (running) {
+            if(buffer.drain(this::write, batchSize) == 0) {
+                // 先标记再检查，与生产者的写入后检查配合，避免错过唤醒
+                idle = true;
+                if(buffer.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+        // 退出前输出剩余日志
+        while (buffer.drain(this::write, batchSize) > 0) {
+            // continue
+        }
+    }
+
+    private void write(RunLog runLog) {
+        try {
+            log.info(JacksonUtils.serialize(runLog));
+        } catch (Exception e) {
+            log.warn("serialize run log failed, event: {}", runLog.getEvent(), e);
+        }
     }
 }
@@ -0,0 +1,20 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.util.List;
+
+/**
+ * 向量化服务，长期记忆使用其结果建立索引和查询
+ * 可通过声明同类型的Bean替换默认实现
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * 批量向量化，返回结果与输入一一对应
+     */
+    List<float[]> embed(List<String> texts);
+
+    /**
+     * 向量化服务的标识（如模型名），标识变化时旧索引不再可用
+     */
+    String name();
+}
@@ -0,0 +1,56 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * 本地的确定性向量化实现，对字符unigram和bigram做特征哈希
+ * 不依赖外部服务，相同文本始终得到相同向量，用于测试和离线环境；字面重合越多相似度越高，不具备语义理解能力
+ */
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int dimension;
+
+    public HashingEmbeddingProvider(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    @Override
+    public String name() {
+        return "hashing-" + dimension;
+    }
+
+    private float[] embed(String text) {
+        float[] vector = new float[dimension];
+        String normalized = text == null ? "" : text.toLowerCase();
+        int[] codePoints = normalized.codePoints().filter(c -> !Character.isWhitespace(c)).toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            add(vector, new String(codePoints, i, 1));
+            if(i + 1 < codePoints.length) {
+                add(vector, new String(codePoints, i, 2));
+            }
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, String feature) {
+        long hash = HASH.hashString(feature, StandardCharsets.UTF_8).asLong();
+        // 低位决定维度，最高位决定正负，减少哈希冲突带来的偏差
+        vector[(int) Math.floorMod(hash, (long) dimension)] += hash < 0 ? -1 : 1;
+    }
+}
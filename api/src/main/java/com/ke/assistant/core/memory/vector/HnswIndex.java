@@ -0,0 +1,331 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 内存中的HNSW近似最近邻索引，使用余弦相似度
+ * 向量写入时归一化，相似度即点积；层级由固定种子的随机数决定，相同的写入顺序得到相同的图，便于从日志重建
+ * 写入互斥，查询并发
+ */
+public class HnswIndex {
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> keys = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        if(dimension <= 0 || m < 2) {
+            throw new IllegalArgumentException("invalid hnsw params, dimension: " + dimension + ", m: " + m);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return keys.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入向量，key已存在时忽略
+     * @return 是否写入
+     */
+    public boolean add(String key, float[] vector) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if(keys.containsKey(key)) {
+                return false;
+            }
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            int id = nodes.size();
+            Node node = new Node(key, normalized, level);
+            nodes.add(node);
+            keys.put(key, id);
+            if(entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return true;
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(normalized, current, efConstruction, l);
+                int maxLinks = l == 0 ? maxM0 : m;
+                List<Candidate> selected = selectNeighbors(candidates, m);
+                for (Candidate candidate : selected) {
+                    node.link(l, candidate.id, maxLinks);
+                    connect(candidate.id, id, l, maxLinks);
+                }
+                current = candidates.get(0).id;
+            }
+            if(level > maxLevel) {
+                maxLevel = level;
+                entryPoint = id;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询最相似的k个向量
+     * @param ef 查询时的候选集大小，越大召回越高
+     */
+    public List<SearchResult> search(float[] query, int k, int ef) {
+        if(k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if(entryPoint < 0) {
+                return Collections.emptyList();
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            List<Candidate> candidates = searchLayer(normalized, current, Math.max(ef, k), 0);
+            List<SearchResult> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && i < k; i++) {
+                Candidate candidate = candidates.get(i);
+                results.add(new SearchResult(nodes.get(candidate.id).key, candidate.similarity));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double best = dot(query, nodes.get(current).vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.linkCount(level); i++) {
+                int neighbor = node.links[level][i];
+                double similarity = dot(query, nodes.get(neighbor).vector);
+                if(similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在指定层上做best-first搜索，返回按相似度降序排列的候选
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        boolean[] visited = new boolean[nodes.size()];
+        Candidate first = new Candidate(start, dot(query, nodes.get(start).vector));
+        visited[start] = true;
+        // 待扩展的候选，相似度高的优先
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.similarity).reversed());
+        // 当前结果集，相似度低的在堆顶便于淘汰
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(c -> c.similarity));
+        frontier.add(first);
+        results.add(first);
+        while (!frontier.isEmpty()) {
+            Candidate candidate = frontier.poll();
+            if(results.size() >= ef && candidate.similarity < results.peek().similarity) {
+                break;
+            }
+            Node node = nodes.get(candidate.id);
+            for (int i = 0; i < node.linkCount(level); i++) {
+                int neighbor = node.links[level][i];
+                if(visited[neighbor]) {
+                    continue;
+                }
+                visited[neighbor] = true;
+                double similarity = dot(query, nodes.get(neighbor).vector);
+                if(results.size() < ef || similarity > results.peek().similarity) {
+                    Candidate next = new Candidate(neighbor, similarity);
+                    frontier.add(next);
+                    results.add(next);
+                    if(results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble((Candidate c) -> c.similarity).reversed());
+        return sorted;
+    }
+
+    /**
+     * 启发式选择邻居：候选与已选邻居的相似度高于与目标的相似度时跳过，保留不同方向的连接
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        for (Candidate candidate : candidates) {
+            if(selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            float[] vector = nodes.get(candidate.id).vector;
+            for (Candidate chosen : selected) {
+                if(dot(vector, nodes.get(chosen.id).vector) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if(diverse) {
+                selected.add(candidate);
+            }
+        }
+        // 启发式选出的邻居不足时按相似度补齐
+        for (int i = 0; i < candidates.size() && selected.size() < max; i++) {
+            if(!selected.contains(candidates.get(i))) {
+                selected.add(candidates.get(i));
+            }
+        }
+        return selected;
+    }
+
+    private void connect(int from, int to, int level, int maxLinks) {
+        Node node = nodes.get(from);
+        if(node.linkCount(level) < maxLinks) {
+            node.link(level, to, maxLinks);
+            return;
+        }
+        // 连接已满，重新选出最相似的邻居
+        List<Candidate> candidates = new ArrayList<>(maxLinks + 1);
+        candidates.add(new Candidate(to, dot(node.vector, nodes.get(to).vector)));
+        for (int i = 0; i < node.linkCount(level); i++) {
+            int neighbor = node.links[level][i];
+            candidates.add(new Candidate(neighbor, dot(node.vector, nodes.get(neighbor).vector)));
+        }
+        candidates.sort(Comparator.comparingDouble((Candidate c) -> c.similarity).reversed());
+        List<Candidate> selected = selectNeighbors(candidates, maxLinks);
+        node.linkCounts[level] = 0;
+        for (Candidate candidate : selected) {
+            node.link(level, candidate.id, maxLinks);
+        }
+    }
+
+    private float[] normalize(float[] vector) {
+        if(vector.length != dimension) {
+            throw new IllegalArgumentException("dimension mismatch, expected " + dimension + " but was " + vector.length);
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        if(norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private final class Node {
+        private final String key;
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+
+        private Node(String key, float[] vector, int level) {
+            this.key = key;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[(l == 0 ? maxM0 : m) + 1];
+            }
+        }
+
+        private int linkCount(int level) {
+            return level < linkCounts.length ? linkCounts[level] : 0;
+        }
+
+        private void link(int level, int target, int maxLinks) {
+            if(linkCounts[level] < maxLinks) {
+                links[level][linkCounts[level]++] = target;
+            }
+        }
+    }
+
+    private static final class Candidate {
+        private final int id;
+        private final double similarity;
+
+        private Candidate(int id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * 查询结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class SearchResult {
+        private final String key;
+        private final double score;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.ke.bella.openapi.server.OpenAiServiceFactory;
+import com.theokanning.openai.embedding.Embedding;
+import com.theokanning.openai.embedding.EmbeddingRequest;
+import com.theokanning.openai.embedding.EmbeddingResult;
+
+/**
+ * 调用向量化模型的实现，使用当前请求的BellaContext鉴权
+ */
+public class OpenAiEmbeddingProvider implements EmbeddingProvider {
+
+    private final OpenAiServiceFactory openAiServiceFactory;
+    private final String model;
+
+    public OpenAiEmbeddingProvider(OpenAiServiceFactory openAiServiceFactory, String model) {
+        this.openAiServiceFactory = openAiServiceFactory;
+        this.model = model;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        EmbeddingResult result = openAiServiceFactory.create().createEmbeddings(EmbeddingRequest.builder()
+                .model(model)
+                .input(texts)
+                .build());
+        List<Embedding> data = new ArrayList<>(result.getData());
+        data.sort(Comparator.comparingInt(Embedding::getIndex));
+        List<float[]> vectors = new ArrayList<>(data.size());
+        for (Embedding embedding : data) {
+            List<Double> values = embedding.getEmbedding();
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = values.get(i).floatValue();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    @Override
+    public String name() {
+        return model;
+    }
+}
@@ -0,0 +1,282 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 一个thread的长期记忆分区：HNSW索引加上追加写的日志文件
+ * 每条记忆写入索引后追加到日志，打开分区时按日志顺序重建索引；日志尾部不完整的记录（写入中途宕机）会被截断
+ * 日志头记录向量化服务标识，标识变化时旧数据无法与新向量比较，直接丢弃
+ * 删除记忆时追加一条向量维度为0的删除记录，节点仍保留在图中用于导航，查询结果中过滤；删除记录先于写入到达时，之后的写入被忽略
+ * 消息内容修改后再次写入时追加新记录，新向量作为新节点加入图中，旧节点与删除的节点一样保留并在查询结果中过滤；重建索引时同一消息以最后一条记录为准
+ */
+@Slf4j
+public class VectorMemoryPartition implements Closeable {
+
+    private static final int MAGIC = 0x424d454d;
+    private static final int VERSION = 1;
+    private static final long SEED = 42;
+
+    private final Path file;
+    private final String embeddingName;
+    private final int m;
+    private final int efConstruction;
+    // 有效的记忆，key为图中的节点key
+    private final Map<String, MemoryEntry> entries = new ConcurrentHashMap<>();
+    // 消息当前对应的节点key，首次写入为消息id，修改后为消息id加序号
+    private final Map<String, String> nodeKeys = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+    private volatile HnswIndex index;
+    private DataOutputStream out;
+
+    public VectorMemoryPartition(Path file, String embeddingName, int m, int efConstruction) {
+        this.file = file;
+        this.embeddingName = embeddingName;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        load();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String messageId) {
+        return nodeKeys.containsKey(messageId);
+    }
+
+    /**
+     * 消息内容与已写入的记忆相同时返回true，此时无需重新向量化
+     */
+    public boolean isIndexed(String messageId, String text) {
+        String nodeKey = nodeKeys.get(messageId);
+        MemoryEntry entry = nodeKey == null ? null : entries.get(nodeKey);
+        return entry != null && entry.getText().equals(text);
+    }
+
+    /**
+     * 写入一条记忆，消息已存在且内容相同时忽略，内容变化时替换；已删除的消息忽略
+     */
+    public synchronized boolean add(MemoryEntry entry, float[] vector) {
+        if(removed.contains(entry.getMessageId()) || isIndexed(entry.getMessageId(), entry.getText())) {
+            return false;
+        }
+        if(!put(entry, vector)) {
+            return false;
+        }
+        try {
+            append(entry, vector);
+        } catch (IOException e) {
+            throw new UncheckedIOException("append memory log failed: " + file, e);
+        }
+        return true;
+    }
+
+    /**
+     * 删除一条记忆
+     * @return 是否新增了删除记录，已删除过时返回false
+     */
+    public synchronized boolean remove(String messageId) {
+        if(!removed.add(messageId)) {
+            return false;
+        }
+        drop(messageId);
+        try {
+            append(new MemoryEntry(messageId, "", "", 0), new float[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("append memory log failed: " + file, e);
+        }
+        return true;
+    }
+
+    /**
+     * 查询相似的记忆，按相似度降序
+     */
+    public List<ScoredEntry> search(float[] query, int topK, int ef, double threshold) {
+        HnswIndex current = index;
+        if(current == null || query.length != current.dimension()) {
+            return new ArrayList<>();
+        }
+        // 已删除和被替换的节点仍可能出现在候选中，多取这部分数量的结果再过滤
+        int k = topK + Math.max(0, current.size() - entries.size());
+        List<ScoredEntry> results = new ArrayList<>();
+        for (HnswIndex.SearchResult result : current.search(query, k, Math.max(ef, k))) {
+            if(results.size() >= topK) {
+                break;
+            }
+            MemoryEntry entry = entries.get(result.getKey());
+            if(entry != null && result.getScore() >= threshold) {
+                results.add(new ScoredEntry(entry, result.getScore()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("close memory log failed: {}", file, e);
+            }
+            out = null;
+        }
+    }
+
+    private void append(MemoryEntry entry, float[] vector) throws IOException {
+        if(out == null) {
+            Files.createDirectories(file.getParent());
+            boolean exists = Files.exists(file) && Files.size(file) > 0;
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            if(!exists) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, embeddingName);
+            }
+        }
+        writeString(out, entry.getMessageId());
+        writeString(out, entry.getRole());
+        writeString(out, entry.getText());
+        out.writeLong(entry.getCreatedAt());
+        out.writeInt(vector.length);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+        out.flush();
+    }
+
+    private void load() {
+        if(!Files.exists(file)) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if(!compatible(buffer)) {
+                log.warn("memory log {} is incompatible, discard it", file);
+                Files.delete(file);
+                return;
+            }
+            int valid = buffer.position();
+            while (buffer.hasRemaining()) {
+                try {
+                    MemoryEntry entry = new MemoryEntry(readString(buffer), readString(buffer), readString(buffer), buffer.getLong());
+                    int dimension = buffer.getInt();
+                    if(dimension == 0) {
+                        removed.add(entry.getMessageId());
+                        drop(entry.getMessageId());
+                        valid = buffer.position();
+                        continue;
+                    }
+                    if(dimension < 0 || dimension > buffer.remaining() / Float.BYTES) {
+                        throw new BufferUnderflowException();
+                    }
+                    float[] vector = new float[dimension];
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] = buffer.getFloat();
+                    }
+                    if(!removed.contains(entry.getMessageId())) {
+                        put(entry, vector);
+                    }
+                    valid = buffer.position();
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    log.warn("memory log {} has a broken tail at {}, truncate it", file, valid);
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                    }
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("load memory log failed: " + file, e);
+        }
+    }
+
+    /**
+     * 将向量加入图中并指向该消息，替换时旧节点保留在图中
+     */
+    private boolean put(MemoryEntry entry, float[] vector) {
+        if(index == null) {
+            index = new HnswIndex(vector.length, m, efConstruction, SEED);
+        }
+        String messageId = entry.getMessageId();
+        String nodeKey = index.contains(messageId) ? messageId + "#" + index.size() : messageId;
+        if(!index.add(nodeKey, vector)) {
+            return false;
+        }
+        drop(messageId);
+        nodeKeys.put(messageId, nodeKey);
+        entries.put(nodeKey, entry);
+        return true;
+    }
+
+    private void drop(String messageId) {
+        String nodeKey = nodeKeys.remove(messageId);
+        if(nodeKey != null) {
+            entries.remove(nodeKey);
+        }
+    }
+
+    private boolean compatible(ByteBuffer buffer) {
+        try {
+            return buffer.getInt() == MAGIC && buffer.getInt() == VERSION && embeddingName.equals(readString(buffer));
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一条记忆
+     */
+    @Data
+    @AllArgsConstructor
+    public static class MemoryEntry {
+        private String messageId;
+        private String role;
+        private String text;
+        private long createdAt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ScoredEntry {
+        private final MemoryEntry entry;
+        private final double score;
+    }
+}
@@ -0,0 +1,259 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.LongMemoryProperties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.db.context.RepoContext;
+import com.ke.bella.openapi.BellaContext;
+import com.theokanning.openai.assistants.message.Message;
+import com.theokanning.openai.assistants.message.MessageContent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 长期记忆存储
+ * 消息完成后在索引线程池中异步向量化并写入该thread的分区；查询时只加载已存在的分区
+ * 分区文件保存在各实例的本地磁盘上，实例之间不共享：同一thread的消息由不同实例写入时各自只有一部分，
+ * 请求落到不同实例时召回结果不同，实例重建或更换磁盘后已有记忆丢失；删除也只作用于执行删除的实例
+ */
+@Slf4j
+@Component
+public class VectorMemoryStore {
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    private LongMemoryProperties properties;
+    private Path dataDir;
+    private ThreadPoolExecutor indexExecutor;
+    private Cache<String, VectorMemoryPartition> partitions;
+    // 等待索引的消息及其最后提交的序号
+    private final Map<String, Long> pendingRevisions = new ConcurrentHashMap<>();
+    private final AtomicLong revisions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getLongMemory();
+        if(!properties.isEnabled()) {
+            return;
+        }
+        this.dataDir = Paths.get(properties.getDataDir());
+        int threads = Math.max(1, properties.getIndexThreads());
+        this.indexExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getIndexQueueCapacity())),
+                new TaskExecutor.NamedThreadFactory("bella-memory-index-", true));
+        this.partitions = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaxOpenPartitions())
+                .expireAfterAccess(properties.getPartitionExpireMinutes(), TimeUnit.MINUTES)
+                .removalListener((RemovalListener<String, VectorMemoryPartition>) notification -> notification.getValue().close())
+                .build();
+        log.info("long memory enabled, embedding: {}, data dir: {}", embeddingProvider.name(), dataDir.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(indexExecutor != null) {
+            indexExecutor.shutdown();
+            try {
+                indexExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(partitions != null) {
+            partitions.invalidateAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 异步索引已完成或修改后的消息，只索引user和assistant的文本内容，不保存的消息不索引
+     * 同一消息有多个索引任务时只写入最后提交的内容
+     */
+    public void indexMessage(String threadId, Message message) {
+        if(!properties.isEnabled() || RepoContext.isActive() || message == null || message.getId() == null) {
+            return;
+        }
+        if(!"user".equals(message.getRole()) && !"assistant".equals(message.getRole())) {
+            return;
+        }
+        String text = extractText(message.getContent());
+        if(text.isEmpty()) {
+            return;
+        }
+        long createdAt = Objects.requireNonNullElse(message.getCreatedAt(), 0);
+        VectorMemoryPartition.MemoryEntry entry = new VectorMemoryPartition.MemoryEntry(message.getId(), message.getRole(), text, createdAt);
+        // 向量化服务需要当前请求的鉴权信息
+        Map<String, Object> bellaContext = BellaContext.snapshot();
+        String messageId = entry.getMessageId();
+        long revision = revisions.incrementAndGet();
+        pendingRevisions.put(messageId, revision);
+        BooleanSupplier latest = () -> Objects.equals(pendingRevisions.get(messageId), revision);
+        try {
+            indexExecutor.execute(() -> {
+                try {
+                    BellaContext.replace(bellaContext);
+                    index(threadId, entry, latest);
+                } catch (Exception e) {
+                    log.warn("index memory failed, threadId: {}, messageId: {}", threadId, messageId, e);
+                } finally {
+                    pendingRevisions.remove(messageId, revision);
+                    BellaContext.clearAll();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingRevisions.remove(messageId, revision);
+            log.warn("memory index queue is full, skip message: {}", messageId);
+        }
+    }
+
+    /**
+     * 同步索引，供异步任务和测试使用；消息已索引且内容相同时不重新向量化，内容变化时替换
+     */
+    public boolean index(String threadId, VectorMemoryPartition.MemoryEntry entry) {
+        return index(threadId, entry, () -> true);
+    }
+
+    /**
+     * @param latest 是否仍是该消息最后提交的内容，向量化前后各检查一次，避免较早的修改覆盖较晚的修改
+     */
+    private boolean index(String threadId, VectorMemoryPartition.MemoryEntry entry, BooleanSupplier latest) {
+        VectorMemoryPartition partition = partition(threadId, true);
+        if(!latest.getAsBoolean() || partition.isIndexed(entry.getMessageId(), entry.getText())) {
+            return false;
+        }
+        float[] vector = embeddingProvider.embed(Collections.singletonList(entry.getText())).get(0);
+        synchronized (partition) {
+            return latest.getAsBoolean() && partition.add(entry, vector);
+        }
+    }
+
+    /**
+     * 查询与query相关的历史消息
+     */
+    public List<VectorMemoryPartition.ScoredEntry> search(String threadId, String query, int topK, double threshold) {
+        if(!properties.isEnabled() || threadId == null) {
+            return new ArrayList<>();
+        }
+        VectorMemoryPartition partition = partition(threadId, false);
+        if(partition == null || partition.size() == 0) {
+            return new ArrayList<>();
+        }
+        float[] vector = embeddingProvider.embed(Collections.singletonList(truncate(query))).get(0);
+        return partition.search(vector, topK, Math.max(properties.getEfSearch(), topK), threshold);
+    }
+
+    /**
+     * 删除一条消息的记忆
+     */
+    public void deleteMessage(String threadId, String messageId) {
+        if(!properties.isEnabled() || RepoContext.isActive() || threadId == null || messageId == null) {
+            return;
+        }
+        try {
+            // 分区不存在时也写入删除记录，避免尚在索引队列中的消息在删除后写入
+            partition(threadId, true).remove(messageId);
+        } catch (Exception e) {
+            log.warn("delete memory failed, threadId: {}, messageId: {}", threadId, messageId, e);
+        }
+    }
+
+    /**
+     * 删除thread的记忆
+     */
+    public void deleteThread(String threadId) {
+        if(!properties.isEnabled()) {
+            return;
+        }
+        partitions.invalidate(threadId);
+        try {
+            Files.deleteIfExists(partitionFile(threadId));
+        } catch (IOException e) {
+            log.warn("delete memory partition failed, threadId: {}", threadId, e);
+        }
+    }
+
+    private VectorMemoryPartition partition(String threadId, boolean create) {
+        VectorMemoryPartition partition = partitions.getIfPresent(threadId);
+        if(partition != null) {
+            return partition;
+        }
+        Path file = partitionFile(threadId);
+        if(!create && !Files.exists(file)) {
+            return null;
+        }
+        try {
+            return partitions.get(threadId, () -> new VectorMemoryPartition(file, embeddingProvider.name(),
+                    properties.getM(), properties.getEfConstruction()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 按threadId的hash分目录，避免单个目录下文件过多
+     */
+    private Path partitionFile(String threadId) {
+        String hash = Hashing.murmur3_128().hashString(threadId, StandardCharsets.UTF_8).toString();
+        return dataDir.resolve(hash.substring(0, 2)).resolve(hash + ".mem");
+    }
+
+    private String extractText(List<MessageContent> contents) {
+        if(contents == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (MessageContent content : contents) {
+            if("text".equals(content.getType()) && content.getText() != null && content.getText().getValue() != null) {
+                if(sb.length() > 0) {
+                    sb.append('\n');
+                }
+                sb.append(content.getText().getValue());
+            }
+        }
+        return truncate(sb.toString().trim());
+    }
+
+    private String truncate(String text) {
+        return text.length() > properties.getMaxTextChars() ? text.substring(0, properties.getMaxTextChars()) : text;
+    }
+}
@@ -1,6 +1,5 @@
 package com.ke.assistant.core.plan;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -11,17 +10,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.ke.assistant.core.memory.ContextTruncator;
+import com.ke.assistant.core.plan.template.PromptTemplateEngine;
 import com.ke.assistant.core.plan.template.TemplateContext;
 import com.ke.assistant.core.plan.template.TemplateContextBuilder;
 import com.ke.assistant.core.run.ExecutionContext;
 import com.ke.assistant.core.tools.ToolFetcher;
-import com.ke.assistant.core.tools.handlers.definition.CustomToolHandler;
 import com.ke.assistant.service.MessageService;
 import com.ke.assistant.service.RunService;
 import com.ke.assistant.util.MessageUtils;
 import com.ke.assistant.util.MetaConstants;
-import com.ke.bella.openapi.utils.JacksonUtils;
-import com.ke.bella.openapi.utils.Renders;
 import com.theokanning.openai.assistants.assistant.Tool;
 import com.theokanning.openai.assistants.message.Message;
 import com.theokanning.openai.assistants.message.MessageContent;
@@ -29,7 +26,6 @@ import com.theokanning.openai.assistants.run_step.RunStep;
 import com.theokanning.openai.assistants.run_step.StepDetails;
 import com.theokanning.openai.completion.chat.AssistantMultipleMessage;
 import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.completion.chat.ChatTool;
 import com.theokanning.openai.completion.chat.SystemMessage;
 
 /**
@@ -47,6 +43,8 @@ public class Planner {
     private RunService runService;
     @Autowired
     private ContextTruncator truncator;
+    @Autowired
+    private PromptTemplateEngine templateEngine;
 
     /**
      * 规划下一步动作
@@ -218,12 +216,12 @@ public class Planner {
 
         for(Message message : messages) {
             if(message.getRole().equals("user")) {
-                ChatMessage chatMessage = MessageUtils.formatChatCompletionMessage(message, context.getFileInfos(), context.isVisionModel());
+                ChatMessage chatMessage = MessageUtils.formatChatCompletionMessage(message, context.getFileInfos(), context.isVisionModel(), templateEngine);
                 if(chatMessage != null) {
                     context.addChatMessage(chatMessage);
                 }
             } else if(message.getRole().equals("assistant")) {
-                ChatMessage assistantMessage = MessageUtils.formatChatCompletionMessage(message, context.getFileInfos(), context.isVisionModel());
+                ChatMessage assistantMessage = MessageUtils.formatChatCompletionMessage(message, context.getFileInfos(), context.isVisionModel(), templateEngine);
                 if(message.getRunId() != null && runStepMap.containsKey(message.getRunId())) {
                     for (RunStep runStep : runStepMap.get(message.getRunId())) {
                         buildToolMessage(context, runStep);
@@ -290,29 +288,7 @@ public class Planner {
             return;
         }
         for(Tool tool : context.getTools()) {
-            ChatTool chatTool;
-            if(tool instanceof Tool.Function function) {
-                chatTool = new ChatTool();
-                chatTool.setFunction(function.getFunction());
-            } else if(tool instanceof Tool.Custom custom) {
-                chatTool = new ChatTool();
-                Tool.FunctionDefinition definition = new Tool.FunctionDefinition();
-                definition.setName(CustomToolHandler.getToolName(custom.getDefinition()));
-                definition.setDescription(CustomToolHandler.getDescription(custom.getDefinition()));
-                definition.setParameters(CustomToolHandler.getParameters(custom.getDefinition()));
-                definition.setStrict(true);
-                chatTool.setFunction(definition);
-            } else if(tool instanceof Tool.MCP mcp) {
-                chatTool = new ChatTool();
-                Tool.FunctionDefinition definition = new Tool.FunctionDefinition();
-                definition.setName(mcp.getDefinition().getServerLabel());
-                definition.setDescription(mcp.getDefinition().getServerDescription());
-                definition.setParameters(new HashMap<>());
-                chatTool.setFunction(definition);
-            } else {
-                chatTool = toolFetcher.fetchChatTool(tool.getType());
-            }
-            context.addChatTool(chatTool);
+            context.addChatTool(toolFetcher.fetchChatTool(tool));
         }
     }
 
@@ -335,7 +311,7 @@ public class Planner {
             TemplateContext templateContext = TemplateContextBuilder.buildTemplateContext(context);
             
             // 使用模板服务渲染系统提示词
-            return Renders.render("templates/planner_prompt.pebble", JacksonUtils.toMap(templateContext));
+            return templateEngine.renderPlannerPrompt(templateContext);
             
         } catch (Exception e) {
             logger.warn("Failed to render system prompt template for run: {}, falling back to original instructions", 
@@ -0,0 +1,126 @@
+package com.ke.assistant.core.plan.template;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.ke.assistant.core.file.FileInfo;
+import com.theokanning.openai.assistants.message.content.AudioData;
+
+import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.loader.ClasspathLoader;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+
+/**
+ * 提示词模板引擎
+ * 启动时预编译模板，渲染时直接绑定类型化的上下文对象，不再经过Jackson序列化为Map；
+ * 附件和音频片段只与消息本身有关，按消息ID及渲染用到的内容缓存渲染结果，避免每轮规划重复渲染整个历史
+ */
+@Component
+public class PromptTemplateEngine {
+
+    private static final String PLANNER_PROMPT = "templates/planner_prompt.pebble";
+    private static final String ATTACHMENTS = "templates/attachments.pebble";
+    private static final String AUDIO_TRANSCRIPTION = "templates/audio_transcription.pebble";
+
+    private static final long FRAGMENT_CACHE_SIZE = 10000;
+    private static final long FRAGMENT_CACHE_EXPIRE_MINUTES = 30;
+
+    private PebbleTemplate plannerPrompt;
+    private PebbleTemplate attachments;
+    private PebbleTemplate audioTranscription;
+    private Cache<String, String> fragmentCache;
+
+    @PostConstruct
+    public void init() {
+        // 提示词不是HTML，关闭自动转义
+        PebbleEngine engine = new PebbleEngine.Builder()
+                .loader(new ClasspathLoader())
+                .autoEscaping(false)
+                .build();
+        this.plannerPrompt = engine.getTemplate(PLANNER_PROMPT);
+        this.attachments = engine.getTemplate(ATTACHMENTS);
+        this.audioTranscription = engine.getTemplate(AUDIO_TRANSCRIPTION);
+        this.fragmentCache = CacheBuilder.newBuilder()
+                .maximumSize(FRAGMENT_CACHE_SIZE)
+                .expireAfterAccess(FRAGMENT_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 渲染规划器的系统提示词
+     */
+    public String renderPlannerPrompt(TemplateContext context) {
+        return evaluate(plannerPrompt, Map.of("agent", context.getAgent()));
+    }
+
+    /**
+     * 渲染消息附件的摘要信息
+     * @param messageId 消息ID，为空时不缓存（如不保存的消息）
+     */
+    public String renderAttachments(String messageId, List<FileInfo> files) {
+        if(messageId == null) {
+            return evaluate(attachments, Map.of("files", files));
+        }
+        // 文件摘要可能在消息创建后生成，缓存key包含文件及是否已有摘要
+        String key = "attachments:" + messageId + ":" + files.stream()
+                .map(file -> file.getId() + (file.getAbstractInfo() == null ? "" : "+"))
+                .collect(Collectors.joining(","));
+        return memoize(key, () -> evaluate(attachments, Map.of("files", files)));
+    }
+
+    /**
+     * 渲染音频内容的描述信息
+     * @param messageId 消息ID，为空时不缓存
+     * @param index 音频在消息内容中的位置
+     */
+    public String renderAudio(String messageId, int index, AudioData audio) {
+        if(messageId == null) {
+            return evaluate(audioTranscription, Map.of("audio", audio));
+        }
+        // 消息内容可以修改，缓存key包含模板用到的全部字段，修改后不会命中旧的渲染结果
+        String key = "audio:" + messageId + ":" + index + ":" + audio.getFileId() + ":" + audio.getFormat();
+        return memoize(key, () -> evaluate(audioTranscription, Map.of("audio", audio)));
+    }
+
+    /**
+     * 已缓存的片段数
+     */
+    long fragmentCacheSize() {
+        return fragmentCache.size();
+    }
+
+    private String memoize(String key, Callable<String> loader) {
+        try {
+            return fragmentCache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String evaluate(PebbleTemplate template, Map<String, Object> context) {
+        StringWriter writer = new StringWriter();
+        try {
+            template.evaluate(writer, context);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ke.assistant.core.run;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Run的取消信号
+ * 正在进行的LLM流式请求、工具调用等在此注册取消回调，取消时立即执行，不必等待Planner在下一轮循环中发现取消
+ */
+@Slf4j
+public class CancelSignal {
+
+    private final AtomicBoolean canceled = new AtomicBoolean(false);
+    private final CopyOnWriteArrayList<Runnable> hooks = new CopyOnWriteArrayList<>();
+    private volatile long canceledAtNanos;
+
+    /**
+     * 触发取消，只有第一次调用会执行回调
+     * @return 是否为第一次取消
+     */
+    public boolean cancel() {
+        if(!canceled.compareAndSet(false, true)) {
+            return false;
+        }
+        canceledAtNanos = System.nanoTime();
+        // 先移除再执行，与onCancel的补偿逻辑配合，保证每个回调只执行一次
+        for (Runnable hook : hooks) {
+            if(hooks.remove(hook)) {
+                runHook(hook);
+            }
+        }
+        return true;
+    }
+
+    public boolean isCanceled() {
+        return canceled.get();
+    }
+
+    /**
+     * 取消时刻（System.nanoTime），未取消时为0
+     */
+    public long getCanceledAtNanos() {
+        return canceledAtNanos;
+    }
+
+    /**
+     * 注册取消回调，已取消时立即执行
+     * @return 注销回调的操作，任务正常结束后调用
+     */
+    public Runnable onCancel(Runnable hook) {
+        hooks.add(hook);
+        // 与cancel并发时，回调可能未被遍历到，此处补偿执行
+        if(canceled.get() && hooks.remove(hook)) {
+            runHook(hook);
+        }
+        return () -> hooks.remove(hook);
+    }
+
+    /**
+     * 执行阻塞任务，取消时中断执行线程
+     * 任务结束后清除中断标记，避免影响线程池中的后续任务
+     */
+    public <T> T interruptible(Supplier<T> task) {
+        Thread worker = Thread.currentThread();
+        Object guard = new Object();
+        boolean[] running = { true };
+        Runnable unregister = onCancel(() -> {
+            synchronized (guard) {
+                if(running[0]) {
+                    worker.interrupt();
+                }
+            }
+        });
+        try {
+            return task.get();
+        } finally {
+            unregister.run();
+            synchronized (guard) {
+                running[0] = false;
+            }
+            Thread.interrupted();
+        }
+    }
+
+    private static void runHook(Runnable hook) {
+        try {
+            hook.run();
+        } catch (Exception e) {
+            log.warn("cancel hook failed", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ke.assistant.core.run;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run的执行截止时间
+ * 基于System.nanoTime计算，不受系统时钟调整影响；LLM请求、工具调用按剩余时间收缩各自的超时，剩余时间耗尽时直接失败
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 剩余时间，已过期时为0
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 剩余时间是否不少于指定时长
+     */
+    public boolean hasRemaining(long duration, TimeUnit unit) {
+        return deadlineNanos - System.nanoTime() >= unit.toNanos(duration);
+    }
+
+    /**
+     * 已过期时抛出DeadlineExceededException
+     */
+    public void check() {
+        if(isExpired()) {
+            throw new DeadlineExceededException();
+        }
+    }
+
+    /**
+     * 按剩余时间收缩超时（秒），不足1秒按1秒计
+     */
+    public int timeoutSeconds(int timeoutSeconds) {
+        check();
+        long remaining = (remaining(TimeUnit.MILLISECONDS) + 999) / 1000;
+        return (int) Math.max(1, Math.min(timeoutSeconds, remaining));
+    }
+
+    /**
+     * 按剩余时间收缩超时
+     */
+    public Duration timeout(Duration timeout) {
+        check();
+        Duration remaining = Duration.ofNanos(remaining(TimeUnit.NANOSECONDS));
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * 未设置截止时间时（如单独调用工具）使用原超时
+     */
+    public static int timeoutSeconds(Deadline deadline, int timeoutSeconds) {
+        return deadline == null ? timeoutSeconds : deadline.timeoutSeconds(timeoutSeconds);
+    }
+}
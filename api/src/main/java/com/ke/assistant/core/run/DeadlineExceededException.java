@@ -0,0 +1,11 @@
+package com.ke.assistant.core.run;
+
+/**
+ * run的执行时间已用完
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException() {
+        super("run execution time exceeded");
+    }
+}
@@ -0,0 +1,31 @@
+package com.ke.assistant.core.run;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 排空进度：GET /actuator/drain 查看进度，POST /actuator/drain 提前开始排空（如在preStop中调用）
+ */
+@Component
+@Endpoint(id = "drain")
+public class DrainEndpoint {
+
+    @Autowired
+    private RunDrainManager runDrainManager;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return runDrainManager.progress();
+    }
+
+    @WriteOperation
+    public Map<String, Object> drain() {
+        runDrainManager.startDrain();
+        return runDrainManager.progress();
+    }
+}
@@ -1,7 +1,6 @@
 package com.ke.assistant.core.run;
 
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -11,7 +10,6 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -24,11 +22,11 @@ import org.springframework.util.Assert;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import com.ke.assistant.configuration.SenderQueueProperties;
 import com.ke.assistant.core.file.FileInfo;
 import com.ke.assistant.util.MetaConstants;
 import com.ke.bella.openapi.protocol.completion.CompletionModelFeatures;
 import com.ke.bella.openapi.protocol.completion.CompletionModelProperties;
-import com.ke.bella.openapi.utils.DateTimeUtils;
 import com.ke.bella.openapi.utils.JacksonUtils;
 import com.theokanning.openai.Usage;
 import com.theokanning.openai.assistants.assistant.Tool;
@@ -65,8 +63,8 @@ public class ExecutionContext {
     private final Condition sendCondition;
     private final Condition toolCondition;
 
-    // 发送客户端消息的通知队列
-    private final LinkedBlockingQueue<Object> senderQueue;
+    // 发送客户端消息的通知队列（有界）
+    private final SenderQueue senderQueue;
     // 发送客户端完成的标识
     private final AtomicBoolean sendDone;
     // 当前正在输出内容的toolCallId，确保不同工具执行并行，内容串行输出
@@ -74,6 +72,8 @@ public class ExecutionContext {
 
     // run的执行线程的结束标识
     private final AtomicBoolean end;
+    // 取消信号，进行中的LLM请求和工具调用在此注册取消回调
+    private final CancelSignal cancelSignal;
 
     private final Supplier<String> toolCallStepIdSupplier;
     // 归档的全量Annotations
@@ -97,14 +97,13 @@ public class ExecutionContext {
     private RunStep currentRunStep;
     private String currentToolCallStepId;
     private Message assistantMessage;
-    // 超时时间
-    private LocalDateTime expiredAt;
+    // 执行截止时间，LLM请求和工具调用按剩余时间收缩超时
+    private Deadline deadline;
     // 最大执行步骤
     private Integer maxSteps;
     // 执行状态
     private int currentStep;
     private boolean completed;
-    private AtomicBoolean canceled;
     private AtomicReference<RequiredAction> requiredAction;
     private LastError lastError;
     private LocalDateTime startTime;
@@ -129,9 +128,9 @@ public class ExecutionContext {
 
     private boolean reasoningShutDown;
 
-    public ExecutionContext(Supplier<String> toolCallStepIdSupplier) {
+    public ExecutionContext(Supplier<String> toolCallStepIdSupplier, SenderQueueProperties senderQueueProperties) {
         this.toolCallStepIdSupplier = toolCallStepIdSupplier;
-        this.senderQueue = new LinkedBlockingQueue<>();
+        this.senderQueue = new SenderQueue(senderQueueProperties);
         this.sendDone = new AtomicBoolean(true);
         this.lock = new ReentrantLock();
         this.runCondition = lock.newCondition();
@@ -139,7 +138,7 @@ public class ExecutionContext {
         this.toolCondition = lock.newCondition();
         this.currentStep = 0;
         this.completed = false;
-        this.canceled = new AtomicBoolean(false);
+        this.cancelSignal = new CancelSignal();
         this.requiredAction = new AtomicReference<>();
         this.startTime = LocalDateTime.now();
         this.lastUpdateTime = LocalDateTime.now();
@@ -360,24 +359,34 @@ public class ExecutionContext {
      * 是否超时
      */
     public boolean isTimeout() {
-        if (expiredAt == null) {
+        if (deadline == null) {
             return false;
         }
-        return expiredAt.isBefore(LocalDateTime.now());
+        return deadline.isExpired();
     }
 
     /**
-     * 剩余时间
+     * 剩余时间（秒），不足1秒向上取整
      */
     public Integer getExecutionSeconds() {
-        return Math.toIntExact(expiredAt.toEpochSecond(ZoneOffset.ofHours(8)) - DateTimeUtils.getCurrentSeconds());
+        return Math.toIntExact((deadline.remaining(TimeUnit.MILLISECONDS) + 999) / 1000);
     }
 
     /**
      * RunExecutor 等待
      */
     public void runnerAwait() {
-        await(getExecutionSeconds(), runCondition);
+        lock.lock();
+        try {
+            // 取消先于等待发生时不再等待，避免错过唤醒
+            if(!isCanceled()) {
+                runCondition.await(deadline.remaining(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
     }
 
 
@@ -392,7 +401,7 @@ public class ExecutionContext {
      * ToolExecutor 等待
      */
     public void toolCallAwait() {
-        await(getExecutionSeconds(), toolCondition);
+        await(deadline.remaining(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS, toolCondition);
     }
 
 
@@ -404,18 +413,34 @@ public class ExecutionContext {
     }
 
     /**
-     * 取消
+     * 取消：立即中止进行中的LLM请求和工具调用，并唤醒RunExecutor和ToolExecutor
      */
     public void cancel() {
-        canceled.set(true);
-        signalRunner();
+        if(!cancelSignal.cancel()) {
+            return;
+        }
+        lock.lock();
+        try {
+            runCondition.signalAll();
+            toolCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * 是否取消
      */
     public boolean isCanceled() {
-        return canceled.get();
+        return cancelSignal.isCanceled();
+    }
+
+    /**
+     * 注册取消回调，已取消时立即执行
+     * @return 注销回调的操作
+     */
+    public Runnable onCancel(Runnable hook) {
+        return cancelSignal.onCancel(hook);
     }
 
     /**
@@ -434,12 +459,19 @@ public class ExecutionContext {
     }
 
     /**
-     * 发布消息 - 无界队列，一定成功
+     * 发布消息 - 有界队列，队列满时按策略阻塞、合并或断开客户端，消息不会丢失
      */
     public void publish(Object msg) {
         senderQueue.offer(msg);
     }
 
+    /**
+     * 客户端是否因读取过慢被断开，断开后run继续执行并落库
+     */
+    public boolean isClientDetached() {
+        return senderQueue.isDetached();
+    }
+
     /**
      * 获取消息 - 阻塞
      */
@@ -471,18 +503,19 @@ public class ExecutionContext {
      * 等待发送消息
      */
     public void waitForSend(int maxSeconds) {
-        await(maxSeconds, sendCondition);
+        await(maxSeconds, TimeUnit.SECONDS, sendCondition);
     }
 
     /**
      * await
-     * @param seconds
+     * @param timeout
+     * @param unit
      * @param condition
      */
-    private void await(int seconds, Condition condition) {
+    private void await(long timeout, TimeUnit unit, Condition condition) {
         lock.lock();
         try {
-            condition.await(seconds, TimeUnit.SECONDS);
+            condition.await(timeout, unit);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
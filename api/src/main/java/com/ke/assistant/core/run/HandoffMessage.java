@@ -0,0 +1,15 @@
+package com.ke.assistant.core.run;
+
+import com.theokanning.openai.assistants.run.Run;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * run已保存检查点并交给其他实例继续执行，客户端收到回到queued的run后结束本次流式连接
+ */
+@Data
+@AllArgsConstructor
+public class HandoffMessage {
+    private Run run;
+}
@@ -75,6 +75,9 @@ public class MessageExecutor implements Runnable {
         while (true) {
             try {
                 Object msg = context.consume();
+                if(sseEmitter != null && context.isClientDetached()) {
+                    detach();
+                }
                 // 线程未结束时才执行
                 if(context.isEnd() && "[END]".equals(msg)) {
                     break;
@@ -190,6 +193,11 @@ public class MessageExecutor implements Runnable {
             send(status.getRunStreamEvent(), msg);
             return;
         }
+        if(msg instanceof HandoffMessage handoffMessage) {
+            // run交给其他实例继续执行，在[DONE]之前告知客户端run已回到queued
+            send(StreamEvent.THREAD_RUN_QUEUED, handoffMessage.getRun());
+            return;
+        }
         if(msg instanceof ResumeMessage resumeMessage) {
             send(StreamEvent.THREAD_RUN_STEP_COMPLETED, resumeMessage.getRunStep());
             send(StreamEvent.THREAD_RUN_QUEUED, resumeMessage.getRun());
@@ -291,6 +299,19 @@ public class MessageExecutor implements Runnable {
         }
     }
 
+    /**
+     * 客户端读取过慢被断开：关闭SSE连接，后续消息只落库不再发送
+     */
+    private void detach() {
+        log.warn("client is too slow, detach sse emitter and continue run: {}", context.getRunId());
+        try {
+            sseEmitter.complete();
+        } catch (Exception e) {
+            log.warn(e.getMessage(), e);
+        }
+        sseEmitter = null;
+    }
+
     private void finish() throws IOException {
         if(sseEmitter == null) {
             return;
@@ -110,6 +110,9 @@ public class ResponseMessageExecutor implements Runnable {
         while (true) {
             try {
                 Object msg = context.consume();
+                if(sseEmitter != null && context.isClientDetached()) {
+                    detach();
+                }
                 if(context.isEnd() && "[END]".equals(msg)) {
                     break;
                 }
@@ -654,6 +657,19 @@ public class ResponseMessageExecutor implements Runnable {
                 .orElse(null);
     }
 
+    /**
+     * 客户端读取过慢被断开：关闭SSE连接，后续消息只落库不再发送
+     */
+    private void detach() {
+        log.warn("client is too slow, detach sse emitter and continue run: {}", context.getRunId());
+        try {
+            sseEmitter.complete();
+        } catch (Exception e) {
+            log.warn(e.getMessage(), e);
+        }
+        sseEmitter = null;
+    }
+
     private void finish() {
         if(sseEmitter != null) {
             sseEmitter.complete();
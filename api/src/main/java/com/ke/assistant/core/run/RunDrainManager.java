@@ -0,0 +1,205 @@
+package com.ke.assistant.core.run;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.DrainProperties;
+import com.ke.assistant.core.RunScheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 实例下线时的run排空管理
+ * 在web容器优雅停机之前执行：readiness置为拒绝流量、拒绝新的run，清空RunScheduler中排队的run交由提交方交接或标记失败，
+ * 等待执行中的run结束或由RunExecutor保存检查点交给其他实例，超时后将剩余的run标记为失败
+ */
+@Slf4j
+@Component
+public class RunDrainManager implements SmartLifecycle {
+
+    // 标记失败后等待run写入终止状态的时间
+    private static final long FORCE_FAIL_GRACE_MILLIS = 5000;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RunScheduler runScheduler;
+
+    private final Map<String, ExecutionContext> activeRuns = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicInteger handedOff = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+    private final AtomicInteger forceFailed = new AtomicInteger();
+    private final AtomicInteger queuedDrained = new AtomicInteger();
+    private final Object monitor = new Object();
+    private volatile boolean running;
+    private volatile long drainStartedAtMillis;
+    private volatile long deadlineNanos;
+
+    /**
+     * 登记执行中的run
+     */
+    public void register(ExecutionContext context) {
+        activeRuns.put(context.getRunId(), context);
+    }
+
+    /**
+     * run执行线程退出
+     * @param handedOff 是否已保存检查点交给其他实例
+     */
+    public void unregister(ExecutionContext context, boolean handedOff) {
+        if(activeRuns.remove(context.getRunId(), context) && draining.get()) {
+            if(handedOff) {
+                this.handedOff.incrementAndGet();
+            } else {
+                finished.incrementAndGet();
+            }
+        }
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    /**
+     * 是否需要在当前步骤边界保存检查点交给其他实例
+     */
+    public boolean shouldHandoff() {
+        return draining.get() && assistantProperties.getDrain().isHandoff();
+    }
+
+    /**
+     * 排空中拒绝新的run
+     */
+    public void checkAdmission() {
+        if(draining.get()) {
+            throw new ServerDrainingException();
+        }
+    }
+
+    /**
+     * 开始排空，可重复调用
+     * @return 是否为本次调用开启
+     */
+    public boolean startDrain() {
+        if(!draining.compareAndSet(false, true)) {
+            return false;
+        }
+        drainStartedAtMillis = System.currentTimeMillis();
+        deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(0, assistantProperties.getDrain().getTimeoutSeconds()));
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        log.info("Start draining, active runs: {}", activeRuns.size());
+        queuedDrained.set(runScheduler.drain());
+        return true;
+    }
+
+    /**
+     * 等待执行中的run结束，超时后将剩余的run标记为失败
+     * @return 是否在超时前全部结束
+     */
+    public boolean awaitDrained() {
+        if(!waitUntil(deadlineNanos)) {
+            for (ExecutionContext context : activeRuns.values()) {
+                log.warn("Run {} is still executing after drain timeout, mark as failed", context.getRunId());
+                context.setError("server_shutdown", "server is shutting down, please retry");
+                forceFailed.incrementAndGet();
+            }
+            waitUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FORCE_FAIL_GRACE_MILLIS));
+            log.info("Drain finished with timeout, progress: {}", progress());
+            return false;
+        }
+        log.info("Drain finished, progress: {}", progress());
+        return true;
+    }
+
+    private boolean waitUntil(long deadline) {
+        synchronized (monitor) {
+            while (!activeRuns.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(500)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return activeRuns.isEmpty();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 排空进度
+     */
+    public Map<String, Object> progress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        boolean isDraining = draining.get();
+        progress.put("draining", isDraining);
+        progress.put("activeRuns", activeRuns.size());
+        if(isDraining) {
+            progress.put("startedAt", drainStartedAtMillis);
+            progress.put("remainingMillis", Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime())));
+            progress.put("handedOff", handedOff.get());
+            progress.put("finished", finished.get());
+            progress.put("forceFailed", forceFailed.get());
+            progress.put("queuedDrained", queuedDrained.get());
+            List<String> runIds = new ArrayList<>(activeRuns.keySet());
+            progress.put("runIds", runIds);
+        }
+        return progress;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            DrainProperties properties = assistantProperties.getDrain();
+            if(properties.isEnabled()) {
+                startDrain();
+                awaitDrained();
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 最先停止，早于web容器的优雅停机，排空期间仍可输出流式结果
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -1,13 +1,20 @@
 package com.ke.assistant.core.run;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +22,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.core.RunScheduler;
 import com.ke.assistant.core.TaskExecutor;
 import com.ke.assistant.core.ai.ChatService;
 import com.ke.assistant.core.file.FileInfo;
@@ -22,10 +30,13 @@ import com.ke.assistant.core.file.FileProvider;
 import com.ke.assistant.core.log.RunLogger;
 import com.ke.assistant.core.plan.Planner;
 import com.ke.assistant.core.plan.PlannerDecision;
+import com.ke.assistant.core.tools.ToolExecutionGuard;
 import com.ke.assistant.core.tools.ToolExecutor;
 import com.ke.assistant.core.tools.ToolFetcher;
 import com.ke.assistant.core.tools.handlers.mcp.McpToolListHandler;
 import com.ke.assistant.db.IdGenerator;
+import com.ke.assistant.db.generated.tables.pojos.MessageDb;
+import com.ke.assistant.mesh.Event;
 import com.ke.assistant.service.MessageService;
 import com.ke.assistant.service.RunService;
 import com.ke.assistant.service.ThreadService;
@@ -36,7 +47,9 @@ import com.ke.bella.openapi.metadata.Model;
 import com.ke.bella.openapi.protocol.completion.CompletionModelFeatures;
 import com.ke.bella.openapi.protocol.completion.CompletionModelProperties;
 import com.ke.bella.openapi.utils.JacksonUtils;
+import com.theokanning.openai.OpenAiError;
 import com.theokanning.openai.Usage;
+import com.theokanning.openai.assistants.StreamEvent;
 import com.theokanning.openai.assistants.message.Message;
 import com.theokanning.openai.assistants.message.MessageContent;
 import com.theokanning.openai.assistants.message.content.Approval;
@@ -45,9 +58,12 @@ import com.theokanning.openai.assistants.run.ToolFiles;
 import com.theokanning.openai.assistants.run_step.RunStep;
 import com.theokanning.openai.assistants.run_step.StepDetails;
 import com.theokanning.openai.assistants.thread.Thread;
+import com.theokanning.openai.common.LastError;
 import com.theokanning.openai.completion.chat.ChatFunctionCall;
 import com.theokanning.openai.completion.chat.ChatToolCall;
 import com.theokanning.openai.response.Response;
+import com.theokanning.openai.response.ResponseStatus;
+import com.theokanning.openai.response.stream.ErrorEvent;
 import com.theokanning.openai.response.tool.MCPListTools;
 
 /**
@@ -65,6 +81,9 @@ public class RunExecutor {
     @Autowired
     private ToolFetcher toolFetcher;
 
+    @Autowired
+    private ToolExecutionGuard toolExecutionGuard;
+
     @Autowired
     private ChatService chatService;
 
@@ -95,12 +114,204 @@ public class RunExecutor {
     @Autowired
     private IdGenerator idGenerator;
 
+    @Autowired
+    private SenderQueueMetrics senderQueueMetrics;
+
+    @Autowired
+    private RunDrainManager drainManager;
+
+    @Autowired
+    private RunScheduler runScheduler;
+
+    @Autowired
+    private ThreadRunQueue threadRunQueue;
+
+    @Autowired
+    private RunHandoffManager handoffManager;
+
+    /**
+     * 在thread队列中等待的run，前一个run结束后由本实例启动
+     */
+    private final Map<String, WaitingRun> waitingRuns = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reaper;
+
+    @PostConstruct
+    public void init() {
+        handoffManager.registerResumer(this::onHandoff);
+        threadRunQueue.registerStarter(this::onStartQueuedEvent);
+        if(threadRunQueue.isEnabled()) {
+            long interval = Math.max(1, assistantProperties.getThreadRunQueue().getReapIntervalSeconds());
+            reaper = Executors.newSingleThreadScheduledExecutor(new TaskExecutor.NamedThreadFactory("bella-run-queue-reaper-", true));
+            reaper.scheduleWithFixedDelay(this::reapWaitingRuns, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(reaper != null) {
+            reaper.shutdownNow();
+        }
+    }
+
     /**
      * 开启run
+     * 开启thread队列时，thread上已有未结束的run则排队等待
      */
     public void startRun(String threadId, String runId, String assistantMessageId, List<Message> additionalMessages, boolean withThreadCreation, SseEmitter sseEmitter) {
+        if(threadRunQueue.isEnabled()) {
+            // 先登记再入队，避免前一个run恰好结束时找不到等待的run
+            WaitingRun waiting = new WaitingRun(threadId, runId, assistantMessageId, additionalMessages, withThreadCreation, sseEmitter,
+                    BellaContext.snapshot(), System.currentTimeMillis(), new AtomicBoolean());
+            if(sseEmitter != null) {
+                // 客户端连接在run启动前结束（超时或断开）时不再等待；run启动后登记已移除，回调不生效
+                sseEmitter.onTimeout(() -> abandon(waiting));
+                sseEmitter.onError(e -> abandon(waiting));
+                sseEmitter.onCompletion(() -> abandon(waiting));
+            }
+            waitingRuns.put(runId, waiting);
+            if(threadRunQueue.enqueue(threadId, runId)) {
+                return;
+            }
+            waitingRuns.remove(runId);
+        }
+        doStartRun(threadId, runId, assistantMessageId, additionalMessages, withThreadCreation, sseEmitter);
+    }
+
+    private void doStartRun(String threadId, String runId, String assistantMessageId, List<Message> additionalMessages, boolean withThreadCreation, SseEmitter sseEmitter) {
         ExecutionContext context = buildExecutionContext(threadId, runId, assistantMessageId, withThreadCreation ? RunType.CREATE_THREAD_AND_RUN : RunType.CREATE_RUN, additionalMessages);
-        TaskExecutor.addRunner(()->executeRun(context, sseEmitter));
+        schedule(context, sseEmitter, sseEmitter != null);
+    }
+
+    /**
+     * thread内前一个run已结束，启动排队的run；排队期间已取消的run只关闭客户端连接
+     */
+    private void onStartQueuedEvent(Event event) {
+        String runId = event.getPayload();
+        Object threadId = event.getMetadata() == null ? null : event.getMetadata().get("threadId");
+        if(runId == null || threadId == null) {
+            return;
+        }
+        WaitingRun waiting = waitingRuns.remove(runId);
+        String status = runService.getRunStatus(threadId.toString(), runId);
+        if(!RunStatus.QUEUED.getValue().equals(status)) {
+            if(waiting != null && waiting.sseEmitter != null) {
+                waiting.sseEmitter.complete();
+            }
+            return;
+        }
+        if(waiting == null) {
+            if(!Boolean.TRUE.equals(event.getMetadata().get("orphaned"))) {
+                // 已由清理任务启动或已放弃等待
+                logger.info("Skip start event of run {}, not waiting on this instance", runId);
+                return;
+            }
+            // 发起排队的实例已下线，无法恢复客户端连接和调用方的Context
+            logger.warn("Queued run {} lost its owner instance, mark as failed", runId);
+            LastError lastError = new LastError();
+            lastError.setCode("server_error");
+            lastError.setMessage("the instance that queued the run is offline");
+            stateManager.updateRun(threadId.toString(), runId, RunStatus.FAILED, lastError, null);
+            return;
+        }
+        startWaiting(waiting);
+    }
+
+    private void startWaiting(WaitingRun waiting) {
+        String runId = waiting.runId;
+        logger.info("Starting queued run {} on thread {}", runId, waiting.threadId);
+        try {
+            BellaContext.replace(waiting.bellaContext);
+            doStartRun(waiting.threadId, waiting.runId, waiting.assistantMessageId, waiting.additionalMessages, waiting.withThreadCreation, waiting.sseEmitter);
+        } catch (Exception e) {
+            logger.error("Failed to start queued run: {}", runId, e);
+            LastError lastError = new LastError();
+            lastError.setCode("server_error");
+            lastError.setMessage(e.getMessage());
+            stateManager.updateRun(waiting.threadId, runId, RunStatus.FAILED, lastError, null);
+            if(waiting.sseEmitter != null) {
+                waiting.sseEmitter.complete();
+            }
+        } finally {
+            BellaContext.clearAll();
+        }
+    }
+
+    /**
+     * 客户端连接在run启动前结束，将run标记为失败并移出队列，避免run一直停留在QUEUED并阻塞thread
+     */
+    private void abandon(WaitingRun waiting) {
+        if(!waitingRuns.remove(waiting.runId, waiting)) {
+            return;
+        }
+        logger.warn("Client of queued run {} disconnected before the run started, mark as failed", waiting.runId);
+        LastError lastError = new LastError();
+        lastError.setCode("queue_timeout");
+        lastError.setMessage("the client connection closed while the run was waiting in the thread queue");
+        try {
+            stateManager.updateRun(waiting.threadId, waiting.runId, RunStatus.FAILED, lastError, null);
+        } catch (Exception e) {
+            logger.error("Failed to mark abandoned run as failed: {}", waiting.runId, e);
+        }
+    }
+
+    /**
+     * 检查本实例等待中的run，处理thread队列过期和丢失的启动通知
+     */
+    private void reapWaitingRuns() {
+        long minAge = TimeUnit.SECONDS.toMillis(assistantProperties.getThreadRunQueue().getReapIntervalSeconds());
+        for (WaitingRun waiting : waitingRuns.values()) {
+            // 刚登记的run可能尚未入队
+            if(System.currentTimeMillis() - waiting.queuedAt < minAge) {
+                continue;
+            }
+            try {
+                reap(waiting);
+            } catch (Exception e) {
+                logger.error("Failed to check queued run: {}", waiting.runId, e);
+            }
+        }
+    }
+
+    /**
+     * run已不是QUEUED（排队期间被取消且通知丢失）时结束客户端连接；仍在等待时刷新队列过期时间；
+     * 队列已过期时重新入队，入队后位于队首则直接启动；连续两次检查都位于队首仍未收到启动通知时，视为通知丢失，由本实例启动
+     */
+    private void reap(WaitingRun waiting) {
+        String status = runService.getRunStatus(waiting.threadId, waiting.runId);
+        if(!RunStatus.QUEUED.getValue().equals(status)) {
+            if(waitingRuns.remove(waiting.runId, waiting) && waiting.sseEmitter != null) {
+                waiting.sseEmitter.complete();
+            }
+            return;
+        }
+        int position = threadRunQueue.position(waiting.threadId, waiting.runId);
+        if(position > 0) {
+            threadRunQueue.keepAlive(waiting.threadId);
+            return;
+        }
+        if(position < 0) {
+            logger.warn("Thread queue of run {} expired, enqueue again", waiting.runId);
+            if(threadRunQueue.enqueue(waiting.threadId, waiting.runId)) {
+                return;
+            }
+        } else if(!waiting.atHead.getAndSet(true)) {
+            return;
+        }
+        if(waitingRuns.remove(waiting.runId, waiting)) {
+            logger.warn("Queued run {} is at the head of thread queue without start event, start it", waiting.runId);
+            startWaiting(waiting);
+        }
+    }
+
+    /**
+     * 取消在thread队列中等待的run，run尚未开始执行，直接进入取消状态
+     */
+    public boolean cancelWaitingRun(String threadId, String runId) {
+        if(!threadRunQueue.isWaiting(threadId, runId)) {
+            return false;
+        }
+        return stateManager.updateRunStatus(threadId, runId, RunStatus.CANCELLED) != null;
     }
 
     /**
@@ -108,7 +319,7 @@ public class RunExecutor {
      */
     public void resumeRun(String threadId, String runId, String assistantMessageId, List<Message> additionalMessages, SseEmitter sseEmitter) {
         ExecutionContext context = buildExecutionContext(threadId, runId, assistantMessageId, RunType.SUBMIT_TOOL_CALLS, additionalMessages);
-        TaskExecutor.addRunner(()->executeRun(context, sseEmitter));
+        schedule(context, sseEmitter, sseEmitter != null);
     }
 
     /**
@@ -117,20 +328,124 @@ public class RunExecutor {
     public ExecutionContext startResponseRun(String threadId, String runId, String assistantMessageId, List<Message> additionalMessages, boolean withThreadCreation, Response response, SseEmitter sseEmitter) {
         ExecutionContext context = buildExecutionContext(threadId, runId, assistantMessageId, withThreadCreation ? RunType.CREATE_THREAD_AND_RUN : RunType.CREATE_RUN, additionalMessages);
         context.setResponse(response);
-        TaskExecutor.addRunner(()->executeRun(context, sseEmitter));
+        // 非后台的response由请求线程同步等待结果，同样按交互式调度
+        schedule(context, sseEmitter, sseEmitter != null || !Boolean.TRUE.equals(response.getBackground()));
         return context;
     }
 
+    /**
+     * 交给RunScheduler排队执行，排队已满或实例排空中没有空闲名额时run直接失败
+     */
+    private void schedule(ExecutionContext context, SseEmitter sseEmitter, boolean interactive) {
+        Run run = context.getRun();
+        String tenant = run == null ? null : runScheduler.tenantOf(run.getUser(), run.getAssistantId());
+        RunScheduler.Priority priority = interactive ? RunScheduler.Priority.INTERACTIVE : RunScheduler.Priority.BACKGROUND;
+        if(runScheduler.submit(tenant, priority, () -> executeRun(context, sseEmitter), () -> onDrained(context, sseEmitter))) {
+            return;
+        }
+        if(drainManager.isDraining()) {
+            logger.warn("Server is draining, reject run: {}", context.getRunId());
+            reject(context, sseEmitter, "server_shutdown", "server is shutting down, please retry");
+        } else {
+            logger.warn("Run queue is full, reject run: {}", context.getRunId());
+            reject(context, sseEmitter, "server_busy", "too many runs are queued, please retry later");
+        }
+    }
+
+    /**
+     * 实例排空时run仍在RunScheduler中排队：run尚未开始执行，交给其他实例从头执行并结束客户端连接，无法交接时标记为失败
+     */
+    private void onDrained(ExecutionContext context, SseEmitter sseEmitter) {
+        String threadId = context.getThreadId();
+        String runId = context.getRunId();
+        // 与执行中的交接相同，Response API和不存储的run无法交接
+        // 提交工具结果后的run同样是QUEUED，也会交接；接收方能正确继续只依赖resumeCheckpointedRun中的hasToolStep判断：
+        // 已有tool_calls步骤时按resumeRun继续而不是按新建run从头执行，修改该判断时需同时考虑这种run
+        if(!context.isResponseApi() && context.getRun() != null && context.isStore() && !context.isError()) {
+            String target = handoffManager.handoff(threadId, runId, () -> RunStatus.QUEUED.getValue().equals(runService.getRunStatus(threadId, runId)));
+            if(target != null) {
+                logger.info("Queued run {} handed off to {}", runId, target);
+                if(sseEmitter != null) {
+                    // 告知客户端run仍为queued、由其他实例执行，再结束连接
+                    send(sseEmitter, SseEmitter.event().name(StreamEvent.THREAD_RUN_QUEUED.eventName).data(context.getRun()));
+                    send(sseEmitter, SseEmitter.event().name(StreamEvent.DONE.eventName).data("[DONE]"));
+                    sseEmitter.complete();
+                }
+                return;
+            }
+        }
+        reject(context, sseEmitter, "server_shutdown", "server is shutting down, please retry");
+    }
+
+    /**
+     * 拒绝未开始执行的run：在调用线程中将run标记为失败、发送错误并结束客户端连接，不占用runner线程
+     */
+    private void reject(ExecutionContext context, SseEmitter sseEmitter, String code, String message) {
+        context.setError(code, message);
+        LastError lastError = context.getLastError();
+        if(context.getRun() != null) {
+            try {
+                Run failed = stateManager.updateRun(context.getThreadId(), context.getRunId(), RunStatus.FAILED, lastError, null);
+                if(failed != null) {
+                    context.setRun(failed);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to mark rejected run as failed: {}", context.getRunId(), e);
+            }
+        }
+        if(context.isResponseApi()) {
+            Response response = context.getResponse();
+            response.setStatus(ResponseStatus.FAILED);
+            Response.ErrorDetails errorDetails = new Response.ErrorDetails();
+            errorDetails.setCode(code);
+            errorDetails.setMessage(message);
+            response.setError(errorDetails);
+            if(sseEmitter != null) {
+                ErrorEvent errorEvent = ErrorEvent.builder().sequenceNumber(0).code(code).message(message).build();
+                send(sseEmitter, SseEmitter.event().name(errorEvent.getType()).data(errorEvent));
+            }
+            context.complete(response);
+        } else if(sseEmitter != null) {
+            OpenAiError error = new OpenAiError();
+            OpenAiError.OpenAiErrorDetails details = new OpenAiError.OpenAiErrorDetails();
+            details.setMessage(message);
+            details.setType(code);
+            details.setCode(code);
+            error.setError(details);
+            send(sseEmitter, SseEmitter.event().name(StreamEvent.ERROR.eventName).data(error));
+            send(sseEmitter, SseEmitter.event().name(StreamEvent.DONE.eventName).data("[DONE]"));
+        }
+        if(sseEmitter != null) {
+            sseEmitter.complete();
+        }
+    }
+
+    private void send(SseEmitter sseEmitter, SseEmitter.SseEventBuilder event) {
+        try {
+            sseEmitter.send(event);
+        } catch (Exception e) {
+            logger.warn(e.getMessage(), e);
+        }
+    }
+
     /**
      * 执行Run
      * 包含完整的执行循环逻辑
      */
     private void executeRun(ExecutionContext context, SseEmitter sseEmitter) {
         logger.info("Starting execution for run: {}", context.getRunId());
+        // 执行时间从开始执行计算，不包含在RunScheduler中排队的时间
+        long maxMinutes = assistantProperties.getMaxExecutionMinutes() != null ? assistantProperties.getMaxExecutionMinutes() : 15;
+        context.setDeadline(Deadline.after(maxMinutes, TimeUnit.MINUTES));
+        senderQueueMetrics.register(context);
+        if(context.getRun() != null) {
+            drainManager.register(context);
+        }
+        boolean handedOff = false;
 
         try {
             // 启动工具执行器
-            ToolExecutor toolExecutor = ToolExecutor.start(context, stateManager, toolFetcher, runLogger);
+            ToolExecutor toolExecutor = ToolExecutor.start(context, stateManager, toolFetcher, runLogger, toolExecutionGuard);
 
             // 启动消息管理器 - 根据是否为Response API选择不同的消息执行器
             if (context.isResponseApi()) {
@@ -155,7 +470,7 @@ public class RunExecutor {
             processApprovalTools(context, stateManager, toolExecutor, planner);
 
             // 主执行循环
-            executeLoop(context);
+            handedOff = executeLoop(context);
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             context.setError("server_error", e.getMessage());
@@ -168,14 +483,19 @@ public class RunExecutor {
             }
             // 通知所有辅助线程退出
             context.end();
-            runLogger.log("end", context, BellaContext.snapshot());
+            runLogger.log(handedOff ? "handoff" : "end", context, BellaContext.snapshot());
+            senderQueueMetrics.unregister(context);
+            if(context.getRun() != null) {
+                drainManager.unregister(context, handedOff);
+            }
         }
     }
     
     /**
      * 主执行循环
+     * @return 是否已保存检查点交给其他实例
      */
-    private void executeLoop(ExecutionContext context) {
+    private boolean executeLoop(ExecutionContext context) {
         String runId = context.getRunId();
 
         PlannerDecision decision = PlannerDecision.init();
@@ -211,6 +531,10 @@ public class RunExecutor {
                 case EXPIRED -> stateManager.toExpired(context);
                 // 以上全部代表结束
                 case LLM_CALL -> {
+                    // 实例排空中，在发起新一轮LLM调用前保存检查点交给其他实例
+                    if(drainManager.shouldHandoff() && handoff(context)) {
+                        return true;
+                    }
                     chatService.chat(context);
                     context.runnerAwait();
                 }
@@ -227,6 +551,68 @@ public class RunExecutor {
                 break;
             }
         }
+        return false;
+    }
+
+    /**
+     * 保存检查点并通知其他实例继续执行
+     * 仅在步骤边界调用：上一轮的工具结果均已落库，接手的实例可按resumeRun的方式重建上下文
+     */
+    private boolean handoff(ExecutionContext context) {
+        // Response API的阻塞调用和结果绑定在当前请求上，不存储的run数据只在本实例内存中，均无法交接
+        if(context.isResponseApi() || !context.isStore() || context.isCanceled() || context.isError()) {
+            return false;
+        }
+        RunStep lastToolStep = context.getLastToolCallStep();
+        if(lastToolStep != null && !"completed".equals(lastToolStep.getStatus())) {
+            return false;
+        }
+        String target = handoffManager.handoff(context.getThreadId(), context.getRunId(), () -> stateManager.toCheckpointed(context));
+        if(target == null) {
+            return false;
+        }
+        logger.info("Run {} checkpointed at step {} and handed off to {}", context.getRunId(), context.getCurrentStep(), target);
+        return true;
+    }
+
+    /**
+     * 接手其他实例交接的run，重建上下文失败时将run标记为失败，避免一直停留在QUEUED
+     */
+    private void onHandoff(String threadId, String runId) {
+        try {
+            resumeCheckpointedRun(threadId, runId);
+        } catch (Exception e) {
+            logger.error("Failed to resume handed off run: {}", runId, e);
+            LastError lastError = new LastError();
+            lastError.setCode("server_error");
+            lastError.setMessage(e.getMessage());
+            stateManager.updateRun(threadId, runId, RunStatus.FAILED, lastError, null);
+        }
+    }
+
+    /**
+     * 按resumeRun的方式重建上下文继续执行，尚未产生工具调用的run按新建run处理
+     */
+    private void resumeCheckpointedRun(String threadId, String runId) {
+        Run run = runService.getRunById(threadId, runId);
+        if(run == null || !RunStatus.QUEUED.getValue().equals(run.getStatus())) {
+            logger.warn("Skip resuming run {}, status: {}", runId, run == null ? null : run.getStatus());
+            return;
+        }
+        List<RunStep> runSteps = runService.getRunSteps(threadId, runId);
+        RunStep messageStep = runSteps.stream().filter(r -> "message_creation".equals(r.getType())).findAny()
+                .orElseThrow(() -> new IllegalStateException("server_error:no message creation step type"));
+        String assistantMessageId = messageStep.getStepDetails().getMessageCreation().getMessageId();
+        MessageDb assistantMessage = messageService.getMessageDbById(threadId, assistantMessageId);
+        List<Message> additionalMessages = messageService.getAdditionalMessages(threadId, run.getCreateTime(), assistantMessage.getCreatedAt());
+        boolean hasToolStep = runSteps.stream().anyMatch(r -> "tool_calls".equals(r.getType()));
+        logger.info("Resuming handed off run: {}", runId);
+        if(hasToolStep) {
+            resumeRun(threadId, runId, assistantMessageId, additionalMessages, null);
+        } else {
+            ExecutionContext context = buildExecutionContext(threadId, runId, assistantMessageId, RunType.CREATE_RUN, additionalMessages);
+            schedule(context, null, false);
+        }
     }
 
     
@@ -235,18 +621,12 @@ public class RunExecutor {
      */
     private ExecutionContext buildExecutionContext(String threadId, String runId, String assistantMessageId, RunType type, List<Message> additionalMessages) {
 
-        ExecutionContext context = new ExecutionContext(() -> idGenerator.generateRunStepId());
+        ExecutionContext context = new ExecutionContext(() -> idGenerator.generateRunStepId(), assistantProperties.getSenderQueue());
 
         context.setAdditionalMessages(additionalMessages == null ? new ArrayList<>() : additionalMessages);
 
         try {
 
-            if(assistantProperties.getMaxExecutionMinutes() != null ) {
-                context.setExpiredAt(LocalDateTime.now().plusMinutes(assistantProperties.getMaxExecutionMinutes()));
-            } else {
-                context.setExpiredAt(LocalDateTime.now().plusMinutes(15));
-            }
-
             context.setMaxSteps(assistantProperties.getMaxExecutionSteps() == null ? 10 : assistantProperties.getMaxExecutionSteps());
 
             // 获取Run信息
@@ -396,4 +776,8 @@ public class RunExecutor {
         SUBMIT_TOOL_CALLS
     }
 
+
+    private record WaitingRun(String threadId, String runId, String assistantMessageId, List<Message> additionalMessages,
+            boolean withThreadCreation, SseEmitter sseEmitter, Map<String, Object> bellaContext, long queuedAt, AtomicBoolean atHead) {
+    }
 }
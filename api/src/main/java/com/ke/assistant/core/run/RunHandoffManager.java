@@ -0,0 +1,249 @@
+package com.ke.assistant.core.run;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventConstants;
+import com.ke.assistant.mesh.ServiceMesh;
+import com.ke.bella.openapi.BellaContext;
+import com.ke.bella.openapi.apikey.ApikeyInfo;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 排空时保存检查点的run的交接
+ * 交接前在Redis中写入租约（接手实例、交接时间、恢复BellaContext所需的apikey和请求头），再通过私有消息通知接手实例；
+ * 接手实例确认租约仍属于自己后继续执行并释放租约。交接消息没有确认，租约超时未释放或接手实例已下线时，
+ * 由任一实例的清扫任务抢占租约后在本实例继续执行，避免run一直停留在QUEUED
+ */
+@Slf4j
+@Component
+public class RunHandoffManager {
+
+    private static final String LEASE_KEY = "run:handoff:leases";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ServiceMesh serviceMesh;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired
+    private RunDrainManager drainManager;
+
+    private volatile Resumer resumer;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * 继续执行交接的run，run已不是QUEUED时应直接返回
+     */
+    @FunctionalInterface
+    public interface Resumer {
+        void resume(String threadId, String runId);
+    }
+
+    @PostConstruct
+    public void init() {
+        serviceMesh.registerListener(EventConstants.EVENT_RESUME_RUN, this::onResumeEvent);
+        long interval = Math.max(1, assistantProperties.getDrain().getSweepIntervalSeconds());
+        sweeper = Executors.newSingleThreadScheduledExecutor(new TaskExecutor.NamedThreadFactory("bella-handoff-sweeper-", true));
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 注册交接run的继续执行处理，由RunExecutor在启动时注册
+     */
+    public void registerResumer(Resumer resumer) {
+        this.resumer = resumer;
+    }
+
+    /**
+     * 写入租约、保存检查点并通知接手实例
+     * @param checkpoint 保存检查点，返回false时释放租约
+     * @return 接手实例ID，没有可交接的实例或保存检查点失败时返回null
+     */
+    public String handoff(String threadId, String runId, BooleanSupplier checkpoint) {
+        String target = pickTarget();
+        if(target == null) {
+            return null;
+        }
+        Lease lease = new Lease(threadId, runId, target, 1, System.currentTimeMillis(), null, null);
+        Map<String, Object> bellaContext = BellaContext.snapshot();
+        // 只保存可序列化的apikey和请求头，接手的实例以此恢复BellaContext
+        if(bellaContext.get("ak") instanceof ApikeyInfo apikeyInfo) {
+            lease.setAk(JacksonUtils.serialize(apikeyInfo));
+        }
+        if(bellaContext.get("headers") instanceof Map<?, ?> headers) {
+            lease.setHeaders(headers);
+        }
+        String value = JacksonUtils.serialize(lease);
+        leases().put(runId, value);
+        boolean checkpointed = false;
+        try {
+            checkpointed = checkpoint.getAsBoolean();
+        } finally {
+            if(!checkpointed) {
+                leases().remove(runId, value);
+            }
+        }
+        if(!checkpointed) {
+            return null;
+        }
+        send(target, runId);
+        return target;
+    }
+
+    /**
+     * 收到交接消息，只处理租约仍属于本实例的run，重复或过期的消息直接忽略
+     */
+    private void onResumeEvent(Event event) {
+        String runId = event.getPayload();
+        if(runId == null) {
+            return;
+        }
+        String value = leases().get(runId);
+        Lease lease = value == null ? null : JacksonUtils.deserialize(value, Lease.class);
+        if(lease == null || !serviceMesh.getInstanceId().equals(lease.getOwner())) {
+            log.info("Skip resume event of run {}, lease: {}", runId, value);
+            return;
+        }
+        // 本实例也在排空时继续转发，超过转发次数后仍在本实例执行
+        if(drainManager.shouldHandoff() && lease.getHops() < assistantProperties.getDrain().getMaxHandoffHops()) {
+            String target = pickTarget();
+            if(target != null) {
+                Lease forwarded = new Lease(lease.getThreadId(), runId, target, lease.getHops() + 1, System.currentTimeMillis(), lease.getAk(), lease.getHeaders());
+                if(leases().replace(runId, value, JacksonUtils.serialize(forwarded))) {
+                    send(target, runId);
+                }
+                return;
+            }
+        }
+        claimAndResume(runId, value, lease);
+    }
+
+    /**
+     * 清扫超时未释放、或接手实例已下线的租约，抢占成功的实例继续执行
+     */
+    void sweep() {
+        if(drainManager.isDraining()) {
+            return;
+        }
+        try {
+            long staleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(assistantProperties.getDrain().getLeaseSeconds());
+            for (Map.Entry<String, String> entry : leases().readAllMap().entrySet()) {
+                Lease lease = JacksonUtils.deserialize(entry.getValue(), Lease.class);
+                if(lease == null) {
+                    continue;
+                }
+                if(lease.getLeasedAt() < staleBefore || !serviceMesh.isInstanceOnline(lease.getOwner())) {
+                    log.warn("Handoff lease of run {} held by {} is stale, reclaiming", entry.getKey(), lease.getOwner());
+                    claimAndResume(entry.getKey(), entry.getValue(), lease);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to sweep handoff leases", e);
+        }
+    }
+
+    /**
+     * 以CAS方式将租约改为本实例持有，成功后继续执行，结束后释放租约；本实例在继续执行前下线时，租约超时后由其他实例接手
+     */
+    private void claimAndResume(String runId, String value, Lease lease) {
+        Lease claimed = new Lease(lease.getThreadId(), runId, serviceMesh.getInstanceId(), lease.getHops(), System.currentTimeMillis(), lease.getAk(), lease.getHeaders());
+        String claimedValue = JacksonUtils.serialize(claimed);
+        if(!leases().replace(runId, value, claimedValue)) {
+            return;
+        }
+        Resumer current = resumer;
+        if(current == null) {
+            log.warn("No resumer registered for handed off run: {}", runId);
+            return;
+        }
+        Map<String, Object> bellaContext = new HashMap<>();
+        if(lease.getAk() != null) {
+            bellaContext.put("ak", JacksonUtils.deserialize(lease.getAk(), ApikeyInfo.class));
+        }
+        if(lease.getHeaders() != null) {
+            bellaContext.put("headers", lease.getHeaders());
+        }
+        try {
+            BellaContext.replace(bellaContext);
+            current.resume(lease.getThreadId(), runId);
+        } catch (Exception e) {
+            log.error("Failed to resume handed off run: {}", runId, e);
+        } finally {
+            BellaContext.clearAll();
+            leases().remove(runId, claimedValue);
+        }
+    }
+
+    private String pickTarget() {
+        Set<String> instances = serviceMesh.getOnlineInstances();
+        List<String> candidates = instances.stream().filter(id -> !id.equals(serviceMesh.getInstanceId())).collect(Collectors.toList());
+        return candidates.isEmpty() ? null : candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+
+    private void send(String target, String runId) {
+        serviceMesh.sendPrivateMessage(target, Event.builder()
+                .name(EventConstants.EVENT_RESUME_RUN)
+                .payload(runId)
+                .build());
+    }
+
+    private RMap<String, String> leases() {
+        return redissonClient.getMap(assistantProperties.getKeyPrefix() + ":" + LEASE_KEY, StringCodec.INSTANCE);
+    }
+
+    /**
+     * 交接租约
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Lease {
+        private String threadId;
+        private String runId;
+        /**
+         * 持有租约、负责继续执行的实例
+         */
+        private String owner;
+        private int hops;
+        private long leasedAt;
+        private String ak;
+        private Map<?, ?> headers;
+    }
+}
@@ -13,6 +13,7 @@ import javax.annotation.PostConstruct;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +21,8 @@ import org.springframework.transaction.annotation.Transactional;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.ke.assistant.db.OptimisticLockException;
+import com.ke.assistant.db.OptimisticLockExecutor;
 import com.ke.assistant.db.generated.tables.pojos.RunDb;
 import com.ke.assistant.db.generated.tables.pojos.RunStepDb;
 import com.ke.assistant.db.repo.RunRepo;
@@ -48,6 +51,9 @@ import com.theokanning.openai.assistants.run_step.StepDetails;
 import com.theokanning.openai.common.LastError;
 import com.theokanning.openai.completion.chat.ChatToolCall;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * Run状态管理器
  */
@@ -68,10 +74,24 @@ public class RunStateManager {
     private RunStepRepo runStepRepo;
     @Autowired
     private RunService runService;
+    @Autowired
+    private OptimisticLockExecutor optimisticLockExecutor;
+    @Autowired
+    private ThreadRunQueue threadRunQueue;
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+    // 从收到取消到run进入终止状态的耗时
+    private Timer cancelLatencyTimer;
 
     @PostConstruct
     public void init() {
         serviceMesh.registerListener(EventConstants.EVENT_CANCEL_RUN, this::cancel);
+        MeterRegistry meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(meterRegistry != null) {
+            cancelLatencyTimer = Timer.builder("bella.run.cancel.latency")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
     }
     
     /**
@@ -84,69 +104,87 @@ public class RunStateManager {
      */
     @Transactional
     public Run updateRun(String threadId, String runId, RunStatus newStatus, LastError lastError, Usage usage) {
+        return updateRun(threadId, runId, newStatus, lastError, usage, false);
+    }
+
+    /**
+     * @param checkpoint 是否为保存检查点，只有保存检查点时允许执行中的run回到QUEUED
+     */
+    private Run updateRun(String threadId, String runId, RunStatus newStatus, LastError lastError, Usage usage, boolean checkpoint) {
         try {
-            RunDb run = runRepo.findByIdForUpdate(threadId, runId);
-            if (run == null) {
-                logger.error("Run not found: {}", runId);
-                return null;
-            }
-            
-            RunStatus currentStatus = RunStatus.fromValue(run.getStatus());
-            
-            // 检查状态转换是否合法
-            if (!currentStatus.canTransitionTo(newStatus)) {
-                logger.warn("Invalid status transition for run {}: {} -> {}", 
-                    runId, currentStatus, newStatus);
-                return null;
-            }
-            
-            // 更新状态
-            run.setStatus(newStatus.getValue());
-            if(lastError != null) {
-                run.setLastError(JacksonUtils.serialize(lastError));
-                IncompleteDetails incompleteDetails = new IncompleteDetails();
-                incompleteDetails.setReason(lastError.getMessage());
-                run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
-            }
-            run.setUpdatedAt(LocalDateTime.now());
-            
-            // 如果是终止状态，设置完成时间
-            if (newStatus.isTerminal()) {
-                run.setCompletedAt(LocalDateTime.now());
+            Run run = optimisticLockExecutor.execute(lockRead -> doUpdateRun(threadId, runId, newStatus, lastError, usage, checkpoint, lockRead));
+            if(run != null && newStatus.isTerminal()) {
+                threadRunQueue.onRunTerminal(threadId, runId);
             }
+            return run;
+        } catch (Exception e) {
+            logger.error("Failed to update run status for {}", runId, e);
+            return null;
+        }
+    }
 
-            if(newStatus.isCanceled()) {
-                run.setCancelledAt(LocalDateTime.now());
-                IncompleteDetails incompleteDetails = new IncompleteDetails();
-                incompleteDetails.setReason("user cancel run");
-                run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
-            }
+    private Run doUpdateRun(String threadId, String runId, RunStatus newStatus, LastError lastError, Usage usage, boolean checkpoint, boolean lockRead) {
+        RunDb run = lockRead ? runRepo.findByIdForUpdate(threadId, runId) : runRepo.findById(threadId, runId);
+        if (run == null) {
+            logger.error("Run not found: {}", runId);
+            return null;
+        }
+        
+        RunDb original = new RunDb(run);
+        RunStatus currentStatus = RunStatus.fromValue(run.getStatus());
+        
+        // 检查状态转换是否合法
+        boolean allowed = checkpoint ? currentStatus.canCheckpoint() : currentStatus.canTransitionTo(newStatus);
+        if (!allowed) {
+            logger.warn("Invalid status transition for run {}: {} -> {}", 
+                runId, currentStatus, newStatus);
+            return null;
+        }
+        
+        // 更新状态
+        run.setStatus(newStatus.getValue());
+        if(lastError != null) {
+            run.setLastError(JacksonUtils.serialize(lastError));
+            IncompleteDetails incompleteDetails = new IncompleteDetails();
+            incompleteDetails.setReason(lastError.getMessage());
+            run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
+        }
+        run.setUpdatedAt(LocalDateTime.now());
+        
+        // 如果是终止状态，设置完成时间
+        if (newStatus.isTerminal()) {
+            run.setCompletedAt(LocalDateTime.now());
+        }
 
-            if(newStatus == RunStatus.EXPIRED) {
-                IncompleteDetails incompleteDetails = new IncompleteDetails();
-                incompleteDetails.setReason("run has expired");
-                run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
-            }
+        if(newStatus.isCanceled()) {
+            run.setCancelledAt(LocalDateTime.now());
+            IncompleteDetails incompleteDetails = new IncompleteDetails();
+            incompleteDetails.setReason("user cancel run");
+            run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
+        }
 
-            if(usage != null) {
-                run.setUsage(JacksonUtils.serialize(usage));
-            }
-            
-            runRepo.update(run);
-            
-            logger.info("Run {} status updated: {} -> {}", runId, currentStatus, newStatus);
-
-            if(newStatus.isStopExecution()) {
-                processingCache.invalidate(runId);
-                serviceMesh.removeRunningRun(runId);
-            }
+        if(newStatus == RunStatus.EXPIRED) {
+            IncompleteDetails incompleteDetails = new IncompleteDetails();
+            incompleteDetails.setReason("run has expired");
+            run.setIncompleteDetails(JacksonUtils.serialize(incompleteDetails));
+        }
 
-            return runService.convertToInfo(run);
-            
-        } catch (Exception e) {
-            logger.error("Failed to update run status for {}", runId, e);
-            return null;
+        if(usage != null) {
+            run.setUsage(JacksonUtils.serialize(usage));
+        }
+        
+        if(!runRepo.updateWithVersion(original, run)) {
+            throw new OptimisticLockException("run", runId);
+        }
+        
+        logger.info("Run {} status updated: {} -> {}", runId, currentStatus, newStatus);
+
+        if(newStatus.isStopExecution()) {
+            processingCache.invalidate(runId);
+            serviceMesh.removeRunningRun(runId);
         }
+
+        return runService.convertToInfo(run);
     }
 
     /**
@@ -278,6 +316,22 @@ public class RunStateManager {
         return success;
     }
 
+    /**
+     * 保存检查点：Run回到QUEUED，释放running run映射，由其他实例通过resumeRun继续执行
+     */
+    @Transactional
+    public boolean toCheckpointed(ExecutionContext context) {
+        // 保存已产生的用量，接手的实例从Run中读取后继续累加
+        Run run = updateRun(context.getThreadId(), context.getRunId(), RunStatus.QUEUED, null, context.getUsage(), true);
+        if(run == null) {
+            return false;
+        }
+        processingCache.invalidate(context.getRunId());
+        serviceMesh.removeRunningRun(context.getRunId());
+        context.publish(new HandoffMessage(run));
+        return true;
+    }
+
     /**
      * 将Run状态转换为取消
      */
@@ -287,7 +341,16 @@ public class RunStateManager {
             updateToolRunStepStatus(context.getCurrentToolCallStepId(), RunStatus.CANCELLED, null, context);
         }
         updateRunStepStatus(context.getCurrentRunStep().getId(), RunStatus.CANCELLED, null, context, "run has been canceled");
-        return updateRunStatus(context, RunStatus.CANCELLED) != null;
+        boolean success = updateRunStatus(context, RunStatus.CANCELLED) != null;
+        long canceledAt = context.getCancelSignal().getCanceledAtNanos();
+        if(success && canceledAt > 0) {
+            long latency = System.nanoTime() - canceledAt;
+            logger.info("Run {} canceled, cancel-to-terminal latency: {}ms", context.getRunId(), TimeUnit.NANOSECONDS.toMillis(latency));
+            if(cancelLatencyTimer != null) {
+                cancelLatencyTimer.record(latency, TimeUnit.NANOSECONDS);
+            }
+        }
+        return success;
     }
 
     
@@ -311,6 +374,7 @@ public class RunStateManager {
             return submitRequiredAction(threadId, runId, submitToolOutputs, expiredAt);
         }
         RunStepDb runStepDb = runStepRepo.findActionRequiredForUpdate(threadId, runId);
+        RunStepDb original = new RunStepDb(runStepDb);
 
         RunStatus currentStatus = RunStatus.fromValue(runStepDb.getStatus());
         if(!currentStatus.canTransitionTo(RunStatus.COMPLETED)) {
@@ -338,7 +402,7 @@ public class RunStateManager {
         runStepDb.setStepDetails(JacksonUtils.serialize(stepDetails));
         runStepDb.setCompletedAt(LocalDateTime.now());
         runStepDb.setStatus(RunStatus.COMPLETED.getValue());
-        runStepRepo.update(runStepDb);
+        runStepRepo.update(original, runStepDb);
         runRepo.updateRequireAction(threadId, runId, null);
         return updateRunStatus(threadId, runId, RunStatus.QUEUED) != null;
     }
@@ -504,12 +568,18 @@ public class RunStateManager {
             }
         }
 
-        RunStepDb db = runStepRepo.findByIdForUpdate(context.getThreadId(), runStepId);
+        return optimisticLockExecutor.execute(lockRead -> doUpdateRunStep(runStepId, newStatus, lastError, context, usage, lockRead));
+    }
+
+    private boolean doUpdateRunStep(String runStepId, RunStatus newStatus, LastError lastError, ExecutionContext context, Usage usage, boolean lockRead) {
+        RunStepDb db = lockRead ? runStepRepo.findByIdForUpdate(context.getThreadId(), runStepId)
+                : runStepRepo.findById(context.getThreadId(), runStepId);
 
         if(db == null) {
             return true;
         }
 
+        RunStepDb original = new RunStepDb(db);
         RunStatus currentStatus = RunStatus.fromValue(db.getStatus());
         if(!currentStatus.canTransitionTo(newStatus)) {
             logger.warn("Invalid status transition for run step {}: {} -> {}",
@@ -543,7 +613,9 @@ public class RunStateManager {
             db.setStepDetails(JacksonUtils.serialize(stepDetails));
         }
 
-        boolean success = runStepRepo.update(db);
+        if(!runStepRepo.updateWithVersion(original, db)) {
+            throw new OptimisticLockException("run_step", runStepId);
+        }
         if(db.getType().equals("message_creation")) {
             context.getCurrentRunStep().setStatus(newStatus.getValue());
         }
@@ -552,7 +624,7 @@ public class RunStateManager {
             RunStep runStep = RunUtils.convertStepToInfo(db);
             context.publish(runStep);
         }
-        return success;
+        return true;
     }
 
     /**
@@ -83,6 +83,13 @@ public enum RunStatus {
         return this == CANCELLED;
     }
 
+    /**
+     * 是否可以保存检查点回到QUEUED，仅用于实例下线时交给其他实例继续执行，不属于一般的状态转换
+     */
+    public boolean canCheckpoint() {
+        return this == IN_PROGRESS;
+    }
+
     /**
      * 判断是否可以执行状态转换
      */
@@ -0,0 +1,211 @@
+package com.ke.assistant.core.run;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.ke.assistant.configuration.SenderQueueProperties;
+import com.theokanning.openai.completion.chat.AssistantMessage;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 发送客户端消息的有界队列
+ * 队列满时按配置的策略处理：阻塞生产者、合并文本增量、或断开客户端后继续执行并落库
+ * 消费线程处理消息时自身也会发布消息（状态变更等），为避免自锁，消费线程发布时不受容量限制
+ * 控制消息（[DONE]等）和状态事件不会被丢弃或合并
+ */
+@Slf4j
+public class SenderQueue {
+
+    private static final Set<String> CONTROL_MESSAGES = Set.of("[DONE]", "[LLM_DONE]", "[TOOL_DONE]", "[END]");
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final SenderQueueProperties properties;
+    private final AtomicBoolean detached = new AtomicBoolean(false);
+    private volatile Thread consumer;
+    // 以下统计在lock内更新
+    private int peakDepth;
+    private long coalescedCount;
+    private long blockedCount;
+
+    public SenderQueue(SenderQueueProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 发布消息，队列满时按策略处理
+     */
+    public void offer(Object msg) {
+        lock.lock();
+        try {
+            if(queue.size() >= properties.getCapacity() && Thread.currentThread() != consumer) {
+                if(handleOverflow(msg)) {
+                    return;
+                }
+            }
+            queue.addLast(msg);
+            peakDepth = Math.max(peakDepth, queue.size());
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取消息 - 阻塞
+     */
+    public Object take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            Object msg = queue.pollFirst();
+            notFull.signal();
+            return msg;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true 消息已被合并，无需再入队
+     */
+    private boolean handleOverflow(Object msg) {
+        if(detached.get() || properties.getOverflowPolicy() == SenderQueueProperties.OverflowPolicy.DETACH) {
+            detach();
+            return coalesce(msg);
+        }
+        if(properties.getOverflowPolicy() == SenderQueueProperties.OverflowPolicy.COALESCE && coalesce(msg)) {
+            return true;
+        }
+        blockedCount++;
+        long nanos = TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMillis());
+        try {
+            while (queue.size() >= properties.getCapacity() && nanos > 0) {
+                nanos = notFull.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(queue.size() >= properties.getCapacity()) {
+            detach();
+            return coalesce(msg);
+        }
+        return false;
+    }
+
+    private void detach() {
+        if(detached.compareAndSet(false, true)) {
+            log.warn("sender queue is full ({} messages), detach client and continue run", queue.size());
+        }
+    }
+
+    /**
+     * 将文本增量合并到队尾的同类消息中
+     */
+    private boolean coalesce(Object msg) {
+        Object tail = queue.peekLast();
+        if(tail == null) {
+            return false;
+        }
+        if(msg instanceof String text && tail instanceof String tailText) {
+            if(CONTROL_MESSAGES.contains(text) || CONTROL_MESSAGES.contains(tailText)) {
+                return false;
+            }
+            queue.pollLast();
+            queue.addLast(tailText + text);
+            coalescedCount++;
+            return true;
+        }
+        if(msg instanceof ChatCompletionChunk chunk && tail instanceof ChatCompletionChunk tailChunk) {
+            AssistantMessage delta = textDelta(chunk);
+            AssistantMessage tailDelta = textDelta(tailChunk);
+            if(delta == null || tailDelta == null) {
+                return false;
+            }
+            tailDelta.setContent(concat(tailDelta.getContent(), delta.getContent()));
+            tailDelta.setReasoningContent(concat(tailDelta.getReasoningContent(), delta.getReasoningContent()));
+            coalescedCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 只包含文本/推理增量的chunk才允许合并，携带工具调用、用量、错误、签名或结束原因的chunk保持原样
+     */
+    private static AssistantMessage textDelta(ChatCompletionChunk chunk) {
+        if(chunk.getUsage() != null || chunk.getError() != null || CollectionUtils.size(chunk.getChoices()) != 1) {
+            return null;
+        }
+        ChatCompletionChoice choice = chunk.getChoices().get(0);
+        AssistantMessage message = choice.getMessage();
+        if(message == null || choice.getFinishReason() != null || CollectionUtils.isNotEmpty(message.getToolCalls())
+                || StringUtils.isNotEmpty(message.getReasoningContentSignature())
+                || StringUtils.isNotEmpty(message.getRedactedReasoningContent())) {
+            return null;
+        }
+        return message;
+    }
+
+    private static String concat(String a, String b) {
+        if(a == null) {
+            return b;
+        }
+        return b == null ? a : a + b;
+    }
+
+    public boolean isDetached() {
+        return detached.get();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPeakDepth() {
+        lock.lock();
+        try {
+            return peakDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalescedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBlockedCount() {
+        lock.lock();
+        try {
+            return blockedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
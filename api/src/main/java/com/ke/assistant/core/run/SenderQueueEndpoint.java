@@ -0,0 +1,24 @@
+package com.ke.assistant.core.run;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 发送队列深度：GET /actuator/senderqueues 查看本实例各运行中run的当前队列深度
+ */
+@Component
+@Endpoint(id = "senderqueues")
+public class SenderQueueEndpoint {
+
+    @Autowired
+    private SenderQueueMetrics senderQueueMetrics;
+
+    @ReadOperation
+    public Map<String, Integer> depths() {
+        return senderQueueMetrics.depths();
+    }
+}
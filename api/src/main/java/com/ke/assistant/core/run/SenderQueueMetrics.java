@@ -0,0 +1,87 @@
+package com.ke.assistant.core.run;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 发送队列监控
+ * 运行中的run注册自身队列，汇总输出当前总深度、最大深度；run结束时记录该run的峰值深度、合并和断开次数
+ * 单个run的明细通过depths()获取（/actuator/senderqueues），并随run结束日志输出，避免以runId作为指标标签
+ */
+@Component
+public class SenderQueueMetrics {
+
+    private final Map<String, SenderQueue> activeQueues = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private DistributionSummary peakDepth;
+    private Counter coalesced;
+    private Counter blocked;
+    private Counter detached;
+
+    @PostConstruct
+    public void init() {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if(registry == null) {
+            return;
+        }
+        Gauge.builder("bella.run.sender.queue.depth", activeQueues, SenderQueueMetrics::totalDepth).register(registry);
+        Gauge.builder("bella.run.sender.queue.depth.max", activeQueues, SenderQueueMetrics::maxDepth).register(registry);
+        Gauge.builder("bella.run.sender.queue.active", activeQueues, Map::size).register(registry);
+        peakDepth = DistributionSummary.builder("bella.run.sender.queue.peak").register(registry);
+        coalesced = Counter.builder("bella.run.sender.queue.coalesced").register(registry);
+        blocked = Counter.builder("bella.run.sender.queue.blocked").register(registry);
+        detached = Counter.builder("bella.run.sender.queue.detached").register(registry);
+    }
+
+    public void register(ExecutionContext context) {
+        if(context.getRunId() != null) {
+            activeQueues.put(context.getRunId(), context.getSenderQueue());
+        }
+    }
+
+    public void unregister(ExecutionContext context) {
+        if(context.getRunId() == null || activeQueues.remove(context.getRunId()) == null) {
+            return;
+        }
+        SenderQueue queue = context.getSenderQueue();
+        if(peakDepth != null) {
+            peakDepth.record(queue.getPeakDepth());
+            coalesced.increment(queue.getCoalescedCount());
+            blocked.increment(queue.getBlockedCount());
+            if(queue.isDetached()) {
+                detached.increment();
+            }
+        }
+    }
+
+    /**
+     * 各运行中run的当前队列深度 runId -> depth
+     */
+    public Map<String, Integer> depths() {
+        return activeQueues.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().size()));
+    }
+
+    private static double totalDepth(Map<String, SenderQueue> queues) {
+        return queues.values().stream().mapToInt(SenderQueue::size).sum();
+    }
+
+    private static double maxDepth(Map<String, SenderQueue> queues) {
+        return queues.values().stream().mapToInt(SenderQueue::size).max().orElse(0);
+    }
+}
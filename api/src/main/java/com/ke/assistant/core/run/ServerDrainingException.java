@@ -0,0 +1,11 @@
+package com.ke.assistant.core.run;
+
+/**
+ * 实例排空中，不再接收新的run
+ */
+public class ServerDrainingException extends RuntimeException {
+
+    public ServerDrainingException() {
+        super("server is draining, please retry on another instance");
+    }
+}
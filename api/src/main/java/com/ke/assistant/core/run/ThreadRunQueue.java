@@ -0,0 +1,277 @@
+package com.ke.assistant.core.run;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.redisson.api.RList;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ThreadRunQueueProperties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventConstants;
+import com.ke.assistant.mesh.EventListener;
+import com.ke.assistant.mesh.ServiceMesh;
+import com.ke.assistant.model.ThreadRunQueueStatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * thread内的run队列
+ * 每个thread在Redis中保存一个列表，元素为 runId|发起实例，队首是执行中的run，其余按创建顺序等待；
+ * run进入终止状态时移出队列，若移出的是队首则通知下一个run的发起实例启动，移出的是等待中的run（排队期间被取消）则通知其发起实例清理
+ * 只有Assistant API创建的run参与排队，Response API的run和提交工具结果后的继续执行不受影响
+ */
+@Slf4j
+@Component
+public class ThreadRunQueue {
+
+    private static final String QUEUE_KEY_PREFIX = "thread:run:queue:";
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 加入队尾，返回加入后的位置（0表示队首，可立即执行）
+     */
+    private static final String ENQUEUE_SCRIPT =
+            "local len = redis.call('rpush', KEYS[1], ARGV[1]); " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]); " +
+            "return len - 1;";
+
+    /**
+     * 移出run，移出的是队首时返回新的队首，移出的是等待中的run时返回该run，不在队列中时返回空
+     */
+    private static final String REMOVE_SCRIPT =
+            "local items = redis.call('lrange', KEYS[1], 0, -1); " +
+            "for i, item in ipairs(items) do " +
+            "  if string.sub(item, 1, string.len(ARGV[1])) == ARGV[1] then " +
+            "    redis.call('lrem', KEYS[1], 1, item); " +
+            "    if i > 1 then return item; end; " +
+            "    local head = redis.call('lindex', KEYS[1], 0); " +
+            "    if head then redis.call('pexpire', KEYS[1], ARGV[2]); return head; end; " +
+            "    return false; " +
+            "  end; " +
+            "end; " +
+            "return false;";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ServiceMesh serviceMesh;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ThreadRunQueueProperties properties;
+    private volatile EventListener starter;
+    private Counter queued;
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getThreadRunQueue();
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(registry != null) {
+            queued = Counter.builder("bella.run.thread.queue.queued").register(registry);
+            rejections = Counter.builder("bella.run.thread.queue.rejections").register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 注册排队run的启动处理，由RunExecutor在启动时注册
+     */
+    public void registerStarter(EventListener starter) {
+        this.starter = starter;
+        serviceMesh.registerListener(EventConstants.EVENT_START_QUEUED_RUN, starter);
+    }
+
+    /**
+     * 创建run前检查排队深度，并发创建时可能略超上限
+     */
+    public void checkCapacity(String threadId) {
+        if(!properties.isEnabled()) {
+            return;
+        }
+        int waiting = queue(threadId).size() - 1;
+        if(waiting >= properties.getMaxDepth()) {
+            if(rejections != null) {
+                rejections.increment();
+            }
+            throw new ThreadRunQueueFullException(threadId, properties.getMaxDepth());
+        }
+    }
+
+    /**
+     * 加入thread的队列
+     * @return 是否需要等待，前面没有run时返回false，由调用方立即执行
+     */
+    public boolean enqueue(String threadId, String runId) {
+        if(!properties.isEnabled()) {
+            return false;
+        }
+        Long position = redissonClient.getScript(StringCodec.INSTANCE).eval(key(threadId), RScript.Mode.READ_WRITE, ENQUEUE_SCRIPT,
+                RScript.ReturnType.INTEGER, Collections.singletonList(key(threadId)),
+                runId + SEPARATOR + serviceMesh.getInstanceId(), String.valueOf(ttlMillis()));
+        boolean waiting = position != null && position > 0;
+        if(waiting) {
+            log.info("Run {} queued on thread {}, position: {}", runId, threadId, position);
+            if(queued != null) {
+                queued.increment();
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * 是否在队列中等待（不是执行中的队首）
+     */
+    public boolean isWaiting(String threadId, String runId) {
+        if(!properties.isEnabled()) {
+            return false;
+        }
+        List<String> runIds = runIds(queue(threadId).readAll());
+        return runIds.indexOf(runId) > 0;
+    }
+
+    /**
+     * run在队列中的位置，0为执行中的队首；不在队列中（包括队列已过期）时返回-1
+     */
+    public int position(String threadId, String runId) {
+        if(!properties.isEnabled()) {
+            return -1;
+        }
+        return runIds(queue(threadId).readAll()).indexOf(runId);
+    }
+
+    /**
+     * 刷新队列的过期时间，本实例仍有run在等待时由RunExecutor定期调用，避免队首长时间停留在requires_action时队列过期
+     */
+    public void keepAlive(String threadId) {
+        if(properties.isEnabled()) {
+            queue(threadId).expire(Duration.ofMillis(ttlMillis()));
+        }
+    }
+
+    /**
+     * run进入终止状态，在事务提交后移出队列并通知下一个run
+     */
+    public void onRunTerminal(String threadId, String runId) {
+        if(!properties.isEnabled() || threadId == null || runId == null) {
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(threadId, runId);
+                }
+            });
+        } else {
+            remove(threadId, runId);
+        }
+    }
+
+    private void remove(String threadId, String runId) {
+        String next;
+        try {
+            next = redissonClient.getScript(StringCodec.INSTANCE).eval(key(threadId), RScript.Mode.READ_WRITE, REMOVE_SCRIPT,
+                    RScript.ReturnType.VALUE, Collections.singletonList(key(threadId)),
+                    runId + SEPARATOR, String.valueOf(ttlMillis()));
+        } catch (Exception e) {
+            log.error("Failed to remove run {} from thread queue {}", runId, threadId, e);
+            return;
+        }
+        if(next == null) {
+            return;
+        }
+        int index = next.lastIndexOf(SEPARATOR);
+        notifyOwner(threadId, next.substring(0, index), next.substring(index + 1));
+    }
+
+    /**
+     * 通知发起排队的实例，该实例已下线时由本实例处理（无法恢复客户端连接，run会被标记为失败）
+     */
+    private void notifyOwner(String threadId, String runId, String owner) {
+        boolean local = serviceMesh.getInstanceId().equals(owner);
+        if(!local && serviceMesh.isInstanceOnline(owner)) {
+            serviceMesh.sendPrivateMessage(owner, event(threadId, runId, false));
+            return;
+        }
+        Event event = event(threadId, runId, !local);
+        EventListener listener = starter;
+        if(listener == null) {
+            log.warn("No starter registered for queued run: {}", runId);
+            return;
+        }
+        // 在独立线程中处理，不影响当前run执行线程的Context
+        TaskExecutor.addExecutor(() -> listener.onEvent(event));
+    }
+
+    /**
+     * @param orphaned 发起排队的实例已下线，由其他实例代为处理
+     */
+    private static Event event(String threadId, String runId, boolean orphaned) {
+        return Event.builder()
+                .name(EventConstants.EVENT_START_QUEUED_RUN)
+                .payload(runId)
+                .metadata(Map.of("threadId", threadId, "orphaned", orphaned))
+                .build();
+    }
+
+    /**
+     * 队列状态
+     */
+    public ThreadRunQueueStatus status(String threadId) {
+        List<String> runIds = properties.isEnabled() ? runIds(queue(threadId).readAll()) : Collections.emptyList();
+        return ThreadRunQueueStatus.builder()
+                .threadId(threadId)
+                .activeRunId(runIds.isEmpty() ? null : runIds.get(0))
+                .queuedRunIds(runIds.size() > 1 ? runIds.subList(1, runIds.size()) : Collections.emptyList())
+                .maxDepth(properties.getMaxDepth())
+                .build();
+    }
+
+    private static List<String> runIds(List<String> items) {
+        List<String> runIds = new ArrayList<>(items.size());
+        for (String item : items) {
+            int index = item.lastIndexOf(SEPARATOR);
+            runIds.add(index < 0 ? item : item.substring(0, index));
+        }
+        return runIds;
+    }
+
+    private RList<String> queue(String threadId) {
+        return redissonClient.getList(key(threadId), StringCodec.INSTANCE);
+    }
+
+    private String key(String threadId) {
+        return assistantProperties.getKeyPrefix() + ":" + QUEUE_KEY_PREFIX + threadId;
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.MINUTES.toMillis(properties.getTtlMinutes());
+    }
+}
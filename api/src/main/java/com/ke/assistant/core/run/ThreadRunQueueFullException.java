@@ -0,0 +1,11 @@
+package com.ke.assistant.core.run;
+
+/**
+ * thread内排队的run已达上限
+ */
+public class ThreadRunQueueFullException extends RuntimeException {
+
+    public ThreadRunQueueFullException(String threadId, int maxDepth) {
+        super("too many runs are queued on thread " + threadId + " (max " + maxDepth + "), please retry later");
+    }
+}
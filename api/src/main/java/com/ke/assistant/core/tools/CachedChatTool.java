@@ -0,0 +1,47 @@
+package com.ke.assistant.core.tools;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.theokanning.openai.assistants.assistant.Tool;
+import com.theokanning.openai.completion.chat.ChatTool;
+import com.theokanning.openai.service.OpenAiService;
+
+/**
+ * 缓存的工具定义，构建时按chat completion请求的序列化方式预先序列化
+ * 序列化请求体时直接写入缓存的JSON，不再重复序列化参数schema；实例在多个run间共享，构建后不可修改
+ */
+@JsonSerialize(using = CachedChatTool.RawSerializer.class)
+public class CachedChatTool extends ChatTool {
+
+    private static final ObjectMapper MAPPER = OpenAiService.defaultObjectMapper();
+
+    private final String json;
+
+    public CachedChatTool(Tool.FunctionDefinition definition) {
+        setFunction(definition);
+        ChatTool plain = new ChatTool();
+        plain.setFunction(definition);
+        try {
+            this.json = MAPPER.writeValueAsString(plain);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid tool definition: " + definition.getName(), e);
+        }
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public static class RawSerializer extends JsonSerializer<CachedChatTool> {
+        @Override
+        public void serialize(CachedChatTool value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
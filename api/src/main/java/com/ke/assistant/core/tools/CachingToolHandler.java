@@ -0,0 +1,61 @@
+package com.ke.assistant.core.tools;
+
+import java.util.Map;
+
+import com.ke.assistant.configuration.ToolCacheProperties.ToolCachePolicy;
+
+/**
+ * 带结果缓存的工具处理器，除execute外均委托给原处理器
+ */
+public class CachingToolHandler implements ToolHandler {
+
+    private final ToolHandler delegate;
+    private final ToolCachePolicy policy;
+    private final ToolResultCache cache;
+
+    public CachingToolHandler(ToolHandler delegate, ToolCachePolicy policy, ToolResultCache cache) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.cache = cache;
+    }
+
+    @Override
+    public ToolResult execute(ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+        return cache.execute(delegate, policy, context, arguments, channel);
+    }
+
+    @Override
+    public String getToolName() {
+        return delegate.getToolName();
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return delegate.getParameters();
+    }
+
+    @Override
+    public boolean isFinal() {
+        return delegate.isFinal();
+    }
+
+    @Override
+    public boolean isDefinitionHandler() {
+        return delegate.isDefinitionHandler();
+    }
+
+    @Override
+    public void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+        delegate.replayCached(context, arguments, result, channel);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ke.assistant.core.tools;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
@@ -21,6 +22,8 @@ public class ToolCallListener extends BellaEventSourceListener {
     final StringBuilder output;
     final boolean send;
     final Function<String, Boolean> finishChecker;
+    private volatile EventSource eventSource;
+    private volatile boolean canceled;
 
     public ToolCallListener(String toolCallId, ToolOutputChannel toolOutputChannel, SseConverter converter, boolean send, Function<String, Boolean> finishChecker) {
         super();
@@ -33,6 +36,16 @@ public class ToolCallListener extends BellaEventSourceListener {
         output = new StringBuilder();
     }
 
+    @Override
+    public void onOpen(@NotNull EventSource eventSource, @NotNull Response response) {
+        this.eventSource = eventSource;
+        // 连接建立前已取消
+        if(canceled) {
+            eventSource.cancel();
+        }
+        super.onOpen(eventSource, response);
+    }
+
     @Override
     public void onEvent(@NotNull EventSource eventSource, String id, String type, String msg) {
         String chunk = converter.convert(type, msg);
@@ -100,6 +113,18 @@ public class ToolCallListener extends BellaEventSourceListener {
         }
     }
 
+    /**
+     * 取消：关闭SSE连接，等待结果的线程立即返回
+     */
+    public void cancel() {
+        canceled = true;
+        EventSource source = eventSource;
+        if(source != null) {
+            source.cancel();
+        }
+        finishFuture.completeExceptionally(new CancellationException("tool call canceled"));
+    }
+
     public String getOutput() {
         try {
             return finishFuture.get();
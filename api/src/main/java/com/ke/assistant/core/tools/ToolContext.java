@@ -3,6 +3,8 @@ package com.ke.assistant.core.tools;
 import java.util.List;
 import java.util.Map;
 
+import com.ke.assistant.core.run.CancelSignal;
+import com.ke.assistant.core.run.Deadline;
 import com.theokanning.openai.assistants.assistant.Tool;
 
 import lombok.AllArgsConstructor;
@@ -19,4 +21,8 @@ public class ToolContext {
     private String toolId;
     private List<String> files;
     private String user;
+    // run的取消信号，长耗时的工具可注册取消回调以便及时中止
+    private CancelSignal cancelSignal;
+    // run的执行截止时间，外部请求按剩余时间收缩超时，为空时使用各自的超时
+    private Deadline deadline;
 }
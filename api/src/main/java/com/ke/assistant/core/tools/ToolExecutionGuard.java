@@ -0,0 +1,249 @@
+package com.ke.assistant.core.tools;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ToolExecutionProperties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.core.run.Deadline;
+import com.ke.assistant.core.run.DeadlineExceededException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 工具执行保护
+ * 提交到工具线程池前按工具和assistant限制并发，并发已满时直接返回繁忙错误，避免单个租户的慢工具占满共享队列；
+ * 超时（工具超时或run的剩余时间用完）后返回超时错误作为工具结果并中断执行线程，排队中尚未开始的调用不再执行
+ */
+@Slf4j
+@Component
+public class ToolExecutionGuard {
+
+    private static final long ASSISTANT_BULKHEAD_EXPIRE_MINUTES = 30;
+    private static final int TIMER_THREADS = 2;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ToolExecutionProperties properties;
+    private MeterRegistry meterRegistry;
+    private ScheduledThreadPoolExecutor timer;
+    private final Map<String, Semaphore> toolBulkheads = new ConcurrentHashMap<>();
+    private Cache<String, Semaphore> assistantBulkheads;
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getToolExecution();
+        this.meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        this.timer = new ScheduledThreadPoolExecutor(TIMER_THREADS, new TaskExecutor.NamedThreadFactory("bella-tool-timer-", true));
+        this.timer.setRemoveOnCancelPolicy(true);
+        // 淘汰时可能仍有调用持有旧的信号量，短时间内并发可能略超限制
+        this.assistantBulkheads = CacheBuilder.newBuilder()
+                .expireAfterAccess(ASSISTANT_BULKHEAD_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 在工具线程池中执行工具调用
+     * 返回的future总是异步地正常完成：执行异常、超时、并发已满时结果为错误信息
+     * @param deadline run的执行截止时间，超时时间不超过剩余时间，为空时只使用工具的超时
+     */
+    public CompletableFuture<ToolResult> execute(String assistantId, String toolName, Deadline deadline, Supplier<ToolResult> task) {
+        if(deadline != null && deadline.isExpired()) {
+            return completeAsync(ToolResult.builder().error(new DeadlineExceededException().getMessage()).build());
+        }
+        Permit permit = acquire(assistantId, toolName);
+        if(permit == null) {
+            return completeAsync(ToolResult.builder().error("tool " + toolName + " is busy, please retry later").build());
+        }
+        CallHandle handle = new CallHandle();
+        CompletableFuture<ToolResult> execution;
+        try {
+            execution = TaskExecutor.supplyCaller(() -> {
+                try {
+                    // 排队期间已超时，不再执行
+                    if(!handle.enter()) {
+                        return null;
+                    }
+                    try {
+                        return task.get();
+                    } finally {
+                        handle.exit();
+                    }
+                } finally {
+                    permit.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            record("bella.tool.rejections", toolName, "pool");
+            return completeAsync(ToolResult.builder().error("tool executor is busy, please retry later").build());
+        }
+        CompletableFuture<ToolResult> result = execution.exceptionally(throwable -> {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            log.warn(cause.getMessage(), cause);
+            return ToolResult.builder().error(cause.getMessage()).build();
+        });
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(properties.getTimeoutSeconds(toolName));
+        boolean bounded = false;
+        if(deadline != null && (timeoutMillis <= 0 || deadline.remaining(TimeUnit.MILLISECONDS) < timeoutMillis)) {
+            timeoutMillis = deadline.remaining(TimeUnit.MILLISECONDS);
+            bounded = true;
+        }
+        if(timeoutMillis <= 0 && !bounded) {
+            return result;
+        }
+        String message = bounded ? new DeadlineExceededException().getMessage()
+                : "tool " + toolName + " timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + "s";
+        // 超时结果的后续处理（写入工具结果）在定时器线程中执行，需要恢复提交者的Context
+        ScheduledFuture<?> timeout = timer.schedule(TaskExecutor.wrapWithContext(() -> {
+            if(result.complete(ToolResult.builder().error(message).build())) {
+                log.warn("tool {} timed out, assistant: {}, reason: {}", toolName, assistantId, message);
+                record("bella.tool.timeouts", toolName, null);
+                handle.abandon();
+            }
+        }), timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((r, e) -> timeout.cancel(false));
+        return result;
+    }
+
+    /**
+     * 调用方在提交全部工具后才准备好处理结果，拒绝的结果同样异步返回
+     */
+    private CompletableFuture<ToolResult> completeAsync(ToolResult result) {
+        CompletableFuture<ToolResult> future = new CompletableFuture<>();
+        timer.execute(TaskExecutor.wrapWithContext(() -> future.complete(result)));
+        return future;
+    }
+
+    /**
+     * 在调用方线程（run的工具分发循环）中获取许可，不等待：等待会阻塞同一run中后续工具的分发
+     */
+    private Permit acquire(String assistantId, String toolName) {
+        Semaphore tool = toolBulkhead(toolName);
+        if(tool != null && !tool.tryAcquire()) {
+            record("bella.tool.rejections", toolName, "tool");
+            return null;
+        }
+        Semaphore assistant = assistantBulkhead(assistantId);
+        if(assistant != null && !assistant.tryAcquire()) {
+            if(tool != null) {
+                tool.release();
+            }
+            record("bella.tool.rejections", toolName, "assistant");
+            return null;
+        }
+        return new Permit(tool, assistant);
+    }
+
+    private Semaphore toolBulkhead(String toolName) {
+        int max = properties.getMaxConcurrency(toolName);
+        return max <= 0 ? null : toolBulkheads.computeIfAbsent(toolName, key -> new Semaphore(max));
+    }
+
+    private Semaphore assistantBulkhead(String assistantId) {
+        int max = properties.getMaxConcurrencyPerAssistant();
+        if(max <= 0 || assistantId == null) {
+            return null;
+        }
+        try {
+            return assistantBulkheads.get(assistantId, () -> new Semaphore(max));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void record(String name, String toolName, String reason) {
+        if(meterRegistry == null) {
+            return;
+        }
+        if(reason == null) {
+            meterRegistry.counter(name, "tool", toolName).increment();
+        } else {
+            meterRegistry.counter(name, "tool", toolName, "reason", reason).increment();
+        }
+    }
+
+    /**
+     * 并发许可，执行结束时释放
+     */
+    private static class Permit {
+        private final Semaphore tool;
+        private final Semaphore assistant;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore tool, Semaphore assistant) {
+            this.tool = tool;
+            this.assistant = assistant;
+        }
+
+        private void release() {
+            if(released.compareAndSet(false, true)) {
+                if(tool != null) {
+                    tool.release();
+                }
+                if(assistant != null) {
+                    assistant.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录执行线程，超时时只中断仍在执行该调用的线程，避免中断线程池中的其他任务
+     */
+    private static class CallHandle {
+        private Thread worker;
+        private boolean abandoned;
+
+        private synchronized boolean enter() {
+            if(abandoned) {
+                return false;
+            }
+            worker = Thread.currentThread();
+            return true;
+        }
+
+        private synchronized void exit() {
+            worker = null;
+            // 清除执行结束前收到的中断，线程归还线程池后不受影响
+            Thread.interrupted();
+        }
+
+        private synchronized void abandon() {
+            abandoned = true;
+            if(worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+}
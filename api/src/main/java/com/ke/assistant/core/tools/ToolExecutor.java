@@ -1,5 +1,6 @@
 package com.ke.assistant.core.tools;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,17 +46,20 @@ public class ToolExecutor implements Runnable {
     private final Map<String, ToolHandler> toolHandlers;
     private final Map<String, Tool> toolDefinite;
     private final RunLogger runLogger;
+    private final ToolExecutionGuard executionGuard;
 
-    public ToolExecutor(ExecutionContext context, RunStateManager runStateManager, RunLogger runLogger) {
+    public ToolExecutor(ExecutionContext context, RunStateManager runStateManager, RunLogger runLogger, ToolExecutionGuard executionGuard) {
         this.context = context;
         this.runStateManager = runStateManager;
         this.runLogger = runLogger;
+        this.executionGuard = executionGuard;
         this.toolHandlers = new HashMap<>();
         this.toolDefinite = new HashMap<>();
     }
 
-    public static ToolExecutor start(ExecutionContext context, RunStateManager runStateManager, ToolFetcher toolFetcher, RunLogger runLogger) {
-        ToolExecutor toolExecutor = new ToolExecutor(context, runStateManager, runLogger);
+    public static ToolExecutor start(ExecutionContext context, RunStateManager runStateManager, ToolFetcher toolFetcher, RunLogger runLogger,
+            ToolExecutionGuard executionGuard) {
+        ToolExecutor toolExecutor = new ToolExecutor(context, runStateManager, runLogger, executionGuard);
         if(CollectionUtils.isNotEmpty(context.getTools())) {
             context.getTools().stream().filter(tool -> !tool.getType().equals("function")).forEach(tool -> {
                         ToolHandler handler;
@@ -64,7 +68,7 @@ public class ToolExecutor implements Runnable {
                         } else if(tool instanceof Tool.MCP mcp) {
                             MCPTool mcpTool = mcp.getDefinition();
                             McpClientFactory.McpClientWrapper mcpClient = McpClientFactory.create(mcpTool.getServerUrl(), mcpTool.getAuthorization(),
-                                    mcpTool.getHeaders());
+                                    mcpTool.getHeaders(), mcpRequestTimeout(context));
                             handler = new McpToolListHandler(mcpClient, mcpTool, toolExecutor, context);
                         } else {
                             handler = toolFetcher.getToolHandler(tool);
@@ -92,8 +96,8 @@ public class ToolExecutor implements Runnable {
         ToolOutputChannel channel = null;
         try {
             context.toolCallAwait();
-            // 当结束时，会唤醒线程，执行结束操作
-            if(context.isEnd()) {
+            // 当结束时，会唤醒线程，执行结束操作；取消时不再执行新的工具
+            if(context.isEnd() || context.isCanceled()) {
                 return;
             }
             List<ChatToolCall> tasks = Lists.newArrayList(context.getCurrentToolTasks().values());
@@ -128,7 +132,8 @@ public class ToolExecutor implements Runnable {
                         channel = ToolOutputChannel.start(context);
                     }
                     ToolOutputChannel finalChannel = channel;
-                    CompletableFuture<Void> future = TaskExecutor.supplyCaller(() -> {
+                    // 超时、并发已满或执行异常时返回错误结果，模型可以继续执行
+                    CompletableFuture<Void> future = executionGuard.execute(context.getAssistantId(), toolName, context.getDeadline(), () -> {
                                         Map<String, Object> arguments = JacksonUtils.toMap(task.getFunction().getArguments().asText());
                                         if(arguments == null) {
                                             arguments = new HashMap<>();
@@ -137,17 +142,14 @@ public class ToolExecutor implements Runnable {
                                         log.put("type", tool.getType());
                                         log.put("args", arguments);
                                         runLogger.log("tool_start", BellaContext.snapshot(), log);
-                                        return handler.execute(toolContext, arguments, finalChannel);
-                                    }
-                            )
-                            .exceptionally(throwable -> {
-                                        log.warn(throwable.getMessage(), throwable);
-                                        return ToolResult.builder().error(throwable.getMessage()).build();
+                                        Map<String, Object> finalArguments = arguments;
+                                        // 取消时中断执行线程，阻塞中的MCP调用、HTTP请求随之退出
+                                        return context.getCancelSignal().interruptible(() -> handler.execute(toolContext, finalArguments, finalChannel));
                                     }
                             )
                             .thenAccept(output -> {
-                                // 非服务端执行的工具，不处理结果
-                                if(handler.isDefinitionHandler()) {
+                                // 非服务端执行的工具，不处理结果；run已取消时结果不再落库
+                                if(handler.isDefinitionHandler() || context.isCanceled()) {
                                     return;
                                 }
                                 // 等待 requiredTools 构建完成
@@ -172,7 +174,18 @@ public class ToolExecutor implements Runnable {
                     futures.toArray(new CompletableFuture[0])
             );
 
-            allFutures.join();
+            // 取消时不再等待未完成的工具，由interruptible中断执行线程
+            CompletableFuture<Void> canceled = new CompletableFuture<>();
+            Runnable unregister = context.onCancel(() -> canceled.complete(null));
+            try {
+                CompletableFuture.anyOf(allFutures, canceled).join();
+            } finally {
+                unregister.run();
+            }
+            if(context.isCanceled()) {
+                futures.forEach(future -> future.cancel(true));
+                return;
+            }
 
             //所有内部工具执行完毕，处理Required Action
             if(!requiredTools.isEmpty()) {
@@ -192,12 +205,26 @@ public class ToolExecutor implements Runnable {
         }
     }
 
+    /**
+     * MCP客户端的请求超时不超过run的剩余时间
+     */
+    private static Duration mcpRequestTimeout(ExecutionContext context) {
+        Duration timeout = McpClientFactory.DEFAULT_REQUEST_TIMEOUT;
+        if(context.getDeadline() == null) {
+            return timeout;
+        }
+        Duration remaining = Duration.ofMillis(Math.max(1000, context.getDeadline().remaining(TimeUnit.MILLISECONDS)));
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
     private ToolContext buildToolContext(ExecutionContext context, Tool tool, String toolId) {
         ToolContext toolContext = new ToolContext();
         toolContext.setTool(tool);
         toolContext.setFiles(context.getFileIds(tool.getType()));
         toolContext.setToolId(toolId);
         toolContext.setUser(context.getUser());
+        toolContext.setCancelSignal(context.getCancelSignal());
+        toolContext.setDeadline(context.getDeadline());
         return toolContext;
     }
 
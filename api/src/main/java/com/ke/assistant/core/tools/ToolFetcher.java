@@ -1,5 +1,6 @@
 package com.ke.assistant.core.tools;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -10,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import com.ke.assistant.core.tools.handlers.definition.CustomToolHandler;
 import com.theokanning.openai.assistants.assistant.Tool;
 import com.theokanning.openai.completion.chat.ChatTool;
 
@@ -23,10 +25,14 @@ public class ToolFetcher {
     private static final Logger logger = LoggerFactory.getLogger(ToolFetcher.class);
 
     private final ApplicationContext applicationContext;
+    private final ToolResultCache toolResultCache;
     private final Map<String, ToolHandler> toolHandlerMap = new ConcurrentHashMap<>();
+    // 内置工具的定义不会变化，注册时构建
+    private final Map<String, CachedChatTool> builtinChatTools = new ConcurrentHashMap<>();
     
-    public ToolFetcher(ApplicationContext applicationContext) {
+    public ToolFetcher(ApplicationContext applicationContext, ToolResultCache toolResultCache) {
         this.applicationContext = applicationContext;
+        this.toolResultCache = toolResultCache;
     }
     
     /**
@@ -54,7 +60,8 @@ public class ToolFetcher {
                 try {
                     String toolName = handler.getToolName();
                     if (toolName != null && !toolName.trim().isEmpty()) {
-                        toolHandlerMap.put(toolName, handler);
+                        toolHandlerMap.put(toolName, toolResultCache.decorate(handler));
+                        cacheBuiltinChatTool(toolName, handler);
                         logger.info("注册工具: {} -> {} (Bean: {})", 
                             toolName, handler.getClass().getSimpleName(), beanName);
                     } else {
@@ -94,17 +101,62 @@ public class ToolFetcher {
      * @return
      */
     public ChatTool fetchChatTool(String toolName) {
-        ChatTool chatTool = new ChatTool();
+        CachedChatTool chatTool = builtinChatTools.get(toolName);
+        if(chatTool != null) {
+            return chatTool;
+        }
         ToolHandler toolHandler = getToolHandler(toolName);
         if(toolHandler == null) {
             throw new IllegalArgumentException("Unexpected tool type:" + toolName);
         }
+        return buildChatTool(toolName, toolHandler);
+    }
+
+    /**
+     * 获取工具对应的Chat tool
+     * 助手自定义的工具（function、custom、mcp）每个run构建一次：run的工具列表每次从库中反序列化，没有稳定的标识，
+     * 按内容计算缓存key的开销不低于直接构建；构建时预先序列化，各轮请求不再重复序列化参数schema
+     */
+    public ChatTool fetchChatTool(Tool tool) {
+        if(!(tool instanceof Tool.Function) && !(tool instanceof Tool.Custom) && !(tool instanceof Tool.MCP)) {
+            return fetchChatTool(tool.getType());
+        }
+        return new CachedChatTool(buildDefinition(tool));
+    }
+
+    private static Tool.FunctionDefinition buildDefinition(Tool tool) {
+        if(tool instanceof Tool.Function function) {
+            return function.getFunction();
+        }
+        Tool.FunctionDefinition definition = new Tool.FunctionDefinition();
+        if(tool instanceof Tool.Custom custom) {
+            definition.setName(CustomToolHandler.getToolName(custom.getDefinition()));
+            definition.setDescription(CustomToolHandler.getDescription(custom.getDefinition()));
+            definition.setParameters(CustomToolHandler.getParameters(custom.getDefinition()));
+            definition.setStrict(true);
+        } else if(tool instanceof Tool.MCP mcp) {
+            definition.setName(mcp.getDefinition().getServerLabel());
+            definition.setDescription(mcp.getDefinition().getServerDescription());
+            definition.setParameters(new HashMap<>());
+        }
+        return definition;
+    }
+
+    private void cacheBuiltinChatTool(String toolName, ToolHandler handler) {
+        try {
+            builtinChatTools.put(toolName, buildChatTool(toolName, handler));
+        } catch (Exception e) {
+            // 定义依赖运行时配置的工具，调用时再构建
+            logger.warn("预构建工具定义失败: {}, {}", toolName, e.getMessage());
+        }
+    }
+
+    private static CachedChatTool buildChatTool(String toolName, ToolHandler toolHandler) {
         Tool.FunctionDefinition definition = new Tool.FunctionDefinition();
         definition.setName(toolName);
         definition.setDescription(toolHandler.getDescription());
         definition.setParameters(toolHandler.getParameters());
-        chatTool.setFunction(definition);
-        return chatTool;
+        return new CachedChatTool(definition);
     }
 
 }
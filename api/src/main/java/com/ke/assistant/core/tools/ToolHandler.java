@@ -57,6 +57,16 @@ public interface ToolHandler extends Closeable {
     }
 
 
+    /**
+     * 结果来自缓存时调用，补发执行过程中通过channel输出的事件
+     *
+     * @param arguments 工具入参
+     * @param result 缓存的执行结果
+     */
+    default void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+
+    }
+
     @Override
     default void close() {
 
@@ -25,6 +25,9 @@ public class ToolResult {
     private final Map<String, String> meta;
     @JsonIgnore
     private final List<Annotation> annotations;
+    // 执行未完成（如外部服务请求失败后返回的提示信息），结果不可缓存
+    @JsonIgnore
+    private boolean incomplete;
 
     public ToolResult(ToolResultType type, Object message) {
         this.type = type;
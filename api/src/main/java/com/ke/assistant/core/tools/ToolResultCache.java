@@ -0,0 +1,204 @@
+package com.ke.assistant.core.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ToolCacheProperties;
+import com.ke.assistant.configuration.ToolCacheProperties.ToolCachePolicy;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 工具结果缓存
+ * 按工具、规范化后的参数、工具配置和文件计算缓存key；并发的相同调用只由首个调用执行，其余调用等待并共享结果
+ * 失败或未完成的结果不缓存，等待中的调用在首个调用失败时自行执行
+ */
+@Slf4j
+@Component
+public class ToolResultCache {
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ToolCacheProperties properties;
+    private Cache<String, CachedResult> cache;
+    private MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<ToolResult>> inflight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getToolCache();
+        // 各工具的TTL不同，按最长TTL淘汰，读取时再检查各自的过期时间
+        long maxTtlSeconds = properties.getTools().values().stream()
+                .mapToLong(ToolCachePolicy::getTtlSeconds)
+                .max().orElse(1);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(Math.max(maxTtlSeconds, 1), TimeUnit.SECONDS)
+                .build();
+        this.meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * 为配置了缓存的工具包装缓存处理器，其余工具原样返回
+     */
+    public ToolHandler decorate(ToolHandler handler) {
+        if(!properties.isEnabled()) {
+            return handler;
+        }
+        ToolCachePolicy policy = properties.getTools().get(handler.getToolName());
+        if(policy == null || !policy.isCacheable() || policy.getTtlSeconds() <= 0) {
+            return handler;
+        }
+        log.info("tool result cache enabled: {}, ttl: {}s", handler.getToolName(), policy.getTtlSeconds());
+        return new CachingToolHandler(handler, policy, this);
+    }
+
+    ToolResult execute(ToolHandler handler, ToolCachePolicy policy, ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+        String toolName = handler.getToolName();
+        String key = buildKey(toolName, policy, context, arguments);
+        CachedResult cached = cache.getIfPresent(key);
+        if(cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            record(toolName, "hit");
+            handler.replayCached(context, arguments, cached.result, channel);
+            return copy(cached.result);
+        }
+        CompletableFuture<ToolResult> flight = new CompletableFuture<>();
+        CompletableFuture<ToolResult> leader = inflight.putIfAbsent(key, flight);
+        if(leader != null) {
+            ToolResult shared = await(leader);
+            if(isCacheable(shared)) {
+                record(toolName, "shared");
+                handler.replayCached(context, arguments, shared, channel);
+                return copy(shared);
+            }
+            record(toolName, "miss");
+            return handler.execute(context, arguments, channel);
+        }
+        record(toolName, "miss");
+        try {
+            ToolResult result = handler.execute(context, arguments, channel);
+            if(isCacheable(result)) {
+                cache.put(key, new CachedResult(result, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(policy.getTtlSeconds())));
+            }
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, flight);
+        }
+    }
+
+    private static ToolResult await(CompletableFuture<ToolResult> leader) {
+        try {
+            return leader.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("tool call interrupted");
+        }
+    }
+
+    private static boolean isCacheable(ToolResult result) {
+        return result != null && !result.isNull() && result.getError() == null && !result.isIncomplete();
+    }
+
+    /**
+     * 缓存的结果在多个run间共享，返回可变字段的副本
+     */
+    private static ToolResult copy(ToolResult result) {
+        return ToolResult.builder()
+                .type(result.getType())
+                .message(result.getMessage())
+                .meta(result.getMeta() == null ? null : new HashMap<>(result.getMeta()))
+                .annotations(result.getAnnotations() == null ? null : new ArrayList<>(result.getAnnotations()))
+                .build();
+    }
+
+    static String buildKey(String toolName, ToolCachePolicy policy, ToolContext context, Map<String, Object> arguments) {
+        Map<String, Object> args = new TreeMap<>();
+        if(arguments != null) {
+            arguments.forEach((name, value) -> {
+                if(!policy.getIgnoredArgs().contains(name)) {
+                    args.put(name, normalize(value, policy));
+                }
+            });
+        }
+        Map<String, Object> material = new TreeMap<>();
+        material.put("args", args);
+        // 工具配置（如检索的topK、score）和文件影响结果
+        material.put("tool", context.getTool() == null ? null : JacksonUtils.serialize(context.getTool()));
+        if(context.getFiles() != null && !context.getFiles().isEmpty()) {
+            List<String> files = new ArrayList<>(context.getFiles());
+            files.sort(Comparator.naturalOrder());
+            material.put("files", files);
+        }
+        if(policy.isPerUser()) {
+            material.put("user", context.getUser());
+        }
+        return toolName + ":" + Hashing.sha256().hashString(JacksonUtils.serialize(material), StandardCharsets.UTF_8);
+    }
+
+    private static Object normalize(Object value, ToolCachePolicy policy) {
+        if(value instanceof String s) {
+            String normalized = s.trim().replaceAll("\\s+", " ");
+            return policy.isIgnoreCase() ? normalized.toLowerCase(Locale.ROOT) : normalized;
+        }
+        if(value instanceof Map<?, ?> map) {
+            Map<String, Object> normalized = new TreeMap<>();
+            map.forEach((k, v) -> normalized.put(String.valueOf(k), normalize(v, policy)));
+            return normalized;
+        }
+        if(value instanceof Collection<?> collection) {
+            List<Object> normalized = new ArrayList<>(collection.size());
+            collection.forEach(item -> normalized.add(normalize(item, policy)));
+            if(policy.isSortLists()) {
+                normalized.sort(Comparator.comparing(JacksonUtils::serialize));
+            }
+            return normalized;
+        }
+        return value;
+    }
+
+    private void record(String toolName, String result) {
+        if(meterRegistry != null) {
+            meterRegistry.counter("bella.tool.cache.requests", "tool", toolName, "result", result).increment();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class CachedResult {
+        private final ToolResult result;
+        private final long expiresAt;
+    }
+}
@@ -101,18 +101,20 @@ public class BarToolHandler implements ToolHandler {
         String imageUrl;
         try {
             // 使用JFreeChart生成柱状图
-            byte[] chartBytes = chartService.generateBarChart(
-                title,                    // 图表标题
-                xTag,                     // X轴标签
-                yTag,                     // Y轴标签
-                values,                     // 数据数组
-                xAxisLabels,                // X轴标签数组
-                barProperties.getWidth(),   // 宽度
-                barProperties.getHeight()   // 高度
-            );
-            
-            // 上传到S3（必需）
-            imageUrl = s3Service.uploadChart(chartBytes, "jpg");
+            ChartService.ChartRequest request = ChartService.ChartRequest.builder()
+                .type(ChartService.ChartType.BAR)
+                .title(title)
+                .categoryAxisLabel(xTag)
+                .valueAxisLabel(yTag)
+                .data(values)
+                .labels(xAxisLabels)
+                .width(barProperties.getWidth())
+                .height(barProperties.getHeight())
+                .format(barProperties.getFormat())
+                .build();
+
+            // 渲染并上传到S3（必需），相同内容的图表复用已上传的URL
+            imageUrl = chartService.renderAndUpload(request);
             log.info("Generated bar chart with {} data points and uploaded to S3: {}", values.length, imageUrl);
             
         } catch (Exception e) {
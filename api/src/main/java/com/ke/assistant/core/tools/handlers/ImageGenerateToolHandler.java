@@ -1,6 +1,5 @@
 package com.ke.assistant.core.tools.handlers;
 
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -201,13 +200,10 @@ public class ImageGenerateToolHandler implements ToolHandler {
                 Image image = result.getData().get(0);
                 String base64Data = image.getB64Json();
                 
-                // 将Base64数据转换为字节数组
-                byte[] imageBytes = Base64.getDecoder().decode(base64Data);
-
                 String s3Url = null;
                 if(!noStore) {
-                    // 上传到S3并返回URL
-                    s3Url = s3Service.uploadChart(imageBytes, "png");
+                    // 边解码边上传到S3并返回URL
+                    s3Url = s3Service.uploadBase64(base64Data, "image/png", ".png");
                     log.info("Generated image uploaded to S3: {}", s3Url);
                 }
                 
@@ -100,18 +100,20 @@ public class LineToolHandler implements ToolHandler {
         String imageUrl;
         try {
             // 使用JFreeChart生成折线图
-            byte[] chartBytes = chartService.generateLineChart(
-                title,                    // 图表标题
-                xTag,                     // X轴标签
-                yTag,                     // Y轴标签
-                values,                   // 数据数组
-                xAxisLabels,              // X轴标签数组
-                lineProperties.getWidth(),   // 宽度
-                lineProperties.getHeight()   // 高度
-            );
-            
-            // 上传到S3（必需）
-            imageUrl = s3Service.uploadChart(chartBytes, "jpg");
+            ChartService.ChartRequest request = ChartService.ChartRequest.builder()
+                .type(ChartService.ChartType.LINE)
+                .title(title)
+                .categoryAxisLabel(xTag)
+                .valueAxisLabel(yTag)
+                .data(values)
+                .labels(xAxisLabels)
+                .width(lineProperties.getWidth())
+                .height(lineProperties.getHeight())
+                .format(lineProperties.getFormat())
+                .build();
+
+            // 渲染并上传到S3（必需），相同内容的图表复用已上传的URL
+            imageUrl = chartService.renderAndUpload(request);
             log.info("Generated line chart with {} data points and uploaded to S3: {}", values.length, imageUrl);
             
         } catch (Exception e) {
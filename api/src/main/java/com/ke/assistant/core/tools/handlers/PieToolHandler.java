@@ -96,16 +96,18 @@ public class PieToolHandler implements ToolHandler {
         String imageUrl;
         try {
             // 使用JFreeChart生成饼图
-            byte[] chartBytes = chartService.generatePieChart(
-                title,                    // 图表标题
-                values,                   // 数据数组
-                categoryLabels,           // 分类标签数组
-                pieProperties.getWidth(),    // 宽度
-                pieProperties.getHeight()    // 高度
-            );
-            
-            // 上传到S3（必需）
-            imageUrl = s3Service.uploadChart(chartBytes, "jpg");
+            ChartService.ChartRequest request = ChartService.ChartRequest.builder()
+                .type(ChartService.ChartType.PIE)
+                .title(title)
+                .data(values)
+                .labels(categoryLabels)
+                .width(pieProperties.getWidth())
+                .height(pieProperties.getHeight())
+                .format(pieProperties.getFormat())
+                .build();
+
+            // 渲染并上传到S3（必需），相同内容的图表复用已上传的URL
+            imageUrl = chartService.renderAndUpload(request);
             log.info("Generated pie chart with {} data points and uploaded to S3: {}", values.length, imageUrl);
             
         } catch (Exception e) {
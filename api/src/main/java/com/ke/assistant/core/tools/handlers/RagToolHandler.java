@@ -89,6 +89,8 @@ public class RagToolHandler implements ToolHandler {
             "[DONE]"::equals
         );
 
+        // run取消时关闭SSE连接
+        Runnable unregister = context.getCancelSignal() == null ? () -> {} : context.getCancelSignal().onCancel(listener::cancel);
         try {
             // 使用HttpUtils发送SSE流式请求
             HttpUtils.streamRequest(request, listener);
@@ -104,6 +106,8 @@ public class RagToolHandler implements ToolHandler {
         } catch (Exception e) {
             log.error("RAG tool execution failed", e);
             throw new RuntimeException("RAG tool execution failed: " + e.getMessage(), e);
+        } finally {
+            unregister.run();
         }
     }
     
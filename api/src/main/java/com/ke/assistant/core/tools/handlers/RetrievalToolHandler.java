@@ -15,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.Lists;
 import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.configuration.ToolProperties;
@@ -91,7 +92,10 @@ public class RetrievalToolHandler implements ToolHandler {
                         .build());
             }
 
-            // 发送请求
+            // 发送请求，run的执行时间已用完时不再发起请求
+            if(context.getDeadline() != null) {
+                context.getDeadline().check();
+            }
             RetrievalResponse response = HttpUtils.httpRequest(request, RetrievalResponse.class);
 
             // 构建返回结果
@@ -121,6 +125,34 @@ public class RetrievalToolHandler implements ToolHandler {
         }
     }
     
+    @Override
+    public void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+        if(channel == null) {
+            return;
+        }
+        String query = Optional.ofNullable(arguments.get("query")).map(Object::toString).orElse(null);
+        String value = (String) result.getMessage();
+        FileSearchToolCall toolCall = new FileSearchToolCall();
+        toolCall.setQueries(Lists.newArrayList(query));
+        channel.output(context.getToolId(), context.getTool(), ToolStreamEvent.builder().toolCallId(context.getToolId())
+                .executionStage(ToolStreamEvent.ExecutionStage.prepare)
+                .result(toolCall)
+                .event(FileSearchInProgressEvent.builder().build())
+                .build());
+        if(isFinal()) {
+            channel.output(context.getToolId(), value);
+        }
+        FileSearchToolCall completed = new FileSearchToolCall();
+        completed.setQueries(Lists.newArrayList(query));
+        completed.setStatus(ItemStatus.COMPLETED);
+        completed.setResults(JacksonUtils.deserialize(value, new TypeReference<List<FileSearchToolCall.SearchResult>>() {}));
+        channel.output(context.getToolId(), context.getTool(), ToolStreamEvent.builder().toolCallId(context.getToolId())
+                .result(completed)
+                .executionStage(ToolStreamEvent.ExecutionStage.completed)
+                .event(FileSearchCompletedEvent.builder().build())
+                .build());
+    }
+
     /**
      * 构建请求体
      */
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 import com.google.common.collect.Lists;
 import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.configuration.ToolProperties;
+import com.ke.assistant.core.run.Deadline;
 import com.ke.assistant.core.tools.ToolContext;
 import com.ke.assistant.core.tools.ToolHandler;
 import com.ke.assistant.core.tools.ToolOutputChannel;
@@ -62,7 +63,8 @@ public class WeatherSearchToolHandler implements ToolHandler {
                 .build();
         
         // 发送请求
-        WeatherResponse response = HttpUtils.httpRequest(request, WeatherResponse.class, 30, 30);
+        int timeout = Deadline.timeoutSeconds(context.getDeadline(), 30);
+        WeatherResponse response = HttpUtils.httpRequest(request, WeatherResponse.class, timeout, timeout);
         
         // 处理响应数据
         Object weatherData = processWeatherData(response);
@@ -70,7 +72,10 @@ public class WeatherSearchToolHandler implements ToolHandler {
         // 构建输出内容
         String output = weatherData instanceof String s ? s : JacksonUtils.serialize(weatherData);
         
-        return new ToolResult(ToolResult.ToolResultType.text, output);
+        ToolResult result = new ToolResult(ToolResult.ToolResultType.text, output);
+        // 未查到数据时可能是服务限流等原因，不缓存
+        result.setIncomplete(!(weatherData instanceof List));
+        return result;
     }
     
     /**
@@ -16,6 +16,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.google.common.collect.Lists;
 import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.configuration.ToolProperties;
+import com.ke.assistant.core.run.Deadline;
 import com.ke.assistant.core.tools.ToolContext;
 import com.ke.assistant.core.tools.ToolHandler;
 import com.ke.assistant.core.tools.ToolOutputChannel;
@@ -77,7 +78,8 @@ public class WebCrawlerToolHandler implements ToolHandler {
                         .post(RequestBody.create(JacksonUtils.serialize(crawlerRequest), okhttp3.MediaType.parse("application/json")))
                         .build();
                 // 发送请求
-                response = HttpUtils.httpRequest(request, WebExtractResponse.class, 30, webCrawlerProperties.getTimeout());
+                response = HttpUtils.httpRequest(request, WebExtractResponse.class, Deadline.timeoutSeconds(context.getDeadline(), 30),
+                        Deadline.timeoutSeconds(context.getDeadline(), webCrawlerProperties.getTimeout()));
             }
 
             // 处理响应
@@ -98,8 +100,10 @@ public class WebCrawlerToolHandler implements ToolHandler {
             // 构建输出内容
             String output = JacksonUtils.serialize(webCrawlerUrlContent);
 
-            // 直接返回爬取结果
-            return new ToolResult(ToolResult.ToolResultType.text, output);
+            // 直接返回爬取结果，存在爬取失败的URL时不缓存
+            ToolResult result = new ToolResult(ToolResult.ToolResultType.text, output);
+            result.setIncomplete(response.getFailedResults() != null && !response.getFailedResults().isEmpty());
+            return result;
         } catch (Exception e) {
             log.warn(e.getMessage(), e);
             return new ToolResult(e.getMessage());
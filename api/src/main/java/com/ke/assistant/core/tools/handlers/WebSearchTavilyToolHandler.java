@@ -18,6 +18,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Lists;
 import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.configuration.ToolProperties;
+import com.ke.assistant.core.run.Deadline;
 import com.ke.assistant.core.tools.ToolContext;
 import com.ke.assistant.core.tools.ToolHandler;
 import com.ke.assistant.core.tools.ToolOutputChannel;
@@ -105,7 +106,8 @@ public class WebSearchTavilyToolHandler implements ToolHandler {
                         .build();
 
                 // 发送请求
-                response = HttpUtils.httpRequest(request, WebSearchResponse.class, 30, 30);
+                int timeout = Deadline.timeoutSeconds(context.getDeadline(), 30);
+                response = HttpUtils.httpRequest(request, WebSearchResponse.class, timeout, timeout);
             }
 
             Pair<Boolean, List<TavilySearchResult>> result = processSearchResults(response);
@@ -118,11 +120,16 @@ public class WebSearchTavilyToolHandler implements ToolHandler {
                     .collect(Collectors.toList()) : new ArrayList<>();
 
             status = ItemStatus.COMPLETED;
-            return new ToolResult(ToolResult.ToolResultType.text, output, annotations);
+            ToolResult toolResult = new ToolResult(ToolResult.ToolResultType.text, output, annotations);
+            // 没有搜索结果时返回的是提示信息，不缓存
+            toolResult.setIncomplete(!result.getLeft());
+            return toolResult;
         } catch (Exception e) {
             log.warn(e.getMessage(), e);
             status = ItemStatus.INCOMPLETE;
-            return new ToolResult(ToolResult.ToolResultType.text, e.getMessage(), new ArrayList<>());
+            ToolResult toolResult = new ToolResult(ToolResult.ToolResultType.text, e.getMessage(), new ArrayList<>());
+            toolResult.setIncomplete(true);
+            return toolResult;
         } finally {
             toolCall.setStatus(status);
             if(channel != null) {
@@ -135,6 +142,27 @@ public class WebSearchTavilyToolHandler implements ToolHandler {
         }
     }
     
+    @Override
+    public void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+        if(channel == null) {
+            return;
+        }
+        WebSearchToolCall toolCall = new WebSearchToolCall();
+        toolCall.setStatus(ItemStatus.IN_PROGRESS);
+        channel.output(context.getToolId(), context.getTool(), ToolStreamEvent.builder().toolCallId(context.getToolId())
+                .executionStage(ToolStreamEvent.ExecutionStage.prepare)
+                .result(toolCall)
+                .event(WebSearchInProgressEvent.builder().build())
+                .build());
+        WebSearchToolCall completed = new WebSearchToolCall();
+        completed.setStatus(ItemStatus.COMPLETED);
+        channel.output(context.getToolId(), context.getTool(), ToolStreamEvent.builder().toolCallId(context.getToolId())
+                .executionStage(ToolStreamEvent.ExecutionStage.completed)
+                .event(WebSearchCompletedEvent.builder().build())
+                .result(completed)
+                .build());
+    }
+
     /**
      * 构建搜索请求
      */
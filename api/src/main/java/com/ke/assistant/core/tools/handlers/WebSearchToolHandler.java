@@ -25,6 +25,11 @@ public class WebSearchToolHandler implements ToolHandler {
         return delegator.execute(context, arguments, channel);
     }
 
+    @Override
+    public void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+        delegator.replayCached(context, arguments, result, channel);
+    }
+
     @Override
     public String getToolName() {
         return "web_search";
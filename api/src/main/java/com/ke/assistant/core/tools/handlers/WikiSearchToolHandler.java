@@ -24,6 +24,11 @@ public class WikiSearchToolHandler implements ToolHandler {
         return delegator.execute(context, arguments, channel);
     }
 
+    @Override
+    public void replayCached(ToolContext context, Map<String, Object> arguments, ToolResult result, ToolOutputChannel channel) {
+        delegator.replayCached(context, arguments, result, channel);
+    }
+
     @Override
     public String getDescription() {
         return delegator.getDescription();
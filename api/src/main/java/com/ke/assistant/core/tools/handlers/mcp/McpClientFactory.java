@@ -24,6 +24,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class McpClientFactory {
 
+    /** Default request timeout */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
     /**
      * Create MCP client with default Streamable HTTP transport
      *
@@ -68,11 +71,26 @@ public class McpClientFactory {
      * @return wrapped MCP client
      */
     public static McpClientWrapper create(String serverUrl, String authorization, Map<String, String> headers) {
+        return create(serverUrl, authorization, headers, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Create MCP client with Streamable HTTP transport and a request timeout bounded by the caller's deadline
+     *
+     * @param serverUrl Server URL
+     * @param authorization Authorization header value
+     * @param headers   HTTP headers
+     * @param requestTimeout Request timeout
+     *
+     * @return wrapped MCP client
+     */
+    public static McpClientWrapper create(String serverUrl, String authorization, Map<String, String> headers, Duration requestTimeout) {
         McpClientConfig config = McpClientConfig.builder()
                 .transportType(TransportType.STREAMABLE_HTTP)
                 .serverUrl(serverUrl)
                 .authorization(authorization)
                 .headers(headers)
+                .requestTimeout(requestTimeout)
                 .build();
         return create(config);
     }
@@ -176,7 +194,7 @@ public class McpClientFactory {
 
         /** Request timeout */
         @Builder.Default
-        private Duration requestTimeout = Duration.ofSeconds(30);
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
 
         /** Enable roots capability */
         @Builder.Default
@@ -98,6 +98,10 @@ public class McpExecuteToolHandler implements McpToolHandler {
                         .build());
             }
 
+            // run的执行时间已用完时不再发起调用
+            if(context.getDeadline() != null) {
+                context.getDeadline().check();
+            }
             McpSchema.CallToolResult result = mcpClient.callTool(mcpToolInfo.getName(), arguments);
             call.setArguments(argumentStr);
             if(Boolean.TRUE == result.isError()) {
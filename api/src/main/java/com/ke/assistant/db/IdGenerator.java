@@ -2,6 +2,8 @@ package com.ke.assistant.db;
 
 import static com.ke.assistant.db.generated.Tables.ID_SEQUENCE;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -128,7 +130,7 @@ public class IdGenerator {
             }
 
             // 批量获取新的ID区间
-            IdRange newRange = batchAcquireIdRange(prefix);
+            IdRange newRange = batchAcquireIdRange(prefix, BATCH_SIZE);
             idRangeCache.put(prefix, newRange);
 
             Long nextId = newRange.getNextId();
@@ -138,10 +140,34 @@ public class IdGenerator {
         }
     }
 
+    /**
+     * 批量生成递增ID，用于批量插入
+     * 数量不足一个缓存区间时从内存缓存中分配，否则一次性向数据库预留一段连续区间，不占用缓存
+     *
+     * @param prefix 前缀
+     * @param count 需要的ID数量
+     * @return 按递增顺序排列的ID
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 30)
+    public List<String> generateIds(String prefix, int count) {
+        List<String> ids = new ArrayList<>(Math.max(count, 0));
+        if(count < BATCH_SIZE) {
+            for (int i = 0; i < count; i++) {
+                ids.add(generateId(prefix));
+            }
+            return ids;
+        }
+        IdRange range = batchAcquireIdRange(prefix, count);
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + "_" + range.getNextId());
+        }
+        return ids;
+    }
+
     /**
      * 批量获取ID区间 - 使用数据库行锁保证分布式环境下的串行性
      */
-    private IdRange batchAcquireIdRange(String prefix) {
+    private IdRange batchAcquireIdRange(String prefix, int size) {
         // 使用 SELECT ... FOR UPDATE 加行锁，保证分布式环境下的串行性
         IdSequenceRecord existing = db.selectFrom(ID_SEQUENCE)
                 .where(ID_SEQUENCE.PREFIX.eq(prefix))
@@ -153,14 +179,14 @@ public class IdGenerator {
             log.warn("发现未预创建的前缀: {}, 动态创建记录", prefix);
             db.insertInto(ID_SEQUENCE)
                     .set(ID_SEQUENCE.PREFIX, prefix)
-                    .set(ID_SEQUENCE.CURRENT_VALUE, (long) BATCH_SIZE)
+                    .set(ID_SEQUENCE.CURRENT_VALUE, (long) size)
                     .execute();
-            return new IdRange(1L, BATCH_SIZE);
+            return new IdRange(1L, size);
         }
 
         // 更新现有序列，批量分配
         long startId = existing.getCurrentValue() + 1;
-        long endId = startId + BATCH_SIZE - 1;
+        long endId = startId + size - 1;
 
         // 直接更新，因为已经通过forUpdate()锁定了记录，不需要乐观锁
         db.update(ID_SEQUENCE)
@@ -180,6 +206,14 @@ public class IdGenerator {
         return generateId("asst");
     }
 
+    /**
+     * 批量生成 Message ID
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 30)
+    public List<String> generateMessageIds(int count) {
+        return generateIds("msg", count);
+    }
+
     /**
      * 生成 Message ID
      */
@@ -0,0 +1,11 @@
+package com.ke.assistant.db;
+
+/**
+ * 乐观锁版本冲突异常，由OptimisticLockExecutor捕获并重试
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    public OptimisticLockException(String table, String id) {
+        super("version conflict on " + table + ": " + id);
+    }
+}
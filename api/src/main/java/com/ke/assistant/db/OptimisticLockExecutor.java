@@ -0,0 +1,70 @@
+package com.ke.assistant.db;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.OptimisticLockProperties;
+import com.ke.assistant.db.context.RepoContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 乐观锁执行器
+ * 执行"读取-修改-CAS写入"的更新逻辑，attempt的参数表示本次是否需要加锁读取（SELECT ... FOR UPDATE）
+ * 关闭乐观锁时始终加锁读取；开启后先以普通读取尝试：
+ * 1、在事务中时，版本冲突后直接以加锁读取重试。REPEATABLE READ下事务内的普通读取始终是同一快照，重试无法成功，且退避等待会一直持有已加的行锁
+ * 2、不在事务中时，每次读取都能看到最新提交的数据，版本冲突时退避重试，最后一次退化为加锁读取保证写入成功
+ */
+@Component
+@Slf4j
+public class OptimisticLockExecutor {
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    public <T> T execute(Function<Boolean, T> attempt) {
+        OptimisticLockProperties properties = assistantProperties.getOptimisticLock();
+        if(RepoContext.isActive()) {
+            return attempt.apply(false);
+        }
+        if(!properties.isEnabled()) {
+            return attempt.apply(true);
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        int maxRetries = inTransaction ? Math.min(1, properties.getMaxRetries()) : Math.max(0, properties.getMaxRetries());
+        for (int i = 0; ; i++) {
+            boolean lockRead = i >= maxRetries;
+            try {
+                return attempt.apply(lockRead);
+            } catch (OptimisticLockException e) {
+                if(lockRead) {
+                    throw e;
+                }
+                log.debug("{}, retry {}", e.getMessage(), i + 1);
+                if(!inTransaction) {
+                    backoff(properties.getBackoffMillis(), i);
+                }
+            }
+        }
+    }
+
+    private void backoff(long baseMillis, int retry) {
+        if(baseMillis <= 0) {
+            return;
+        }
+        long millis = baseMillis * (retry + 1);
+        millis += ThreadLocalRandom.current().nextLong(millis + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while retrying optimistic update", e);
+        }
+    }
+}
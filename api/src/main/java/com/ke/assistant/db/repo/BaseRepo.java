@@ -2,14 +2,17 @@ package com.ke.assistant.db.repo;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Table;
 import org.jooq.TableField;
+import org.jooq.UpdatableRecord;
 
 import com.ke.assistant.db.context.RepoContext;
 
@@ -54,6 +57,55 @@ public interface BaseRepo {
         }
     }
 
+    /**
+     * 只更新发生变化的字段
+     * 对比修改前后的快照，仅将值不同的列写入 UPDATE 语句，避免状态变更时重写大字段（content、step_details等）
+     *
+     * @param dsl DSL上下文
+     * @param table 更新的表
+     * @param idField 主键字段
+     * @param updatedAtField 更新时间字段，有变更时自动刷新
+     * @param versionField 版本号字段，每次写入自增
+     * @param original 修改前的快照
+     * @param modified 修改后的对象
+     * @param checkVersion 是否以快照中的版本号作为更新条件（CAS）
+     * @return 没有变化或更新成功时返回true，版本号不匹配时返回false
+     */
+    default <R extends UpdatableRecord<R>> boolean updateChanged(
+            DSLContext dsl,
+            Table<R> table,
+            TableField<R, String> idField,
+            TableField<R, LocalDateTime> updatedAtField,
+            TableField<R, Long> versionField,
+            Object original,
+            Object modified,
+            boolean checkVersion) {
+        R before = dsl.newRecord(table, original);
+        R after = dsl.newRecord(table, modified);
+        boolean dirty = false;
+        for (Field<?> field : table.fields()) {
+            boolean changed = field != updatedAtField && field != versionField
+                    && !Objects.equals(before.get(field), after.get(field));
+            after.changed(field, changed);
+            dirty |= changed;
+        }
+        if(!dirty) {
+            return true;
+        }
+        fillUpdateTime(modified);
+        after.set(updatedAtField, LocalDateTime.now());
+        Condition condition = idField.eq(before.get(idField));
+        if(checkVersion) {
+            Long version = before.get(versionField);
+            condition = condition.and(versionField.eq(version == null ? 0L : version));
+        }
+        return dsl.update(table)
+                .set(after)
+                .set(versionField, versionField.plus(1))
+                .where(condition)
+                .execute() > 0;
+    }
+
     /**
      * 通用的基于游标的分页查询
      * 
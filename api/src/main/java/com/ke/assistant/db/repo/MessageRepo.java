@@ -3,30 +3,41 @@ package com.ke.assistant.db.repo;
 import static com.ke.assistant.db.generated.Tables.MESSAGE;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStepN;
+import org.jooq.SortField;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 
+import com.google.common.collect.Lists;
 import com.ke.assistant.db.IdGenerator;
 import com.ke.assistant.db.generated.tables.pojos.MessageDb;
 import com.ke.assistant.db.generated.tables.records.MessageRecord;
+import com.ke.assistant.db.shard.ShardRouter;
 
 import lombok.RequiredArgsConstructor;
 
 /**
  * Message Repository
- * todo: threadId 用于分表
+ * 按threadId分表，由 ShardRouter 路由到对应分表
  */
 @Repository
 @RequiredArgsConstructor
 public class MessageRepo implements BaseRepo {
 
-    private final DSLContext dsl;
     private final IdGenerator idGenerator;
+    private final ShardRouter shardRouter;
 
     /**
      * 根据 ID 查询 Message
@@ -36,6 +47,7 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findMessageById(id);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.ID.eq(id))
                 .fetchOneInto(MessageDb.class);
@@ -50,6 +62,7 @@ public class MessageRepo implements BaseRepo {
             // Non-store mode doesn't need DB-level locks
             return getContextStore().findMessageById(id);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.ID.eq(id))
                 .forUpdate()
@@ -64,10 +77,11 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findMessagesByThreadId(threadId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.THREAD_ID.eq(threadId))
                 .and(MESSAGE.MESSAGE_STATUS.eq("original"))
-                .orderBy(MESSAGE.CREATED_AT.asc())
+                .orderBy(createdAtAsc())
                 .fetchInto(MessageDb.class);
     }
 
@@ -79,11 +93,12 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findMessagesByThreadIdWithLimit(threadId, lessThanCreateAt);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.THREAD_ID.eq(threadId))
                 .and(MESSAGE.CREATED_AT.lessThan(lessThanCreateAt))
                 .and(MESSAGE.MESSAGE_STATUS.eq("original"))
-                .orderBy(MESSAGE.CREATED_AT.asc())
+                .orderBy(createdAtAsc())
                 .fetchInto(MessageDb.class);
     }
 
@@ -95,11 +110,12 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findMessagesByThreadIdWithIntervalIncludeHidden(threadId, from, to);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.THREAD_ID.eq(threadId))
                 .and(MESSAGE.CREATED_AT.greaterThan(from))
                 .and(MESSAGE.CREATED_AT.lessThan(to))
-                .orderBy(MESSAGE.CREATED_AT.asc())
+                .orderBy(createdAtAsc())
                 .fetchInto(MessageDb.class);
     }
 
@@ -130,6 +146,7 @@ public class MessageRepo implements BaseRepo {
             }
             return all.stream().sorted(cmp).limit(limit).collect(Collectors.toList());
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return findWithCursor(
                 dsl,
                 MESSAGE,
@@ -159,12 +176,80 @@ public class MessageRepo implements BaseRepo {
         }
         fillCreateTime(message);
 
+        DSLContext dsl = shardRouter.dsl(message.getThreadId());
         MessageRecord record = dsl.newRecord(MESSAGE, message);
         record.store();
 
         return record.into(MessageDb.class);
     }
 
+    /**
+     * 批量插入 Message
+     * 一次性预留所有缺失的ID，按thread分组后每batchSize行生成一条多行 INSERT ... VALUES，在调用方的事务中执行；
+     * created_at只精确到秒，同一秒内的消息按ID排序，批量预留的ID按列表顺序递增，因此查询顺序与列表顺序一致；
+     * 创建时间仍按列表顺序逐条递增1毫秒（最后一条为当前时间），供不落库模式下按创建时间排序
+     *
+     * @param messages 待插入的消息，按期望的顺序排列
+     * @param batchSize 每条INSERT语句的最大行数
+     * @return 插入后的消息
+     */
+    public List<MessageDb> batchInsert(List<MessageDb> messages, int batchSize) {
+        if(messages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int missing = (int) messages.stream().filter(message -> StringUtils.isBlank(message.getId())).count();
+        Iterator<String> ids = missing == 0 ? Collections.emptyIterator() : idGenerator.generateMessageIds(missing).iterator();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < messages.size(); i++) {
+            MessageDb message = messages.get(i);
+            message.setObject("thread.message");
+            if(StringUtils.isBlank(message.getId())) {
+                message.setId(ids.next());
+            }
+            LocalDateTime createdAt = now.minusNanos((messages.size() - 1L - i) * 1_000_000L);
+            message.setCreatedAt(createdAt);
+            message.setUpdatedAt(createdAt);
+        }
+
+        if (isNoStoreMode()) {
+            // 保留上面分配的递增创建时间
+            messages.forEach(message -> getContextStore().messages.put(message.getId(), message));
+            return messages;
+        }
+
+        Map<String, List<MessageDb>> byThread = new LinkedHashMap<>();
+        for (MessageDb message : messages) {
+            byThread.computeIfAbsent(message.getThreadId(), k -> new ArrayList<>()).add(message);
+        }
+        for (Map.Entry<String, List<MessageDb>> entry : byThread.entrySet()) {
+            DSLContext dsl = shardRouter.dsl(entry.getKey());
+            for (List<MessageDb> chunk : Lists.partition(entry.getValue(), Math.max(1, batchSize))) {
+                InsertValuesStepN<MessageRecord> insert = dsl.insertInto(MESSAGE, MESSAGE.fields());
+                for (MessageDb message : chunk) {
+                    insert = insert.values(row(dsl.newRecord(MESSAGE, message)));
+                }
+                insert.execute();
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 多行插入的一行值，NOT NULL且有默认值的列为空时使用DEFAULT，与单行 store() 的行为一致
+     */
+    private static List<Field<?>> row(MessageRecord record) {
+        List<Field<?>> values = new ArrayList<>(MESSAGE.fields().length);
+        for (Field<?> field : MESSAGE.fields()) {
+            Object value = record.get(field);
+            if(value == null && !field.getDataType().nullable() && field.getDataType().defaulted()) {
+                values.add(DSL.defaultValue(field));
+            } else {
+                values.add(DSL.val(value, field));
+            }
+        }
+        return values;
+    }
+
     /**
      * 更新 Message
      */
@@ -176,12 +261,44 @@ public class MessageRepo implements BaseRepo {
         }
         fillUpdateTime(message);
 
+        DSLContext dsl = shardRouter.dsl(message.getThreadId());
+        MessageRecord record = dsl.newRecord(MESSAGE, message);
+        record.changed(MESSAGE.VERSION, false);
         return dsl.update(MESSAGE)
-                .set(dsl.newRecord(MESSAGE, message))
+                .set(record)
+                .set(MESSAGE.VERSION, MESSAGE.VERSION.plus(1))
                 .where(MESSAGE.ID.eq(message.getId()))
                 .execute() > 0;
     }
 
+    /**
+     * 只更新相对于原始快照发生变化的字段
+     */
+    public boolean update(MessageDb original, MessageDb message) {
+
+        if (isNoStoreMode()) {
+            fillUpdateTime(message);
+            return getContextStore().updateMessage(message);
+        }
+        DSLContext dsl = shardRouter.dsl(original.getThreadId());
+        return updateChanged(dsl, MESSAGE, MESSAGE.ID, MESSAGE.UPDATED_AT, MESSAGE.VERSION, original, message, false);
+    }
+
+    /**
+     * 乐观锁更新：仅当数据库中的版本号仍等于原始快照的版本号时写入
+     *
+     * @return 版本号冲突时返回false
+     */
+    public boolean updateWithVersion(MessageDb original, MessageDb message) {
+
+        if (isNoStoreMode()) {
+            fillUpdateTime(message);
+            return getContextStore().updateMessage(message);
+        }
+        DSLContext dsl = shardRouter.dsl(original.getThreadId());
+        return updateChanged(dsl, MESSAGE, MESSAGE.ID, MESSAGE.UPDATED_AT, MESSAGE.VERSION, original, message, true);
+    }
+
     /**
      * 删除 Message
      */
@@ -190,6 +307,7 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().messages.remove(id) != null;
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.deleteFrom(MESSAGE)
                 .where(MESSAGE.ID.eq(id))
                 .execute() > 0;
@@ -203,10 +321,11 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRecentMessagesByThreadId(threadId, limit);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(MESSAGE)
                 .where(MESSAGE.THREAD_ID.eq(threadId))
                 .and(MESSAGE.MESSAGE_STATUS.eq("original"))
-                .orderBy(MESSAGE.CREATED_AT.desc())
+                .orderBy(createdAtDesc())
                 .limit(limit)
                 .fetchInto(MessageDb.class);
     }
@@ -219,8 +338,20 @@ public class MessageRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().deleteMessagesByThreadId(threadId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.deleteFrom(MESSAGE)
                 .where(MESSAGE.THREAD_ID.eq(threadId))
                 .execute();
     }
+
+    /**
+     * 按创建时间排序，created_at只精确到秒，同一秒内按ID的数字部分排序：先比长度再比字典序
+     */
+    private static List<SortField<?>> createdAtAsc() {
+        return List.of(MESSAGE.CREATED_AT.asc(), DSL.charLength(MESSAGE.ID).asc(), MESSAGE.ID.asc());
+    }
+
+    private static List<SortField<?>> createdAtDesc() {
+        return List.of(MESSAGE.CREATED_AT.desc(), DSL.charLength(MESSAGE.ID).desc(), MESSAGE.ID.desc());
+    }
 }
@@ -39,6 +39,21 @@ public class RunRepo implements BaseRepo {
                 .fetchOneInto(RunDb.class);
     }
 
+    /**
+     * 只查询 Run 的状态，用于轮询执行中的 Response
+     */
+    public String findStatusById(String threadId, String id) {
+
+        if (isNoStoreMode()) {
+            RunDb run = getContextStore().findRunById(id);
+            return run != null ? run.getStatus() : null;
+        }
+        return dsl.select(RUN.STATUS)
+                .from(RUN)
+                .where(RUN.ID.eq(id))
+                .fetchOne(RUN.STATUS);
+    }
+
     /**
      * 根据 ID 查询 Run
      */
@@ -139,12 +154,39 @@ public class RunRepo implements BaseRepo {
         }
         fillUpdateTime(run);
 
+        RunRecord record = dsl.newRecord(RUN, run);
+        record.changed(RUN.VERSION, false);
         return dsl.update(RUN)
-                .set(dsl.newRecord(RUN, run))
+                .set(record)
+                .set(RUN.VERSION, RUN.VERSION.plus(1))
                 .where(RUN.ID.eq(run.getId()))
                 .execute() > 0;
     }
 
+    /**
+     * 只更新相对于原始快照发生变化的字段
+     */
+    public boolean update(RunDb original, RunDb run) {
+
+        if (isNoStoreMode()) {
+            return getContextStore().updateRun(run);
+        }
+        return updateChanged(dsl, RUN, RUN.ID, RUN.UPDATED_AT, RUN.VERSION, original, run, false);
+    }
+
+    /**
+     * 乐观锁更新：仅当数据库中的版本号仍等于原始快照的版本号时写入
+     *
+     * @return 版本号冲突时返回false
+     */
+    public boolean updateWithVersion(RunDb original, RunDb run) {
+
+        if (isNoStoreMode()) {
+            return getContextStore().updateRun(run);
+        }
+        return updateChanged(dsl, RUN, RUN.ID, RUN.UPDATED_AT, RUN.VERSION, original, run, true);
+    }
+
     public boolean updateRequireAction(String threadId, String id, String requireAction) {
         
         if (isNoStoreMode()) {
@@ -157,6 +199,7 @@ public class RunRepo implements BaseRepo {
         return dsl.update(RUN)
                 .set(RUN.REQUIRED_ACTION, requireAction)
                 .set(RUN.UPDATED_AT, LocalDateTime.now())
+                .set(RUN.VERSION, RUN.VERSION.plus(1))
                 .where(RUN.ID.eq(id))
                 .execute() > 0;
     }
@@ -12,19 +12,20 @@ import org.springframework.stereotype.Repository;
 import com.ke.assistant.db.IdGenerator;
 import com.ke.assistant.db.generated.tables.pojos.RunStepDb;
 import com.ke.assistant.db.generated.tables.records.RunStepRecord;
+import com.ke.assistant.db.shard.ShardRouter;
 
 import lombok.RequiredArgsConstructor;
 
 /**
  * Run Step Repository 运行步骤数据访问层
- * todo: threadId 用于分表
+ * 按threadId分表，由 ShardRouter 路由到对应分表
  */
 @Repository
 @RequiredArgsConstructor
 public class RunStepRepo implements BaseRepo {
 
-    private final DSLContext dsl;
     private final IdGenerator idGenerator;
+    private final ShardRouter shardRouter;
 
     /**
      * 根据 ID 查询 Run Step
@@ -34,6 +35,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepById(id);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.ID.eq(id))
                 .fetchOneInto(RunStepDb.class);
@@ -47,6 +49,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepById(id);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.ID.eq(id))
                 .forUpdate()
@@ -62,6 +65,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findActionRequiredForUpdate(runId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.RUN_ID.eq(runId))
                 .and(RUN_STEP.STATUS.eq("requires_action"))
@@ -77,6 +81,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepsByRunId(threadId, runId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.RUN_ID.eq(runId))
                 .orderBy(RUN_STEP.CREATED_AT.asc())
@@ -91,6 +96,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepsByThreadId(threadId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.THREAD_ID.eq(threadId))
                 .orderBy(RUN_STEP.CREATED_AT.asc())
@@ -105,6 +111,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepsByRunIds(threadId, runIds);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.selectFrom(RUN_STEP)
                 .where(RUN_STEP.THREAD_ID.eq(threadId))
                 .and(RUN_STEP.RUN_ID.in(runIds))
@@ -120,6 +127,7 @@ public class RunStepRepo implements BaseRepo {
         if (isNoStoreMode()) {
             return getContextStore().findRunStepsByRunId(threadId, runId);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return findWithCursor(
                 dsl,
                 RUN_STEP,
@@ -153,6 +161,7 @@ public class RunStepRepo implements BaseRepo {
         }
         fillCreateTime(runStep);
 
+        DSLContext dsl = shardRouter.dsl(runStep.getThreadId());
         RunStepRecord record = dsl.newRecord(RUN_STEP, runStep);
         record.store();
 
@@ -169,12 +178,42 @@ public class RunStepRepo implements BaseRepo {
         }
         fillUpdateTime(runStep);
 
+        DSLContext dsl = shardRouter.dsl(runStep.getThreadId());
+        RunStepRecord record = dsl.newRecord(RUN_STEP, runStep);
+        record.changed(RUN_STEP.VERSION, false);
         return dsl.update(RUN_STEP)
-                .set(dsl.newRecord(RUN_STEP, runStep))
+                .set(record)
+                .set(RUN_STEP.VERSION, RUN_STEP.VERSION.plus(1))
                 .where(RUN_STEP.ID.eq(runStep.getId()))
                 .execute() > 0;
     }
 
+    /**
+     * 只更新相对于原始快照发生变化的字段
+     */
+    public boolean update(RunStepDb original, RunStepDb runStep) {
+
+        if (isNoStoreMode()) {
+            return getContextStore().updateRunStep(runStep);
+        }
+        DSLContext dsl = shardRouter.dsl(original.getThreadId());
+        return updateChanged(dsl, RUN_STEP, RUN_STEP.ID, RUN_STEP.UPDATED_AT, RUN_STEP.VERSION, original, runStep, false);
+    }
+
+    /**
+     * 乐观锁更新：仅当数据库中的版本号仍等于原始快照的版本号时写入
+     *
+     * @return 版本号冲突时返回false
+     */
+    public boolean updateWithVersion(RunStepDb original, RunStepDb runStep) {
+
+        if (isNoStoreMode()) {
+            return getContextStore().updateRunStep(runStep);
+        }
+        DSLContext dsl = shardRouter.dsl(original.getThreadId());
+        return updateChanged(dsl, RUN_STEP, RUN_STEP.ID, RUN_STEP.UPDATED_AT, RUN_STEP.VERSION, original, runStep, true);
+    }
+
     /**
      * 更新 Step Details
      */
@@ -186,9 +225,11 @@ public class RunStepRepo implements BaseRepo {
             db.setStepDetails(stepDetails);
             return getContextStore().updateRunStep(db);
         }
+        DSLContext dsl = shardRouter.dsl(threadId);
         return dsl.update(RUN_STEP)
                 .set(RUN_STEP.STEP_DETAILS, stepDetails)
                 .set(RUN_STEP.UPDATED_AT, LocalDateTime.now())
+                .set(RUN_STEP.VERSION, RUN_STEP.VERSION.plus(1))
                 .where(RUN_STEP.ID.eq(id))
                 .execute() > 0;
     }
@@ -0,0 +1,159 @@
+package com.ke.assistant.db.shard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Index;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.Table;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ShardingProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分表建表与重新分表迁移工具
+ * 启动时若分表数大于1，按生成代码中的表结构创建缺失的分表及索引；
+ * 配置了 migrate-from 时，将 message、run_step 从旧分表数迁移到当前分表数：
+ * 按主键分批扫描旧表，目标分表与源表不同的行在同一事务中写入目标表并从源表删除，中断后可重复执行
+ * 迁移期间应停止写入，且只应在单个实例上执行
+ */
+@Slf4j
+@Component
+public class ShardMigrator implements ApplicationRunner {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ShardingProperties sharding = assistantProperties.getSharding();
+        int shardCount = shardRouter.getShardCount();
+        if(sharding.getMigrateFrom() != null && sharding.getMigrateFrom() != shardCount) {
+            Map<String, Long> moved = migrate(sharding.getMigrateFrom(), shardCount, sharding.getMigrationBatchSize());
+            log.info("reshard from {} to {} finished, moved rows: {}", sharding.getMigrateFrom(), shardCount, moved);
+        } else if(shardCount > 1) {
+            createTables(shardCount);
+        }
+    }
+
+    /**
+     * 创建指定分表数下缺失的物理表及索引
+     */
+    public void createTables(int shardCount) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            DSLContext db = shardRouter.dsl(shard, shardCount);
+            for (Table<?> table : ShardRouter.SHARDED_TABLES) {
+                createTable(db, table, ShardRouter.tableName(table.getName(), shard, shardCount));
+            }
+        }
+    }
+
+    /**
+     * 将数据从旧分表数迁移到新分表数，目标表不存在时自动创建
+     *
+     * @return 各表迁移的行数
+     */
+    public Map<String, Long> migrate(int fromCount, int toCount, int batchSize) {
+        createTables(toCount);
+        Map<String, Long> moved = new LinkedHashMap<>();
+        for (Table<?> table : ShardRouter.SHARDED_TABLES) {
+            moved.put(table.getName(), migrateTable(table, fromCount, toCount, batchSize));
+        }
+        return moved;
+    }
+
+    private <R extends Record> long migrateTable(Table<R> table, int fromCount, int toCount, int batchSize) {
+        Field<String> id = table.field("id", String.class);
+        Field<String> threadId = table.field("thread_id", String.class);
+        long moved = 0;
+        for (int shard = 0; shard < Math.max(1, fromCount); shard++) {
+            int source = shard;
+            String sourceName = ShardRouter.tableName(table.getName(), source, fromCount);
+            DSLContext db = shardRouter.dsl(source, fromCount);
+            String lastId = "";
+            while (true) {
+                Result<R> rows = db.selectFrom(table)
+                        .where(id.gt(lastId))
+                        .orderBy(id.asc())
+                        .limit(batchSize)
+                        .fetch();
+                if(rows.isEmpty()) {
+                    break;
+                }
+                lastId = rows.get(rows.size() - 1).get(id);
+                Map<Integer, List<R>> targets = new TreeMap<>();
+                for (R row : rows) {
+                    int target = shardRouter.shardOf(row.get(threadId), toCount);
+                    if(!ShardRouter.tableName(table.getName(), target, toCount).equals(sourceName)) {
+                        targets.computeIfAbsent(target, k -> new ArrayList<>()).add(row);
+                    }
+                }
+                if(targets.isEmpty()) {
+                    continue;
+                }
+                moved += db.transactionResult(configuration -> {
+                    List<String> ids = new ArrayList<>();
+                    for (Map.Entry<Integer, List<R>> entry : targets.entrySet()) {
+                        DSLContext targetDb = ShardRouter.derive(configuration, entry.getKey(), toCount);
+                        var insert = targetDb.insertInto(table, table.fields());
+                        for (R row : entry.getValue()) {
+                            insert = insert.values(row.intoArray());
+                            ids.add(row.get(id));
+                        }
+                        insert.onDuplicateKeyIgnore().execute();
+                    }
+                    ShardRouter.derive(configuration, source, fromCount).deleteFrom(table).where(id.in(ids)).execute();
+                    return ids.size();
+                });
+            }
+            log.info("reshard {} done, moved rows so far: {}", sourceName, moved);
+        }
+        return moved;
+    }
+
+    private void createTable(DSLContext db, Table<?> table, String physicalName) {
+        if(exists(db, table)) {
+            return;
+        }
+        db.createTableIfNotExists(table)
+                .columns(table.fields())
+                .constraints(DSL.primaryKey(table.getPrimaryKey().getFieldsArray()))
+                .execute();
+        for (Index index : table.getIndexes()) {
+            // H2中索引名在schema内唯一，分表的索引名带上物理表名
+            String name = physicalName.equals(table.getName()) ? index.getName() : index.getName() + "_" + physicalName;
+            if(index.getUnique()) {
+                db.createUniqueIndex(name).on(table, index.getFields()).execute();
+            } else {
+                db.createIndex(name).on(table, index.getFields()).execute();
+            }
+        }
+        log.info("created shard table {}", physicalName);
+    }
+
+    private static boolean exists(DSLContext db, Table<?> table) {
+        try {
+            db.selectOne().from(table).where(DSL.falseCondition()).fetch();
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ke.assistant.db.shard;
+
+import static com.ke.assistant.db.generated.Tables.MESSAGE;
+import static com.ke.assistant.db.generated.Tables.RUN_STEP;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.Table;
+import org.jooq.conf.MappedSchema;
+import org.jooq.conf.MappedTable;
+import org.jooq.conf.RenderMapping;
+import org.jooq.conf.Settings;
+import org.jooq.conf.SettingsTools;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ke.assistant.configuration.AssistantProperties;
+
+/**
+ * message、run_step 分表路由
+ * 每个分表对应一个派生的DSLContext，通过jOOQ的RenderMapping在渲染SQL时将 message、run_step 映射为 message_{n}、run_step_{n}，
+ * 仓库层仍使用生成代码中的表和记录类型；派生的DSLContext与原DSLContext共享连接和事务。
+ * 路由本身无状态，与RepoContext（no-store模式）兼容：no-store模式下仓库直接访问上下文存储，不经过路由
+ */
+@Component
+public class ShardRouter {
+
+    /**
+     * 参与分表的表，同一thread的各表数据位于相同序号的分表
+     */
+    public static final List<Table<?>> SHARDED_TABLES = List.of(MESSAGE, RUN_STEP);
+
+    /**
+     * 默认分表策略：threadId的CRC32取模，跨进程、跨版本稳定
+     */
+    public static final ShardStrategy HASH = (threadId, shardCount) -> {
+        if(shardCount <= 1 || threadId == null) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(threadId.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    };
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<ShardStrategy> strategyProvider;
+
+    private ShardStrategy strategy;
+    private int shardCount;
+    private DSLContext[] shards;
+
+    @PostConstruct
+    public void init() {
+        this.shardCount = Math.max(1, assistantProperties.getSharding().getShardCount());
+        ShardStrategy custom = strategyProvider == null ? null : strategyProvider.getIfAvailable();
+        this.strategy = custom != null ? custom : HASH;
+        this.shards = new DSLContext[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = dsl(i, shardCount);
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 计算threadId在当前分表数下的分表序号
+     */
+    public int shardOf(String threadId) {
+        return shardOf(threadId, shardCount);
+    }
+
+    public int shardOf(String threadId, int count) {
+        return count <= 1 ? 0 : strategy.shardOf(threadId, count);
+    }
+
+    /**
+     * threadId所在分表的DSLContext
+     */
+    public DSLContext dsl(String threadId) {
+        return shards[shardOf(threadId)];
+    }
+
+    /**
+     * 指定分表数下第shard个分表的DSLContext，分表数为1时为原DSLContext
+     */
+    public DSLContext dsl(int shard, int count) {
+        return count <= 1 ? dsl : derive(dsl.configuration(), shard, count);
+    }
+
+    /**
+     * 基于给定配置（如事务内的配置）派生分表DSLContext
+     */
+    public static DSLContext derive(Configuration configuration, int shard, int count) {
+        if(count <= 1) {
+            return DSL.using(configuration);
+        }
+        MappedSchema schema = new MappedSchema().withInput("");
+        for (Table<?> table : SHARDED_TABLES) {
+            schema.withTables(new MappedTable().withInput(table.getName()).withOutput(tableName(table.getName(), shard, count)));
+        }
+        Settings settings = SettingsTools.clone(configuration.settings())
+                .withRenderMapping(new RenderMapping().withSchemata(schema));
+        return DSL.using(configuration.derive(settings));
+    }
+
+    /**
+     * 物理表名，分表数为1时为原表名
+     */
+    public static String tableName(String base, int shard, int count) {
+        return count <= 1 ? base : base + "_" + shard;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ke.assistant.db.shard;
+
+/**
+ * 分表策略，根据threadId计算所在分表
+ * 默认使用CRC32哈希取模，可注册自定义实现替换
+ */
+public interface ShardStrategy {
+
+    /**
+     * @param threadId 线程ID
+     * @param shardCount 分表数量，大于0
+     * @return 分表序号 [0, shardCount)
+     */
+    int shardOf(String threadId, int shardCount);
+}
@@ -10,5 +10,20 @@ public final class EventConstants {
      */
     public static final String EVENT_CANCEL_RUN = "cancelAssistantRun";
 
+    /**
+     * Run交接事件，下线实例保存检查点后由其他实例继续执行
+     */
+    public static final String EVENT_RESUME_RUN = "resumeAssistantRun";
+
+    /**
+     * Assistant配置变更事件，各实例清除本地缓存的配置
+     */
+    public static final String EVENT_ASSISTANT_CHANGED = "assistantConfigChanged";
+
+    /**
+     * thread内排队的run可以启动，由发起排队的实例启动
+     */
+    public static final String EVENT_START_QUEUED_RUN = "startQueuedAssistantRun";
+
     private EventConstants() {}
 }
@@ -48,7 +48,7 @@ public interface ServiceMesh {
     void addRunningRun(String runId, int timeoutSeconds);
     
     /**
-     * 移除运行中的Run映射
+     * 移除运行中的Run映射，仅当映射仍指向本实例时移除，run已交接到其他实例时保留新的映射
      * @param runId Run ID
      */
     void removeRunningRun(String runId);
@@ -0,0 +1,229 @@
+package com.ke.assistant.mesh.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ke.assistant.mesh.Event;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+/**
+ * Event的紧凑二进制编码
+ * 格式：魔数、版本号，之后依次为 name、payload、sourceInstanceId、targetInstanceId、timestamp、metadata；
+ * 字符串和长度使用变长整数编码，metadata的值按类型标记编码，无法识别的类型退化为JSON字符串。
+ * 解码时不以魔数开头的数据按旧版本的JSON事件解析，便于滚动升级
+ */
+public final class EventCodec {
+
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final byte VERSION = 1;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_LONG = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_DOUBLE = 4;
+    private static final int TAG_BOOLEAN = 5;
+    private static final int TAG_JSON = 6;
+
+    private EventCodec() {}
+
+    public static byte[] encode(Event event) {
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.writeString(event.getName());
+        out.writeString(event.getPayload());
+        out.writeString(event.getSourceInstanceId());
+        out.writeString(event.getTargetInstanceId());
+        LocalDateTime timestamp = event.getTimestamp();
+        if(timestamp == null) {
+            out.write(0);
+        } else {
+            out.write(1);
+            out.writeVarLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(timestamp.getNano());
+        }
+        Map<String, Object> metadata = event.getMetadata();
+        if(metadata == null) {
+            out.writeVarLong(0);
+        } else {
+            out.writeVarLong(metadata.size() + 1L);
+            for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+                out.writeString(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeJson(Event event) {
+        String json = JacksonUtils.serialize(event);
+        return json == null ? null : json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 无法解析时返回null
+     */
+    public static Event decode(byte[] data) {
+        if(data == null || data.length == 0) {
+            return null;
+        }
+        if(data[0] != MAGIC) {
+            return JacksonUtils.deserialize(new String(data, StandardCharsets.UTF_8), Event.class);
+        }
+        Reader in = new Reader(data);
+        in.read();
+        if(in.read() != VERSION) {
+            return null;
+        }
+        Event event = new Event();
+        event.setName(in.readString());
+        event.setPayload(in.readString());
+        event.setSourceInstanceId(in.readString());
+        event.setTargetInstanceId(in.readString());
+        if(in.read() == 1) {
+            long seconds = in.readVarLong();
+            int nanos = (int) in.readVarLong();
+            event.setTimestamp(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+        } else {
+            event.setTimestamp(null);
+        }
+        long size = in.readVarLong();
+        if(size > 0) {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            for (long i = 0; i < size - 1; i++) {
+                metadata.put(in.readString(), readValue(in));
+            }
+            event.setMetadata(metadata);
+        }
+        return event;
+    }
+
+    private static void writeValue(Writer out, Object value) {
+        if(value == null) {
+            out.write(TAG_NULL);
+        } else if(value instanceof String) {
+            out.write(TAG_STRING);
+            out.writeString((String) value);
+        } else if(value instanceof Long) {
+            out.write(TAG_LONG);
+            out.writeVarLong(zigzag((Long) value));
+        } else if(value instanceof Integer) {
+            out.write(TAG_INT);
+            out.writeVarLong(zigzag((Integer) value));
+        } else if(value instanceof Double) {
+            out.write(TAG_DOUBLE);
+            out.writeVarLong(Double.doubleToLongBits((Double) value));
+        } else if(value instanceof Boolean) {
+            out.write(TAG_BOOLEAN);
+            out.write((Boolean) value ? 1 : 0);
+        } else {
+            out.write(TAG_JSON);
+            out.writeString(JacksonUtils.serialize(value));
+        }
+    }
+
+    private static Object readValue(Reader in) {
+        int tag = in.read();
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_STRING:
+            return in.readString();
+        case TAG_LONG:
+            return unzigzag(in.readVarLong());
+        case TAG_INT:
+            return (int) unzigzag(in.readVarLong());
+        case TAG_DOUBLE:
+            return Double.longBitsToDouble(in.readVarLong());
+        case TAG_BOOLEAN:
+            return in.read() == 1;
+        case TAG_JSON:
+            return JacksonUtils.deserialize(in.readString(), Object.class);
+        default:
+            throw new IllegalArgumentException("unknown metadata tag: " + tag);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(64);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        /**
+         * 长度加1编码，0表示null
+         */
+        void writeString(String value) {
+            if(value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int read() {
+            if(position >= data.length) {
+                throw new IllegalArgumentException("truncated event");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if(length == 0) {
+                return null;
+            }
+            int size = (int) (length - 1);
+            if(size < 0 || size > data.length - position) {
+                throw new IllegalArgumentException("truncated event");
+            }
+            String value = new String(data, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventListener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 事件监听器的执行线程
+ * 按事件的key（payload，通常为runId、threadId等，为空时使用事件名）分配到固定的单线程通道，同一key的事件按接收顺序串行执行；
+ * 通道队列超过容量后的事件进入溢出部分并计数，不阻塞接收线程（Redisson的IO线程），
+ * 取消、交接、缓存失效等控制事件不会被丢弃
+ */
+@Slf4j
+class EventDispatcher {
+
+    private static final long OVERFLOW_LOG_INTERVAL_MILLIS = 10_000;
+
+    private final ThreadPoolExecutor[] lanes;
+    private final int laneCapacity;
+    private final AtomicLong overflowed = new AtomicLong();
+    private volatile long lastOverflowLog;
+
+    EventDispatcher(String threadPrefix, int threads, int queueCapacity) {
+        this(threadPrefix, threads, queueCapacity, null);
+    }
+
+    /**
+     * @param meterRegistry 为空时不注册溢出计数
+     */
+    EventDispatcher(String threadPrefix, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        int laneCount = Math.max(1, threads);
+        this.laneCapacity = Math.max(1, queueCapacity / laneCount);
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    new TaskExecutor.NamedThreadFactory(threadPrefix + i + "-", true));
+        }
+        if(meterRegistry != null) {
+            FunctionCounter.builder("bella.mesh.listener.overflow", overflowed, AtomicLong::get)
+                    .tag("dispatcher", StringUtils.removeEnd(threadPrefix, "-"))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException 已关闭
+     */
+    void dispatch(EventListener listener, Event event) {
+        ThreadPoolExecutor lane = lanes[lane(event)];
+        if(lane.getQueue().size() >= laneCapacity) {
+            overflow(event);
+        }
+        lane.execute(() -> {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                log.error("Error processing event: {} from {}", event.getName(), event.getSourceInstanceId(), e);
+            }
+        });
+    }
+
+    /**
+     * 超过通道容量的事件数
+     */
+    long getOverflowCount() {
+        return overflowed.get();
+    }
+
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private int lane(Event event) {
+        String key = event.getPayload() != null ? event.getPayload() : event.getName();
+        return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    private void overflow(Event event) {
+        long count = overflowed.incrementAndGet();
+        long now = System.currentTimeMillis();
+        if(now - lastOverflowLog >= OVERFLOW_LOG_INTERVAL_MILLIS) {
+            lastOverflowLog = now;
+            log.warn("Listener queue is full, event {} from {} queued as overflow, total overflowed: {}",
+                    event.getName(), event.getSourceInstanceId(), count);
+        }
+    }
+}
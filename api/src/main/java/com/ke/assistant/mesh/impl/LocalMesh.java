@@ -0,0 +1,184 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.MeshProperties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventListener;
+import com.ke.assistant.mesh.ServiceMesh;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 进程内Mesh实现类，语义与 RedisMesh 一致：
+ * 实例注册和running run映射带过期时间，广播和私有消息经过编解码后在监听器线程池中异步投递，忽略自己发送的消息。
+ * 不访问Redis，适用于单实例部署、CI和压测
+ */
+@Slf4j
+public class LocalMesh implements ServiceMesh {
+
+    private static final long INSTANCE_TTL_SECONDS = 60;
+    private static final long HEARTBEAT_SECONDS = 30;
+
+    private final LocalMeshHub hub;
+    private final AssistantProperties assistantProperties;
+    // 事件监听器映射
+    private final Map<String, EventListener> eventListeners = new ConcurrentHashMap<>();
+    private String instanceId;
+    private EventDispatcher listenerDispatcher;
+    private MeterRegistry meterRegistry;
+    // 心跳调度器，同时清理过期的映射
+    private ScheduledExecutorService heartbeatScheduler;
+
+    public LocalMesh(AssistantProperties assistantProperties) {
+        this(assistantProperties, new LocalMeshHub());
+    }
+
+    public LocalMesh(AssistantProperties assistantProperties, LocalMeshHub hub) {
+        this.assistantProperties = assistantProperties;
+        this.hub = hub;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.instanceId = "local-" + UUID.randomUUID().toString().substring(0, 8);
+        MeshProperties meshProperties = assistantProperties.getMesh();
+        this.listenerDispatcher = new EventDispatcher("local-mesh-listener-", meshProperties.getListenerThreads(),
+                meshProperties.getListenerQueueCapacity(), meterRegistry);
+        log.info("Local Mesh initialized with instance ID: {}", instanceId);
+    }
+
+    /**
+     * 在init之前设置，为空时不注册指标
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public void registerListener(String eventName, EventListener listener) {
+        eventListeners.put(eventName, listener);
+        log.debug("Registered event listener for: {}", eventName);
+    }
+
+    @Override
+    public void removeListener(String eventName) {
+        eventListeners.remove(eventName);
+        log.debug("Removed event listener for: {}", eventName);
+    }
+
+    @Override
+    public void sendBroadcastMessage(Event event) {
+        event.setSourceInstanceId(instanceId);
+        byte[] data = EventCodec.encode(event);
+        for (LocalMesh subscriber : hub.subscribers()) {
+            subscriber.handleIncomingMessage(data, false);
+        }
+    }
+
+    @Override
+    public void sendPrivateMessage(String targetInstanceId, Event event) {
+        event.setSourceInstanceId(instanceId);
+        event.setTargetInstanceId(targetInstanceId);
+        LocalMesh target = hub.subscriber(targetInstanceId);
+        if(target != null) {
+            target.handleIncomingMessage(EventCodec.encode(event), true);
+        }
+    }
+
+    @Override
+    public void addRunningRun(String runId, int timeoutSeconds) {
+        hub.putRunningRun(runId, instanceId, timeoutSeconds);
+        log.debug("Added running run mapping: {} -> {} (timeout: {}s)", runId, instanceId, timeoutSeconds);
+    }
+
+    @Override
+    public void removeRunningRun(String runId) {
+        hub.removeRunningRun(runId, instanceId);
+        log.debug("Removed running run mapping: {}", runId);
+    }
+
+    @Override
+    public String getRunningRunInstanceId(String runId) {
+        return hub.getRunningRun(runId);
+    }
+
+    @Override
+    public Set<String> getOnlineInstances() {
+        return hub.onlineInstances();
+    }
+
+    @Override
+    public boolean isInstanceOnline(String instanceId) {
+        return hub.isOnline(instanceId);
+    }
+
+    @Override
+    public void start() {
+        hub.registerInstance(instanceId, INSTANCE_TTL_SECONDS);
+        hub.subscribe(instanceId, this);
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(new TaskExecutor.NamedThreadFactory("local-mesh-heartbeat-", true));
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        log.info("Local Mesh started successfully for instance: {}", instanceId);
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        if(heartbeatScheduler != null) {
+            heartbeatScheduler.shutdown();
+        }
+        hub.unsubscribe(instanceId);
+        hub.unregisterInstance(instanceId);
+        if(listenerDispatcher != null) {
+            listenerDispatcher.shutdown();
+        }
+        log.info("Local Mesh stopped successfully for instance: {}", instanceId);
+    }
+
+    private void sendHeartbeat() {
+        try {
+            hub.registerInstance(instanceId, INSTANCE_TTL_SECONDS);
+            hub.evictExpired();
+        } catch (Exception e) {
+            log.error("Error sending heartbeat", e);
+        }
+    }
+
+    private void handleIncomingMessage(byte[] data, boolean isPrivate) {
+        Event event = EventCodec.decode(data);
+        // 忽略自己发送的消息
+        if(event == null || instanceId.equals(event.getSourceInstanceId())) {
+            return;
+        }
+        EventListener listener = eventListeners.get(event.getName());
+        if(listener == null) {
+            log.debug("No listener registered for event: {}", event.getName());
+            return;
+        }
+        log.debug("Received {} message: {} from {}", isPrivate ? "private" : "broadcast", event.getName(), event.getSourceInstanceId());
+        try {
+            listenerDispatcher.dispatch(listener, event);
+        } catch (RejectedExecutionException e) {
+            log.warn("Mesh is stopping, dropped event: {} from {}", event.getName(), event.getSourceInstanceId());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * LocalMesh 的共享状态，相当于 RedisMesh 使用的Redis：实例注册表、running run映射以及消息订阅者
+ * 同一个Hub上的多个 LocalMesh 可以互相收发消息，用于在单个进程内模拟多实例
+ */
+public class LocalMeshHub {
+
+    private final Map<String, Long> instances = new ConcurrentHashMap<>();
+    private final Map<String, RunningRun> runningRuns = new ConcurrentHashMap<>();
+    private final Map<String, LocalMesh> subscribers = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public LocalMeshHub() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 毫秒时钟，测试时可替换
+     */
+    public LocalMeshHub(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    void registerInstance(String instanceId, long ttlSeconds) {
+        instances.put(instanceId, expireAt(ttlSeconds));
+    }
+
+    void unregisterInstance(String instanceId) {
+        instances.remove(instanceId);
+    }
+
+    Set<String> onlineInstances() {
+        long now = clock.getAsLong();
+        instances.values().removeIf(expireAt -> expireAt <= now);
+        return instances.keySet().stream().collect(Collectors.toSet());
+    }
+
+    boolean isOnline(String instanceId) {
+        Long expireAt = instances.get(instanceId);
+        return expireAt != null && expireAt > clock.getAsLong();
+    }
+
+    void putRunningRun(String runId, String instanceId, long ttlSeconds) {
+        runningRuns.put(runId, new RunningRun(instanceId, expireAt(ttlSeconds)));
+    }
+
+    void removeRunningRun(String runId, String instanceId) {
+        runningRuns.computeIfPresent(runId, (key, run) -> run.instanceId.equals(instanceId) ? null : run);
+    }
+
+    String getRunningRun(String runId) {
+        RunningRun run = runningRuns.get(runId);
+        if(run == null) {
+            return null;
+        }
+        if(run.expireAt <= clock.getAsLong()) {
+            runningRuns.remove(runId, run);
+            return null;
+        }
+        return run.instanceId;
+    }
+
+    /**
+     * 清理过期的running run映射
+     */
+    void evictExpired() {
+        long now = clock.getAsLong();
+        runningRuns.values().removeIf(run -> run.expireAt <= now);
+        instances.values().removeIf(expireAt -> expireAt <= now);
+    }
+
+    void subscribe(String instanceId, LocalMesh mesh) {
+        subscribers.put(instanceId, mesh);
+    }
+
+    void unsubscribe(String instanceId) {
+        subscribers.remove(instanceId);
+    }
+
+    Collection<LocalMesh> subscribers() {
+        return subscribers.values();
+    }
+
+    LocalMesh subscriber(String instanceId) {
+        return subscribers.get(instanceId);
+    }
+
+    private long expireAt(long ttlSeconds) {
+        long now = clock.getAsLong();
+        long ttlMillis = ttlSeconds > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : ttlSeconds * 1000;
+        return ttlMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttlMillis;
+    }
+
+    private static class RunningRun {
+        final String instanceId;
+        final long expireAt;
+
+        RunningRun(String instanceId, long expireAt) {
+            this.instanceId = instanceId;
+            this.expireAt = expireAt;
+        }
+    }
+}
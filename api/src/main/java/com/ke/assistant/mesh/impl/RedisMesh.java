@@ -1,33 +1,42 @@
 package com.ke.assistant.mesh.impl;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.redisson.api.RBatch;
 import org.redisson.api.RMapCache;
+import org.redisson.api.RMapCacheAsync;
 import org.redisson.api.RSetCache;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
 import org.springframework.util.Assert;
 
 import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.MeshProperties;
+import com.ke.assistant.core.TaskExecutor;
 import com.ke.assistant.mesh.Event;
 import com.ke.assistant.mesh.EventListener;
 import com.ke.assistant.mesh.ServiceMesh;
 import com.ke.bella.openapi.server.BellaServerContextHolder;
-import com.ke.bella.openapi.utils.JacksonUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Redis Mesh实现类
+ * 事件以 EventCodec 编码为二进制后发布，监听器由 EventDispatcher 按事件key串行执行；
+ * running run映射的增删先合并在本地，按固定间隔或达到批量大小时通过一次RBatch提交，本实例的查询会先看未提交的变更
  */
 @Slf4j
 public class RedisMesh implements ServiceMesh {
@@ -44,6 +53,15 @@ public class RedisMesh implements ServiceMesh {
     private String instanceId;
     // 心跳调度器
     private ScheduledExecutorService heartbeatScheduler;
+    private MeshProperties meshProperties;
+    // 监听器执行线程
+    private EventDispatcher listenerDispatcher;
+    private MeterRegistry meterRegistry;
+    // running run映射合并提交
+    private ScheduledExecutorService flushScheduler;
+    private final Object pendingLock = new Object();
+    private Map<String, PendingRun> pendingRuns = new LinkedHashMap<>();
+    private Map<String, PendingRun> flushingRuns = Map.of();
     
     // Redis订阅对象
     private RTopic broadcastTopic;
@@ -59,9 +77,24 @@ public class RedisMesh implements ServiceMesh {
     public void init() {
         // 生成实例ID
         this.instanceId = generateInstanceId();
+        this.meshProperties = assistantProperties.getMesh();
+        this.listenerDispatcher = new EventDispatcher("redis-mesh-listener-", meshProperties.getListenerThreads(),
+                meshProperties.getListenerQueueCapacity(), meterRegistry);
+        if(meshProperties.getRunningRunFlushMillis() > 0) {
+            this.flushScheduler = Executors.newSingleThreadScheduledExecutor(new TaskExecutor.NamedThreadFactory("redis-mesh-flush-", true));
+            flushScheduler.scheduleWithFixedDelay(this::flushRunningRuns, meshProperties.getRunningRunFlushMillis(),
+                    meshProperties.getRunningRunFlushMillis(), TimeUnit.MILLISECONDS);
+        }
         log.info("Redis Mesh initialized with instance ID: {}", instanceId);
     }
     
+    /**
+     * 在init之前设置，为空时不注册指标
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @Override
     public String getInstanceId() {
         return instanceId;
@@ -90,40 +123,118 @@ public class RedisMesh implements ServiceMesh {
     @Override
     public void sendBroadcastMessage(Event event) {
         event.setSourceInstanceId(instanceId);
-        String eventJson = JacksonUtils.serialize(event);
-        Assert.notNull(eventJson, "Event can not be null");
-        broadcastTopic.publish(eventJson);
+        broadcastTopic.publish(encode(event));
     }
     
     @Override
     public void sendPrivateMessage(String targetInstanceId, Event event) {
         event.setSourceInstanceId(instanceId);
         event.setTargetInstanceId(targetInstanceId);
-        String eventJson = JacksonUtils.serialize(event);
-        Assert.notNull(eventJson, "Event can not be null");
-        RTopic targetTopic = redissonClient.getTopic(PRIVATE_TOPIC_PREFIX + targetInstanceId);
-        targetTopic.publish(eventJson);
+        RTopic targetTopic = redissonClient.getTopic(buildKey(PRIVATE_TOPIC_PREFIX + targetInstanceId), ByteArrayCodec.INSTANCE);
+        targetTopic.publish(encode(event));
+    }
+
+    private byte[] encode(Event event) {
+        byte[] data = meshProperties.getCodec() == MeshProperties.Codec.JSON ? EventCodec.encodeJson(event) : EventCodec.encode(event);
+        Assert.notNull(data, "Event can not be null");
+        return data;
     }
     
     @Override
     public void addRunningRun(String runId, int timeoutSeconds) {
-        RMapCache<String, String> runningRuns = redissonClient.getMapCache(buildKey(RUNNING_RUN_MAPPING));
-        runningRuns.put(runId, instanceId, timeoutSeconds, TimeUnit.SECONDS);
+        if(flushScheduler == null) {
+            RMapCache<String, String> runningRuns = redissonClient.getMapCache(buildKey(RUNNING_RUN_MAPPING));
+            runningRuns.fastPut(runId, instanceId, timeoutSeconds, TimeUnit.SECONDS);
+        } else {
+            enqueue(runId, new PendingRun(true, timeoutSeconds));
+        }
         log.debug("Added running run mapping: {} -> {} (timeout: {}s)", runId, instanceId, timeoutSeconds);
     }
     
     @Override
     public void removeRunningRun(String runId) {
-        RMapCache<String, String> runningRuns = redissonClient.getMapCache(buildKey(RUNNING_RUN_MAPPING));
-        runningRuns.remove(runId);
+        if(flushScheduler == null) {
+            RMapCache<String, String> runningRuns = redissonClient.getMapCache(buildKey(RUNNING_RUN_MAPPING));
+            runningRuns.remove(runId, instanceId);
+        } else {
+            enqueue(runId, new PendingRun(false, 0));
+        }
         log.debug("Removed running run mapping: {}", runId);
     }
     
     @Override
     public String getRunningRunInstanceId(String runId) {
+        PendingRun pending;
+        synchronized (pendingLock) {
+            pending = pendingRuns.get(runId);
+            if(pending == null) {
+                pending = flushingRuns.get(runId);
+            }
+        }
+        if(pending != null) {
+            return pending.add ? instanceId : null;
+        }
         RMapCache<String, String> runningRuns = redissonClient.getMapCache(buildKey(RUNNING_RUN_MAPPING));
         return runningRuns.get(runId);
     }
+
+    /**
+     * 同一run的多次变更只保留最后一次
+     */
+    private void enqueue(String runId, PendingRun pending) {
+        boolean full;
+        synchronized (pendingLock) {
+            pendingRuns.remove(runId);
+            pendingRuns.put(runId, pending);
+            full = pendingRuns.size() >= meshProperties.getRunningRunBatchSize();
+        }
+        if(full) {
+            try {
+                flushScheduler.execute(this::flushRunningRuns);
+            } catch (RejectedExecutionException e) {
+                flushRunningRuns();
+            }
+        }
+    }
+
+    /**
+     * 将合并后的running run变更通过一次RBatch提交，失败时放回队列等待下次提交
+     */
+    private void flushRunningRuns() {
+        Map<String, PendingRun> batch;
+        synchronized (pendingLock) {
+            if(pendingRuns.isEmpty()) {
+                return;
+            }
+            batch = pendingRuns;
+            pendingRuns = new LinkedHashMap<>();
+            flushingRuns = batch;
+        }
+        try {
+            RBatch redisBatch = redissonClient.createBatch();
+            RMapCacheAsync<String, String> runningRuns = redisBatch.getMapCache(buildKey(RUNNING_RUN_MAPPING));
+            batch.forEach((runId, pending) -> {
+                if(pending.add) {
+                    runningRuns.fastPutAsync(runId, instanceId, pending.timeoutSeconds, TimeUnit.SECONDS);
+                } else {
+                    // 只删除指向本实例的映射，提交前run可能已交接到其他实例
+                    runningRuns.removeAsync(runId, instanceId);
+                }
+            });
+            redisBatch.execute();
+            log.debug("Flushed {} running run mappings", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush {} running run mappings, will retry", batch.size(), e);
+            synchronized (pendingLock) {
+                // 提交期间产生的新变更优先
+                batch.forEach(pendingRuns::putIfAbsent);
+            }
+        } finally {
+            synchronized (pendingLock) {
+                flushingRuns = Map.of();
+            }
+        }
+    }
     
     @Override
     public Set<String> getOnlineInstances() {
@@ -164,6 +275,16 @@ public class RedisMesh implements ServiceMesh {
             if (heartbeatScheduler != null && !heartbeatScheduler.isShutdown()) {
                 heartbeatScheduler.shutdown();
             }
+
+            // 提交剩余的running run变更
+            if (flushScheduler != null) {
+                flushScheduler.shutdown();
+                flushScheduler.awaitTermination(5, TimeUnit.SECONDS);
+                flushRunningRuns();
+            }
+            if (listenerDispatcher != null) {
+                listenerDispatcher.shutdown();
+            }
             
             // 注销实例
             unregisterInstance();
@@ -187,19 +308,27 @@ public class RedisMesh implements ServiceMesh {
     
     private void initializeTopics() {
         // 初始化广播主题
-        broadcastTopic = redissonClient.getTopic(buildKey(BROADCAST_TOPIC));
-        broadcastTopic.addListener(String.class, (channel, eventJson) -> handleIncomingMessage(eventJson, false));
+        broadcastTopic = redissonClient.getTopic(buildKey(BROADCAST_TOPIC), ByteArrayCodec.INSTANCE);
+        broadcastTopic.addListener(byte[].class, (channel, data) -> handleIncomingMessage(data, false));
         
         // 初始化私有主题
-        privateTopic = redissonClient.getTopic(buildKey(PRIVATE_TOPIC_PREFIX + instanceId));
-        privateTopic.addListener(String.class, (channel, eventJson) -> handleIncomingMessage(eventJson, true));
+        privateTopic = redissonClient.getTopic(buildKey(PRIVATE_TOPIC_PREFIX + instanceId), ByteArrayCodec.INSTANCE);
+        privateTopic.addListener(byte[].class, (channel, data) -> handleIncomingMessage(data, true));
         
         log.debug("Initialized message topics for instance: {}", instanceId);
     }
     
-    private void handleIncomingMessage(String eventJson, boolean isPrivate) {
-        Event event = JacksonUtils.deserialize(eventJson, Event.class);
-
+    /**
+     * 在Redisson的IO线程中解码，监听器提交到独立线程执行，不阻塞当前线程
+     */
+    private void handleIncomingMessage(byte[] data, boolean isPrivate) {
+        Event event;
+        try {
+            event = EventCodec.decode(data);
+        } catch (RuntimeException e) {
+            log.warn("Failed to decode {} message", isPrivate ? "private" : "broadcast", e);
+            return;
+        }
 
         if(event == null) {
             return;
@@ -219,15 +348,15 @@ public class RedisMesh implements ServiceMesh {
         EventListener listener = eventListeners.get(event.getName());
         if (listener != null) {
             try {
-                listener.onEvent(event);
-            } catch (Exception e) {
-                log.error("Error processing event: {} from {}", event.getName(), event.getSourceInstanceId(), e);
+                listenerDispatcher.dispatch(listener, event);
+            } catch (RejectedExecutionException e) {
+                log.warn("Mesh is stopping, dropped event: {} from {}", event.getName(), event.getSourceInstanceId());
             }
         } else {
             log.debug("No listener registered for event: {}", event.getName());
         }
     }
-    
+
     private void startHeartbeat() {
         heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread thread = new Thread(r, "redis-mesh-heartbeat");
@@ -250,4 +379,14 @@ public class RedisMesh implements ServiceMesh {
     private String buildKey(String key) {
         return assistantProperties.getKeyPrefix() + ":" + key;
     }
+
+    private static class PendingRun {
+        final boolean add;
+        final int timeoutSeconds;
+
+        PendingRun(boolean add, int timeoutSeconds) {
+            this.add = add;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
 }
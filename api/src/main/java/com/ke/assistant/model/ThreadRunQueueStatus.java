@@ -0,0 +1,34 @@
+package com.ke.assistant.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * thread内的run队列状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThreadRunQueueStatus {
+    @JsonProperty("thread_id")
+    private String threadId;
+    /**
+     * 执行中（队首）的run
+     */
+    @JsonProperty("active_run_id")
+    private String activeRunId;
+    /**
+     * 按启动顺序排队等待的run
+     */
+    @JsonProperty("queued_run_ids")
+    private List<String> queuedRunIds;
+    @JsonProperty("max_depth")
+    private int maxDepth;
+}
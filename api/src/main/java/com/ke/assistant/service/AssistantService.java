@@ -5,20 +5,33 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ke.assistant.configuration.AssistantCacheProperties;
+import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.db.generated.tables.pojos.AssistantDb;
 import com.ke.assistant.db.generated.tables.pojos.AssistantFileRelationDb;
 import com.ke.assistant.db.generated.tables.pojos.AssistantToolDb;
 import com.ke.assistant.db.repo.AssistantFileRelationRepo;
 import com.ke.assistant.db.repo.AssistantRepo;
 import com.ke.assistant.db.repo.AssistantToolRepo;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventConstants;
+import com.ke.assistant.mesh.ServiceMesh;
 import com.ke.assistant.util.BeanUtils;
 import com.ke.assistant.util.ToolResourceUtils;
 import com.ke.bella.openapi.utils.JacksonUtils;
@@ -26,6 +39,7 @@ import com.theokanning.openai.assistants.assistant.Assistant;
 import com.theokanning.openai.assistants.assistant.Tool;
 import com.theokanning.openai.assistants.assistant.ToolResources;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -41,6 +55,26 @@ public class AssistantService {
     private AssistantFileRelationRepo assistantFileRepo;
     @Autowired
     private AssistantToolRepo assistantToolRepo;
+    @Autowired
+    private ServiceMesh serviceMesh;
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    private AssistantCacheProperties cacheProperties;
+    // 完整的assistant配置缓存，key为assistantId
+    private Cache<String, CachedAssistant> configCache;
+    // 失效计数，加载期间发生失效时丢弃加载结果
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.cacheProperties = assistantProperties.getAssistantCache();
+        this.configCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfterWrite(cacheProperties.getExpireMinutes(), TimeUnit.MINUTES)
+                .build();
+        serviceMesh.registerListener(EventConstants.EVENT_ASSISTANT_CHANGED, this::onAssistantChanged);
+    }
 
     /**
      * 创建 Assistant
@@ -71,6 +105,32 @@ public class AssistantService {
         return assistantDb != null ? convertToInfo(assistantDb) : null;
     }
 
+    /**
+     * 获取创建run使用的完整Assistant配置，优先读取本地缓存
+     * 返回的对象在多个run间共享，调用方不能修改
+     */
+    public Assistant getAssistantConfig(String id) {
+        if(!cacheProperties.isEnabled()) {
+            return getAssistantById(id);
+        }
+        CachedAssistant cached = configCache.getIfPresent(id);
+        if(cached != null) {
+            return cached.assistant;
+        }
+        long generation = invalidations.get();
+        AssistantDb assistantDb = assistantRepo.findById(id);
+        if(assistantDb == null) {
+            return null;
+        }
+        Assistant assistant = convertToInfo(assistantDb);
+        configCache.put(id, new CachedAssistant(version(assistantDb), assistant));
+        // 失效先计数再清除缓存，写入后计数已变化说明加载的可能是旧配置
+        if(invalidations.get() != generation) {
+            configCache.invalidate(id);
+        }
+        return assistant;
+    }
+
     /**
      * 检查Assistant所有权
      */
@@ -117,6 +177,8 @@ public class AssistantService {
         // 更新文件关联和工具配置 - 和创建逻辑一致
         updateAssistantFilesAndTools(id, fileIds, tools, toolResourceFiles);
 
+        publishChanged(id, version(existing));
+
         return convertToInfo(existing);
     }
 
@@ -135,7 +197,58 @@ public class AssistantService {
         // 删除关联的工具
         assistantToolRepo.deleteByAssistantId(id);
         // 删除Assistant本身
-        return assistantRepo.deleteById(id);
+        boolean deleted = assistantRepo.deleteById(id);
+        publishChanged(id, Long.MAX_VALUE);
+        return deleted;
+    }
+
+    /**
+     * 配置变更后清除本地缓存并广播，事务中在提交后再广播，避免其他实例读到未提交前的配置
+     */
+    private void publishChanged(String id, long version) {
+        invalidate(id, version);
+        Runnable broadcast = () -> {
+            invalidate(id, version);
+            try {
+                serviceMesh.sendBroadcastMessage(Event.builder()
+                        .name(EventConstants.EVENT_ASSISTANT_CHANGED)
+                        .payload(id)
+                        .metadata(Map.of("version", version))
+                        .build());
+            } catch (Exception e) {
+                log.warn("broadcast assistant change failed, assistantId: {}", id, e);
+            }
+        };
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast.run();
+                }
+            });
+        } else {
+            broadcast.run();
+        }
+    }
+
+    private void onAssistantChanged(Event event) {
+        Object version = event.getMetadata() == null ? null : event.getMetadata().get("version");
+        invalidate(event.getPayload(), version instanceof Number number ? number.longValue() : Long.MAX_VALUE);
+    }
+
+    /**
+     * 清除版本不高于变更版本的缓存
+     */
+    private void invalidate(String id, long version) {
+        invalidations.incrementAndGet();
+        CachedAssistant cached = configCache.getIfPresent(id);
+        if(cached != null && cached.version <= version) {
+            configCache.invalidate(id);
+        }
+    }
+
+    private static long version(AssistantDb assistantDb) {
+        return assistantDb.getUpdatedAt() == null ? 0 : assistantDb.getUpdatedAt().toInstant(ZoneOffset.ofHours(8)).toEpochMilli();
     }
 
     /**
@@ -273,4 +386,10 @@ public class AssistantService {
 
         return info;
     }
+
+    @AllArgsConstructor
+    private static class CachedAssistant {
+        private final long version;
+        private final Assistant assistant;
+    }
 }
@@ -3,7 +3,18 @@ package com.ke.assistant.service;
 import java.awt.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtils;
@@ -19,14 +30,172 @@ import org.jfree.chart.title.TextTitle;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 import org.jfree.data.general.PieDataset;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ChartProperties;
+import com.ke.assistant.core.TaskExecutor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * 图表生成服务
+ * 渲染在独立的CPU线程池中执行，与工具调用线程隔离；
+ * 渲染结果和上传后的URL按图表内容哈希缓存，用户重复生成相同图表时直接复用
  */
+@Slf4j
 @Service
 public class ChartService {
 
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ChartProperties chartProperties;
+    private ThreadPoolExecutor renderPool;
+    private Cache<String, byte[]> imageCache;
+    private Cache<String, String> urlCache;
+    private Timer renderTimer;
+    private DistributionSummary outputSize;
+
+    @PostConstruct
+    public void init() {
+        this.chartProperties = assistantProperties.getChart();
+        int threads = Math.max(1, chartProperties.getRenderThreads());
+        this.renderPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, chartProperties.getQueueCapacity())),
+                new TaskExecutor.NamedThreadFactory("bella-chart-", true));
+        this.imageCache = CacheBuilder.newBuilder()
+                .maximumWeight(chartProperties.getImageCacheMaxBytes())
+                .<String, byte[]>weigher((key, value) -> value.length)
+                .expireAfterAccess(chartProperties.getCacheExpireMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        this.urlCache = CacheBuilder.newBuilder()
+                .maximumSize(chartProperties.getUrlCacheSize())
+                .expireAfterWrite(chartProperties.getCacheExpireMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(registry != null) {
+            renderTimer = Timer.builder("bella.chart.render").register(registry);
+            outputSize = DistributionSummary.builder("bella.chart.output.size").baseUnit("bytes").register(registry);
+            Gauge.builder("bella.chart.render.queue", renderPool, pool -> pool.getQueue().size()).register(registry);
+            FunctionCounter.builder("bella.chart.cache.hits", imageCache, cache -> cache.stats().hitCount())
+                    .tag("cache", "image").register(registry);
+            FunctionCounter.builder("bella.chart.cache.misses", imageCache, cache -> cache.stats().missCount())
+                    .tag("cache", "image").register(registry);
+            FunctionCounter.builder("bella.chart.cache.hits", urlCache, cache -> cache.stats().hitCount())
+                    .tag("cache", "url").register(registry);
+            FunctionCounter.builder("bella.chart.cache.misses", urlCache, cache -> cache.stats().missCount())
+                    .tag("cache", "url").register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(renderPool != null) {
+            renderPool.shutdownNow();
+        }
+    }
+
+    /**
+     * 渲染图表并上传，相同内容的图表直接返回已上传的URL
+     *
+     * @return 图表的公共访问URL
+     */
+    public String renderAndUpload(ChartRequest request) throws IOException {
+        ChartProperties.Format format = resolveFormat(request);
+        String key = contentHash(request, format);
+        try {
+            return urlCache.get(key, () -> s3Service.uploadFile(render(request, format, key),
+                    format.getContentType(), "." + format.getExtension()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 在渲染线程池中渲染图表，相同内容的图表直接返回缓存结果
+     *
+     * @return 图表的字节数组
+     */
+    public byte[] render(ChartRequest request) throws IOException {
+        ChartProperties.Format format = resolveFormat(request);
+        try {
+            return render(request, format, contentHash(request, format));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private byte[] render(ChartRequest request, ChartProperties.Format format, String key) throws ExecutionException {
+        return imageCache.get(key, () -> submitRender(request, format));
+    }
+
+    private byte[] submitRender(ChartRequest request, ChartProperties.Format format) throws IOException, InterruptedException {
+        Future<byte[]> future;
+        try {
+            future = renderPool.submit(() -> doRender(request, format));
+        } catch (RejectedExecutionException e) {
+            throw new IOException("图表渲染繁忙，请稍后重试", e);
+        }
+        try {
+            return future.get(chartProperties.getRenderTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("图表渲染超时", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private byte[] doRender(ChartRequest request, ChartProperties.Format format) throws IOException {
+        long start = System.nanoTime();
+        JFreeChart chart;
+        switch (request.getType()) {
+        case BAR:
+            chart = createBarChart(request.getTitle(), request.getCategoryAxisLabel(), request.getValueAxisLabel(),
+                    request.getData(), request.getLabels());
+            break;
+        case LINE:
+            chart = createLineChart(request.getTitle(), request.getCategoryAxisLabel(), request.getValueAxisLabel(),
+                    request.getData(), request.getLabels());
+            break;
+        default:
+            chart = createPieChart(request.getTitle(), request.getData(), request.getLabels());
+        }
+        byte[] bytes = encode(chart, format, clamp(request.getWidth(), chartProperties.getMaxWidth()),
+                clamp(request.getHeight(), chartProperties.getMaxHeight()));
+        if(renderTimer != null) {
+            renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            outputSize.record(bytes.length);
+        }
+        return bytes;
+    }
+
     /**
      * 生成柱状图
      * 
@@ -41,6 +210,155 @@ public class ChartService {
      */
     public byte[] generateBarChart(String title, String categoryAxisLabel, String valueAxisLabel, 
                                  double[] data, String[] xAxisLabels, int width, int height) throws IOException {
+        return encode(createBarChart(title, categoryAxisLabel, valueAxisLabel, data, xAxisLabels),
+                ChartProperties.Format.JPG, width, height);
+    }
+
+    /**
+     * 生成折线图
+     * 
+     * @param title 图表标题
+     * @param categoryAxisLabel X轴标签
+     * @param valueAxisLabel Y轴标签
+     * @param data 数据
+     * @param xAxisLabels X轴标签数组
+     * @param width 图表宽度
+     * @param height 图表高度
+     * @return 图表的字节数组
+     */
+    public byte[] generateLineChart(String title, String categoryAxisLabel, String valueAxisLabel, 
+                                  double[] data, String[] xAxisLabels, int width, int height) throws IOException {
+        return encode(createLineChart(title, categoryAxisLabel, valueAxisLabel, data, xAxisLabels),
+                ChartProperties.Format.JPG, width, height);
+    }
+
+    /**
+     * 生成饼图
+     * 
+     * @param title 图表标题
+     * @param data 数据
+     * @param labels 标签数组
+     * @param width 图表宽度
+     * @param height 图表高度
+     * @return 图表的字节数组
+     */
+    public byte[] generatePieChart(String title, double[] data, String[] labels, int width, int height) throws IOException {
+        return encode(createPieChart(title, data, labels), ChartProperties.Format.JPG, width, height);
+    }
+
+    /**
+     * 将图表编码为指定格式
+     */
+    private static byte[] encode(JFreeChart chart, ChartProperties.Format format, int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        switch (format) {
+        case PNG:
+            ChartUtils.writeChartAsPNG(outputStream, chart, width, height);
+            return outputStream.toByteArray();
+        default:
+            ChartUtils.writeChartAsJPEG(outputStream, chart, width, height);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private ChartProperties.Format resolveFormat(ChartRequest request) {
+        return request.getFormat() != null ? request.getFormat() : chartProperties.getDefaultFormat();
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(1, Math.min(value, max));
+    }
+
+    /**
+     * 图表内容哈希，字符串带长度前缀避免拼接歧义
+     */
+    static String contentHash(ChartRequest request, ChartProperties.Format format) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putInt(request.getType().ordinal())
+                .putInt(format.ordinal())
+                .putInt(request.getWidth())
+                .putInt(request.getHeight());
+        putString(hasher, request.getTitle());
+        putString(hasher, request.getCategoryAxisLabel());
+        putString(hasher, request.getValueAxisLabel());
+        double[] data = request.getData() == null ? new double[0] : request.getData();
+        hasher.putInt(data.length);
+        for (double value : data) {
+            hasher.putDouble(value);
+        }
+        String[] labels = request.getLabels();
+        hasher.putInt(labels == null ? -1 : labels.length);
+        if(labels != null) {
+            for (String label : labels) {
+                putString(hasher, label);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if(value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+
+    private static IOException unwrap(Exception e) {
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof UncheckedExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if(cause instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if(cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if(cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause.getMessage(), cause);
+    }
+
+    public enum ChartType {
+        BAR, LINE, PIE
+    }
+
+    /**
+     * 图表渲染请求，柱状图和折线图的labels为X轴标签，饼图为分类标签
+     */
+    @Data
+    @Builder
+    public static class ChartRequest {
+        private ChartType type;
+        private String title;
+        private String categoryAxisLabel;
+        private String valueAxisLabel;
+        private double[] data;
+        private String[] labels;
+        private int width;
+        private int height;
+        /**
+         * 为空时使用默认格式
+         */
+        private ChartProperties.Format format;
+    }
+
+    /**
+     * 创建柱状图
+     * 
+     * @param title 图表标题
+     * @param categoryAxisLabel X轴标签
+     * @param valueAxisLabel Y轴标签
+     * @param data 数据
+     * @param xAxisLabels X轴标签数组
+     */
+    private JFreeChart createBarChart(String title, String categoryAxisLabel, String valueAxisLabel,
+                                      double[] data, String[] xAxisLabels) {
         
         // 创建数据集
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
@@ -67,26 +385,20 @@ public class ChartService {
         // 设置图表样式
         customizeChart(chart);
         
-        // 将图表转换为字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsJPEG(outputStream, chart, width, height);
-        return outputStream.toByteArray();
+        return chart;
     }
     
     /**
-     * 生成折线图
+     * 创建折线图
      * 
      * @param title 图表标题
      * @param categoryAxisLabel X轴标签
      * @param valueAxisLabel Y轴标签
      * @param data 数据
      * @param xAxisLabels X轴标签数组
-     * @param width 图表宽度
-     * @param height 图表高度
-     * @return 图表的字节数组
      */
-    public byte[] generateLineChart(String title, String categoryAxisLabel, String valueAxisLabel, 
-                                  double[] data, String[] xAxisLabels, int width, int height) throws IOException {
+    private JFreeChart createLineChart(String title, String categoryAxisLabel, String valueAxisLabel,
+                                       double[] data, String[] xAxisLabels) {
         
         // 创建数据集
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
@@ -113,23 +425,17 @@ public class ChartService {
         // 设置图表样式
         customizeLineChart(chart);
         
-        // 将图表转换为字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsJPEG(outputStream, chart, width, height);
-        return outputStream.toByteArray();
+        return chart;
     }
     
     /**
-     * 生成饼图
+     * 创建饼图
      * 
      * @param title 图表标题
      * @param data 数据
      * @param labels 标签数组
-     * @param width 图表宽度
-     * @param height 图表高度
-     * @return 图表的字节数组
      */
-    public byte[] generatePieChart(String title, double[] data, String[] labels, int width, int height) throws IOException {
+    private JFreeChart createPieChart(String title, double[] data, String[] labels) {
         
         // 创建数据集
         DefaultPieDataset<String> dataset = new DefaultPieDataset();
@@ -153,10 +459,7 @@ public class ChartService {
         // 设置图表样式
         customizePieChart(chart);
         
-        // 将图表转换为字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsJPEG(outputStream, chart, width, height);
-        return outputStream.toByteArray();
+        return chart;
     }
 
     /**
@@ -2,7 +2,6 @@ package com.ke.assistant.service;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Base64;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.ke.assistant.db.context.RepoContext;
+import com.ke.assistant.util.Base64Utils;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class ImageStorageService {
 
-    private static final Pattern BASE64_IMAGE_PATTERN = Pattern.compile("^data:image/(\\w+);base64,(.+)$");
+    private static final Pattern BASE64_IMAGE_PATTERN = Pattern.compile("^data:image/(\\w+);base64,");
 
     @Autowired
     private S3Service s3Service;
@@ -50,29 +50,27 @@ public class ImageStorageService {
             return imageUrl;
         }
 
-        // Check if it's a base64 image
+        // Check if it's a base64 image, only match the prefix to avoid copying the payload
         Matcher matcher = BASE64_IMAGE_PATTERN.matcher(imageUrl);
-        if (!matcher.matches()) {
+        if (!matcher.lookingAt() || matcher.end() == imageUrl.length()) {
             // Neither a valid URL nor a base64 image
             throw new BizParamCheckException("Invalid image input: must be either a valid URL or base64 encoded image");
         }
 
         try {
-            // Extract image format and base64 data
+            // Extract image format and the range of base64 data
             String imageFormat = matcher.group(1);
-            String base64Data = matcher.group(2);
-
-            // Decode base64 to bytes
-            byte[] imageData = Base64.getDecoder().decode(base64Data);
+            int dataStart = matcher.end();
 
             // Determine content type and file extension
             String contentType = "image/" + imageFormat.toLowerCase();
             String fileExtension = "." + imageFormat.toLowerCase();
 
-            // Upload to S3 and get URL
-            String s3Url = s3Service.uploadFile(imageData, contentType, fileExtension);
+            // Decode while uploading to S3 and get URL
+            String s3Url = s3Service.uploadBase64(imageUrl, dataStart, imageUrl.length(), contentType, fileExtension);
 
-            log.info("Successfully uploaded base64 image to S3: {} (size: {} bytes)", s3Url, imageData.length);
+            log.info("Successfully uploaded base64 image to S3: {} (size: {} bytes)", s3Url,
+                    Base64Utils.decodedLength(imageUrl, dataStart, imageUrl.length()));
 
             return s3Url;
 
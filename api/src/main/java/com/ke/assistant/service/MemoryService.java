@@ -1,19 +1,23 @@
 package com.ke.assistant.service;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.ke.assistant.core.memory.vector.VectorMemoryPartition;
+import com.ke.assistant.core.memory.vector.VectorMemoryStore;
 import com.ke.assistant.db.generated.tables.pojos.MessageDb;
 import com.ke.assistant.db.repo.MessageRepo;
 import com.ke.assistant.dto.memory.MemoryRequest;
 import com.ke.assistant.dto.memory.MemoryResponse;
+import com.ke.assistant.dto.memory.StrategyParam;
 import com.ke.assistant.enums.MemoryType;
 import com.ke.bella.openapi.utils.JacksonUtils;
 
@@ -26,23 +30,51 @@ import lombok.extern.slf4j.Slf4j;
 public class MemoryService {
 
     private final MessageRepo messageRepo;
+    private final VectorMemoryStore vectorMemoryStore;
 
     public MemoryResponse queryMemory(MemoryRequest request) {
         MemoryResponse response = new MemoryResponse();
 
-        if ((request.getType() == MemoryType.LONG_MEMORY || request.getType() == MemoryType.MIX_MEMORY) 
-            && request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
-            response.setLongMemory(new ArrayList<>());
-        }
-
+        Set<String> shortMemoryIds = new HashSet<>();
         if (request.getType() == MemoryType.SHORT_MEMORY || request.getType() == MemoryType.MIX_MEMORY) {
             List<MessageDb> messages = getRecentMessages(request.getThreadId(), request.getStrategyParam().getTurnNum() * 2);
+            messages.forEach(msg -> shortMemoryIds.add(msg.getId()));
             response.setShortMemory(transformMessageContent(messages));
         }
 
+        if ((request.getType() == MemoryType.LONG_MEMORY || request.getType() == MemoryType.MIX_MEMORY) 
+            && request.getQuery() != null && !request.getQuery().trim().isEmpty()) {
+            response.setLongMemory(getLongMemory(request, shortMemoryIds));
+        }
+
         return response;
     }
 
+    /**
+     * 从向量索引中查询与query相关的历史消息，已在短期记忆中的消息不重复返回
+     */
+    private List<Map<String, Object>> getLongMemory(MemoryRequest request, Set<String> excludeIds) {
+        StrategyParam param = request.getStrategyParam();
+        List<VectorMemoryPartition.ScoredEntry> entries = vectorMemoryStore.search(request.getThreadId(), request.getQuery(),
+                param.getTopK() + excludeIds.size(), param.getThreshold());
+        return entries.stream()
+                .filter(scored -> !excludeIds.contains(scored.getEntry().getMessageId()))
+                .limit(param.getTopK())
+                .map(scored -> {
+                    VectorMemoryPartition.MemoryEntry entry = scored.getEntry();
+                    Map<String, Object> text = new HashMap<>();
+                    text.put("type", "text");
+                    text.put("text", entry.getText());
+                    Map<String, Object> messageMap = new HashMap<>();
+                    messageMap.put("message_id", entry.getMessageId());
+                    messageMap.put("role", entry.getRole());
+                    messageMap.put("content", Collections.singletonList(text));
+                    messageMap.put("created_at", entry.getCreatedAt());
+                    messageMap.put("score", scored.getScore());
+                    return messageMap;
+                }).collect(Collectors.toList());
+    }
+
     private List<MessageDb> getRecentMessages(String threadId, int limit) {
         List<MessageDb> messages = messageRepo.findRecentByThreadId(threadId, limit);
         Collections.reverse(messages);
@@ -14,8 +14,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.core.memory.vector.VectorMemoryStore;
+import com.ke.assistant.db.OptimisticLockException;
+import com.ke.assistant.db.OptimisticLockExecutor;
 import com.ke.assistant.db.generated.tables.pojos.MessageDb;
 import com.ke.assistant.db.repo.MessageRepo;
 import com.ke.assistant.util.BeanUtils;
@@ -47,6 +53,15 @@ public class MessageService {
     @Autowired
     private ThreadLockService threadLockService;
 
+    @Autowired
+    private OptimisticLockExecutor optimisticLockExecutor;
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired
+    private VectorMemoryStore vectorMemoryStore;
+
     /**
      * 创建 Message（单条插入使用读锁，允许并发执行）
      */
@@ -102,7 +117,11 @@ public class MessageService {
         // 只有实际的数据库插入操作需要加读锁
         MessageDb savedMessage = threadLockService.executeWithReadLock(threadId, () -> messageRepo.insert(message));
 
-        return convertToInfo(savedMessage);
+        Message info = convertToInfo(savedMessage);
+        if("completed".equals(status) && !hidden) {
+            afterCommit(() -> vectorMemoryStore.indexMessage(threadId, info));
+        }
+        return info;
     }
 
 
@@ -115,7 +134,11 @@ public class MessageService {
         // 只有实际的数据库插入操作需要加读锁
         MessageDb savedMessage = threadLockService.executeWithReadLock(threadId, () -> messageRepo.insert(db));
 
-        return convertToInfo(savedMessage);
+        Message info = convertToInfo(savedMessage);
+        if("completed".equals(savedMessage.getStatus()) && !hidden) {
+            afterCommit(() -> vectorMemoryStore.indexMessage(threadId, info));
+        }
+        return info;
     }
 
     /**
@@ -206,6 +229,7 @@ public class MessageService {
         if(existing == null) {
             return null;
         }
+        MessageDb original = new MessageDb(existing);
 
         if(request.getContent() != null) {
             List<Object> formattedContent = MessageUtils.formatMessageContent(request.getContent());
@@ -217,8 +241,13 @@ public class MessageService {
             existing.setMetadata(JacksonUtils.serialize(request.getMetadata()));
         }
 
-        messageRepo.update(existing);
-        return convertToInfo(existing);
+        messageRepo.update(original, existing);
+        Message info = convertToInfo(existing);
+        // 修改内容后重新索引，替换旧内容的记忆
+        if(request.getContent() != null && indexable(existing)) {
+            afterCommit(() -> vectorMemoryStore.indexMessage(threadId, info));
+        }
+        return info;
     }
 
     /**
@@ -226,10 +255,15 @@ public class MessageService {
      */
     @Transactional
     public Message addContent(String threadId, String id, MessageContent content, String reasoning, Map<String, String> metaData) {
-        MessageDb existing = messageRepo.findByIdForUpdate(threadId, id);
+        return optimisticLockExecutor.execute(lockRead -> doAddContent(threadId, id, content, reasoning, metaData, lockRead));
+    }
+
+    private Message doAddContent(String threadId, String id, MessageContent content, String reasoning, Map<String, String> metaData, boolean lockRead) {
+        MessageDb existing = lockRead ? messageRepo.findByIdForUpdate(threadId, id) : messageRepo.findById(threadId, id);
         if(existing == null) {
             return null;
         }
+        MessageDb original = new MessageDb(existing);
 
         List<MessageContent> contents = JacksonUtils.deserialize(existing.getContent(), new TypeReference<>() {});
 
@@ -267,16 +301,23 @@ public class MessageService {
             }
         }
 
-        messageRepo.update(existing);
+        if(!messageRepo.updateWithVersion(original, existing)) {
+            throw new OptimisticLockException("message", id);
+        }
         return convertToInfo(existing);
     }
 
     @Transactional
     public Message updateStatus(String threadId, String id, String status, boolean hidden, IncompleteDetails details) {
-        MessageDb existing = messageRepo.findByIdForUpdate(threadId, id);
+        return optimisticLockExecutor.execute(lockRead -> doUpdateStatus(threadId, id, status, hidden, details, lockRead));
+    }
+
+    private Message doUpdateStatus(String threadId, String id, String status, boolean hidden, IncompleteDetails details, boolean lockRead) {
+        MessageDb existing = lockRead ? messageRepo.findByIdForUpdate(threadId, id) : messageRepo.findById(threadId, id);
         if(existing == null) {
             return null;
         }
+        MessageDb original = new MessageDb(existing);
 
         if(existing.getStatus().equals("incomplete")) {
             log.warn("Invalid status transition for message {}: {} -> {}",
@@ -299,8 +340,15 @@ public class MessageService {
             existing.setMetadata(JacksonUtils.serialize(matas));
         }
 
-        messageRepo.update(existing);
-        return convertToInfo(existing);
+        if(!messageRepo.updateWithVersion(original, existing)) {
+            throw new OptimisticLockException("message", id);
+        }
+        Message info = convertToInfo(existing);
+        // assistant消息在生成完成后索引
+        if("completed".equals(status) && !hidden) {
+            afterCommit(() -> vectorMemoryStore.indexMessage(threadId, info));
+        }
+        return info;
     }
 
     /**
@@ -308,7 +356,11 @@ public class MessageService {
      */
     @Transactional
     public boolean deleteMessage(String threadId, String id) {
-        return messageRepo.deleteById(threadId, id);
+        boolean deleted = messageRepo.deleteById(threadId, id);
+        if(deleted) {
+            afterCommit(() -> vectorMemoryStore.deleteMessage(threadId, id));
+        }
+        return deleted;
     }
 
     /**
@@ -316,7 +368,25 @@ public class MessageService {
      */
     @Transactional
     public int deleteMessagesByThreadId(String threadId) {
-        return messageRepo.deleteByThreadId(threadId);
+        int deleted = messageRepo.deleteByThreadId(threadId);
+        afterCommit(() -> vectorMemoryStore.deleteThread(threadId));
+        return deleted;
+    }
+
+    /**
+     * 长期记忆在事务提交后更新，回滚的消息不会被索引，也不会误删记忆
+     */
+    private static void afterCommit(Runnable action) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     private MessageDb convertToDb(Message message) {
@@ -350,6 +420,38 @@ public class MessageService {
         
         // 批量操作已经持有写锁，这里不需要再加锁
         messageRepo.insert(message);
+        indexAfterCommit(List.of(message));
+    }
+
+    /**
+     * 批量保存MessageDb，供ThreadService的复制、合并、fork操作使用（不加锁，调用方持有写锁）
+     * 按列表顺序插入，每 bulk-insert-batch-size 条生成一条多行INSERT语句
+     */
+    @Transactional
+    public List<MessageDb> createMessages(List<MessageDb> messages) {
+        List<MessageDb> saved = messageRepo.batchInsert(messages, assistantProperties.getBulkInsertBatchSize());
+        indexAfterCommit(saved);
+        return saved;
+    }
+
+    /**
+     * 复制到新thread的消息在提交后写入新thread的记忆
+     */
+    private void indexAfterCommit(List<MessageDb> messages) {
+        if(!vectorMemoryStore.isEnabled()) {
+            return;
+        }
+        List<Message> infos = messages.stream()
+                .filter(MessageService::indexable)
+                .map(MessageUtils::convertToInfo)
+                .collect(Collectors.toList());
+        if(!infos.isEmpty()) {
+            afterCommit(() -> infos.forEach(info -> vectorMemoryStore.indexMessage(info.getThreadId(), info)));
+        }
+    }
+
+    private static boolean indexable(MessageDb message) {
+        return "completed".equals(message.getStatus()) && !"hidden".equals(message.getMessageStatus());
     }
 
     public Message getTheLastMessage(String threadId) {
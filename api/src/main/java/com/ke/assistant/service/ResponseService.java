@@ -26,6 +26,7 @@ import com.ke.assistant.db.repo.ResponseIdMappingRepo;
 import com.ke.assistant.model.ResponseCreateResult;
 import com.ke.assistant.model.RunCreateResult;
 import com.ke.assistant.util.MessageUtils;
+import com.ke.assistant.util.MetaConstants;
 import com.ke.assistant.util.ResponseUtils;
 import com.ke.assistant.util.ToolUtils;
 import com.ke.bella.openapi.BellaContext;
@@ -78,6 +79,9 @@ public class ResponseService {
     @Autowired
     private ImageStorageService imageStorageService;
 
+    @Autowired
+    private ResponseSnapshotCache snapshotCache;
+
     @Autowired
     private AudioStorageService audioStorageService;
 
@@ -142,6 +146,19 @@ public class ResponseService {
      * get responses execution result
      */
     public Response getResponse(String responseId) {
+        if(snapshotCache.isEnabled()) {
+            // 终态Response直接返回物化快照
+            Response snapshot = snapshotCache.getTerminal(responseId);
+            if(snapshot != null) {
+                return snapshot;
+            }
+            // 执行中的Response只查询run状态，状态未变化时返回缓存的基础信息，变化后（如queued -> in_progress）重新物化
+            Response inProgress = snapshotCache.getInProgress(responseId, runService::getRunStatus);
+            if(inProgress != null) {
+                return inProgress;
+            }
+        }
+
         // Get response mapping from database
         ResponseIdMappingDb mappingDb = responseIdMappingRepo.findByResponseId(responseId);
         if (mappingDb == null) {
@@ -154,6 +171,24 @@ public class ResponseService {
             throw new ResourceNotFoundException("Run not found for response: " + responseId);
         }
 
+        Response response = materializeResponse(responseId, mappingDb, run);
+
+        if(snapshotCache.isEnabled()) {
+            RunStatus status = RunStatus.fromValue(run.getStatus());
+            if(status.isTerminal()) {
+                boolean store = run.getMetadata() != null && Boolean.parseBoolean(run.getMetadata().get(MetaConstants.STORE));
+                snapshotCache.putTerminal(responseId, response, store);
+            } else if(!status.isStopExecution()) {
+                snapshotCache.putInProgress(responseId, mappingDb.getThreadId(), mappingDb.getRunId(), run.getStatus(), response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 从run、run step和message重建Response
+     */
+    private Response materializeResponse(String responseId, ResponseIdMappingDb mappingDb, Run run) {
         Map<String, Tool> toolMap = run.getTools() == null ? new HashMap<>() :
                 run.getTools().stream().collect(Collectors.toMap(tool -> {
                             if(tool instanceof Tool.MCP mcp) {
@@ -0,0 +1,173 @@
+package com.ke.assistant.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import javax.annotation.PostConstruct;
+
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ResponseCacheProperties;
+import com.ke.bella.openapi.utils.JacksonUtils;
+import com.theokanning.openai.response.Response;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Response物化快照缓存
+ * 终态Response不再变化，物化后写入本地缓存和Redis；执行中的Response只在本地缓存mapping和基础信息，轮询时只需查询run状态
+ */
+@Slf4j
+@Service
+public class ResponseSnapshotCache {
+
+    private static final String SNAPSHOT_KEY_PREFIX = "response:snapshot:";
+
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ResponseCacheProperties properties;
+    private RedissonClient redissonClient;
+    private Cache<String, Response> terminalCache;
+    private Cache<String, InProgress> inProgressCache;
+    private Counter redisHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getResponseCache();
+        this.redissonClient = redissonClientProvider == null ? null : redissonClientProvider.getIfAvailable();
+        this.terminalCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfterAccess(properties.getLocalExpireMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        this.inProgressCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfterWrite(properties.getLocalExpireMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(registry != null) {
+            FunctionCounter.builder("bella.response.cache.hits", terminalCache, cache -> cache.stats().hitCount())
+                    .tag("tier", "local").register(registry);
+            FunctionCounter.builder("bella.response.cache.hits", inProgressCache, cache -> cache.stats().hitCount())
+                    .tag("tier", "in_progress").register(registry);
+            redisHits = Counter.builder("bella.response.cache.hits").tag("tier", "redis").register(registry);
+            misses = Counter.builder("bella.response.cache.misses").register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 查询终态快照，本地未命中时读取Redis并回填本地缓存
+     */
+    public Response getTerminal(String responseId) {
+        Response response = terminalCache.getIfPresent(responseId);
+        if(response != null) {
+            return response;
+        }
+        if(sharedEnabled()) {
+            try {
+                String json = bucket(responseId).get();
+                if(json != null) {
+                    response = JacksonUtils.deserialize(json, Response.class);
+                }
+            } catch (Exception e) {
+                log.warn("read response snapshot failed, responseId: {}", responseId, e);
+            }
+            if(response != null) {
+                terminalCache.put(responseId, response);
+                increment(redisHits);
+                return response;
+            }
+        }
+        increment(misses);
+        return null;
+    }
+
+    /**
+     * 写入终态快照
+     * @param shared 是否写入Redis，store=false的Response只缓存在本地
+     */
+    public void putTerminal(String responseId, Response response, boolean shared) {
+        inProgressCache.invalidate(responseId);
+        terminalCache.put(responseId, response);
+        if(shared && sharedEnabled()) {
+            try {
+                bucket(responseId).set(JacksonUtils.serialize(response), properties.getRedisTtlMinutes(), TimeUnit.MINUTES);
+            } catch (Exception e) {
+                log.warn("write response snapshot failed, responseId: {}", responseId, e);
+            }
+        }
+    }
+
+    /**
+     * 查询执行中Response的缓存，run当前状态与缓存时的状态一致时直接返回，不一致时失效，由调用方重新物化
+     * @param statusLookup 按threadId、runId查询run当前状态
+     */
+    public Response getInProgress(String responseId, BiFunction<String, String, String> statusLookup) {
+        InProgress inProgress = inProgressCache.getIfPresent(responseId);
+        if(inProgress == null) {
+            return null;
+        }
+        String status = statusLookup.apply(inProgress.getThreadId(), inProgress.getRunId());
+        if(inProgress.getRunStatus().equals(status)) {
+            return inProgress.getResponse();
+        }
+        inProgressCache.invalidate(responseId);
+        return null;
+    }
+
+    /**
+     * 缓存执行中Response的mapping、物化时的run状态和基础信息，状态变化前直接返回
+     */
+    public void putInProgress(String responseId, String threadId, String runId, String runStatus, Response response) {
+        inProgressCache.put(responseId, new InProgress(threadId, runId, runStatus, response));
+    }
+
+    private boolean sharedEnabled() {
+        return properties.isRedisEnabled() && redissonClient != null;
+    }
+
+    private RBucket<String> bucket(String responseId) {
+        return redissonClient.getBucket(assistantProperties.getKeyPrefix() + ":" + SNAPSHOT_KEY_PREFIX + responseId, StringCodec.INSTANCE);
+    }
+
+    private static void increment(Counter counter) {
+        if(counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class InProgress {
+        private final String threadId;
+        private final String runId;
+        private final String runStatus;
+        private final Response response;
+    }
+}
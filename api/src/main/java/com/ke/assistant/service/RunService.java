@@ -83,7 +83,8 @@ public class RunService {
 
     @Transactional
     public RunCreateResult createRun(String threadId, RunCreateRequest request, List<Attachment> attachments) {
-        return threadLockService.executeWithWriteLock(threadId, () -> doCreateRun(threadId, null, request, attachments, null, null));
+        Assistant assistant = resolveAssistant(request);
+        return threadLockService.executeWithWriteLock(threadId, () -> doCreateRun(threadId, null, request, attachments, null, null, assistant));
     }
 
     /**
@@ -91,26 +92,31 @@ public class RunService {
      */
     @Transactional
     public RunCreateResult createRun(String threadId, String runId, RunCreateRequest request, List<Attachment> attachments, List<Message> additionalMessages, ToolResources additionalResources) {
-        return threadLockService.executeWithWriteLock(threadId, () -> doCreateRun(threadId, runId, request, attachments, additionalMessages, additionalResources));
+        Assistant assistant = resolveAssistant(request);
+        return threadLockService.executeWithWriteLock(threadId, () -> doCreateRun(threadId, runId, request, attachments, additionalMessages, additionalResources, assistant));
     }
 
     /**
-     * 创建Run
+     * 在获取thread写锁之前读取assistant配置，responseAPI创建的run没有assistant
      */
-    private RunCreateResult doCreateRun(String threadId, String runId, RunCreateRequest request, List<Attachment> attachments, List<Message> additionalMessages, ToolResources additionalResources) {
-
-        Assistant assistant = null;
-
+    private Assistant resolveAssistant(RunCreateRequest request) {
         String responseId = request.getMetadata() == null ? null : request.getMetadata().get(MetaConstants.RESPONSE_ID);
-
-        if(responseId == null) {
-            assistant = assistantService.getAssistantById(request.getAssistantId());
-
-            // 验证assistant是否存在
-            if(assistant == null) {
-                throw new ResourceNotFoundException("Assistant not found: " + request.getAssistantId());
-            }
+        if(responseId != null) {
+            return null;
         }
+        Assistant assistant = assistantService.getAssistantConfig(request.getAssistantId());
+        // 验证assistant是否存在
+        if(assistant == null) {
+            throw new ResourceNotFoundException("Assistant not found: " + request.getAssistantId());
+        }
+        return assistant;
+    }
+
+    /**
+     * 创建Run
+     */
+    private RunCreateResult doCreateRun(String threadId, String runId, RunCreateRequest request, List<Attachment> attachments, List<Message> additionalMessages,
+            ToolResources additionalResources, Assistant assistant) {
 
         Map<String, Set<String>> toolFilesMap = new HashMap<>();
 
@@ -290,6 +296,13 @@ public class RunService {
         return runDb != null ? convertToInfo(runDb) : null;
     }
 
+    /**
+     * 只查询Run状态
+     */
+    public String getRunStatus(String threadId, String id) {
+        return runRepo.findStatusById(threadId, id);
+    }
+
     /**
      * 根据Thread ID查询Run列表
      */
@@ -316,6 +329,7 @@ public class RunService {
         if(existing == null) {
             return null;
         }
+        RunDb original = new RunDb(existing);
 
         if(metaData == null) {
             metaData = new HashMap<>();
@@ -323,7 +337,7 @@ public class RunService {
 
         existing.setMetadata(JacksonUtils.serialize(metaData));
 
-        runRepo.update(existing);
+        runRepo.update(original, existing);
         return convertToInfo(existing);
     }
 
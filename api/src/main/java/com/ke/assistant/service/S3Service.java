@@ -1,11 +1,21 @@
 package com.ke.assistant.service;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -15,14 +25,21 @@ import org.springframework.stereotype.Service;
 
 import com.ke.assistant.configuration.AssistantProperties;
 import com.ke.assistant.configuration.S3Properties;
+import com.ke.assistant.core.TaskExecutor;
+import com.ke.assistant.util.Base64Utils;
 
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
@@ -37,10 +54,14 @@ public class S3Service {
     private AssistantProperties properties;
     private S3Properties s3Properties;
     private S3Client s3Client;
+    private S3AsyncClient s3AsyncClient;
+    private ScheduledThreadPoolExecutor timeoutTimer;
 
     @PostConstruct
     public void init() {
         s3Properties = properties.getS3();
+        timeoutTimer = new ScheduledThreadPoolExecutor(1, new TaskExecutor.NamedThreadFactory("bella-s3-upload-timeout-", true));
+        timeoutTimer.setRemoveOnCancelPolicy(true);
         if (isConfigured()) {
             try {
                 StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
@@ -58,6 +79,15 @@ public class S3Service {
                 }
 
                 s3Client = builder.build();
+
+                S3AsyncClientBuilder asyncBuilder = S3AsyncClient.builder()
+                    .region(Region.of(s3Properties.getRegion()))
+                    .credentialsProvider(credentialsProvider);
+                if(s3Properties.getEndpoint() != null && !s3Properties.getEndpoint().isBlank()) {
+                    asyncBuilder.endpointOverride(URI.create(s3Properties.getEndpoint()))
+                           .forcePathStyle(s3Properties.isPathStyleAccess());
+                }
+                s3AsyncClient = asyncBuilder.build();
                 log.info("S3Client initialized successfully with bucket: {}", s3Properties.getBucketName());
             } catch (Exception e) {
                 log.error("Failed to initialize S3Client", e);
@@ -69,10 +99,16 @@ public class S3Service {
 
     @PreDestroy
     public void cleanup() {
+        if (timeoutTimer != null) {
+            timeoutTimer.shutdownNow();
+        }
         if (s3Client != null) {
             s3Client.close();
             log.info("S3Client closed");
         }
+        if (s3AsyncClient != null) {
+            s3AsyncClient.close();
+        }
     }
 
     /**
@@ -169,6 +205,236 @@ public class S3Service {
         }
     }
 
+    /**
+     * 上传Base64编码的数据到S3
+     * 边解码边上传，内存中只保留正在上传的分片，不生成完整的解码字节数组
+     * 超时后取消进行中的请求（分片上传会被中止），不在后台继续上传
+     *
+     * @param base64 Base64字符串（可以是data URL等更长字符串中的一段）
+     * @param start Base64数据的起始位置
+     * @param end Base64数据的结束位置（不含）
+     * @param contentType 文件类型
+     * @param fileExtension 文件扩展名
+     * @return 文件的公共访问URL
+     */
+    public String uploadBase64(CharSequence base64, int start, int end, String contentType, String fileExtension) {
+        long contentLength = Base64Utils.decodedLength(base64, start, end);
+        long timeoutSeconds = s3Properties.getUpload().getTimeoutSeconds();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        Upload upload = new Upload();
+        // 写入请求体时调用线程会阻塞，由定时任务在超时后取消请求
+        ScheduledFuture<?> timeout = timeoutTimer.schedule(upload::abort, timeoutSeconds, TimeUnit.SECONDS);
+        try (InputStream inputStream = Base64Utils.decodingStream(base64, start, end)) {
+            return uploadFileAsync(inputStream, contentLength, contentType, fileExtension, upload)
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            upload.abort();
+            throw new RuntimeException("Interrupted while uploading file to S3", e);
+        } catch (TimeoutException e) {
+            upload.abort();
+            log.error("Upload to S3 timed out after {} seconds", timeoutSeconds);
+            throw new RuntimeException("Upload to S3 timed out after " + timeoutSeconds + " seconds", e);
+        } catch (Exception e) {
+            if (upload.aborted) {
+                log.error("Upload to S3 timed out after {} seconds", timeoutSeconds);
+                throw new RuntimeException("Upload to S3 timed out after " + timeoutSeconds + " seconds", e);
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to upload file to S3: {}", cause.getMessage(), cause);
+            throw new RuntimeException("Failed to upload file to S3: " + cause.getMessage(), cause);
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    public String uploadBase64(CharSequence base64, String contentType, String fileExtension) {
+        return uploadBase64(base64, 0, base64.length(), contentType, fileExtension);
+    }
+
+    /**
+     * 异步上传输入流到S3
+     * 调用线程只负责读取输入流，网络传输由异步客户端完成；未超过阈值时直接以流的方式写入请求体，不在内存中缓存整个文件；
+     * 超过阈值时使用分片上传，同时上传中的分片数受maxConcurrentParts限制，读取线程在达到上限时等待
+     *
+     * @param inputStream 输入流
+     * @param contentLength 内容长度
+     * @param contentType 文件类型
+     * @param fileExtension 文件扩展名
+     * @return 完成后返回文件的公共访问URL
+     */
+    public CompletableFuture<String> uploadFileAsync(InputStream inputStream, long contentLength, String contentType, String fileExtension) {
+        return uploadFileAsync(inputStream, contentLength, contentType, fileExtension, new Upload());
+    }
+
+    private CompletableFuture<String> uploadFileAsync(InputStream inputStream, long contentLength, String contentType, String fileExtension,
+            Upload upload) {
+        if (!isConfigured()) {
+            throw new RuntimeException("S3服务未配置。请设置以下环境变量：AWS_S3_BUCKET_NAME, AWS_S3_ACCESS_KEY, AWS_S3_SECRET_KEY");
+        }
+
+        if (s3AsyncClient == null) {
+            throw new RuntimeException("S3客户端初始化失败，请检查S3配置参数");
+        }
+
+        String fileName = generateFileName(fileExtension);
+        try {
+            if (contentLength <= s3Properties.getUpload().getMultipartThreshold()) {
+                return uploadStream(inputStream, contentLength, contentType, fileName, upload);
+            }
+            return uploadMultipart(inputStream, contentLength, contentType, fileName, upload);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 单次上传，调用线程按网络发送的进度读取输入流并写入请求体，读取完成后返回
+     */
+    private CompletableFuture<String> uploadStream(InputStream inputStream, long contentLength, String contentType, String fileName, Upload upload) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+            .bucket(s3Properties.getBucketName())
+            .key(fileName)
+            .contentType(contentType)
+            .contentLength(contentLength)
+            .build();
+        BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(contentLength);
+        CompletableFuture<PutObjectResponse> future = upload.track(s3AsyncClient.putObject(putObjectRequest, body));
+        upload.onAbort(body::cancel);
+        try {
+            body.writeInputStream(inputStream);
+        } catch (RuntimeException e) {
+            // 请求已失败时返回请求的异常
+            body.cancel();
+            return future.isCompletedExceptionally() ? future.thenApply(response -> generateFileUrl(fileName)) : CompletableFuture.failedFuture(e);
+        }
+        return future.thenApply(response -> {
+            log.info("File uploaded successfully: {} (ETag: {})", fileName, response.eTag());
+            return generateFileUrl(fileName);
+        });
+    }
+
+    private CompletableFuture<String> uploadMultipart(InputStream inputStream, long contentLength, String contentType, String fileName,
+            Upload upload) throws IOException {
+        String bucket = s3Properties.getBucketName();
+        String uploadId = s3AsyncClient.createMultipartUpload(b -> b.bucket(bucket).key(fileName).contentType(contentType))
+                .join().uploadId();
+        int partSize = Math.max(s3Properties.getUpload().getPartSize(), 5 * 1024 * 1024);
+        Semaphore permits = new Semaphore(Math.max(1, s3Properties.getUpload().getMaxConcurrentParts()));
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        try {
+            long remaining = contentLength;
+            int partNumber = 1;
+            while (remaining > 0 && !upload.aborted) {
+                permits.acquire();
+                int size = (int) Math.min(partSize, remaining);
+                byte[] data;
+                try {
+                    data = readFully(inputStream, size);
+                } catch (IOException e) {
+                    permits.release();
+                    throw e;
+                }
+                int number = partNumber++;
+                CompletableFuture<CompletedPart> part = upload.track(s3AsyncClient.uploadPart(
+                        b -> b.bucket(bucket).key(fileName).uploadId(uploadId).partNumber(number).contentLength((long) size),
+                        AsyncRequestBody.fromBytes(data)))
+                    .thenApply(response -> CompletedPart.builder().partNumber(number).eTag(response.eTag()).build())
+                    .whenComplete((r, e) -> permits.release());
+                parts.add(part);
+                remaining -= size;
+                if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipart(bucket, fileName, uploadId);
+            return CompletableFuture.failedFuture(e);
+        } catch (IOException e) {
+            abortMultipart(bucket, fileName, uploadId);
+            throw e;
+        }
+
+        if (upload.aborted) {
+            abortMultipart(bucket, fileName, uploadId);
+            return CompletableFuture.failedFuture(new IOException("upload aborted"));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+            .thenCompose(v -> {
+                List<CompletedPart> completedParts = parts.stream().map(CompletableFuture::join).toList();
+                return upload.track(s3AsyncClient.completeMultipartUpload(b -> b.bucket(bucket).key(fileName).uploadId(uploadId)
+                        .multipartUpload(m -> m.parts(completedParts))));
+            })
+            .thenApply(response -> {
+                log.info("File uploaded successfully: {} ({} parts, ETag: {})", fileName, parts.size(), response.eTag());
+                return generateFileUrl(fileName);
+            })
+            .whenComplete((url, e) -> {
+                if (e != null) {
+                    abortMultipart(bucket, fileName, uploadId);
+                }
+            });
+    }
+
+    private void abortMultipart(String bucket, String fileName, String uploadId) {
+        s3AsyncClient.abortMultipartUpload(b -> b.bucket(bucket).key(fileName).uploadId(uploadId))
+            .whenComplete((r, e) -> {
+                if (e != null) {
+                    log.warn("Failed to abort multipart upload {}: {}", uploadId, e.getMessage());
+                }
+            });
+    }
+
+    /**
+     * 一次上传中进行中的请求，中止时取消所有请求，请求取消后SDK关闭对应的连接
+     */
+    private static class Upload {
+        private final List<CompletableFuture<?>> requests = new CopyOnWriteArrayList<>();
+        private final List<Runnable> abortHooks = new CopyOnWriteArrayList<>();
+        private volatile boolean aborted;
+
+        private <T> CompletableFuture<T> track(CompletableFuture<T> request) {
+            requests.add(request);
+            if (aborted) {
+                request.cancel(true);
+            }
+            return request;
+        }
+
+        private void onAbort(Runnable hook) {
+            abortHooks.add(hook);
+            if (aborted) {
+                hook.run();
+            }
+        }
+
+        private void abort() {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            for (Runnable hook : abortHooks) {
+                try {
+                    hook.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to abort upload: {}", e.getMessage());
+                }
+            }
+            for (CompletableFuture<?> request : requests) {
+                request.cancel(true);
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream, int size) throws IOException {
+        byte[] data = inputStream.readNBytes(size);
+        if (data.length != size) {
+            throw new IOException("Unexpected end of stream, expected " + size + " bytes but got " + data.length);
+        }
+        return data;
+    }
+
     /**
      * 生成唯一的文件名
      */
@@ -1,28 +1,108 @@
 package com.ke.assistant.service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.Supplier;
 
+import javax.annotation.PostConstruct;
+
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
 import org.redisson.api.RReadWriteLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.util.concurrent.Striped;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ThreadLockProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 线程级别的分布式读写锁服务
  * - 单条消息插入使用读锁，允许并发执行
  * - 批量操作使用写锁，确保顺序性和原子性
+ * HIERARCHICAL模式下先获取进程内按threadId分段的读写锁，再获取Redis锁：
+ * 同一实例内同时持有某个thread读锁的请求组成一组，只有第一个请求访问Redis加读锁，最后一个请求释放；
+ * 写锁在本地独占后再获取Redis写锁，持有写锁的线程重入读锁或写锁时不再访问Redis
  */
 @Service
 @Slf4j
 public class ThreadLockService {
 
     private static final String THREAD_LOCK_KEY_PREFIX = "thread:message:lock:";
+
+    /**
+     * Redis锁的持有者ID，与真实线程ID区分开，本地读锁组内的请求可以在不同线程释放
+     */
+    private static final AtomicLong OWNER_IDS = new AtomicLong(Long.MIN_VALUE);
+
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private AssistantProperties assistantProperties;
+
+    @Autowired(required = false)
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ThreadLockProperties properties;
+    private boolean hierarchical;
+    private Striped<ReadWriteLock> localLocks;
+    private final ConcurrentHashMap<String, ReadGroup> readGroups = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, WriteGroup> writeGroups = new ConcurrentHashMap<>();
+    /**
+     * 按[写锁][是否成功]索引的等待时间
+     */
+    private Timer[][] waitTimers;
+    /**
+     * 按[写锁]索引的持有时间
+     */
+    private Timer[] holdTimers;
+    /**
+     * 按[写锁][是否访问Redis]索引的加锁次数
+     */
+    private Counter[][] acquireCounters;
+
+    @PostConstruct
+    public void init() {
+        this.properties = assistantProperties.getThreadLock();
+        this.hierarchical = properties.getMode() == ThreadLockProperties.Mode.HIERARCHICAL;
+        this.localLocks = Striped.readWriteLock(Math.max(1, properties.getStripes()));
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if(registry == null) {
+            return;
+        }
+        waitTimers = new Timer[2][2];
+        holdTimers = new Timer[2];
+        acquireCounters = new Counter[2][2];
+        for (int write = 0; write < 2; write++) {
+            String mode = write == 1 ? "write" : "read";
+            for (int result = 0; result < 2; result++) {
+                waitTimers[write][result] = Timer.builder("bella.thread.lock.wait")
+                        .tag("mode", mode)
+                        .tag("result", result == 1 ? "acquired" : "timeout")
+                        .register(registry);
+                acquireCounters[write][result] = Counter.builder("bella.thread.lock.acquire")
+                        .tag("mode", mode)
+                        .tag("tier", result == 1 ? "redis" : "local")
+                        .register(registry);
+            }
+            holdTimers[write] = Timer.builder("bella.thread.lock.hold").tag("mode", mode).register(registry);
+        }
+    }
+
     /**
      * 获取指定线程的读写锁
      */
@@ -36,7 +116,7 @@ public class ThreadLockService {
      * @param operation 要执行的操作
      */
     public void executeWithReadLock(String threadId, Runnable operation) {
-        executeWithReadLock(threadId, operation, 10, TimeUnit.SECONDS);
+        executeWithReadLock(threadId, operation, properties.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -46,7 +126,7 @@ public class ThreadLockService {
      * @return 操作结果
      */
     public <T> T executeWithReadLock(String threadId, Supplier<T> supplier) {
-        return executeWithReadLock(threadId, supplier, 10, TimeUnit.SECONDS);
+        return executeWithReadLock(threadId, supplier, properties.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -57,23 +137,10 @@ public class ThreadLockService {
      * @param timeUnit 时间单位
      */
     public void executeWithReadLock(String threadId, Runnable operation, long timeout, TimeUnit timeUnit) {
-        RReadWriteLock readWriteLock = getReadWriteLock(threadId);
-        try {
-            if (readWriteLock.readLock().tryLock(timeout, timeUnit)) {
-                try {
-                    log.debug("Acquired read lock for thread: {}", threadId);
-                    operation.run();
-                } finally {
-                    readWriteLock.readLock().unlock();
-                    log.debug("Released read lock for thread: {}", threadId);
-                }
-            } else {
-                throw new RuntimeException("Failed to acquire read lock for thread: " + threadId + " within " + timeout + " " + timeUnit);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while waiting for read lock for thread: " + threadId, e);
-        }
+        execute(threadId, false, () -> {
+            operation.run();
+            return null;
+        }, timeout, timeUnit);
     }
 
     /**
@@ -85,23 +152,7 @@ public class ThreadLockService {
      * @return 操作结果
      */
     public <T> T executeWithReadLock(String threadId, Supplier<T> supplier, long timeout, TimeUnit timeUnit) {
-        RReadWriteLock readWriteLock = getReadWriteLock(threadId);
-        try {
-            if (readWriteLock.readLock().tryLock(timeout, timeUnit)) {
-                try {
-                    log.debug("Acquired read lock for thread: {}", threadId);
-                    return supplier.get();
-                } finally {
-                    readWriteLock.readLock().unlock();
-                    log.debug("Released read lock for thread: {}", threadId);
-                }
-            } else {
-                throw new RuntimeException("Failed to acquire read lock for thread: " + threadId + " within " + timeout + " " + timeUnit);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while waiting for read lock for thread: " + threadId, e);
-        }
+        return execute(threadId, false, supplier, timeout, timeUnit);
     }
 
     /**
@@ -110,7 +161,7 @@ public class ThreadLockService {
      * @param operation 要执行的操作
      */
     public void executeWithWriteLock(String threadId, Runnable operation) {
-        executeWithWriteLock(threadId, operation, 10, TimeUnit.SECONDS);
+        executeWithWriteLock(threadId, operation, properties.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -120,7 +171,7 @@ public class ThreadLockService {
      * @return 操作结果
      */
     public <T> T executeWithWriteLock(String threadId, Supplier<T> supplier) {
-        return executeWithWriteLock(threadId, supplier, 10, TimeUnit.SECONDS);
+        return executeWithWriteLock(threadId, supplier, properties.getDefaultTimeoutMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -131,23 +182,10 @@ public class ThreadLockService {
      * @param timeUnit 时间单位
      */
     public void executeWithWriteLock(String threadId, Runnable operation, long timeout, TimeUnit timeUnit) {
-        RReadWriteLock readWriteLock = getReadWriteLock(threadId);
-        try {
-            if (readWriteLock.writeLock().tryLock(timeout, timeUnit)) {
-                try {
-                    log.debug("Acquired write lock for thread: {}", threadId);
-                    operation.run();
-                } finally {
-                    readWriteLock.writeLock().unlock();
-                    log.debug("Released write lock for thread: {}", threadId);
-                }
-            } else {
-                throw new RuntimeException("Failed to acquire write lock for thread: " + threadId + " within " + timeout + " " + timeUnit);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while waiting for write lock for thread: " + threadId, e);
-        }
+        execute(threadId, true, () -> {
+            operation.run();
+            return null;
+        }, timeout, timeUnit);
     }
 
     /**
@@ -159,22 +197,220 @@ public class ThreadLockService {
      * @return 操作结果
      */
     public <T> T executeWithWriteLock(String threadId, Supplier<T> supplier, long timeout, TimeUnit timeUnit) {
+        return execute(threadId, true, supplier, timeout, timeUnit);
+    }
+
+    private <T> T execute(String threadId, boolean write, Supplier<T> supplier, long timeout, TimeUnit timeUnit) {
+        String mode = write ? "write" : "read";
+        long start = System.nanoTime();
+        long deadline = start + timeUnit.toNanos(timeout);
+        Runnable release;
+        try {
+            release = hierarchical ? acquireHierarchical(threadId, write, deadline) : acquireRedis(threadId, write, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + mode + " lock for thread: " + threadId, e);
+        }
+        long acquired = System.nanoTime();
+        recordWait(write, release != null, acquired - start);
+        if(release == null) {
+            throw new RuntimeException("Failed to acquire " + mode + " lock for thread: " + threadId + " within " + timeout + " " + timeUnit);
+        }
+        try {
+            log.debug("Acquired {} lock for thread: {}", mode, threadId);
+            return supplier.get();
+        } finally {
+            release.run();
+            recordHold(write, System.nanoTime() - acquired);
+            log.debug("Released {} lock for thread: {}", mode, threadId);
+        }
+    }
+
+    /**
+     * 每次直接获取Redis锁
+     */
+    private Runnable acquireRedis(String threadId, boolean write, long deadline) throws InterruptedException {
         RReadWriteLock readWriteLock = getReadWriteLock(threadId);
+        RLock lock = write ? readWriteLock.writeLock() : readWriteLock.readLock();
+        if(!lock.tryLock(remaining(deadline), TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        recordAcquire(write, true);
+        return lock::unlock;
+    }
+
+    /**
+     * 先获取本地分段锁，再按需获取Redis锁
+     */
+    private Runnable acquireHierarchical(String threadId, boolean write, long deadline) throws InterruptedException {
+        ReadWriteLock local = localLocks.get(threadId);
+        Lock localLock = write ? local.writeLock() : local.readLock();
+        if(!localLock.tryLock(remaining(deadline), TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        Runnable release;
         try {
-            if (readWriteLock.writeLock().tryLock(timeout, timeUnit)) {
+            release = write ? joinWrite(threadId, deadline) : joinRead(threadId, deadline);
+        } catch (InterruptedException | RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+        if(release == null) {
+            localLock.unlock();
+            return null;
+        }
+        return () -> {
+            try {
+                release.run();
+            } finally {
+                localLock.unlock();
+            }
+        };
+    }
+
+    /**
+     * 调用方已持有本地写锁，同一thread的写锁组只可能属于当前线程
+     */
+    private Runnable joinWrite(String threadId, long deadline) throws InterruptedException {
+        WriteGroup held = writeGroups.get(threadId);
+        if(held != null && held.owner == Thread.currentThread()) {
+            held.holds++;
+            recordAcquire(true, false);
+            return () -> releaseWrite(threadId, held);
+        }
+        WriteGroup group = new WriteGroup(OWNER_IDS.getAndIncrement(), Thread.currentThread());
+        if(!tryLockRedis(getReadWriteLock(threadId).writeLock(), group.ownerId, deadline)) {
+            return null;
+        }
+        recordAcquire(true, true);
+        writeGroups.put(threadId, group);
+        return () -> releaseWrite(threadId, group);
+    }
+
+    private void releaseWrite(String threadId, WriteGroup group) {
+        if(--group.holds > 0) {
+            return;
+        }
+        writeGroups.remove(threadId, group);
+        unlockRedis(getReadWriteLock(threadId).writeLock(), group.ownerId);
+    }
+
+    /**
+     * 调用方已持有本地读锁，加入该thread的读锁组，组内第一个请求负责获取Redis读锁
+     */
+    private Runnable joinRead(String threadId, long deadline) throws InterruptedException {
+        WriteGroup writer = writeGroups.get(threadId);
+        if(writer != null && writer.owner == Thread.currentThread()) {
+            // 当前线程持有写锁，已独占Redis锁
+            recordAcquire(false, false);
+            return () -> {};
+        }
+        while (true) {
+            boolean[] leader = {false};
+            ReadGroup group = readGroups.compute(threadId, (key, current) -> {
+                if(current == null || current.failed()) {
+                    current = new ReadGroup(OWNER_IDS.getAndIncrement());
+                    leader[0] = true;
+                }
+                current.holders++;
+                return current;
+            });
+            boolean acquired;
+            if(leader[0]) {
                 try {
-                    log.debug("Acquired write lock for thread: {}", threadId);
-                    return supplier.get();
-                } finally {
-                    readWriteLock.writeLock().unlock();
-                    log.debug("Released write lock for thread: {}", threadId);
+                    acquired = tryLockRedis(getReadWriteLock(threadId).readLock(), group.ownerId, deadline);
+                } catch (InterruptedException | RuntimeException e) {
+                    group.acquired.complete(false);
+                    leaveRead(threadId, group);
+                    throw e;
                 }
+                group.acquired.complete(acquired);
             } else {
-                throw new RuntimeException("Failed to acquire write lock for thread: " + threadId + " within " + timeout + " " + timeUnit);
+                acquired = awaitGroup(group, deadline);
+            }
+            recordAcquire(false, leader[0]);
+            if(acquired) {
+                return () -> leaveRead(threadId, group);
+            }
+            leaveRead(threadId, group);
+            // 组长超时失败而本请求仍有剩余时间时，重新组建读锁组
+            if(leader[0] || remaining(deadline) <= 0) {
+                return null;
+            }
+        }
+    }
+
+    private boolean awaitGroup(ReadGroup group, long deadline) throws InterruptedException {
+        try {
+            return group.acquired.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void leaveRead(String threadId, ReadGroup group) {
+        boolean[] last = {false};
+        readGroups.compute(threadId, (key, current) -> {
+            if(--group.holders == 0) {
+                last[0] = true;
+                return current == group ? null : current;
             }
+            return current;
+        });
+        if(last[0] && Boolean.TRUE.equals(group.acquired.getNow(false))) {
+            unlockRedis(getReadWriteLock(threadId).readLock(), group.ownerId);
+        }
+    }
+
+    private boolean tryLockRedis(RLock lock, long ownerId, long deadline) throws InterruptedException {
+        RFuture<Boolean> future = lock.tryLockAsync(remaining(deadline), -1, TimeUnit.NANOSECONDS, ownerId);
+        try {
+            return Boolean.TRUE.equals(future.toCompletableFuture().get());
         } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted while waiting for write lock for thread: " + threadId, e);
+            // 中断后加锁请求可能仍然成功，成功时立即释放
+            future.whenComplete((locked, error) -> {
+                if(Boolean.TRUE.equals(locked)) {
+                    unlockRedis(lock, ownerId);
+                }
+            });
+            throw e;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to acquire redis lock: " + lock.getName(), e.getCause());
+        }
+    }
+
+    private void unlockRedis(RLock lock, long ownerId) {
+        try {
+            lock.unlockAsync(ownerId).toCompletableFuture().join();
+        } catch (RuntimeException e) {
+            log.warn("Failed to release redis lock: {}", lock.getName(), e);
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private void recordWait(boolean write, boolean acquired, long nanos) {
+        if(waitTimers != null) {
+            waitTimers[write ? 1 : 0][acquired ? 1 : 0].record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordHold(boolean write, long nanos) {
+        if(holdTimers != null) {
+            holdTimers[write ? 1 : 0].record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @param redis 本次加锁是否访问了Redis
+     */
+    private void recordAcquire(boolean write, boolean redis) {
+        if(acquireCounters != null) {
+            acquireCounters[write ? 1 : 0][redis ? 1 : 0].increment();
         }
     }
 
@@ -216,4 +452,35 @@ public class ThreadLockService {
     public boolean isLocked(String threadId) {
         return isReadLocked(threadId) || isWriteLocked(threadId);
     }
+
+    /**
+     * 本实例内共用同一把Redis读锁的请求组，holders只在readGroups.compute中修改
+     */
+    private static class ReadGroup {
+        final long ownerId;
+        final CompletableFuture<Boolean> acquired = new CompletableFuture<>();
+        int holders;
+
+        ReadGroup(long ownerId) {
+            this.ownerId = ownerId;
+        }
+
+        boolean failed() {
+            return acquired.isDone() && !Boolean.TRUE.equals(acquired.getNow(false));
+        }
+    }
+
+    /**
+     * 持有Redis写锁的线程及其重入次数，只在持有本地写锁时访问
+     */
+    private static class WriteGroup {
+        final long ownerId;
+        final Thread owner;
+        int holds = 1;
+
+        WriteGroup(long ownerId, Thread owner) {
+            this.ownerId = ownerId;
+            this.owner = owner;
+        }
+    }
 }
@@ -173,8 +173,8 @@ public class ThreadService {
     public boolean deleteThread(String id) {
         // 删除关联的文件
         threadFileRepo.deleteByThreadId(id);
-        // 删除关联的消息
-        messageRepo.deleteByThreadId(id);
+        // 删除关联的消息，长期记忆在事务提交后删除
+        messageService.deleteMessagesByThreadId(id);
         // 删除Thread本身
         return threadRepo.deleteById(id);
     }
@@ -264,10 +264,8 @@ public class ThreadService {
 
         List<MessageDb> messagesToCreate = buildMessageWithRunSteps(sourceThreadId, savedThread.getId(), sourceMessages);
 
-        // Create all messages in order
-        for (MessageDb message : messagesToCreate) {
-            messageService.createMessage(message);
-        }
+        // Create all messages in order with bulk inserts
+        messageService.createMessages(messagesToCreate);
 
         return convertToInfo(savedThread);
     }
@@ -456,14 +454,14 @@ public class ThreadService {
      */
     @Transactional
     public void copyMessagesFromThread(String fromThreadId, String toThreadId) {
+        // 源消息的读取和复制不涉及目标thread，在加锁前完成，写锁只覆盖批量插入
+        List<MessageDb> newMessages = new ArrayList<>();
+        for (MessageDb sourceMessage : messageService.getMessageDbsByThreadId(fromThreadId)) {
+            // 使用MessageUtils复制消息
+            newMessages.add(MessageUtils.copyMessageToThread(sourceMessage, toThreadId));
+        }
         threadLockService.executeWithWriteLock(toThreadId, () -> {
-            List<MessageDb> sourceMessages = messageService.getMessageDbsByThreadId(fromThreadId);
-
-            for (MessageDb sourceMessage : sourceMessages) {
-                // 使用MessageUtils复制消息
-                MessageDb newMessage = MessageUtils.copyMessageToThread(sourceMessage, toThreadId);
-                messageService.createMessage(newMessage);
-            }
+            messageService.createMessages(newMessages);
         });
     }
 
@@ -472,22 +470,23 @@ public class ThreadService {
      */
     @Transactional
     public void mergeMessagesFromThread(String fromThreadId, String toThreadId) {
+        List<MessageDb> fromMessages = messageService.getMessageDbsByThreadId(fromThreadId);
         threadLockService.executeWithWriteLock(toThreadId, () -> {
-            List<MessageDb> fromMessages = messageService.getMessageDbsByThreadId(fromThreadId);
             List<MessageDb> toMessages = messageService.getMessageDbsByThreadId(toThreadId);
 
             // 使用MessageUtils获取目标线程中已存在的源消息ID
             Set<String> existingSourceIds = MessageUtils.getExistingSourceIds(toMessages);
 
             // 只复制不重复的消息
+            List<MessageDb> newMessages = new ArrayList<>();
             for (MessageDb fromMessage : fromMessages) {
                 // 使用MessageUtils检查消息是否已存在
                 if (!MessageUtils.isMessageExists(fromMessage, existingSourceIds)) {
                     // 使用MessageUtils复制消息
-                    MessageDb newMessage = MessageUtils.copyMessageToThread(fromMessage, toThreadId);
-                    messageService.createMessage(newMessage);
+                    newMessages.add(MessageUtils.copyMessageToThread(fromMessage, toThreadId));
                 }
             }
+            messageService.createMessages(newMessages);
         });
     }
 
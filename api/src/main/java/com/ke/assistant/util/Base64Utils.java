@@ -0,0 +1,77 @@
+package com.ke.assistant.util;
+
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * Base64 流式解码工具
+ * 直接在原始字符串的指定区间上解码，不截取子串、不生成完整的解码字节数组
+ */
+public class Base64Utils {
+
+    /**
+     * 计算解码后的字节数（标准Base64，允许省略padding）
+     */
+    public static long decodedLength(CharSequence source, int start, int end) {
+        int padding = 0;
+        while (end - padding > start && padding < 2 && source.charAt(end - padding - 1) == '=') {
+            padding++;
+        }
+        return (long) (end - start - padding) * 3 / 4;
+    }
+
+    public static long decodedLength(CharSequence source) {
+        return decodedLength(source, 0, source.length());
+    }
+
+    /**
+     * 返回解码输入流，读取时按需解码
+     */
+    public static InputStream decodingStream(CharSequence source, int start, int end) {
+        return Base64.getDecoder().wrap(new CharSequenceInputStream(source, start, end));
+    }
+
+    public static InputStream decodingStream(CharSequence source) {
+        return decodingStream(source, 0, source.length());
+    }
+
+    /**
+     * 以ASCII字节读取字符序列的区间
+     */
+    private static class CharSequenceInputStream extends InputStream {
+        private final CharSequence source;
+        private final int end;
+        private int position;
+
+        CharSequenceInputStream(CharSequence source, int start, int end) {
+            this.source = source;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            return position < end ? source.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0) {
+                return 0;
+            }
+            if(position >= end) {
+                return -1;
+            }
+            int count = Math.min(len, end - position);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) source.charAt(position++);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return end - position;
+        }
+    }
+}
@@ -14,10 +14,10 @@ import java.util.stream.Collectors;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.ke.assistant.core.file.FileInfo;
+import com.ke.assistant.core.plan.template.PromptTemplateEngine;
 import com.ke.assistant.db.generated.tables.pojos.MessageDb;
 import com.ke.bella.openapi.common.exception.BizParamCheckException;
 import com.ke.bella.openapi.utils.JacksonUtils;
-import com.ke.bella.openapi.utils.Renders;
 import com.ke.bella.openapi.utils.TokenCounter;
 import com.knuddels.jtokkit.api.EncodingType;
 import com.theokanning.openai.assistants.assistant.FileSearchRankingOptions;
@@ -193,7 +193,8 @@ public class MessageUtils {
     /**
      * 格式化消息内容，将存储格式转换为用于chat completion的Content格式
      */
-    public static Object formatChatCompletionContent(List<MessageContent> contents, String role, List<Attachment> attachments, Map<String, FileInfo> fileInfoMap, boolean supportVision) {
+    public static Object formatChatCompletionContent(String messageId, List<MessageContent> contents, String role, List<Attachment> attachments,
+            Map<String, FileInfo> fileInfoMap, boolean supportVision, PromptTemplateEngine templates) {
 
         if(contents == null || contents.isEmpty()) {
             return "";
@@ -208,9 +209,7 @@ public class MessageUtils {
                 }
             });
             if(!fileInfos.isEmpty()) {
-                Map<String, Object> filesMap = new HashMap<>();
-                filesMap.put("files", fileInfos);
-                attachInfo = Renders.render("templates/attachments.pebble", filesMap);
+                attachInfo = templates.renderAttachments(messageId, fileInfos);
             }
         }
 
@@ -222,7 +221,8 @@ public class MessageUtils {
 
         List<MultiMediaContent> result = new ArrayList<>();
 
-        for(MessageContent content : contents) {
+        for(int i = 0; i < contents.size(); i++) {
+            MessageContent content = contents.get(i);
             if("text".equals(content.getType())) {
                 MultiMediaContent mmContent = new MultiMediaContent();
                 mmContent.setType("text");
@@ -253,9 +253,7 @@ public class MessageUtils {
                 // 将音频元数据格式化为文本，作为text传递给模型
                 AudioData audio = content.getAudioData();
                 if (audio != null) {
-                    Map<String, Object> audioMap = new HashMap<>();
-                    audioMap.put("audio", audio);
-                    String audioInfo = Renders.render("templates/audio_transcription.pebble", audioMap);
+                    String audioInfo = templates.renderAudio(messageId, i, audio);
 
                     MultiMediaContent mmContent = new MultiMediaContent();
                     mmContent.setType("text");
@@ -271,13 +269,14 @@ public class MessageUtils {
     /**
      * 格式化消息，将内容转换为用于chat completion的Message
      */
-    public static ChatMessage formatChatCompletionMessage(Message messageInfo, Map<String, FileInfo> fileInfoMap, boolean supportVision) {
+    public static ChatMessage formatChatCompletionMessage(Message messageInfo, Map<String, FileInfo> fileInfoMap, boolean supportVision, PromptTemplateEngine templates) {
 
         if (messageInfo == null || messageInfo.getRole() == null) {
             return null;
         }
         
-        Object content = formatChatCompletionContent(messageInfo.getContent(), messageInfo.getRole(), messageInfo.getAttachments(), fileInfoMap, supportVision);
+        Object content = formatChatCompletionContent(messageInfo.getId(), messageInfo.getContent(), messageInfo.getRole(), messageInfo.getAttachments(),
+                fileInfoMap, supportVision, templates);
 
         switch (messageInfo.getRole()) {
         case "system":
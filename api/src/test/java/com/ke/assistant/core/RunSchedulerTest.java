@@ -0,0 +1,204 @@
+package com.ke.assistant.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * run调度测试
+ * 通过合成负载验证租户间公平、交互式优先、租户并发上限（默认不限制）和排队上限
+ */
+public class RunSchedulerTest {
+
+    private AssistantProperties properties;
+    private RunScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        properties.getRunScheduler().setMaxRunning(1);
+        scheduler = new RunScheduler();
+        ReflectionTestUtils.setField(scheduler, "assistantProperties", properties);
+        scheduler.init();
+    }
+
+    @Test
+    public void testHeavyTenantDoesNotStarveOthers() throws Exception {
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        CountDownLatch blocker = workload.block();
+        workload.burst("heavy", RunScheduler.Priority.BACKGROUND, 50, 0);
+        workload.burst("light", RunScheduler.Priority.BACKGROUND, 3, 0);
+        blocker.countDown();
+        workload.await(53);
+
+        // 两个租户交替执行，light的run不需要等heavy的50个run执行完
+        List<String> order = workload.order();
+        assertEquals(3, order.subList(0, 6).stream().filter("light"::equals).count());
+    }
+
+    @Test
+    public void testTenantWeight() throws Exception {
+        properties.getRunScheduler().getTenantWeights().put("vip", 3);
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        CountDownLatch blocker = workload.block();
+        workload.burst("vip", RunScheduler.Priority.BACKGROUND, 30, 0);
+        workload.burst("normal", RunScheduler.Priority.BACKGROUND, 30, 0);
+        blocker.countDown();
+        workload.await(60);
+
+        long vip = workload.order().subList(0, 20).stream().filter("vip"::equals).count();
+        assertEquals(15, vip);
+    }
+
+    @Test
+    public void testInteractiveBeforeBackground() throws Exception {
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        CountDownLatch blocker = workload.block();
+        workload.burst("batch", RunScheduler.Priority.BACKGROUND, 30, 0);
+        workload.burst("chat", RunScheduler.Priority.INTERACTIVE, 9, 0);
+        blocker.countDown();
+        workload.await(39);
+
+        // 交互式与后台按9:1分配，后台run也不会被饿死
+        List<String> first = workload.order().subList(0, 10);
+        assertEquals(9, first.stream().filter("chat"::equals).count());
+        assertEquals(1, first.stream().filter("batch"::equals).count());
+        assertTrue(workload.maxWaitMillis(RunScheduler.Priority.INTERACTIVE) <= workload.maxWaitMillis(RunScheduler.Priority.BACKGROUND));
+    }
+
+    @Test
+    public void testTenantConcurrencyCap() throws Exception {
+        properties.getRunScheduler().setMaxRunning(10);
+        properties.getRunScheduler().setMaxRunningPerTenant(2);
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        workload.burst("a", RunScheduler.Priority.INTERACTIVE, 10, 50);
+        workload.burst("b", RunScheduler.Priority.INTERACTIVE, 10, 50);
+        workload.await(20);
+
+        assertEquals(2, workload.maxConcurrency("a"));
+        assertEquals(2, workload.maxConcurrency("b"));
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    public void testTenantUnlimitedByDefault() throws Exception {
+        assertEquals(0, properties.getRunScheduler().getMaxRunningPerTenant());
+        properties.getRunScheduler().setMaxRunning(10);
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        workload.burst("a", RunScheduler.Priority.INTERACTIVE, 10, 200);
+        workload.await(10);
+
+        // 未设置租户上限时单个租户可以使用全部名额
+        assertEquals(10, workload.maxConcurrency("a"));
+    }
+
+    @Test
+    public void testRejectWhenQueueFull() throws Exception {
+        properties.getRunScheduler().setMaxQueued(5);
+        SyntheticWorkload workload = new SyntheticWorkload(scheduler);
+        CountDownLatch blocker = workload.block();
+        assertEquals(5, workload.burst("a", RunScheduler.Priority.BACKGROUND, 8, 0));
+        assertEquals(5, scheduler.getQueued(RunScheduler.Priority.BACKGROUND));
+        blocker.countDown();
+        workload.await(5);
+    }
+
+    /**
+     * 合成负载：按租户和优先级批量提交run，记录执行顺序、排队时间和每个租户的最大并发
+     */
+    private static class SyntheticWorkload {
+        private final RunScheduler scheduler;
+        private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        private final Map<RunScheduler.Priority, Long> maxWait = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        private final Map<String, Integer> maxConcurrency = new ConcurrentHashMap<>();
+        private final AtomicInteger completed = new AtomicInteger();
+
+        private SyntheticWorkload(RunScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * 提交一个阻塞的run占住名额，使后续的run全部进入排队
+         */
+        private CountDownLatch block() throws InterruptedException {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            scheduler.submit("blocker", RunScheduler.Priority.INTERACTIVE, () -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            return release;
+        }
+
+        /**
+         * @return 被接收的run数
+         */
+        private int burst(String tenant, RunScheduler.Priority priority, int count, long workMillis) {
+            int accepted = 0;
+            for (int i = 0; i < count; i++) {
+                long submitNanos = System.nanoTime();
+                boolean ok = scheduler.submit(tenant, priority, () -> {
+                    maxWait.merge(priority, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitNanos), Math::max);
+                    order.add(tenant);
+                    int current = running.computeIfAbsent(tenant, k -> new AtomicInteger()).incrementAndGet();
+                    maxConcurrency.merge(tenant, current, Math::max);
+                    try {
+                        Thread.sleep(workMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.get(tenant).decrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                });
+                if(ok) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        }
+
+        private void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (completed.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, completed.get());
+            // 完成计数在释放名额之前，等待调度器释放
+            while (scheduler.getRunning() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        private List<String> order() {
+            return new ArrayList<>(order);
+        }
+
+        private long maxWaitMillis(RunScheduler.Priority priority) {
+            return maxWait.getOrDefault(priority, 0L);
+        }
+
+        private int maxConcurrency(String tenant) {
+            return maxConcurrency.getOrDefault(tenant, 0);
+        }
+    }
+}
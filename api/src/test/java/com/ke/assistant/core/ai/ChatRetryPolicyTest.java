@@ -0,0 +1,120 @@
+package com.ke.assistant.core.ai;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.theokanning.openai.OpenAiHttpException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LLM重试策略测试
+ * 验证重试预算的消耗与补充、对冲消耗预算、退避时间范围、Retry-After解析和对冲阈值
+ */
+public class ChatRetryPolicyTest {
+
+    private AssistantProperties properties;
+    private ChatRetryPolicy policy;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        policy = new ChatRetryPolicy();
+        ReflectionTestUtils.setField(policy, "assistantProperties", properties);
+        policy.init();
+    }
+
+    @Test
+    public void testBudgetThrottlesAndRecovers() {
+        RetryBudget budget = new RetryBudget(10, 0.5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.allowRetry());
+            budget.recordFailure();
+        }
+        assertFalse(budget.allowRetry());
+        budget.recordSuccess();
+        assertTrue(budget.allowRetry());
+        for (int i = 0; i < 100; i++) {
+            budget.recordSuccess();
+        }
+        assertEquals(10.0, budget.getTokens());
+        // 同一模型共享预算
+        assertSame(policy.budget("gpt-4o"), policy.budget("gpt-4o"));
+    }
+
+    @Test
+    public void testHedgeConsumesBudget() {
+        RetryBudget budget = new RetryBudget(10, 0.5);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(budget.tryAcquire());
+        }
+        assertEquals(6.0, budget.getTokens());
+        assertTrue(budget.tryAcquire());
+        // 令牌不超过上限的一半后不再对冲，也不再消耗
+        assertFalse(budget.tryAcquire());
+        assertFalse(budget.allowRetry());
+        assertEquals(5.0, budget.getTokens());
+    }
+
+    @Test
+    public void testBackoffWithinBounds() {
+        properties.getChatRetry().setBackoffBaseMillis(100);
+        properties.getChatRetry().setBackoffMaxMillis(1000);
+        RuntimeException error = new RuntimeException("connection reset");
+        for (int i = 0; i < 50; i++) {
+            assertTrue(policy.retryDelayMillis(1, error) <= 100);
+            assertTrue(policy.retryDelayMillis(3, error) <= 400);
+            long delay = policy.retryDelayMillis(30, error);
+            assertTrue(delay >= 0 && delay <= 1000);
+        }
+    }
+
+    @Test
+    public void testRetryable() {
+        assertTrue(policy.isRetryable(new OpenAiHttpException("rate limited", null, 429)));
+        assertTrue(policy.isRetryable(new OpenAiHttpException("bad gateway", null, 502)));
+        assertFalse(policy.isRetryable(new OpenAiHttpException("bad request", null, 400)));
+        assertFalse(policy.isRetryable(new OpenAiHttpException("unavailable", null, 503)));
+        assertTrue(policy.isRetryable(new RuntimeException("connection reset")));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(3000, ChatRetryPolicy.parseRetryAfter("3"));
+        assertEquals(0, ChatRetryPolicy.parseRetryAfter(null));
+        assertEquals(0, ChatRetryPolicy.parseRetryAfter("soon"));
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        long millis = ChatRetryPolicy.parseRetryAfter(date);
+        assertTrue(millis > 8000 && millis <= 10000);
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(10));
+        assertEquals(0, ChatRetryPolicy.parseRetryAfter(past));
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        properties.getChatRetry().getHedge().setEnabled(true);
+        properties.getChatRetry().getHedge().setMinSamples(10);
+        properties.getChatRetry().getHedge().setMinDelayMillis(100);
+        properties.getChatRetry().getHedge().setMaxDelayMillis(5000);
+        for (int i = 1; i <= 9; i++) {
+            policy.recordFirstToken("gpt-4o", i * 100);
+        }
+        // 样本不足
+        assertEquals(-1, policy.hedgeDelayMillis("gpt-4o"));
+        policy.recordFirstToken("gpt-4o", 1000);
+        assertEquals(1000, policy.hedgeDelayMillis("gpt-4o"));
+        for (int i = 0; i < 10; i++) {
+            policy.recordFirstToken("slow-model", 60000);
+        }
+        assertEquals(5000, policy.hedgeDelayMillis("slow-model"));
+
+        properties.getChatRetry().getHedge().setEnabled(false);
+        assertEquals(-1, policy.hedgeDelayMillis("gpt-4o"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ke.assistant.core.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RingBuffer 测试类
+ * 验证容量、满时拒绝写入、按顺序批量取出以及多生产者写入不丢失
+ */
+public class RingBufferTest {
+
+    @Test
+    public void testRejectWhenFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        // 取出后槽位可以复用
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducers() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 5000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        List<Integer> drained = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.currentTimeMillis() + 10000;
+        while (drained.size() < producers * perProducer && System.currentTimeMillis() < deadline) {
+            buffer.drain(drained::add, 256);
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, drained.size());
+        assertEquals(producers * perProducer, drained.stream().distinct().count());
+    }
+}
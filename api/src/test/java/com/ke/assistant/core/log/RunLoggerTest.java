@@ -0,0 +1,85 @@
+package com.ke.assistant.core.log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.RunLogProperties;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RunLogger 测试类
+ * 验证异步模式下的溢出策略，以及关闭时输出缓冲区中剩余的日志
+ */
+public class RunLoggerTest {
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Logger logger;
+
+    @BeforeEach
+    public void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(RunLogger.class);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    private RunLogger runLogger(int bufferSize, RunLogProperties.OverflowPolicy policy) {
+        AssistantProperties properties = new AssistantProperties();
+        properties.getRunLog().setBufferSize(bufferSize);
+        properties.getRunLog().setOverflowPolicy(policy);
+        properties.getRunLog().setBlockTimeoutMillis(5000);
+        RunLogger runLogger = new RunLogger();
+        ReflectionTestUtils.setField(runLogger, "assistantProperties", properties);
+        ReflectionTestUtils.setField(runLogger, "meterRegistryProvider", new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        runLogger.init();
+        return runLogger;
+    }
+
+    private long written() {
+        return appender.list.stream().filter(e -> e.getFormattedMessage().contains("\"event\"")).count();
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        RunLogger runLogger = runLogger(2, RunLogProperties.OverflowPolicy.DROP);
+        int total = 2000;
+        for (int i = 0; i < total; i++) {
+            runLogger.log("test", new HashMap<>(), Map.of("index", i));
+        }
+        runLogger.shutdown();
+
+        // 未被丢弃的日志在关闭前全部输出
+        assertEquals(total, written() + runLogger.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockDoesNotDrop() {
+        RunLogger runLogger = runLogger(2, RunLogProperties.OverflowPolicy.BLOCK);
+        int total = 500;
+        for (int i = 0; i < total; i++) {
+            runLogger.log("test", new HashMap<>(), Map.of("index", i));
+        }
+        runLogger.shutdown();
+
+        assertEquals(0, runLogger.getDroppedCount());
+        assertEquals(total, written());
+    }
+}
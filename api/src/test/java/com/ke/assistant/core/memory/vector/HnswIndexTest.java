@@ -0,0 +1,102 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HnswIndex 测试类
+ * 与暴力搜索对比召回率，并验证重复写入和维度校验
+ */
+public class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    public void testRecallAgainstBruteForce() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100, 42);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            assertTrue(index.add("v" + i, vector));
+        }
+        assertEquals(2000, index.size());
+
+        int k = 10;
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> cosine(query, vectors.get(i))).reversed())
+                    .limit(k)
+                    .map(i -> "v" + i)
+                    .collect(Collectors.toSet());
+            List<HnswIndex.SearchResult> results = index.search(query, k, 64);
+            assertEquals(k, results.size());
+            for (int i = 1; i < results.size(); i++) {
+                assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+            }
+            for (HnswIndex.SearchResult result : results) {
+                if(expected.contains(result.getKey())) {
+                    hits++;
+                }
+            }
+        }
+        double recall = hits / (double) (queries * k);
+        assertTrue(recall >= 0.9, "recall " + recall);
+    }
+
+    @Test
+    public void testExactMatchAndDuplicates() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 42);
+        float[] target = randomVector(random);
+        for (int i = 0; i < 100; i++) {
+            index.add("v" + i, randomVector(random));
+        }
+        assertTrue(index.add("target", target));
+        assertFalse(index.add("target", randomVector(random)));
+
+        List<HnswIndex.SearchResult> results = index.search(target, 1, 32);
+        assertEquals("target", results.get(0).getKey());
+        assertEquals(1.0, results.get(0).getScore(), 1e-5);
+    }
+
+    @Test
+    public void testEmptyIndexAndDimensionMismatch() {
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 42);
+        assertTrue(index.search(new float[DIMENSION], 5, 16).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.add("bad", new float[DIMENSION + 1]));
+        assertFalse(index.contains("bad"));
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,177 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VectorMemoryPartition 测试类
+ * 使用本地确定性向量化实现，验证相关消息召回、日志重建索引、删除、修改后替换、不完整日志截断以及向量化服务变化后的丢弃
+ */
+public class VectorMemoryPartitionTest {
+
+    private final EmbeddingProvider embedding = new HashingEmbeddingProvider(256);
+    private Path dir;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("memory-test");
+        file = dir.resolve("ab").resolve("thread.mem");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRecallRelevantMessage() {
+        VectorMemoryPartition partition = open(embedding.name());
+        add(partition, "msg_1", "user", "我下周要去杭州出差，帮我订一家西湖附近的酒店");
+        add(partition, "msg_2", "assistant", "Python的列表推导式可以让代码更简洁");
+        add(partition, "msg_3", "user", "今天晚饭想吃番茄炒蛋");
+
+        List<VectorMemoryPartition.ScoredEntry> results = partition.search(vector("杭州西湖附近的酒店"), 2, 16, 0);
+        assertEquals("msg_1", results.get(0).getEntry().getMessageId());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+
+        // 低于阈值的结果被过滤
+        assertTrue(partition.search(vector("完全无关的内容xyz"), 3, 16, 0.9).isEmpty());
+        partition.close();
+    }
+
+    @Test
+    public void testReloadFromLog() {
+        VectorMemoryPartition partition = open(embedding.name());
+        for (int i = 0; i < 50; i++) {
+            add(partition, "msg_" + i, "user", "第" + i + "条消息，主题编号" + i);
+        }
+        assertFalse(partition.add(entry("msg_0", "user", "第0条消息，主题编号0"), vector("第0条消息，主题编号0")));
+        partition.close();
+
+        VectorMemoryPartition reopened = open(embedding.name());
+        assertEquals(50, reopened.size());
+        List<VectorMemoryPartition.ScoredEntry> results = reopened.search(vector("第17条消息，主题编号17"), 1, 32, 0);
+        assertEquals("msg_17", results.get(0).getEntry().getMessageId());
+        assertEquals("第17条消息，主题编号17", results.get(0).getEntry().getText());
+
+        // 重新打开后继续追加
+        add(reopened, "msg_new", "assistant", "新追加的消息");
+        reopened.close();
+        assertEquals(51, open(embedding.name()).size());
+    }
+
+    @Test
+    public void testRemove() {
+        VectorMemoryPartition partition = open(embedding.name());
+        add(partition, "msg_1", "user", "我下周要去杭州出差，帮我订一家西湖附近的酒店");
+        add(partition, "msg_2", "user", "杭州西湖附近有哪些好吃的餐厅");
+        add(partition, "msg_3", "user", "今天晚饭想吃番茄炒蛋");
+
+        assertTrue(partition.remove("msg_1"));
+        assertFalse(partition.remove("msg_1"));
+        assertEquals(2, partition.size());
+        List<VectorMemoryPartition.ScoredEntry> results = partition.search(vector("杭州西湖附近的酒店"), 1, 16, 0);
+        assertEquals(1, results.size());
+        assertEquals("msg_2", results.get(0).getEntry().getMessageId());
+
+        // 删除先于索引到达时，之后的写入被忽略
+        assertTrue(partition.remove("msg_4"));
+        assertFalse(partition.add(entry("msg_4", "user", "延迟索引的消息"), vector("延迟索引的消息")));
+        partition.close();
+
+        // 删除记录在重建索引时生效
+        VectorMemoryPartition reopened = open(embedding.name());
+        assertEquals(2, reopened.size());
+        assertFalse(reopened.contains("msg_1"));
+        assertFalse(reopened.add(entry("msg_4", "user", "延迟索引的消息"), vector("延迟索引的消息")));
+        assertEquals("msg_2", reopened.search(vector("杭州西湖附近的酒店"), 1, 16, 0).get(0).getEntry().getMessageId());
+        reopened.close();
+    }
+
+    @Test
+    public void testReplaceEditedMessage() {
+        VectorMemoryPartition partition = open(embedding.name());
+        add(partition, "msg_1", "user", "我下周要去杭州出差，帮我订一家西湖附近的酒店");
+        add(partition, "msg_2", "user", "今天晚饭想吃番茄炒蛋");
+        assertTrue(partition.isIndexed("msg_1", "我下周要去杭州出差，帮我订一家西湖附近的酒店"));
+
+        add(partition, "msg_1", "user", "我下周要去成都出差，帮我订一家春熙路附近的酒店");
+        assertFalse(partition.isIndexed("msg_1", "我下周要去杭州出差，帮我订一家西湖附近的酒店"));
+        assertEquals(2, partition.size());
+        List<VectorMemoryPartition.ScoredEntry> results = partition.search(vector("成都春熙路附近的酒店"), 2, 16, 0);
+        assertEquals("msg_1", results.get(0).getEntry().getMessageId());
+        assertEquals("我下周要去成都出差，帮我订一家春熙路附近的酒店", results.get(0).getEntry().getText());
+        // 旧内容的节点不再出现在结果中
+        assertEquals(2, partition.search(vector("杭州西湖附近的酒店"), 3, 16, 0).size());
+        partition.close();
+
+        // 重建索引时以最后一条记录为准
+        VectorMemoryPartition reopened = open(embedding.name());
+        assertEquals(2, reopened.size());
+        assertTrue(reopened.isIndexed("msg_1", "我下周要去成都出差，帮我订一家春熙路附近的酒店"));
+        add(reopened, "msg_1", "user", "第三次修改");
+        assertTrue(reopened.remove("msg_1"));
+        assertFalse(reopened.add(entry("msg_1", "user", "删除后的修改"), vector("删除后的修改")));
+        reopened.close();
+        assertEquals(1, open(embedding.name()).size());
+    }
+
+    @Test
+    public void testTruncateBrokenTail() throws IOException {
+        VectorMemoryPartition partition = open(embedding.name());
+        add(partition, "msg_1", "user", "第一条");
+        add(partition, "msg_2", "user", "第二条");
+        partition.close();
+        long size = Files.size(file);
+        // 模拟写入中途宕机
+        Files.write(file, new byte[] { 0, 0, 0, 5, 'm' }, StandardOpenOption.APPEND);
+
+        VectorMemoryPartition reopened = open(embedding.name());
+        assertEquals(2, reopened.size());
+        assertEquals(size, Files.size(file));
+        add(reopened, "msg_3", "user", "第三条");
+        reopened.close();
+        assertEquals(3, open(embedding.name()).size());
+    }
+
+    @Test
+    public void testDiscardWhenEmbeddingChanged() {
+        VectorMemoryPartition partition = open(embedding.name());
+        add(partition, "msg_1", "user", "第一条");
+        partition.close();
+
+        VectorMemoryPartition reopened = open("another-model");
+        assertEquals(0, reopened.size());
+        assertFalse(Files.exists(file));
+    }
+
+    private VectorMemoryPartition open(String embeddingName) {
+        return new VectorMemoryPartition(file, embeddingName, 8, 50);
+    }
+
+    private void add(VectorMemoryPartition partition, String id, String role, String text) {
+        assertTrue(partition.add(entry(id, role, text), vector(text)));
+    }
+
+    private static VectorMemoryPartition.MemoryEntry entry(String id, String role, String text) {
+        return new VectorMemoryPartition.MemoryEntry(id, role, text, System.currentTimeMillis() / 1000);
+    }
+
+    private float[] vector(String text) {
+        return embedding.embed(List.of(text)).get(0);
+    }
+}
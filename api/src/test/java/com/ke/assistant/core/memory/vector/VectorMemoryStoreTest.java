@@ -0,0 +1,149 @@
+package com.ke.assistant.core.memory.vector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.theokanning.openai.assistants.message.Message;
+import com.theokanning.openai.assistants.message.MessageContent;
+import com.theokanning.openai.assistants.message.content.Text;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VectorMemoryStore 测试类
+ * 验证内容未变化时不重新向量化、修改后替换旧记忆，以及同一消息先后两次修改的索引任务乱序完成时保留较晚的内容
+ */
+public class VectorMemoryStoreTest {
+
+    private static final String THREAD_ID = "thread_1";
+
+    private Path dir;
+    private CountingEmbeddingProvider embedding;
+    private VectorMemoryStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("memory-store-test");
+        AssistantProperties properties = new AssistantProperties();
+        properties.getLongMemory().setEnabled(true);
+        properties.getLongMemory().setDataDir(dir.toString());
+        properties.getLongMemory().setIndexThreads(2);
+        embedding = new CountingEmbeddingProvider();
+        store = new VectorMemoryStore();
+        ReflectionTestUtils.setField(store, "assistantProperties", properties);
+        ReflectionTestUtils.setField(store, "embeddingProvider", embedding);
+        store.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.destroy();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testReindexEditedMessage() {
+        assertTrue(store.index(THREAD_ID, entry("msg_1", "我下周要去杭州出差")));
+        assertFalse(store.index(THREAD_ID, entry("msg_1", "我下周要去杭州出差")));
+        assertEquals(1, embedding.calls.get());
+
+        assertTrue(store.index(THREAD_ID, entry("msg_1", "我下周要去成都出差")));
+        assertEquals(2, embedding.calls.get());
+
+        List<VectorMemoryPartition.ScoredEntry> results = store.search(THREAD_ID, "成都出差", 3, 0);
+        assertEquals(1, results.size());
+        assertEquals("我下周要去成都出差", results.get(0).getEntry().getText());
+    }
+
+    @Test
+    public void testLaterEditWins() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        embedding.block("第一次修改", release);
+
+        store.indexMessage(THREAD_ID, message("msg_1", "第一次修改"));
+        assertTrue(embedding.blocked.await(5, TimeUnit.SECONDS));
+        store.indexMessage(THREAD_ID, message("msg_1", "第二次修改"));
+        awaitSearch("第二次修改");
+
+        // 较早的任务完成向量化后发现已有更晚的修改，不再写入
+        release.countDown();
+        store.destroy();
+        List<VectorMemoryPartition.ScoredEntry> results = store.search(THREAD_ID, "修改", 3, 0);
+        assertEquals(1, results.size());
+        assertEquals("第二次修改", results.get(0).getEntry().getText());
+    }
+
+    private void awaitSearch(String text) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (store.search(THREAD_ID, text, 1, 0).stream().noneMatch(result -> text.equals(result.getEntry().getText()))) {
+            assertTrue(System.currentTimeMillis() < deadline, "message not indexed: " + text);
+            Thread.sleep(10);
+        }
+    }
+
+    private static VectorMemoryPartition.MemoryEntry entry(String id, String text) {
+        return new VectorMemoryPartition.MemoryEntry(id, "user", text, 0);
+    }
+
+    private static Message message(String id, String text) {
+        MessageContent content = new MessageContent();
+        content.setType("text");
+        content.setText(new Text(text, new ArrayList<>()));
+        Message message = new Message();
+        message.setId(id);
+        message.setRole("user");
+        message.setContent(List.of(content));
+        return message;
+    }
+
+    /**
+     * 统计向量化次数，指定文本的向量化阻塞到放行为止
+     */
+    private static class CountingEmbeddingProvider implements EmbeddingProvider {
+        private final EmbeddingProvider delegate = new HashingEmbeddingProvider(64);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile String blockedText;
+        private volatile CountDownLatch release;
+
+        private void block(String text, CountDownLatch release) {
+            this.release = release;
+            this.blockedText = text;
+        }
+
+        @Override
+        public List<float[]> embed(List<String> texts) {
+            calls.incrementAndGet();
+            if(texts.contains(blockedText)) {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return delegate.embed(texts);
+        }
+
+        @Override
+        public String name() {
+            return delegate.name();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ke.assistant.core.plan.template;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.theokanning.openai.assistants.message.content.AudioData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PromptTemplateEngine 测试类
+ * 验证音频片段按消息缓存，以及消息内容修改后不再命中旧的渲染结果
+ */
+public class PromptTemplateEngineTest {
+
+    private PromptTemplateEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new PromptTemplateEngine();
+        engine.init();
+    }
+
+    @Test
+    public void testAudioMemoHit() {
+        String first = engine.renderAudio("msg_1", 0, audio("file_1", "mp3"));
+        String second = engine.renderAudio("msg_1", 0, audio("file_1", "mp3"));
+
+        assertSame(first, second);
+        assertEquals(1, engine.fragmentCacheSize());
+        assertTrue(first.contains("<file_id>file_1</file_id>"));
+        assertTrue(first.contains("<format>mp3</format>"));
+    }
+
+    @Test
+    public void testAudioMemoInvalidatedByEdit() {
+        String before = engine.renderAudio("msg_1", 0, audio("file_1", "mp3"));
+
+        // 修改消息后同一位置的音频变为其他文件
+        String afterFile = engine.renderAudio("msg_1", 0, audio("file_2", "mp3"));
+        String afterFormat = engine.renderAudio("msg_1", 0, audio("file_2", "wav"));
+
+        assertTrue(before.contains("file_1"));
+        assertTrue(afterFile.contains("<file_id>file_2</file_id>"));
+        assertTrue(afterFormat.contains("<format>wav</format>"));
+        assertEquals(3, engine.fragmentCacheSize());
+    }
+
+    @Test
+    public void testAudioWithoutMessageIdNotCached() {
+        engine.renderAudio(null, 0, audio("file_1", "mp3"));
+
+        assertEquals(0, engine.fragmentCacheSize());
+    }
+
+    private static AudioData audio(String fileId, String format) {
+        AudioData audio = new AudioData();
+        audio.setFileId(fileId);
+        audio.setFormat(format);
+        return audio;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ke.assistant.core.run;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.assistant.configuration.SenderQueueProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CancelSignal 测试类
+ * 验证取消回调的执行语义，以及取消后阻塞的工具线程和RunExecutor能否被及时唤醒
+ */
+public class CancelSignalTest {
+
+    private static final long MAX_CANCEL_LATENCY_MILLIS = 200;
+
+    @Test
+    public void testHooksRunOnce() {
+        CancelSignal signal = new CancelSignal();
+        AtomicInteger calls = new AtomicInteger();
+        signal.onCancel(calls::incrementAndGet);
+        Runnable unregister = signal.onCancel(calls::incrementAndGet);
+        unregister.run();
+
+        assertTrue(signal.cancel());
+        assertFalse(signal.cancel());
+        assertEquals(1, calls.get());
+        assertTrue(signal.getCanceledAtNanos() > 0);
+
+        // 取消后注册的回调立即执行
+        signal.onCancel(calls::incrementAndGet);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testInterruptBlockingTool() throws Exception {
+        CancelSignal signal = new CancelSignal();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<String> tool = CompletableFuture.supplyAsync(() -> signal.interruptible(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(30_000);
+                    return "finished";
+                } catch (InterruptedException e) {
+                    return "interrupted";
+                }
+            }), pool);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            signal.cancel();
+            assertEquals("interrupted", tool.get(5, TimeUnit.SECONDS));
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(latency < MAX_CANCEL_LATENCY_MILLIS, "cancel latency " + latency + "ms");
+
+            // 中断标记已清除，线程池中的后续任务不受影响
+            assertFalse(CompletableFuture.supplyAsync(() -> Thread.currentThread().isInterrupted(), pool).get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNoInterruptAfterTaskFinished() throws Exception {
+        CancelSignal signal = new CancelSignal();
+        assertEquals("done", signal.interruptible(() -> "done"));
+        signal.cancel();
+        assertFalse(Thread.interrupted());
+    }
+
+    @Test
+    public void testRunnerWakesOnCancel() throws Exception {
+        ExecutionContext context = new ExecutionContext(() -> "step_1", new SenderQueueProperties());
+        context.setDeadline(Deadline.after(10, TimeUnit.MINUTES));
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<Long> runner = CompletableFuture.supplyAsync(() -> {
+            waiting.countDown();
+            // 模拟等待LLM返回或工具执行
+            context.runnerAwait();
+            return System.nanoTime();
+        });
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        AtomicInteger streamDisposed = new AtomicInteger();
+        context.onCancel(streamDisposed::incrementAndGet);
+        long start = System.nanoTime();
+        context.cancel();
+        long latency = TimeUnit.NANOSECONDS.toMillis(runner.get(5, TimeUnit.SECONDS) - start);
+
+        assertTrue(latency < MAX_CANCEL_LATENCY_MILLIS, "cancel latency " + latency + "ms");
+        assertEquals(1, streamDisposed.get());
+        assertTrue(context.isCanceled());
+    }
+
+    @Test
+    public void testRunnerDoesNotWaitWhenAlreadyCanceled() {
+        ExecutionContext context = new ExecutionContext(() -> "step_1", new SenderQueueProperties());
+        context.setDeadline(Deadline.after(10, TimeUnit.MINUTES));
+        context.cancel();
+
+        long start = System.nanoTime();
+        context.runnerAwait();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < MAX_CANCEL_LATENCY_MILLIS);
+    }
+}
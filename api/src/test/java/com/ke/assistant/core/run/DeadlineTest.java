@@ -0,0 +1,38 @@
+package com.ke.assistant.core.run;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deadline 测试类
+ * 验证超时按剩余时间收缩、过期后直接失败
+ */
+public class DeadlineTest {
+
+    @Test
+    public void testTimeoutShrinksWithRemaining() {
+        Deadline deadline = Deadline.after(5, TimeUnit.SECONDS);
+        assertFalse(deadline.isExpired());
+        assertEquals(5, deadline.timeoutSeconds(30));
+        assertEquals(3, deadline.timeoutSeconds(3));
+        assertTrue(deadline.timeout(Duration.ofSeconds(30)).compareTo(Duration.ofSeconds(5)) <= 0);
+        assertEquals(Duration.ofSeconds(1), deadline.timeout(Duration.ofSeconds(1)));
+        assertTrue(deadline.hasRemaining(4, TimeUnit.SECONDS));
+        assertFalse(deadline.hasRemaining(6, TimeUnit.SECONDS));
+        assertEquals(30, Deadline.timeoutSeconds(null, 30));
+    }
+
+    @Test
+    public void testExpiredDeadlineFailsFast() throws InterruptedException {
+        Deadline deadline = Deadline.after(20, TimeUnit.MILLISECONDS);
+        Thread.sleep(50);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remaining(TimeUnit.MILLISECONDS));
+        assertThrows(DeadlineExceededException.class, deadline::check);
+        assertThrows(DeadlineExceededException.class, () -> deadline.timeoutSeconds(30));
+    }
+}
@@ -0,0 +1,168 @@
+package com.ke.assistant.core.run;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.redisson.api.RList;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+/**
+ * 内存版RedissonClient，仅实现core.run中用到的结构和方法，多个组件共用一个实例即可模拟多个服务实例共享的Redis
+ * 每个方法在同一把锁内执行，等同于Redis单线程执行命令；Lua脚本没有解释器，按ThreadRunQueue中脚本的语义以Java实现
+ */
+public class FakeRedis {
+
+    private final Map<String, Map<String, String>> maps = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> lists = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+
+    public RedissonClient client() {
+        return (RedissonClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RedissonClient.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getMap":
+                        return map((String) args[0]);
+                    case "getList":
+                        return list((String) args[0]);
+                    case "getScript":
+                        return script();
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * 直接读取哈希表，用于断言
+     */
+    public Map<String, String> hash(String name) {
+        return maps.computeIfAbsent(name, k -> new HashMap<>());
+    }
+
+    /**
+     * 直接读取列表，用于断言，清空即模拟key过期
+     */
+    public List<String> items(String name) {
+        return lists.computeIfAbsent(name, k -> new ArrayList<>());
+    }
+
+    /**
+     * 最近一次设置的过期时间（毫秒），未设置时返回null
+     */
+    public Long ttl(String name) {
+        return ttls.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RMap<String, String> map(String name) {
+        Map<String, String> map = hash(name);
+        return (RMap<String, String>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RMap.class },
+                (proxy, method, args) -> {
+                    synchronized (this) {
+                        int argc = args == null ? 0 : args.length;
+                        switch (method.getName()) {
+                        case "get":
+                            return map.get(args[0]);
+                        case "put":
+                            return map.put((String) args[0], (String) args[1]);
+                        case "remove":
+                            return argc == 1 ? map.remove(args[0]) : map.remove(args[0], args[1]);
+                        case "replace":
+                            return argc == 3 ? map.replace((String) args[0], (String) args[1], (String) args[2])
+                                    : map.replace((String) args[0], (String) args[1]);
+                        case "readAllMap":
+                            return new HashMap<>(map);
+                        case "size":
+                            return map.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private RList<String> list(String name) {
+        return (RList<String>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RList.class },
+                (proxy, method, args) -> {
+                    synchronized (this) {
+                        List<String> list = items(name);
+                        switch (method.getName()) {
+                        case "readAll":
+                            return new ArrayList<>(list);
+                        case "size":
+                            return list.size();
+                        case "expire":
+                            if(list.isEmpty()) {
+                                return false;
+                            }
+                            ttls.put(name, ((Duration) args[0]).toMillis());
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+
+    private RScript script() {
+        return (RScript) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RScript.class },
+                (proxy, method, args) -> {
+                    if(!"eval".equals(method.getName()) || args.length != 6) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    synchronized (this) {
+                        String script = (String) args[2];
+                        String key = (String) ((List<?>) args[4]).get(0);
+                        Object[] values = (Object[]) args[5];
+                        if(script.contains("rpush")) {
+                            return enqueue(key, (String) values[0], Long.parseLong((String) values[1]));
+                        }
+                        if(script.contains("lrange")) {
+                            return remove(key, (String) values[0], Long.parseLong((String) values[1]));
+                        }
+                        throw new UnsupportedOperationException(script);
+                    }
+                });
+    }
+
+    /**
+     * ENQUEUE_SCRIPT：加入队尾并刷新过期时间，返回加入后的位置
+     */
+    private Long enqueue(String key, String item, long ttlMillis) {
+        List<String> list = items(key);
+        list.add(item);
+        ttls.put(key, ttlMillis);
+        return (long) list.size() - 1;
+    }
+
+    /**
+     * REMOVE_SCRIPT：按前缀移出第一个匹配的元素，移出等待中的元素时返回该元素，移出队首时返回新的队首
+     */
+    private String remove(String key, String prefix, long ttlMillis) {
+        List<String> list = items(key);
+        for (int i = 0; i < list.size(); i++) {
+            String item = list.get(i);
+            if(!item.startsWith(prefix)) {
+                continue;
+            }
+            list.remove(i);
+            if(i > 0) {
+                return item;
+            }
+            if(list.isEmpty()) {
+                return null;
+            }
+            ttls.put(key, ttlMillis);
+            return list.get(0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package com.ke.assistant.core.run;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.SenderQueueProperties;
+import com.ke.assistant.core.RunScheduler;
+import com.theokanning.openai.assistants.run.Run;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RunDrainManager 测试类
+ * 验证排空时的准入控制、readiness切换、排队run的移交、交接计数以及超时后的强制失败
+ */
+public class RunDrainManagerTest {
+
+    private RunDrainManager drainManager;
+    private AssistantProperties properties;
+    private RunScheduler scheduler;
+    private List<Object> events;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        events = new ArrayList<>();
+        ApplicationEventPublisher publisher = events::add;
+        scheduler = new RunScheduler();
+        ReflectionTestUtils.setField(scheduler, "assistantProperties", properties);
+        scheduler.init();
+        drainManager = new RunDrainManager();
+        ReflectionTestUtils.setField(drainManager, "assistantProperties", properties);
+        ReflectionTestUtils.setField(drainManager, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(drainManager, "runScheduler", scheduler);
+        drainManager.start();
+    }
+
+    @Test
+    public void testRejectNewRunsAndRefuseTraffic() {
+        drainManager.checkAdmission();
+
+        assertTrue(drainManager.startDrain());
+        assertFalse(drainManager.startDrain());
+
+        assertThrows(ServerDrainingException.class, () -> drainManager.checkAdmission());
+        assertEquals(1, events.size());
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, ((AvailabilityChangeEvent<?>) events.get(0)).getState());
+        assertTrue(drainManager.shouldHandoff());
+    }
+
+    @Test
+    public void testHandOverQueuedRuns() throws Exception {
+        properties.getRunScheduler().setMaxRunning(1);
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+        List<String> drained = new ArrayList<>();
+        assertTrue(scheduler.submit("tenant", RunScheduler.Priority.INTERACTIVE, blocker::join, () -> drained.add("run_1")));
+        assertTrue(scheduler.submit("tenant", RunScheduler.Priority.INTERACTIVE, () -> fail("drained run should not execute"), () -> drained.add("run_2")));
+        assertTrue(scheduler.submit("tenant", RunScheduler.Priority.BACKGROUND, () -> fail("drained run should not execute"), () -> drained.add("run_3")));
+
+        drainManager.startDrain();
+
+        // 执行中的run不受影响，排队的run交给提交方处理
+        assertEquals(List.of("run_2", "run_3"), drained);
+        assertEquals(0, scheduler.getQueued(RunScheduler.Priority.INTERACTIVE) + scheduler.getQueued(RunScheduler.Priority.BACKGROUND));
+        assertEquals(2, drainManager.progress().get("queuedDrained"));
+        // 排空中没有空闲名额时不再排队
+        assertFalse(scheduler.submit("tenant", RunScheduler.Priority.INTERACTIVE, () -> {}, () -> {}));
+        blocker.complete(null);
+    }
+
+    @Test
+    public void testWaitForHandoff() throws Exception {
+        ExecutionContext handedOff = context("run_1");
+        ExecutionContext finished = context("run_2");
+        drainManager.register(handedOff);
+        drainManager.register(finished);
+        drainManager.startDrain();
+
+        CompletableFuture.runAsync(() -> {
+            sleep(100);
+            drainManager.unregister(handedOff, true);
+            sleep(100);
+            drainManager.unregister(finished, false);
+        });
+
+        long start = System.nanoTime();
+        assertTrue(drainManager.awaitDrained());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+
+        Map<String, Object> progress = drainManager.progress();
+        assertEquals(0, progress.get("activeRuns"));
+        assertEquals(1, progress.get("handedOff"));
+        assertEquals(1, progress.get("finished"));
+        assertEquals(0, progress.get("forceFailed"));
+    }
+
+    @Test
+    public void testFailRemainingRunsAfterTimeout() throws Exception {
+        properties.getDrain().setTimeoutSeconds(0);
+        ExecutionContext context = context("run_3");
+        drainManager.register(context);
+        // 模拟等待LLM返回的RunExecutor，被标记失败后写入终止状态并退出
+        CompletableFuture<Void> runner = CompletableFuture.runAsync(() -> {
+            context.runnerAwait();
+            drainManager.unregister(context, false);
+        });
+        sleep(50);
+
+        drainManager.stop();
+
+        runner.get(5, TimeUnit.SECONDS);
+        assertEquals("server_shutdown", context.getLastError().getCode());
+        assertFalse(drainManager.isRunning());
+        Map<String, Object> progress = drainManager.progress();
+        assertEquals(1, progress.get("forceFailed"));
+        assertEquals(0, progress.get("activeRuns"));
+    }
+
+    @Test
+    public void testDrainDisabled() {
+        properties.getDrain().setEnabled(false);
+        drainManager.stop();
+        assertFalse(drainManager.isDraining());
+        assertTrue(events.isEmpty());
+    }
+
+    private static ExecutionContext context(String runId) {
+        ExecutionContext context = new ExecutionContext(() -> "step_1", new SenderQueueProperties());
+        Run run = new Run();
+        run.setId(runId);
+        context.setRun(run);
+        context.setDeadline(Deadline.after(10, TimeUnit.MINUTES));
+        return context;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
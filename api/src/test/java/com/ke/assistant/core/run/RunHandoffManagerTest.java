@@ -0,0 +1,182 @@
+package com.ke.assistant.core.run;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.mesh.impl.LocalMesh;
+import com.ke.assistant.mesh.impl.LocalMeshHub;
+import com.ke.bella.openapi.utils.JacksonUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RunHandoffManager 测试类
+ * 两个LocalMesh实例共享一个FakeRedis，验证交接、转发次数上限、保存检查点失败以及交接消息丢失后的清扫接手
+ */
+public class RunHandoffManagerTest {
+
+    private AssistantProperties properties;
+    private FakeRedis redis;
+    private LocalMeshHub hub;
+    private List<LocalMesh> meshes;
+    private String leaseKey;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        // 清扫任务由测试直接调用
+        properties.getDrain().setSweepIntervalSeconds(3600);
+        redis = new FakeRedis();
+        hub = new LocalMeshHub();
+        meshes = new ArrayList<>();
+        leaseKey = properties.getKeyPrefix() + ":run:handoff:leases";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        meshes.forEach(LocalMesh::stop);
+    }
+
+    @Test
+    public void testHandoffResumesOnTarget() throws Exception {
+        Instance source = instance();
+        Instance target = instance();
+        source.drainManager.startDrain();
+
+        String owner = source.handoffManager.handoff("thread_1", "run_1", () -> true);
+
+        assertEquals(target.mesh.getInstanceId(), owner);
+        assertEquals("thread_1/run_1", target.resumed.get(5, TimeUnit.SECONDS));
+        assertFalse(source.resumed.isDone());
+        waitUntilReleased("run_1");
+    }
+
+    @Test
+    public void testCheckpointFailedReleasesLease() throws Exception {
+        Instance source = instance();
+        Instance target = instance();
+        source.drainManager.startDrain();
+
+        assertNull(source.handoffManager.handoff("thread_1", "run_1", () -> false));
+
+        assertTrue(redis.hash(leaseKey).isEmpty());
+        Thread.sleep(100);
+        assertFalse(target.resumed.isDone());
+    }
+
+    @Test
+    public void testNoTarget() {
+        Instance source = instance();
+        source.drainManager.startDrain();
+
+        assertNull(source.handoffManager.handoff("thread_1", "run_1", () -> {
+            throw new AssertionError("should not checkpoint without target");
+        }));
+        assertTrue(redis.hash(leaseKey).isEmpty());
+    }
+
+    @Test
+    public void testForwardStopsAtHopLimit() throws Exception {
+        properties.getDrain().setMaxHandoffHops(2);
+        Instance first = instance();
+        Instance second = instance();
+        // 两个实例都在排空：first -> second（第1次）-> first（第2次），达到上限后在first执行
+        first.drainManager.startDrain();
+        second.drainManager.startDrain();
+
+        first.handoffManager.handoff("thread_1", "run_1", () -> true);
+
+        assertEquals("thread_1/run_1", first.resumed.get(5, TimeUnit.SECONDS));
+        assertFalse(second.resumed.isDone());
+        waitUntilReleased("run_1");
+    }
+
+    @Test
+    public void testSweepReclaimsLostHandoff() throws Exception {
+        Instance survivor = instance();
+        // 交接消息发出后接手实例下线，租约仍指向该实例
+        String lease = JacksonUtils.serialize(new RunHandoffManager.Lease("thread_1", "run_1", "offline-instance", 1, System.currentTimeMillis(), null, null));
+        redis.hash(leaseKey).put("run_1", lease);
+
+        survivor.handoffManager.sweep();
+
+        assertEquals("thread_1/run_1", survivor.resumed.get(5, TimeUnit.SECONDS));
+        assertTrue(redis.hash(leaseKey).isEmpty());
+    }
+
+    @Test
+    public void testSweepReclaimsStaleLeaseOnly() throws Exception {
+        Instance owner = instance();
+        Instance survivor = instance();
+        long now = System.currentTimeMillis();
+        redis.hash(leaseKey).put("run_1", JacksonUtils.serialize(new RunHandoffManager.Lease("thread_1", "run_1", owner.mesh.getInstanceId(), 1, now, null, null)));
+        redis.hash(leaseKey).put("run_2", JacksonUtils.serialize(new RunHandoffManager.Lease("thread_2", "run_2", owner.mesh.getInstanceId(), 1,
+                now - TimeUnit.SECONDS.toMillis(properties.getDrain().getLeaseSeconds() + 1), null, null)));
+
+        survivor.handoffManager.sweep();
+
+        assertEquals("thread_2/run_2", survivor.resumed.get(5, TimeUnit.SECONDS));
+        assertEquals(1, redis.hash(leaseKey).size());
+        assertTrue(redis.hash(leaseKey).containsKey("run_1"));
+    }
+
+    @Test
+    public void testSweepSkippedWhileDraining() {
+        Instance survivor = instance();
+        survivor.drainManager.startDrain();
+        redis.hash(leaseKey).put("run_1", JacksonUtils.serialize(new RunHandoffManager.Lease("thread_1", "run_1", "offline-instance", 1, 0, null, null)));
+
+        survivor.handoffManager.sweep();
+
+        assertFalse(survivor.resumed.isDone());
+        assertEquals(1, redis.hash(leaseKey).size());
+    }
+
+    @Test
+    public void testOnlyCheckpointReturnsToQueued() {
+        assertFalse(RunStatus.IN_PROGRESS.canTransitionTo(RunStatus.QUEUED));
+        assertTrue(RunStatus.IN_PROGRESS.canCheckpoint());
+        assertFalse(RunStatus.REQUIRES_ACTION.canCheckpoint());
+        assertFalse(RunStatus.QUEUED.canCheckpoint());
+    }
+
+    private void waitUntilReleased(String runId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (redis.hash(leaseKey).containsKey(runId) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(redis.hash(leaseKey).containsKey(runId));
+    }
+
+    private Instance instance() {
+        LocalMesh mesh = new LocalMesh(properties, hub);
+        mesh.init();
+        mesh.start();
+        meshes.add(mesh);
+        RunDrainManager drainManager = new RunDrainManager();
+        ApplicationEventPublisher publisher = event -> {};
+        ReflectionTestUtils.setField(drainManager, "assistantProperties", properties);
+        ReflectionTestUtils.setField(drainManager, "eventPublisher", publisher);
+        RunHandoffManager handoffManager = new RunHandoffManager();
+        ReflectionTestUtils.setField(handoffManager, "redissonClient", redis.client());
+        ReflectionTestUtils.setField(handoffManager, "serviceMesh", mesh);
+        ReflectionTestUtils.setField(handoffManager, "assistantProperties", properties);
+        ReflectionTestUtils.setField(handoffManager, "drainManager", drainManager);
+        handoffManager.init();
+        Instance instance = new Instance(mesh, drainManager, handoffManager, new CompletableFuture<>());
+        handoffManager.registerResumer((threadId, runId) -> instance.resumed.complete(threadId + "/" + runId));
+        return instance;
+    }
+
+    private record Instance(LocalMesh mesh, RunDrainManager drainManager, RunHandoffManager handoffManager, CompletableFuture<String> resumed) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.ke.assistant.core.run;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.assistant.configuration.SenderQueueProperties;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SenderQueue 测试类
+ * 验证有界队列在各溢出策略下的行为
+ */
+public class SenderQueueTest {
+
+    private SenderQueue queue(int capacity, SenderQueueProperties.OverflowPolicy policy, long blockTimeoutMillis) {
+        SenderQueueProperties properties = new SenderQueueProperties();
+        properties.setCapacity(capacity);
+        properties.setOverflowPolicy(policy);
+        properties.setBlockTimeoutMillis(blockTimeoutMillis);
+        return new SenderQueue(properties);
+    }
+
+    @Test
+    public void testCoalesceTextWhenFull() throws InterruptedException {
+        SenderQueue queue = queue(2, SenderQueueProperties.OverflowPolicy.COALESCE, 100);
+        queue.offer("[LLM_DONE]");
+        queue.offer("hello");
+        queue.offer(" world");
+        queue.offer("!");
+
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getCoalescedCount());
+        assertFalse(queue.isDetached());
+        assertEquals("[LLM_DONE]", queue.take());
+        assertEquals("hello world!", queue.take());
+    }
+
+    @Test
+    public void testControlMessageNeverCoalesced() throws InterruptedException {
+        SenderQueue queue = queue(1, SenderQueueProperties.OverflowPolicy.COALESCE, 50);
+        queue.offer("text");
+        // 无法合并，阻塞超时后断开客户端，但消息仍然入队
+        queue.offer("[DONE]");
+
+        assertTrue(queue.isDetached());
+        assertEquals(1, queue.getBlockedCount());
+        assertEquals("text", queue.take());
+        assertEquals("[DONE]", queue.take());
+    }
+
+    @Test
+    public void testBlockUntilConsumed() throws Exception {
+        SenderQueue queue = queue(1, SenderQueueProperties.OverflowPolicy.BLOCK, 5000);
+        queue.offer("first");
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> queue.offer("second"));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(producer.isDone());
+        assertEquals("first", queue.take());
+        producer.get(1, TimeUnit.SECONDS);
+        assertEquals("second", queue.take());
+        assertFalse(queue.isDetached());
+    }
+
+    @Test
+    public void testDetachKeepsMessages() throws InterruptedException {
+        SenderQueue queue = queue(1, SenderQueueProperties.OverflowPolicy.DETACH, 0);
+        queue.offer("[LLM_DONE]");
+        queue.offer("[TOOL_DONE]");
+        queue.offer("a");
+        queue.offer("b");
+
+        assertTrue(queue.isDetached());
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.getPeakDepth());
+        assertEquals("[LLM_DONE]", queue.take());
+        assertEquals("[TOOL_DONE]", queue.take());
+        assertEquals("ab", queue.take());
+    }
+
+    @Test
+    public void testConsumerThreadNeverBlocks() throws InterruptedException {
+        SenderQueue queue = queue(1, SenderQueueProperties.OverflowPolicy.BLOCK, 5000);
+        queue.offer("first");
+        assertEquals("first", queue.take());
+        queue.offer("second");
+        // 当前线程是消费线程，超出容量也直接入队
+        queue.offer("third");
+
+        assertEquals(2, queue.size());
+        assertFalse(queue.isDetached());
+    }
+}
@@ -0,0 +1,204 @@
+package com.ke.assistant.core.run;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.impl.LocalMesh;
+import com.ke.assistant.mesh.impl.LocalMeshHub;
+import com.ke.assistant.model.ThreadRunQueueStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ThreadRunQueue 测试类
+ * 两个LocalMesh实例共享一个FakeRedis，验证入队与移出脚本、前一个run结束后通知下一个run的发起实例、
+ * 排队期间取消、发起实例下线、队列过期以及排队已满时的拒绝
+ */
+public class ThreadRunQueueTest {
+
+    private static final String THREAD_ID = "thread_1";
+
+    private AssistantProperties properties;
+    private FakeRedis redis;
+    private LocalMeshHub hub;
+    private List<LocalMesh> meshes;
+    private String queueKey;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        properties.getThreadRunQueue().setEnabled(true);
+        properties.getThreadRunQueue().setMaxDepth(2);
+        redis = new FakeRedis();
+        hub = new LocalMeshHub();
+        meshes = new ArrayList<>();
+        queueKey = properties.getKeyPrefix() + ":thread:run:queue:" + THREAD_ID;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        meshes.forEach(LocalMesh::stop);
+    }
+
+    @Test
+    public void testStartNextRunOnOwner() throws Exception {
+        Instance first = instance();
+        Instance second = instance();
+
+        assertFalse(first.queue.enqueue(THREAD_ID, "run_1"));
+        assertTrue(second.queue.enqueue(THREAD_ID, "run_2"));
+        assertTrue(first.queue.enqueue(THREAD_ID, "run_3"));
+
+        ThreadRunQueueStatus status = first.queue.status(THREAD_ID);
+        assertEquals("run_1", status.getActiveRunId());
+        assertEquals(List.of("run_2", "run_3"), status.getQueuedRunIds());
+        assertEquals(2, first.queue.position(THREAD_ID, "run_3"));
+        assertTrue(first.queue.isWaiting(THREAD_ID, "run_2"));
+        assertFalse(first.queue.isWaiting(THREAD_ID, "run_1"));
+
+        // run_1结束，run_2的发起实例收到启动通知
+        first.queue.onRunTerminal(THREAD_ID, "run_1");
+        Event started = second.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(started);
+        assertEquals("run_2", started.getPayload());
+        assertEquals(THREAD_ID, started.getMetadata().get("threadId"));
+        assertEquals(false, started.getMetadata().get("orphaned"));
+        assertEquals(0, second.queue.position(THREAD_ID, "run_2"));
+
+        // run_2结束，run_3的发起实例是本实例
+        second.queue.onRunTerminal(THREAD_ID, "run_2");
+        started = first.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(started);
+        assertEquals("run_3", started.getPayload());
+
+        first.queue.onRunTerminal(THREAD_ID, "run_3");
+        assertTrue(redis.items(queueKey).isEmpty());
+        assertNull(first.events.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(second.events.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws Exception {
+        Instance first = instance();
+        Instance second = instance();
+        first.queue.enqueue(THREAD_ID, "run_1");
+        first.queue.enqueue(THREAD_ID, "run_2");
+        second.queue.enqueue(THREAD_ID, "run_3");
+
+        // 等待中的run_3被取消，只通知其发起实例清理，队首不变
+        first.queue.onRunTerminal(THREAD_ID, "run_3");
+
+        Event cleaned = second.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(cleaned);
+        assertEquals("run_3", cleaned.getPayload());
+        assertEquals(List.of("run_1|" + first.mesh.getInstanceId(), "run_2|" + first.mesh.getInstanceId()), redis.items(queueKey));
+        assertNull(first.events.poll(100, TimeUnit.MILLISECONDS));
+
+        // 不在队列中的run不影响队列
+        first.queue.onRunTerminal(THREAD_ID, "run_3");
+        assertEquals(2, redis.items(queueKey).size());
+    }
+
+    @Test
+    public void testRemoveMatchesWholeRunId() {
+        Instance instance = instance();
+        instance.queue.enqueue(THREAD_ID, "run_10");
+        instance.queue.enqueue(THREAD_ID, "run_1");
+
+        instance.queue.onRunTerminal(THREAD_ID, "run_1");
+
+        assertEquals(0, instance.queue.position(THREAD_ID, "run_10"));
+        assertEquals(-1, instance.queue.position(THREAD_ID, "run_1"));
+    }
+
+    @Test
+    public void testOrphanedWhenOwnerOffline() throws Exception {
+        Instance first = instance();
+        Instance second = instance();
+        first.queue.enqueue(THREAD_ID, "run_1");
+        second.queue.enqueue(THREAD_ID, "run_2");
+        second.mesh.stop();
+
+        first.queue.onRunTerminal(THREAD_ID, "run_1");
+
+        Event started = first.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(started);
+        assertEquals("run_2", started.getPayload());
+        assertEquals(true, started.getMetadata().get("orphaned"));
+    }
+
+    @Test
+    public void testExpiredQueue() {
+        Instance instance = instance();
+        instance.queue.enqueue(THREAD_ID, "run_1");
+        instance.queue.enqueue(THREAD_ID, "run_2");
+        long ttl = TimeUnit.MINUTES.toMillis(properties.getThreadRunQueue().getTtlMinutes());
+        assertEquals(ttl, redis.ttl(queueKey).longValue());
+
+        properties.getThreadRunQueue().setTtlMinutes(1);
+        instance.queue.keepAlive(THREAD_ID);
+        assertEquals(TimeUnit.MINUTES.toMillis(1), redis.ttl(queueKey).longValue());
+
+        // 队列过期后等待中的run不在队列中，重新入队位于队首
+        redis.items(queueKey).clear();
+        assertEquals(-1, instance.queue.position(THREAD_ID, "run_2"));
+        assertFalse(instance.queue.enqueue(THREAD_ID, "run_2"));
+        assertEquals(0, instance.queue.position(THREAD_ID, "run_2"));
+    }
+
+    @Test
+    public void testRejectWhenQueueFull() {
+        Instance instance = instance();
+        instance.queue.checkCapacity(THREAD_ID);
+        instance.queue.enqueue(THREAD_ID, "run_1");
+        instance.queue.enqueue(THREAD_ID, "run_2");
+        instance.queue.checkCapacity(THREAD_ID);
+        instance.queue.enqueue(THREAD_ID, "run_3");
+
+        ThreadRunQueueFullException e = assertThrows(ThreadRunQueueFullException.class, () -> instance.queue.checkCapacity(THREAD_ID));
+        assertTrue(e.getMessage().contains(THREAD_ID));
+
+        // 队首结束后恢复
+        instance.queue.onRunTerminal(THREAD_ID, "run_1");
+        instance.queue.checkCapacity(THREAD_ID);
+    }
+
+    @Test
+    public void testDisabled() {
+        properties.getThreadRunQueue().setEnabled(false);
+        Instance instance = instance();
+        instance.queue.enqueue(THREAD_ID, "run_1");
+
+        assertFalse(instance.queue.enqueue(THREAD_ID, "run_2"));
+        assertFalse(instance.queue.isWaiting(THREAD_ID, "run_2"));
+        assertTrue(redis.items(queueKey).isEmpty());
+    }
+
+    private Instance instance() {
+        LocalMesh mesh = new LocalMesh(properties, hub);
+        mesh.init();
+        mesh.start();
+        meshes.add(mesh);
+        ThreadRunQueue queue = new ThreadRunQueue();
+        ReflectionTestUtils.setField(queue, "redissonClient", redis.client());
+        ReflectionTestUtils.setField(queue, "serviceMesh", mesh);
+        ReflectionTestUtils.setField(queue, "assistantProperties", properties);
+        queue.init();
+        Instance instance = new Instance(mesh, queue, new LinkedBlockingQueue<>());
+        queue.registerStarter(instance.events::add);
+        return instance;
+    }
+
+    private record Instance(LocalMesh mesh, ThreadRunQueue queue, BlockingQueue<Event> events) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.ke.assistant.core.tools;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ToolExecutionProperties;
+import com.ke.assistant.core.run.Deadline;
+import com.ke.assistant.core.run.DeadlineExceededException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工具执行保护测试
+ * 验证超时返回错误结果并中断执行线程、超时不超过run的剩余时间、并发超限时拒绝、异常转为错误结果
+ */
+public class ToolExecutionGuardTest {
+
+    private ToolExecutionGuard guard;
+
+    @BeforeEach
+    public void setUp() {
+        AssistantProperties properties = new AssistantProperties();
+        ToolExecutionProperties.ToolLimit slow = new ToolExecutionProperties.ToolLimit();
+        slow.setTimeoutSeconds(1L);
+        slow.setMaxConcurrency(1);
+        properties.getToolExecution().getTools().put("slow", slow);
+        guard = new ToolExecutionGuard();
+        ReflectionTestUtils.setField(guard, "assistantProperties", properties);
+        guard.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        guard.destroy();
+    }
+
+    @Test
+    public void testTimeoutReturnsErrorAndInterruptsWorker() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<ToolResult> future = guard.execute("asst", "slow", null, () -> {
+            try {
+                Thread.sleep(30000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return new ToolResult(ToolResult.ToolResultType.text, "late");
+        });
+
+        ToolResult result = future.get(5, TimeUnit.SECONDS);
+        assertNotNull(result.getError());
+        assertTrue(result.getError().contains("timed out"));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBulkheadRejectsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ToolResult> first = guard.execute("asst", "slow", null, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ToolResult(ToolResult.ToolResultType.text, "ok");
+        });
+        ToolResult rejected = guard.execute("asst", "slow", null, () -> new ToolResult(ToolResult.ToolResultType.text, "ok"))
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(rejected.getError().contains("busy"));
+
+        release.countDown();
+        assertEquals("ok", first.get(5, TimeUnit.SECONDS).getMessage());
+        // 许可释放后可以再次执行
+        assertEquals("ok", guard.execute("asst", "slow", null, () -> new ToolResult(ToolResult.ToolResultType.text, "ok"))
+                .get(5, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    public void testDeadlineBoundsTimeout() throws Exception {
+        long start = System.nanoTime();
+        ToolResult result = guard.execute("asst", "fast", Deadline.after(300, TimeUnit.MILLISECONDS), () -> {
+            try {
+                Thread.sleep(30000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ToolResult(ToolResult.ToolResultType.text, "late");
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals(new DeadlineExceededException().getMessage(), result.getError());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+        Deadline expired = Deadline.after(0, TimeUnit.MILLISECONDS);
+        assertNotNull(guard.execute("asst", "fast", expired, () -> new ToolResult(ToolResult.ToolResultType.text, "ok"))
+                .get(5, TimeUnit.SECONDS).getError());
+    }
+
+    @Test
+    public void testExceptionBecomesErrorResult() throws Exception {
+        ToolResult result = guard.execute("asst", "fast", null, () -> {
+            throw new IllegalArgumentException("query is null");
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals("query is null", result.getError());
+    }
+}
@@ -0,0 +1,99 @@
+package com.ke.assistant.core.tools;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.theokanning.openai.assistants.assistant.Tool;
+import com.theokanning.openai.completion.chat.ChatTool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolFetcher 测试类
+ * 验证内置工具共享注册时构建的定义，以及function工具直接使用自身的定义并预先序列化
+ */
+public class ToolFetcherTest {
+
+    private ToolFetcher toolFetcher;
+
+    @BeforeEach
+    public void setUp() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("retrievalHandler", new FixedHandler("retrieval"));
+        ToolResultCache toolResultCache = new ToolResultCache();
+        ReflectionTestUtils.setField(toolResultCache, "assistantProperties", new AssistantProperties());
+        toolResultCache.init();
+        toolFetcher = new ToolFetcher(context, toolResultCache);
+        toolFetcher.initialize();
+    }
+
+    @Test
+    public void testBuiltinToolShared() {
+        ChatTool first = toolFetcher.fetchChatTool("retrieval");
+        ChatTool second = toolFetcher.fetchChatTool(new Tool.Retrieval(true, true));
+
+        assertSame(first, second);
+        assertEquals("retrieval", first.getFunction().getName());
+        assertTrue(((CachedChatTool) first).getJson().contains("\"query\""));
+    }
+
+    @Test
+    public void testFunctionToolUsesOwnDefinition() {
+        Tool.FunctionDefinition definition = new Tool.FunctionDefinition();
+        definition.setName("get_order");
+        definition.setDescription("查询订单");
+        definition.setParameters(Map.of("type", "object"));
+        Tool.Function function = new Tool.Function();
+        function.setFunction(definition);
+
+        ChatTool chatTool = toolFetcher.fetchChatTool(function);
+
+        assertSame(definition, chatTool.getFunction());
+        String json = ((CachedChatTool) chatTool).getJson();
+        assertTrue(json.contains("\"get_order\""));
+        assertTrue(json.contains("查询订单"));
+    }
+
+    @Test
+    public void testUnknownToolRejected() {
+        assertThrows(IllegalArgumentException.class, () -> toolFetcher.fetchChatTool("unknown"));
+    }
+
+    private static class FixedHandler implements ToolHandler {
+        private final String name;
+
+        private FixedHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ToolResult execute(ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+            return new ToolResult(ToolResult.ToolResultType.text, name);
+        }
+
+        @Override
+        public String getToolName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "检索文件";
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return Map.of("type", "object", "properties", Map.of("query", Map.of("type", "string")));
+        }
+
+        @Override
+        public boolean isFinal() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ke.assistant.core.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ToolCacheProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工具结果缓存测试
+ * 验证参数规范化、并发相同调用只执行一次、未完成结果不缓存
+ */
+public class ToolResultCacheTest {
+
+    @Test
+    public void testNormalizedArgumentsHitCache() {
+        CountingHandler handler = new CountingHandler("web_search");
+        ToolHandler cached = newCache(policy(true, false)).decorate(handler);
+
+        ToolResult first = cached.execute(new ToolContext(), Map.of("query", "Bella  Assistant"), null);
+        ToolResult second = cached.execute(new ToolContext(), Map.of("query", " bella assistant "), null);
+        cached.execute(new ToolContext(), Map.of("query", "other"), null);
+
+        assertEquals(2, handler.calls.get());
+        assertEquals(first.getMessage(), second.getMessage());
+    }
+
+    @Test
+    public void testSortListsAndIgnoredArgs() {
+        ToolCacheProperties.ToolCachePolicy policy = policy(false, true);
+        policy.getIgnoredArgs().add("trace");
+        CountingHandler handler = new CountingHandler("web_crawler");
+        ToolHandler cached = newCache(policy).decorate(handler);
+
+        cached.execute(new ToolContext(), Map.of("urls", List.of("a", "b"), "trace", "1"), null);
+        cached.execute(new ToolContext(), Map.of("urls", List.of("b", "a"), "trace", "2"), null);
+
+        assertEquals(1, handler.calls.get());
+    }
+
+    @Test
+    public void testConcurrentCallsExecuteOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingHandler handler = new CountingHandler("web_search") {
+            @Override
+            public ToolResult execute(ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.execute(context, arguments, channel);
+            }
+        };
+        ToolHandler cached = newCache(policy(false, false)).decorate(handler);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ToolResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cached.execute(new ToolContext(), Map.of("query", "q"), null)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<ToolResult> future : futures) {
+                assertEquals("result-1", future.get(5, TimeUnit.SECONDS).getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, handler.calls.get());
+    }
+
+    @Test
+    public void testIncompleteResultNotCached() {
+        CountingHandler handler = new CountingHandler("web_search") {
+            @Override
+            public ToolResult execute(ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+                ToolResult result = super.execute(context, arguments, channel);
+                result.setIncomplete(true);
+                return result;
+            }
+        };
+        ToolHandler cached = newCache(policy(false, false)).decorate(handler);
+
+        cached.execute(new ToolContext(), Map.of("query", "q"), null);
+        cached.execute(new ToolContext(), Map.of("query", "q"), null);
+
+        assertEquals(2, handler.calls.get());
+    }
+
+    @Test
+    public void testUnconfiguredToolNotDecorated() {
+        CountingHandler handler = new CountingHandler("weather_search");
+        assertSame(handler, newCache(policy(false, false)).decorate(handler));
+    }
+
+    private static ToolCacheProperties.ToolCachePolicy policy(boolean ignoreCase, boolean sortLists) {
+        ToolCacheProperties.ToolCachePolicy policy = new ToolCacheProperties.ToolCachePolicy();
+        policy.setIgnoreCase(ignoreCase);
+        policy.setSortLists(sortLists);
+        return policy;
+    }
+
+    private static ToolResultCache newCache(ToolCacheProperties.ToolCachePolicy policy) {
+        AssistantProperties properties = new AssistantProperties();
+        properties.getToolCache().getTools().put("web_search", policy);
+        properties.getToolCache().getTools().put("web_crawler", policy);
+        ToolResultCache cache = new ToolResultCache();
+        ReflectionTestUtils.setField(cache, "assistantProperties", properties);
+        cache.init();
+        return cache;
+    }
+
+    private static class CountingHandler implements ToolHandler {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ToolResult execute(ToolContext context, Map<String, Object> arguments, ToolOutputChannel channel) {
+            return new ToolResult(ToolResult.ToolResultType.text, "result-" + calls.incrementAndGet());
+        }
+
+        @Override
+        public String getToolName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Map<String, Object> getParameters() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public boolean isFinal() {
+            return false;
+        }
+    }
+}
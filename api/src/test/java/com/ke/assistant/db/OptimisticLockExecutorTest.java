@@ -0,0 +1,108 @@
+package com.ke.assistant.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ke.assistant.configuration.AssistantProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OptimisticLockExecutor 测试类
+ * 验证版本冲突后的重试、重试耗尽后退化为加锁读、事务内直接加锁读以及关闭时始终加锁读
+ */
+public class OptimisticLockExecutorTest {
+
+    private AssistantProperties properties;
+    private OptimisticLockExecutor executor;
+    private List<Boolean> lockReads;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        properties.getOptimisticLock().setEnabled(true);
+        properties.getOptimisticLock().setMaxRetries(3);
+        properties.getOptimisticLock().setBackoffMillis(0);
+        executor = new OptimisticLockExecutor();
+        ReflectionTestUtils.setField(executor, "assistantProperties", properties);
+        lockReads = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void testRetryOnVersionConflict() {
+        String result = executor.execute(lockRead -> {
+            lockReads.add(lockRead);
+            if(lockReads.size() < 3) {
+                throw new OptimisticLockException("run", "run_1");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(List.of(false, false, false), lockReads);
+    }
+
+    @Test
+    public void testLockReadAfterRetriesExhausted() {
+        String result = executor.execute(lockRead -> {
+            lockReads.add(lockRead);
+            if(!lockRead) {
+                throw new OptimisticLockException("run", "run_1");
+            }
+            return "locked";
+        });
+
+        assertEquals("locked", result);
+        assertEquals(List.of(false, false, false, true), lockReads);
+    }
+
+    @Test
+    public void testConflictOnLockReadIsThrown() {
+        assertThrows(OptimisticLockException.class, () -> executor.execute(lockRead -> {
+            lockReads.add(lockRead);
+            throw new OptimisticLockException("run", "run_1");
+        }));
+        assertEquals(4, lockReads.size());
+    }
+
+    @Test
+    public void testLockReadInTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        String result = executor.execute(lockRead -> {
+            lockReads.add(lockRead);
+            if(!lockRead) {
+                throw new OptimisticLockException("run", "run_1");
+            }
+            return "locked";
+        });
+
+        // 事务内的普通读取是同一快照，冲突后直接加锁读
+        assertEquals("locked", result);
+        assertEquals(List.of(false, true), lockReads);
+    }
+
+    @Test
+    public void testDisabledUsesForUpdate() {
+        properties.getOptimisticLock().setEnabled(false);
+
+        String result = executor.execute(lockRead -> {
+            lockReads.add(lockRead);
+            return "locked";
+        });
+
+        assertEquals("locked", result);
+        assertEquals(List.of(true), lockReads);
+    }
+}
@@ -0,0 +1,229 @@
+package com.ke.assistant.db.shard;
+
+import static com.ke.assistant.db.generated.Tables.MESSAGE;
+import static com.ke.assistant.db.generated.Tables.RUN_STEP;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.jooq.CloseableDSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.db.context.RepoContext;
+import com.ke.assistant.db.generated.tables.pojos.MessageDb;
+import com.ke.assistant.db.generated.tables.pojos.RunStepDb;
+import com.ke.assistant.db.repo.MessageRepo;
+import com.ke.assistant.db.repo.RunStepRepo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分表路由与迁移测试
+ * 基于H2内存库（MySQL兼容模式）验证按threadId路由到多个分表，以及分表数调整后的数据迁移
+ */
+public class ShardRouterTest {
+
+    private static final int THREADS = 20;
+
+    private CloseableDSLContext dsl;
+
+    @BeforeEach
+    public void setUp() {
+        dsl = DSL.using("jdbc:h2:mem:shard_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        // 原表
+        migrator(router(1)).createTables(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dsl.close();
+    }
+
+    @Test
+    public void testRouteByThreadId() {
+        ShardRouter router = router(4);
+        migrator(router).createTables(4);
+        MessageRepo messageRepo = new MessageRepo(null, router);
+        RunStepRepo runStepRepo = new RunStepRepo(null, router);
+
+        List<String> threadIds = writeThreads(messageRepo, runStepRepo);
+
+        Set<Integer> usedShards = new HashSet<>();
+        for (String threadId : threadIds) {
+            int shard = router.shardOf(threadId);
+            usedShards.add(shard);
+            assertEquals(2, countByThread("message_" + shard, threadId));
+            assertEquals(1, countByThread("run_step_" + shard, threadId));
+            assertEquals(2, messageRepo.findByThreadId(threadId).size());
+            assertEquals(1, runStepRepo.findByThreadId(threadId).size());
+            assertNotNull(messageRepo.findById(threadId, threadId + "_msg_0"));
+        }
+        assertTrue(usedShards.size() > 1, "数据应分布到多个分表");
+        assertEquals(0, dsl.fetchCount(MESSAGE));
+        assertEquals(0, dsl.fetchCount(RUN_STEP));
+        assertEquals(THREADS * 2, totalCount("message", 4));
+    }
+
+    @Test
+    public void testUpdateAndDeleteOnShard() {
+        ShardRouter router = router(4);
+        migrator(router).createTables(4);
+        MessageRepo messageRepo = new MessageRepo(null, router);
+        RunStepRepo runStepRepo = new RunStepRepo(null, router);
+        String threadId = writeThreads(messageRepo, runStepRepo).get(0);
+
+        MessageDb original = messageRepo.findById(threadId, threadId + "_msg_0");
+        MessageDb modified = messageRepo.findById(threadId, threadId + "_msg_0");
+        modified.setStatus("incomplete");
+        assertTrue(messageRepo.updateWithVersion(original, modified));
+        // 使用过期版本号更新失败
+        assertFalse(messageRepo.updateWithVersion(original, modified));
+        assertEquals("incomplete", messageRepo.findById(threadId, threadId + "_msg_0").getStatus());
+
+        assertTrue(runStepRepo.updateStatus(threadId, threadId + "_step", "completed", null));
+        assertEquals("completed", runStepRepo.findById(threadId, threadId + "_step").getStatus());
+
+        assertEquals(2, messageRepo.deleteByThreadId(threadId));
+        assertTrue(messageRepo.findByThreadId(threadId).isEmpty());
+    }
+
+    @Test
+    public void testBatchInsertOnShard() {
+        ShardRouter router = router(4);
+        migrator(router).createTables(4);
+        MessageRepo messageRepo = new MessageRepo(null, router);
+        List<MessageDb> messages = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            messages.add(message("thread_batch", "msg_batch_" + i));
+        }
+        messageRepo.batchInsert(messages, 3);
+
+        assertEquals(7, countByThread("message_" + router.shardOf("thread_batch"), "thread_batch"));
+        List<MessageDb> saved = messageRepo.findByThreadId("thread_batch");
+        assertEquals(7, saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            // 按创建时间排序后保持插入顺序，未设置的列使用默认值
+            assertEquals("msg_batch_" + i, saved.get(i).getId());
+            assertEquals("original", saved.get(i).getMessageStatus());
+            assertEquals(0L, (long) saved.get(i).getVersion());
+        }
+    }
+
+    @Test
+    public void testReshardMigration() {
+        ShardRouter single = router(1);
+        List<String> threadIds = writeThreads(new MessageRepo(null, single), new RunStepRepo(null, single));
+        assertEquals(THREADS * 2, dsl.fetchCount(MESSAGE));
+
+        // 1 -> 4
+        ShardRouter four = router(4);
+        migrator(four).migrate(1, 4, 7);
+        assertEquals(0, dsl.fetchCount(MESSAGE));
+        assertEquals(0, dsl.fetchCount(RUN_STEP));
+        assertEquals(THREADS * 2, totalCount("message", 4));
+        assertEquals(THREADS, totalCount("run_step", 4));
+        assertReadable(four, threadIds);
+
+        // 4 -> 2，重复执行不会重复迁移
+        ShardRouter two = router(2);
+        migrator(two).migrate(4, 2, 3);
+        migrator(two).migrate(4, 2, 3);
+        assertEquals(0, count("message_2") + count("message_3"));
+        assertEquals(THREADS * 2, count("message_0") + count("message_1"));
+        assertEquals(THREADS, count("run_step_0") + count("run_step_1"));
+        assertReadable(two, threadIds);
+    }
+
+    @Test
+    public void testNoStoreModeBypassesShards() {
+        ShardRouter router = router(4);
+        MessageRepo messageRepo = new MessageRepo(null, router);
+        RepoContext.activate();
+        try {
+            // no-store模式下分表尚未创建也可以正常读写
+            MessageDb message = message("thread_no_store", "msg_no_store");
+            messageRepo.insert(message);
+            assertEquals(1, messageRepo.findByThreadId("thread_no_store").size());
+        } finally {
+            RepoContext.detach();
+        }
+    }
+
+    private void assertReadable(ShardRouter router, List<String> threadIds) {
+        MessageRepo messageRepo = new MessageRepo(null, router);
+        RunStepRepo runStepRepo = new RunStepRepo(null, router);
+        for (String threadId : threadIds) {
+            assertEquals(2, messageRepo.findByThreadId(threadId).size(), threadId);
+            assertEquals(1, runStepRepo.findByThreadId(threadId).size(), threadId);
+        }
+    }
+
+    private List<String> writeThreads(MessageRepo messageRepo, RunStepRepo runStepRepo) {
+        List<String> threadIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String threadId = "thread_" + i;
+            threadIds.add(threadId);
+            messageRepo.insert(message(threadId, threadId + "_msg_0"));
+            messageRepo.insert(message(threadId, threadId + "_msg_1"));
+            RunStepDb step = new RunStepDb();
+            step.setId(threadId + "_step");
+            step.setThreadId(threadId);
+            step.setRunId(threadId + "_run");
+            step.setStatus("in_progress");
+            step.setType("message_creation");
+            runStepRepo.insert(step);
+        }
+        return threadIds;
+    }
+
+    private static MessageDb message(String threadId, String id) {
+        MessageDb message = new MessageDb();
+        message.setId(id);
+        message.setThreadId(threadId);
+        message.setRole("user");
+        message.setContent("[]");
+        return message;
+    }
+
+    private int countByThread(String table, String threadId) {
+        return dsl.fetchCount(DSL.table(DSL.name(table)), DSL.field(DSL.name("thread_id")).eq(threadId));
+    }
+
+    private int count(String table) {
+        return dsl.fetchCount(DSL.table(DSL.name(table)));
+    }
+
+    private int totalCount(String base, int shardCount) {
+        int total = 0;
+        for (int i = 0; i < shardCount; i++) {
+            total += count(ShardRouter.tableName(base, i, shardCount));
+        }
+        return total;
+    }
+
+    private ShardRouter router(int shardCount) {
+        AssistantProperties properties = new AssistantProperties();
+        properties.getSharding().setShardCount(shardCount);
+        ShardRouter router = new ShardRouter();
+        ReflectionTestUtils.setField(router, "dsl", dsl);
+        ReflectionTestUtils.setField(router, "assistantProperties", properties);
+        router.init();
+        return router;
+    }
+
+    private ShardMigrator migrator(ShardRouter router) {
+        ShardMigrator migrator = new ShardMigrator();
+        ReflectionTestUtils.setField(migrator, "shardRouter", router);
+        ReflectionTestUtils.setField(migrator, "assistantProperties", new AssistantProperties());
+        return migrator;
+    }
+}
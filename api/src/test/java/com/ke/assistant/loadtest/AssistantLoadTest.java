@@ -0,0 +1,89 @@
+package com.ke.assistant.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.bella.openapi.server.BellaService;
+
+/**
+ * 端到端压测：真实的Controller/RunExecutor/ToolExecutor + H2存储 + 本地模拟模型服务
+ * 默认不执行，使用 mvn test -Dtest=AssistantLoadTest -Dloadtest=true 启动，
+ * 可通过 -Dloadtest.concurrency / -Dloadtest.total / -Dloadtest.tps / -Dloadtest.ttft / -Dloadtest.errorRatio 调整参数
+ * 报告输出到 target/loadtest-report.json
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@EnableConfigurationProperties(AssistantProperties.class)
+@ComponentScan(basePackages = {"com.ke.assistant"})
+@BellaService
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class AssistantLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 50);
+    private static final int TOTAL = Integer.getInteger("loadtest.total", 500);
+
+    private static final MockModelServer MOCK_SERVER = startMockServer();
+
+    @LocalServerPort
+    private int port;
+
+    private static MockModelServer startMockServer() {
+        MockModelServer.Config config = new MockModelServer.Config();
+        config.setTokensPerSecond(Integer.getInteger("loadtest.tps", 50));
+        config.setTtftMillis(Long.getLong("loadtest.ttft", 200L));
+        config.setCompletionTokens(Integer.getInteger("loadtest.tokens", 100));
+        config.setToolCallRatio(Double.parseDouble(System.getProperty("loadtest.toolCallRatio", "0.5")));
+        double errorRatio = Double.parseDouble(System.getProperty("loadtest.errorRatio", "0"));
+        config.setRateLimitRatio(errorRatio / 2);
+        config.setServerErrorRatio(errorRatio / 2);
+        try {
+            return new MockModelServer(config).start();
+        } catch (Exception e) {
+            throw new IllegalStateException("mock model server start failed", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mockEndpoints(DynamicPropertyRegistry registry) {
+        registry.add("bella.openapi.host", MOCK_SERVER::baseUrl);
+        registry.add("bella.assistant.tools.rag.url", () -> MOCK_SERVER.baseUrl() + "/mock/rag");
+        registry.add("bella.assistant.tools.web-search-tavily.url", () -> MOCK_SERVER.baseUrl() + "/mock/search");
+    }
+
+    @AfterAll
+    static void stopMockServer() {
+        MOCK_SERVER.close();
+    }
+
+    @Test
+    void loadTest() throws Exception {
+        LoadTestDriver driver = new LoadTestDriver("http://127.0.0.1:" + port, "loadtest", "mock-model");
+        String assistantId = driver.createAssistant(List.of("web_search_tavily"));
+
+        List<LoadTestReport> reports = new ArrayList<>();
+        reports.add(driver.runAssistants(assistantId, CONCURRENCY, TOTAL, true));
+        reports.add(driver.runAssistants(assistantId, CONCURRENCY, TOTAL, false));
+        reports.add(driver.runResponses(CONCURRENCY, TOTAL, true));
+        reports.add(driver.runResponses(CONCURRENCY, TOTAL, false));
+
+        new File("target").mkdirs();
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File("target/loadtest-report.json"), reports);
+
+        reports.forEach(report -> Assertions.assertTrue(report.getSucceeded() > 0, report.getScenario() + " has no successful request"));
+    }
+}
@@ -0,0 +1,197 @@
+package com.ke.assistant.loadtest;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 压测驱动：通过HTTP接口并发发起run/response，统计端到端延迟
+ */
+@Slf4j
+public class LoadTestDriver {
+
+    private static final Set<String> TERMINAL_STATUS = Set.of("completed", "failed", "cancelled", "expired", "incomplete", "requires_action");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String apiKey;
+    private final String model;
+
+    public LoadTestDriver(String baseUrl, String apiKey, String model) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "load-test-http");
+                    t.setDaemon(true);
+                    return t;
+                }))
+                .build();
+    }
+
+    /**
+     * 创建一个带工具的assistant，供run场景使用
+     */
+    public String createAssistant(List<String> tools) throws Exception {
+        List<Map<String, Object>> toolList = new ArrayList<>();
+        tools.forEach(tool -> toolList.add(Map.of("type", tool)));
+        JsonNode json = postJson("/v1/assistants", Map.of(
+                "name", "load-test",
+                "model", model,
+                "instructions", "You are a load test assistant.",
+                "tools", toolList));
+        return json.path("id").asText();
+    }
+
+    public LoadTestReport runAssistants(String assistantId, int concurrency, int total, boolean stream) throws Exception {
+        return execute((stream ? "run-stream" : "run-blocking"), concurrency, total, recorder -> {
+            long start = System.nanoTime();
+            JsonNode thread = postJson("/v1/threads", Map.of("messages",
+                    List.of(Map.of("role", "user", "content", "hello from load test"))));
+            String threadId = thread.path("id").asText();
+            String path = "/v1/threads/" + threadId + "/runs";
+            Map<String, Object> body = Map.of("assistant_id", assistantId, "stream", stream);
+            if(stream) {
+                long ttft = stream(path, body, start);
+                recorder.success(millisSince(start), ttft);
+            } else {
+                JsonNode run = postJson(path, body);
+                String runId = run.path("id").asText();
+                while (!TERMINAL_STATUS.contains(run.path("status").asText())) {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                    run = getJson(path + "/" + runId);
+                }
+                recorder.success(millisSince(start), -1);
+            }
+        });
+    }
+
+    public LoadTestReport runResponses(int concurrency, int total, boolean stream) throws Exception {
+        return execute((stream ? "response-stream" : "response-blocking"), concurrency, total, recorder -> {
+            long start = System.nanoTime();
+            Map<String, Object> body = Map.of("model", model, "input", "hello from load test", "stream", stream);
+            if(stream) {
+                long ttft = stream("/v1/responses", body, start);
+                recorder.success(millisSince(start), ttft);
+            } else {
+                postJson("/v1/responses", body);
+                recorder.success(millisSince(start), -1);
+            }
+        });
+    }
+
+    private LoadTestReport execute(String scenario, int concurrency, int total, Task task) throws Exception {
+        LoadTestReport.Recorder recorder = new LoadTestReport.Recorder();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "load-test-driver");
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(total);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < total; i++) {
+                permits.acquire();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        task.run(recorder);
+                    } catch (Exception e) {
+                        log.warn("load test request failed: {}", e.getMessage());
+                        recorder.failure();
+                    } finally {
+                        permits.release();
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            pool.shutdownNow();
+        }
+        LoadTestReport report = recorder.build(scenario, concurrency, millisSince(start));
+        log.info("load test report: {}", mapper.writeValueAsString(report));
+        return report;
+    }
+
+    /**
+     * 读取SSE流直到结束，返回首个delta事件的耗时
+     */
+    private long stream(String path, Object body, long start) throws Exception {
+        HttpResponse<InputStream> response = client.send(request(path)
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException("stream request failed with status " + response.statusCode());
+        }
+        long ttft = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if(ttft < 0 && line.contains("delta")) {
+                    ttft = millisSince(start);
+                }
+            }
+        }
+        return ttft;
+    }
+
+    private JsonNode postJson(String path, Object body) throws Exception {
+        HttpResponse<byte[]> response = client.send(request(path)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        return check(path, response);
+    }
+
+    private JsonNode getJson(String path) throws Exception {
+        HttpResponse<byte[]> response = client.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        return check(path, response);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(10))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey);
+    }
+
+    private JsonNode check(String path, HttpResponse<byte[]> response) throws Exception {
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException(path + " failed with status " + response.statusCode()
+                    + ": " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return mapper.readTree(response.body());
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(LoadTestReport.Recorder recorder) throws Exception;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ke.assistant.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Data;
+
+/**
+ * 压测报告：吞吐、延迟分位、线程数和堆内存
+ */
+@Data
+public class LoadTestReport {
+    private String scenario;
+    private int concurrency;
+    private int total;
+    private int succeeded;
+    private int failed;
+    private long elapsedMillis;
+    private double throughput;
+    private long p50Millis;
+    private long p90Millis;
+    private long p99Millis;
+    private long maxMillis;
+    private long ttftP50Millis;
+    private long ttftP99Millis;
+    private int peakThreads;
+    private Map<String, Integer> threadsByPool;
+    private long heapUsedBytes;
+    private long heapCommittedBytes;
+
+    /**
+     * 压测过程中的采样数据
+     */
+    public static class Recorder {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Long> ttfts = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        public void success(long latencyMillis, long ttftMillis) {
+            succeeded.incrementAndGet();
+            latencies.add(latencyMillis);
+            if(ttftMillis >= 0) {
+                ttfts.add(ttftMillis);
+            }
+        }
+
+        public void failure() {
+            failed.incrementAndGet();
+        }
+
+        public LoadTestReport build(String scenario, int concurrency, long elapsedMillis) {
+            LoadTestReport report = new LoadTestReport();
+            report.setScenario(scenario);
+            report.setConcurrency(concurrency);
+            report.setSucceeded(succeeded.get());
+            report.setFailed(failed.get());
+            report.setTotal(succeeded.get() + failed.get());
+            report.setElapsedMillis(elapsedMillis);
+            report.setThroughput(elapsedMillis == 0 ? 0 : succeeded.get() * 1000.0 / elapsedMillis);
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            report.setP50Millis(percentile(sorted, 0.50));
+            report.setP90Millis(percentile(sorted, 0.90));
+            report.setP99Millis(percentile(sorted, 0.99));
+            report.setMaxMillis(sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1));
+
+            List<Long> sortedTtft = new ArrayList<>(ttfts);
+            Collections.sort(sortedTtft);
+            report.setTtftP50Millis(percentile(sortedTtft, 0.50));
+            report.setTtftP99Millis(percentile(sortedTtft, 0.99));
+
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            report.setPeakThreads(threadMXBean.getPeakThreadCount());
+            report.setThreadsByPool(threadsByPool());
+
+            MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+            report.setHeapUsedBytes(memoryMXBean.getHeapMemoryUsage().getUsed());
+            report.setHeapCommittedBytes(memoryMXBean.getHeapMemoryUsage().getCommitted());
+            return report;
+        }
+
+        private static long percentile(List<Long> sorted, double p) {
+            if(sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+
+        /**
+         * 按线程名前缀（去掉末尾编号）统计存活线程
+         */
+        private static Map<String, Integer> threadsByPool() {
+            Map<String, Integer> result = new TreeMap<>();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                String pool = thread.getName().replaceAll("[-_]?\\d+$", "");
+                result.merge(pool, 1, Integer::sum);
+            }
+            return result;
+        }
+    }
+}
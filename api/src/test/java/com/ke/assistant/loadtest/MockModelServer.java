@@ -0,0 +1,348 @@
+package com.ke.assistant.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地模拟的模型与工具服务，用于端到端压测
+ * 1、OpenAI兼容的 chat/completions 接口，支持流式输出、首token延迟、输出速率、工具调用和错误注入
+ * 2、RAG（SSE）与 Tavily 搜索接口
+ */
+@Slf4j
+public class MockModelServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Config config;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong toolRequests = new AtomicLong();
+
+    public MockModelServer(Config config) throws IOException {
+        this.config = config;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.getPort()), 1024);
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mock-model-server");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+        server.createContext("/", this::dispatch);
+    }
+
+    public MockModelServer start() {
+        server.start();
+        log.info("mock model server started at {}", baseUrl());
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getChatRequests() {
+        return chatRequests.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public long getToolRequests() {
+        return toolRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if(path.endsWith("/chat/completions")) {
+                chatCompletions(exchange);
+            } else if(path.endsWith(config.getRagPath())) {
+                rag(exchange);
+            } else if(path.endsWith(config.getSearchPath())) {
+                search(exchange);
+            } else if(path.contains("/apikey/")) {
+                writeJson(exchange, 200, config.getApikeyResponse());
+            } else {
+                writeJson(exchange, 404, Map.of("error", Map.of("message", "not found: " + path)));
+            }
+        } catch (IOException e) {
+            // 客户端主动断开（取消、超时）时忽略
+            log.debug("mock server write failed: {}", e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void chatCompletions(HttpExchange exchange) throws IOException {
+        chatRequests.incrementAndGet();
+        JsonNode request = readBody(exchange);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        double dice = random.nextDouble();
+        if(dice < config.getRateLimitRatio()) {
+            injectedErrors.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            writeJson(exchange, 429, Map.of("error", Map.of("message", "rate limited by mock", "type", "rate_limit")));
+            return;
+        }
+        if(dice < config.getRateLimitRatio() + config.getServerErrorRatio()) {
+            injectedErrors.incrementAndGet();
+            writeJson(exchange, 502, Map.of("error", Map.of("message", "bad gateway by mock", "type", "server_error")));
+            return;
+        }
+
+        String model = request.path("model").asText("mock-model");
+        boolean stream = request.path("stream").asBoolean(false);
+        String toolName = pickToolCall(request, random);
+
+        sleep(config.getTtftMillis());
+        if(!stream) {
+            writeJson(exchange, 200, completion(model, toolName));
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            String id = "chatcmpl-" + UUID.randomUUID();
+            long created = System.currentTimeMillis() / 1000;
+            if(toolName != null) {
+                Map<String, Object> function = new HashMap<>();
+                function.put("name", toolName);
+                function.put("arguments", "{\"query\":\"bella assistant load test\"}");
+                Map<String, Object> toolCall = new HashMap<>();
+                toolCall.put("index", 0);
+                toolCall.put("id", "call_" + UUID.randomUUID().toString().replace("-", ""));
+                toolCall.put("type", "function");
+                toolCall.put("function", function);
+                writeChunk(out, chunk(id, created, model, Map.of("role", "assistant", "tool_calls", List.of(toolCall)), null, null));
+                writeChunk(out, chunk(id, created, model, Map.of(), "tool_calls", usage(1)));
+            } else {
+                long intervalNanos = config.getTokensPerSecond() <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / config.getTokensPerSecond();
+                for (int i = 0; i < config.getCompletionTokens(); i++) {
+                    Map<String, Object> delta = i == 0 ? Map.of("role", "assistant", "content", "tok" + i + " ") : Map.of("content", "tok" + i + " ");
+                    writeChunk(out, chunk(id, created, model, delta, null, null));
+                    if(intervalNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                    }
+                }
+                writeChunk(out, chunk(id, created, model, Map.of(), "stop", usage(config.getCompletionTokens())));
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 最后一条消息不是工具结果时，按比例对请求中的第一个工具发起调用
+     */
+    private String pickToolCall(JsonNode request, ThreadLocalRandom random) {
+        JsonNode tools = request.path("tools");
+        if(!tools.isArray() || tools.isEmpty() || random.nextDouble() >= config.getToolCallRatio()) {
+            return null;
+        }
+        JsonNode messages = request.path("messages");
+        if(messages.isArray() && !messages.isEmpty() && "tool".equals(messages.get(messages.size() - 1).path("role").asText())) {
+            return null;
+        }
+        return tools.get(0).path("function").path("name").asText(null);
+    }
+
+    private Map<String, Object> completion(String model, String toolName) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("role", "assistant");
+        String finishReason = "stop";
+        if(toolName != null) {
+            message.put("tool_calls", List.of(Map.of("id", "call_" + UUID.randomUUID().toString().replace("-", ""),
+                    "type", "function",
+                    "function", Map.of("name", toolName, "arguments", "{\"query\":\"bella assistant load test\"}"))));
+            finishReason = "tool_calls";
+        } else {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < config.getCompletionTokens(); i++) {
+                content.append("tok").append(i).append(' ');
+            }
+            message.put("content", content.toString());
+        }
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("message", message);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", "chatcmpl-" + UUID.randomUUID());
+        body.put("object", "chat.completion");
+        body.put("created", System.currentTimeMillis() / 1000);
+        body.put("model", model);
+        body.put("choices", List.of(choice));
+        body.put("usage", usage(config.getCompletionTokens()));
+        return body;
+    }
+
+    private Map<String, Object> chunk(String id, long created, String model, Map<String, Object> delta, String finishReason, Map<String, Object> usage) {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", id);
+        body.put("object", "chat.completion.chunk");
+        body.put("created", created);
+        body.put("model", model);
+        body.put("choices", List.of(choice));
+        if(usage != null) {
+            body.put("usage", usage);
+        }
+        return body;
+    }
+
+    private Map<String, Object> usage(int completionTokens) {
+        return Map.of("prompt_tokens", 100, "completion_tokens", completionTokens, "total_tokens", 100 + completionTokens);
+    }
+
+    private void rag(HttpExchange exchange) throws IOException {
+        toolRequests.incrementAndGet();
+        readBody(exchange);
+        sleep(config.getToolLatencyMillis());
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            Map<String, Object> retrieval = Map.of("id", "mock", "object", "retrieval.doc",
+                    "doc", List.of(Map.of("type", "text", "text", "mock document",
+                            "annotation", Map.of("file_id", "file-mock", "file_name", "mock.pdf", "paths", List.of(1)),
+                            "score", 0.9)));
+            writeEvent(out, "retrieval.completed", retrieval);
+            for (int i = 0; i < 5; i++) {
+                writeEvent(out, "message.delta", Map.of("delta", List.of(Map.of("type", "text", "text", Map.of("value", "rag" + i + " ")))));
+            }
+            writeEvent(out, "done", Map.of());
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        toolRequests.incrementAndGet();
+        JsonNode request = readBody(exchange);
+        sleep(config.getToolLatencyMillis());
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(Map.of("title", "mock result " + i,
+                    "url", "https://example.com/mock/" + i,
+                    "content", "mock search content " + i,
+                    "score", 0.9 - i * 0.1));
+        }
+        writeJson(exchange, 200, Map.of("query", request.path("query").asText(""), "results", results));
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            return bytes.length == 0 ? MAPPER.createObjectNode() : MAPPER.readTree(bytes);
+        }
+    }
+
+    private void writeJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void writeChunk(OutputStream out, Object chunk) throws IOException {
+        out.write(("data: " + MAPPER.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void writeEvent(OutputStream out, String event, Object data) throws IOException {
+        out.write(("event: " + event + "\ndata: " + MAPPER.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sleep(long millis) {
+        if(millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Data
+    public static class Config {
+        /**
+         * 监听端口，0表示随机端口
+         */
+        private int port = 0;
+        /**
+         * 首token延迟
+         */
+        private long ttftMillis = 200;
+        /**
+         * 每秒输出token数，<=0 表示不限速
+         */
+        private int tokensPerSecond = 50;
+        /**
+         * 每次回复输出的token数
+         */
+        private int completionTokens = 100;
+        /**
+         * 请求携带工具时发起工具调用的比例
+         */
+        private double toolCallRatio = 0.5;
+        /**
+         * 返回429的比例
+         */
+        private double rateLimitRatio = 0.0;
+        /**
+         * 返回5xx的比例
+         */
+        private double serverErrorRatio = 0.0;
+        /**
+         * 工具接口的处理耗时
+         */
+        private long toolLatencyMillis = 100;
+        private String ragPath = "/mock/rag";
+        private String searchPath = "/mock/search";
+        /**
+         * apikey鉴权接口的固定返回
+         */
+        private Map<String, Object> apikeyResponse = Map.of("code", 200, "data",
+                Map.of("code", "ak-loadtest", "akSha", "loadtest", "ownerType", "person", "ownerCode", "loadtest", "status", "active"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.ke.assistant.mesh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceMesh 契约测试，各实现继承本类并提供共享同一后端的多个实例
+ */
+public abstract class ServiceMeshContractTest {
+
+    private final List<ServiceMesh> started = new ArrayList<>();
+
+    /**
+     * 创建 count 个共享同一后端的实例，不需要调用start
+     */
+    protected abstract List<ServiceMesh> createMeshes(int count);
+
+    private List<ServiceMesh> start(int count) {
+        List<ServiceMesh> meshes = createMeshes(count);
+        for (ServiceMesh mesh : meshes) {
+            mesh.start();
+            started.add(mesh);
+        }
+        return meshes;
+    }
+
+    @AfterEach
+    public void stopAll() {
+        started.forEach(ServiceMesh::stop);
+        started.clear();
+    }
+
+    @Test
+    public void testBroadcastDeliveredToOtherInstances() throws Exception {
+        List<ServiceMesh> meshes = start(3);
+        BlockingQueue<Event> second = listen(meshes.get(1), "contract-broadcast");
+        BlockingQueue<Event> third = listen(meshes.get(2), "contract-broadcast");
+        BlockingQueue<Event> self = listen(meshes.get(0), "contract-broadcast");
+
+        Event event = Event.builder().name("contract-broadcast").payload("p1").metadata(Map.of("k", "v")).build();
+        meshes.get(0).sendBroadcastMessage(event);
+
+        for (BlockingQueue<Event> queue : List.of(second, third)) {
+            Event received = queue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(received);
+            assertEquals("p1", received.getPayload());
+            assertEquals("v", received.getMetadata().get("k"));
+            assertEquals(meshes.get(0).getInstanceId(), received.getSourceInstanceId());
+        }
+        // 忽略自己发送的消息
+        assertNull(self.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testPrivateMessageDeliveredOnlyToTarget() throws Exception {
+        List<ServiceMesh> meshes = start(3);
+        BlockingQueue<Event> target = listen(meshes.get(1), "contract-private");
+        BlockingQueue<Event> other = listen(meshes.get(2), "contract-private");
+
+        meshes.get(0).sendPrivateMessage(meshes.get(1).getInstanceId(), Event.builder().name("contract-private").payload("p2").build());
+
+        Event received = target.poll(5, TimeUnit.SECONDS);
+        assertNotNull(received);
+        assertEquals("p2", received.getPayload());
+        assertEquals(meshes.get(1).getInstanceId(), received.getTargetInstanceId());
+        assertNull(other.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRemovedListenerNotInvoked() throws Exception {
+        List<ServiceMesh> meshes = start(2);
+        BlockingQueue<Event> queue = listen(meshes.get(1), "contract-removed");
+        meshes.get(1).removeListener("contract-removed");
+
+        meshes.get(0).sendBroadcastMessage(Event.builder().name("contract-removed").build());
+
+        assertNull(queue.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRunningRunVisibleToOtherInstances() throws Exception {
+        List<ServiceMesh> meshes = start(2);
+        String runId = "run_" + UUID.randomUUID();
+
+        meshes.get(0).addRunningRun(runId, 60);
+        assertEquals(meshes.get(0).getInstanceId(), meshes.get(0).getRunningRunInstanceId(runId));
+        awaitTrue(() -> meshes.get(0).getInstanceId().equals(meshes.get(1).getRunningRunInstanceId(runId)));
+
+        meshes.get(0).removeRunningRun(runId);
+        assertNull(meshes.get(0).getRunningRunInstanceId(runId));
+        awaitTrue(() -> meshes.get(1).getRunningRunInstanceId(runId) == null);
+    }
+
+    @Test
+    public void testRemoveKeepsMappingOfNewOwner() throws Exception {
+        List<ServiceMesh> meshes = start(2);
+        String runId = "run_" + UUID.randomUUID();
+
+        meshes.get(0).addRunningRun(runId, 60);
+        awaitTrue(() -> meshes.get(0).getInstanceId().equals(meshes.get(1).getRunningRunInstanceId(runId)));
+
+        // run交接到第二个实例后，原实例的移除不影响新的映射
+        meshes.get(1).addRunningRun(runId, 60);
+        meshes.get(0).removeRunningRun(runId);
+        awaitTrue(() -> meshes.get(1).getInstanceId().equals(meshes.get(0).getRunningRunInstanceId(runId)));
+        Thread.sleep(200);
+        assertEquals(meshes.get(1).getInstanceId(), meshes.get(1).getRunningRunInstanceId(runId));
+
+        meshes.get(1).removeRunningRun(runId);
+        awaitTrue(() -> meshes.get(0).getRunningRunInstanceId(runId) == null);
+    }
+
+    @Test
+    public void testRunningRunExpires() throws Exception {
+        List<ServiceMesh> meshes = start(2);
+        String runId = "run_" + UUID.randomUUID();
+
+        meshes.get(0).addRunningRun(runId, 1);
+        awaitTrue(() -> meshes.get(1).getRunningRunInstanceId(runId) != null);
+
+        awaitTrue(() -> meshes.get(1).getRunningRunInstanceId(runId) == null);
+        assertNull(meshes.get(0).getRunningRunInstanceId(runId));
+    }
+
+    @Test
+    public void testOnlineInstances() {
+        List<ServiceMesh> meshes = start(2);
+
+        for (ServiceMesh mesh : meshes) {
+            assertTrue(meshes.get(0).getOnlineInstances().contains(mesh.getInstanceId()));
+            assertTrue(meshes.get(1).isInstanceOnline(mesh.getInstanceId()));
+        }
+
+        ServiceMesh stopped = meshes.get(1);
+        stopped.stop();
+        started.remove(stopped);
+        assertFalse(meshes.get(0).isInstanceOnline(stopped.getInstanceId()));
+        assertFalse(meshes.get(0).getOnlineInstances().contains(stopped.getInstanceId()));
+    }
+
+    private static BlockingQueue<Event> listen(ServiceMesh mesh, String eventName) {
+        BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+        mesh.registerListener(eventName, queue::add);
+        return queue;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+}
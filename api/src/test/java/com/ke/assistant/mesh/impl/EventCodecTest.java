@@ -0,0 +1,77 @@
+package com.ke.assistant.mesh.impl;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.ke.assistant.mesh.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EventCodec 测试
+ */
+public class EventCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("text", "取消");
+        metadata.put("long", -42L);
+        metadata.put("int", 7);
+        metadata.put("double", 0.25);
+        metadata.put("flag", true);
+        metadata.put("none", null);
+        metadata.put("list", List.of("a", "b"));
+        Event event = Event.builder()
+                .name("cancelAssistantRun")
+                .payload("run_123")
+                .metadata(metadata)
+                .timestamp(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123456789))
+                .sourceInstanceId("10.0.0.1:8080-abcd")
+                .targetInstanceId("10.0.0.2:8080-efgh")
+                .build();
+
+        Event decoded = EventCodec.decode(EventCodec.encode(event));
+
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    public void testNullFields() {
+        Event event = new Event();
+        event.setTimestamp(null);
+        Event decoded = EventCodec.decode(EventCodec.encode(event));
+        assertEquals(event, decoded);
+        assertNull(decoded.getMetadata());
+    }
+
+    @Test
+    public void testDecodeJsonFromOlderInstances() {
+        Event event = Event.cancelEvent("run_456");
+        event.setSourceInstanceId("old-instance");
+
+        Event decoded = EventCodec.decode(EventCodec.encodeJson(event));
+
+        assertEquals("run_456", decoded.getPayload());
+        assertEquals("old-instance", decoded.getSourceInstanceId());
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() {
+        Event event = Event.cancelEvent("run_789");
+        event.setSourceInstanceId("10.0.0.1:8080-abcd");
+        assertTrue(EventCodec.encode(event).length * 2 < EventCodec.encodeJson(event).length);
+    }
+
+    @Test
+    public void testTruncatedInputRejected() {
+        byte[] data = EventCodec.encode(Event.cancelEvent("run_1"));
+        byte[] truncated = new byte[data.length - 3];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(truncated));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ke.assistant.mesh.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EventDispatcher 测试类
+ * 验证同一key的事件按顺序执行，以及队列满时不阻塞发送线程、不丢弃事件
+ */
+public class EventDispatcherTest {
+
+    private final EventDispatcher dispatcher = new EventDispatcher("test-dispatcher-", 4, 8);
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSameKeyInOrderWithoutDrop() throws Exception {
+        int runs = 10;
+        int eventsPerRun = 200;
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(runs * eventsPerRun);
+        for (int i = 0; i < eventsPerRun; i++) {
+            for (int r = 0; r < runs; r++) {
+                String runId = "run_" + r;
+                int seq = i;
+                dispatcher.dispatch(event -> {
+                    received.computeIfAbsent(runId, k -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                    done.countDown();
+                }, Event.builder().name("cancelAssistantRun").payload(runId).build());
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> seqs : received.values()) {
+            assertEquals(eventsPerRun, seqs.size());
+            for (int i = 0; i < eventsPerRun; i++) {
+                assertEquals(i, seqs.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testFullQueueDoesNotBlockSender() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(20);
+        Thread sender = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                int seq = i;
+                dispatcher.dispatch(event -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    received.add(seq);
+                    done.countDown();
+                }, Event.builder().name("resumeAssistantRun").payload("run_blocked").build());
+            }
+        });
+        sender.start();
+
+        // 通道队列容量为2，执行中的事件阻塞时发送线程不等待，超出的事件计为溢出
+        sender.join(1000);
+        assertFalse(sender.isAlive());
+        assertEquals(17, dispatcher.getOverflowCount());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, received.get(i).intValue());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.mesh.ServiceMesh;
+import com.ke.assistant.mesh.ServiceMeshContractTest;
+
+/**
+ * LocalMesh 契约测试，多个实例共享同一个 LocalMeshHub
+ */
+public class LocalMeshTest extends ServiceMeshContractTest {
+
+    @Override
+    protected List<ServiceMesh> createMeshes(int count) {
+        LocalMeshHub hub = new LocalMeshHub();
+        List<ServiceMesh> meshes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalMesh mesh = new LocalMesh(new AssistantProperties(), hub);
+            mesh.init();
+            meshes.add(mesh);
+        }
+        return meshes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ke.assistant.mesh.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.mesh.ServiceMesh;
+import com.ke.assistant.mesh.ServiceMeshContractTest;
+
+/**
+ * RedisMesh 契约测试，需要真实的Redis：-Dredis.address=redis://127.0.0.1:6379
+ */
+@EnabledIfSystemProperty(named = "redis.address", matches = ".+")
+public class RedisMeshTest extends ServiceMeshContractTest {
+
+    private RedissonClient redissonClient;
+
+    @Override
+    protected List<ServiceMesh> createMeshes(int count) {
+        Config config = new Config();
+        config.setCodec(StringCodec.INSTANCE);
+        config.useSingleServer().setAddress(System.getProperty("redis.address"));
+        redissonClient = Redisson.create(config);
+        List<ServiceMesh> meshes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            RedisMesh mesh = new RedisMesh(redissonClient, new AssistantProperties());
+            mesh.init();
+            meshes.add(mesh);
+        }
+        return meshes;
+    }
+
+    @Override
+    @AfterEach
+    public void stopAll() {
+        super.stopAll();
+        if(redissonClient != null) {
+            redissonClient.shutdown();
+        }
+    }
+}
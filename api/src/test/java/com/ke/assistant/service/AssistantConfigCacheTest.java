@@ -0,0 +1,263 @@
+package com.ke.assistant.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.db.generated.tables.pojos.AssistantDb;
+import com.ke.assistant.db.generated.tables.pojos.AssistantFileRelationDb;
+import com.ke.assistant.db.generated.tables.pojos.AssistantToolDb;
+import com.ke.assistant.db.repo.AssistantFileRelationRepo;
+import com.ke.assistant.db.repo.AssistantRepo;
+import com.ke.assistant.db.repo.AssistantToolRepo;
+import com.ke.assistant.mesh.Event;
+import com.ke.assistant.mesh.EventConstants;
+import com.ke.assistant.mesh.impl.LocalMesh;
+import com.ke.assistant.mesh.impl.LocalMeshHub;
+import com.theokanning.openai.assistants.assistant.Assistant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AssistantService 配置缓存测试
+ * 验证更新、删除及其他实例的变更广播清除缓存，加载期间发生变更时不缓存旧配置，以及旧版本的变更不清除新配置
+ */
+public class AssistantConfigCacheTest {
+
+    private static final String ASSISTANT_ID = "asst_1";
+
+    private AssistantProperties properties;
+    private LocalMeshHub hub;
+    private List<LocalMesh> meshes;
+    private FakeAssistantRepo assistantRepo;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new AssistantProperties();
+        hub = new LocalMeshHub();
+        meshes = new ArrayList<>();
+        assistantRepo = new FakeAssistantRepo();
+        assistantRepo.put(assistant("v1", LocalDateTime.of(2025, 1, 1, 0, 0)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        meshes.forEach(LocalMesh::stop);
+    }
+
+    @Test
+    public void testCachedUntilUpdated() {
+        AssistantService service = newService();
+
+        Assistant first = service.getAssistantConfig(ASSISTANT_ID);
+        Assistant second = service.getAssistantConfig(ASSISTANT_ID);
+        assertSame(first, second);
+        assertEquals(1, assistantRepo.loads.get());
+
+        service.updateAssistant(ASSISTANT_ID, update("v2"), null, null, null);
+
+        assertEquals("v2", service.getAssistantConfig(ASSISTANT_ID).getName());
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        AssistantService service = newService();
+        assertNotNull(service.getAssistantConfig(ASSISTANT_ID));
+
+        assertTrue(service.deleteAssistant(ASSISTANT_ID, "owner"));
+
+        assertNull(service.getAssistantConfig(ASSISTANT_ID));
+    }
+
+    @Test
+    public void testRemoteUpdateInvalidates() throws Exception {
+        AssistantService local = newService();
+        AssistantService remote = newService();
+        assertEquals("v1", local.getAssistantConfig(ASSISTANT_ID).getName());
+
+        remote.updateAssistant(ASSISTANT_ID, update("v2"), null, null, null);
+
+        // 广播异步送达
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!"v2".equals(local.getAssistantConfig(ASSISTANT_ID).getName())) {
+            assertTrue(System.currentTimeMillis() < deadline, "change broadcast not received");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testStaleLoadNotCached() {
+        AssistantService service = newService();
+        // 读取到v1之后、写入缓存之前，其他实例将配置更新为v2，变更消息先于写入缓存到达
+        assistantRepo.afterLoad = () -> {
+            assistantRepo.put(assistant("v2", LocalDateTime.of(2025, 1, 2, 0, 0)));
+            ReflectionTestUtils.invokeMethod(service, "onAssistantChanged", changed(assistantRepo.versionOf(ASSISTANT_ID)));
+        };
+
+        assertEquals("v1", service.getAssistantConfig(ASSISTANT_ID).getName());
+
+        assertEquals("v2", service.getAssistantConfig(ASSISTANT_ID).getName());
+    }
+
+    @Test
+    public void testOlderChangeKeepsNewerConfig() {
+        AssistantService service = newService();
+        Assistant cached = service.getAssistantConfig(ASSISTANT_ID);
+        long version = assistantRepo.versionOf(ASSISTANT_ID);
+
+        ReflectionTestUtils.invokeMethod(service, "onAssistantChanged", changed(version - 1));
+        assertSame(cached, service.getAssistantConfig(ASSISTANT_ID));
+
+        ReflectionTestUtils.invokeMethod(service, "onAssistantChanged", changed(version));
+        assertNotSame(cached, service.getAssistantConfig(ASSISTANT_ID));
+        assertEquals(2, assistantRepo.loads.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        properties.getAssistantCache().setEnabled(false);
+        AssistantService service = newService();
+
+        service.getAssistantConfig(ASSISTANT_ID);
+        service.getAssistantConfig(ASSISTANT_ID);
+
+        assertEquals(2, assistantRepo.loads.get());
+    }
+
+    private AssistantService newService() {
+        LocalMesh mesh = new LocalMesh(properties, hub);
+        mesh.init();
+        mesh.start();
+        meshes.add(mesh);
+        AssistantService service = new AssistantService();
+        ReflectionTestUtils.setField(service, "assistantRepo", assistantRepo);
+        ReflectionTestUtils.setField(service, "assistantFileRepo", new EmptyFileRepo());
+        ReflectionTestUtils.setField(service, "assistantToolRepo", new EmptyToolRepo());
+        ReflectionTestUtils.setField(service, "serviceMesh", mesh);
+        ReflectionTestUtils.setField(service, "assistantProperties", properties);
+        service.init();
+        return service;
+    }
+
+    private static Event changed(long version) {
+        return Event.builder()
+                .name(EventConstants.EVENT_ASSISTANT_CHANGED)
+                .payload(ASSISTANT_ID)
+                .metadata(Map.of("version", version))
+                .build();
+    }
+
+    private static AssistantDb update(String name) {
+        AssistantDb update = new AssistantDb();
+        update.setName(name);
+        return update;
+    }
+
+    private static AssistantDb assistant(String name, LocalDateTime updatedAt) {
+        AssistantDb assistant = new AssistantDb();
+        assistant.setId(ASSISTANT_ID);
+        assistant.setOwner("owner");
+        assistant.setName(name);
+        assistant.setMetadata("{}");
+        assistant.setCreatedAt(updatedAt);
+        assistant.setUpdatedAt(updatedAt);
+        return assistant;
+    }
+
+    /**
+     * 内存版AssistantRepo，更新时刷新updated_at，与数据库的on update行为一致
+     */
+    private static class FakeAssistantRepo extends AssistantRepo {
+        private final Map<String, AssistantDb> rows = new ConcurrentHashMap<>();
+        private final AtomicInteger loads = new AtomicInteger();
+        private Runnable afterLoad;
+
+        private FakeAssistantRepo() {
+            super(null, null);
+        }
+
+        private void put(AssistantDb assistant) {
+            rows.put(assistant.getId(), assistant);
+        }
+
+        private long versionOf(String id) {
+            Long version = ReflectionTestUtils.invokeMethod(AssistantService.class, "version", rows.get(id));
+            return version;
+        }
+
+        @Override
+        public AssistantDb findById(String id) {
+            loads.incrementAndGet();
+            AssistantDb row = rows.get(id);
+            AssistantDb copy = row == null ? null : new AssistantDb(row);
+            Runnable hook = afterLoad;
+            afterLoad = null;
+            if(hook != null) {
+                hook.run();
+            }
+            return copy;
+        }
+
+        @Override
+        public boolean update(AssistantDb assistant) {
+            AssistantDb row = new AssistantDb(assistant);
+            row.setUpdatedAt(rows.get(assistant.getId()).getUpdatedAt().plusSeconds(1));
+            rows.put(row.getId(), row);
+            assistant.setUpdatedAt(row.getUpdatedAt());
+            return true;
+        }
+
+        @Override
+        public boolean deleteById(String id) {
+            return rows.remove(id) != null;
+        }
+
+        @Override
+        public boolean checkOwnership(String id, String owner) {
+            AssistantDb row = rows.get(id);
+            return row != null && owner.equals(row.getOwner());
+        }
+    }
+
+    private static class EmptyFileRepo extends AssistantFileRelationRepo {
+        private EmptyFileRepo() {
+            super(null);
+        }
+
+        @Override
+        public List<AssistantFileRelationDb> findByAssistantId(String assistantId) {
+            return List.of();
+        }
+
+        @Override
+        public int deleteByAssistantId(String assistantId) {
+            return 0;
+        }
+    }
+
+    private static class EmptyToolRepo extends AssistantToolRepo {
+        private EmptyToolRepo() {
+            super(null);
+        }
+
+        @Override
+        public List<AssistantToolDb> findByAssistantId(String assistantId) {
+            return List.of();
+        }
+
+        @Override
+        public int deleteByAssistantId(String assistantId) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ke.assistant.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ChartProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图表渲染基准测试：统计各图表类型、输出格式和尺寸下的渲染耗时与输出大小，以及缓存命中和并发渲染的耗时
+ * 默认不执行，使用 mvn test -Dtest=ChartRenderBenchmarkTest -Dbenchmark=true 启动，
+ * 可通过 -Dbenchmark.iterations / -Dbenchmark.concurrency 调整参数
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ChartRenderBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20);
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 32);
+    private static final int[][] SIZES = {{400, 300}, {800, 600}, {1600, 1200}};
+
+    private ChartService chartService;
+
+    @BeforeEach
+    public void setUp() {
+        AssistantProperties properties = new AssistantProperties();
+        chartService = new ChartService();
+        ReflectionTestUtils.setField(chartService, "assistantProperties", properties);
+        chartService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chartService.destroy();
+    }
+
+    @Test
+    public void benchmarkRender() throws Exception {
+        // 预热
+        for (int i = 0; i < 5; i++) {
+            chartService.render(request(ChartService.ChartType.BAR, ChartProperties.Format.PNG, 800, 600, 1000 + i));
+        }
+
+        System.out.printf("%-5s %-4s %-10s %10s %10s %12s%n", "type", "fmt", "size", "avg(ms)", "p95(ms)", "bytes");
+        for (ChartService.ChartType type : ChartService.ChartType.values()) {
+            for (ChartProperties.Format format : ChartProperties.Format.values()) {
+                for (int[] size : SIZES) {
+                    long[] costs = new long[ITERATIONS];
+                    long bytes = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        // 每次使用不同数据，避免命中缓存
+                        ChartService.ChartRequest request = request(type, format, size[0], size[1], i);
+                        long start = System.nanoTime();
+                        bytes += chartService.render(request).length;
+                        costs[i] = System.nanoTime() - start;
+                    }
+                    Arrays.sort(costs);
+                    System.out.printf("%-5s %-4s %-10s %10.2f %10.2f %12d%n", type, format.getExtension(), size[0] + "x" + size[1],
+                            Arrays.stream(costs).average().orElse(0) / 1e6, costs[(int) (ITERATIONS * 0.95)] / 1e6, bytes / ITERATIONS);
+                }
+            }
+        }
+
+        ChartService.ChartRequest cached = request(ChartService.ChartType.LINE, ChartProperties.Format.PNG, 800, 600, -1);
+        byte[] first = chartService.render(cached);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertSame(first, chartService.render(request(ChartService.ChartType.LINE, ChartProperties.Format.PNG, 800, 600, -1)));
+        }
+        System.out.printf("cache hit avg(ms): %.4f%n", (System.nanoTime() - start) / 1e6 / ITERATIONS);
+    }
+
+    @Test
+    public void benchmarkConcurrentRender() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < CONCURRENCY * 4; i++) {
+                // 一半请求内容重复，模拟用户重新生成
+                int seed = i % (CONCURRENCY * 2);
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return chartService.render(request(ChartService.ChartType.BAR, ChartProperties.Format.JPG, 800, 600, seed));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, callers));
+            }
+            for (CompletableFuture<byte[]> future : futures) {
+                assertTrue(future.get(60, TimeUnit.SECONDS).length > 0);
+            }
+            System.out.printf("concurrent render: %d requests, %d callers, %d render threads, total %.2f ms%n",
+                    futures.size(), CONCURRENCY, Runtime.getRuntime().availableProcessors(), (System.nanoTime() - start) / 1e6);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static ChartService.ChartRequest request(ChartService.ChartType type, ChartProperties.Format format, int width, int height, int seed) {
+        Random random = new Random(seed);
+        double[] data = new double[12];
+        String[] labels = new String[data.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt(1000);
+            labels[i] = (i + 1) + "月";
+        }
+        return ChartService.ChartRequest.builder()
+                .type(type)
+                .title("基准测试")
+                .categoryAxisLabel("月份")
+                .valueAxisLabel("销售额")
+                .data(data)
+                .labels(labels)
+                .width(width)
+                .height(height)
+                .format(format)
+                .build();
+    }
+}
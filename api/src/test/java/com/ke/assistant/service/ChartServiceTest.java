@@ -1,6 +1,7 @@
 package com.ke.assistant.service;
 
 import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ChartProperties;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -10,7 +11,10 @@ import org.springframework.test.context.ActiveProfiles;
 import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -216,6 +220,42 @@ public class ChartServiceTest {
         assertTrue(result.length > 0, "自定义尺寸图表应该有内容");
     }
 
+    @Test
+    public void testRenderCachedByContent() throws IOException {
+        // 相同内容的请求复用渲染结果，尺寸不同则重新渲染
+        byte[] first = chartService.render(chartRequest(ChartProperties.Format.PNG, 640, 480));
+        byte[] second = chartService.render(chartRequest(ChartProperties.Format.PNG, 640, 480));
+        byte[] resized = chartService.render(chartRequest(ChartProperties.Format.PNG, 320, 240));
+
+        assertSame(first, second, "相同内容的图表应命中缓存");
+        assertNotSame(first, resized, "不同尺寸的图表不应命中缓存");
+        assertNotEquals(ChartService.contentHash(chartRequest(null, 640, 480), ChartProperties.Format.PNG),
+                ChartService.contentHash(chartRequest(null, 640, 480), ChartProperties.Format.JPG), "不同格式的哈希应不同");
+    }
+
+    @Test
+    public void testRenderFormats() throws IOException {
+        byte[] png = chartService.render(chartRequest(ChartProperties.Format.PNG, DEFAULT_WIDTH, DEFAULT_HEIGHT));
+        byte[] jpg = chartService.render(chartRequest(ChartProperties.Format.JPG, DEFAULT_WIDTH, DEFAULT_HEIGHT));
+
+        assertTrue(png[0] == (byte) 0x89 && png[1] == 'P' && png[2] == 'N' && png[3] == 'G', "应为PNG格式");
+        assertTrue(jpg[0] == (byte) 0xFF && jpg[1] == (byte) 0xD8, "应为JPEG格式");
+    }
+
+    private ChartService.ChartRequest chartRequest(ChartProperties.Format format, int width, int height) {
+        return ChartService.ChartRequest.builder()
+                .type(ChartService.ChartType.BAR)
+                .title("缓存测试")
+                .categoryAxisLabel("类别")
+                .valueAxisLabel("数值")
+                .data(new double[] {1.0, 2.0, 3.0})
+                .labels(new String[] {"A", "B", "C"})
+                .width(width)
+                .height(height)
+                .format(format)
+                .build();
+    }
+
     @Test
     public void testS3ConfigurationStatus() {
         // 测试S3配置状态
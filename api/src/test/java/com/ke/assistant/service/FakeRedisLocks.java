@@ -0,0 +1,182 @@
+package com.ke.assistant.service;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RReadWriteLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+/**
+ * 内存版Redisson读写锁，仅实现ThreadLockService用到的方法，多个ThreadLockService共用一个实例即可模拟多个服务实例
+ * 每次加锁、解锁计为一次Redis往返，可配置往返延迟
+ */
+public class FakeRedisLocks {
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final AtomicInteger readAcquires = new AtomicInteger();
+    private final AtomicInteger writeAcquires = new AtomicInteger();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final long latencyMicros;
+
+    public FakeRedisLocks(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+
+    public RedissonClient client() {
+        return (RedissonClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RedissonClient.class },
+                (proxy, method, args) -> {
+                    if("getReadWriteLock".equals(method.getName())) {
+                        return readWriteLock((String) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public int getReadAcquires() {
+        return readAcquires.get();
+    }
+
+    public int getWriteAcquires() {
+        return writeAcquires.get();
+    }
+
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    private RReadWriteLock readWriteLock(String name) {
+        State state = states.computeIfAbsent(name, k -> new State());
+        RLock read = lock(name, state, false);
+        RLock write = lock(name, state, true);
+        return (RReadWriteLock) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RReadWriteLock.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "readLock":
+                        return read;
+                    case "writeLock":
+                        return write;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private RLock lock(String name, State state, boolean write) {
+        return (RLock) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RLock.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getName":
+                        return name;
+                    case "isLocked":
+                        return state.isLocked(write);
+                    case "tryLock":
+                        if(args.length == 2) {
+                            return acquire(state, write, Thread.currentThread().getId(), ((TimeUnit) args[1]).toNanos((Long) args[0]));
+                        }
+                        break;
+                    case "tryLockAsync":
+                        if(args.length == 4) {
+                            return new CompletableFutureWrapper<>(
+                                    acquire(state, write, (Long) args[3], ((TimeUnit) args[2]).toNanos((Long) args[0])));
+                        }
+                        break;
+                    case "unlock":
+                        release(state, write, Thread.currentThread().getId());
+                        return null;
+                    case "unlockAsync":
+                        if(args != null && args.length == 1) {
+                            release(state, write, (Long) args[0]);
+                            return new CompletableFutureWrapper<>((Void) null);
+                        }
+                        break;
+                    default:
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private boolean acquire(State state, boolean write, long owner, long waitNanos) throws InterruptedException {
+        roundTrip();
+        boolean acquired = state.acquire(write, owner, waitNanos);
+        if(acquired) {
+            (write ? writeAcquires : readAcquires).incrementAndGet();
+        }
+        return acquired;
+    }
+
+    private void release(State state, boolean write, long owner) throws InterruptedException {
+        roundTrip();
+        state.release(write, owner);
+    }
+
+    private void roundTrip() throws InterruptedException {
+        roundTrips.incrementAndGet();
+        if(latencyMicros > 0) {
+            TimeUnit.MICROSECONDS.sleep(latencyMicros);
+        }
+    }
+
+    private static class State {
+        private final Map<Long, Integer> readers = new HashMap<>();
+        private Long writer;
+        private int writeHolds;
+
+        synchronized boolean acquire(boolean write, long owner, long waitNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + waitNanos;
+            while (!(write ? canWrite(owner) : canRead(owner))) {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            if(write) {
+                writer = owner;
+                writeHolds++;
+            } else {
+                readers.merge(owner, 1, Integer::sum);
+            }
+            return true;
+        }
+
+        synchronized void release(boolean write, long owner) {
+            if(write) {
+                if(writer == null || writer != owner) {
+                    throw new IllegalMonitorStateException("write lock not held by " + owner);
+                }
+                if(--writeHolds == 0) {
+                    writer = null;
+                }
+            } else {
+                Integer holds = readers.get(owner);
+                if(holds == null) {
+                    throw new IllegalMonitorStateException("read lock not held by " + owner);
+                }
+                if(holds == 1) {
+                    readers.remove(owner);
+                } else {
+                    readers.put(owner, holds - 1);
+                }
+            }
+            notifyAll();
+        }
+
+        synchronized boolean isLocked(boolean write) {
+            return write ? writer != null : !readers.isEmpty();
+        }
+
+        private boolean canRead(long owner) {
+            return writer == null || writer == owner;
+        }
+
+        private boolean canWrite(long owner) {
+            return writer == null ? readers.isEmpty() : writer == owner;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ke.assistant.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 本地S3兼容服务，仅实现路径风格的PutObject和分片上传接口，用于测试
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger putObjectCount = new AtomicInteger();
+    private final AtomicInteger uploadPartCount = new AtomicInteger();
+    private final AtomicInteger abortCount = new AtomicInteger();
+    private volatile long uploadDelayMillis;
+
+    public FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fake-s3");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @param path bucket/key
+     */
+    public byte[] getObject(String path) {
+        return objects.get(path);
+    }
+
+    public int getPutObjectCount() {
+        return putObjectCount.get();
+    }
+
+    public int getUploadPartCount() {
+        return uploadPartCount.get();
+    }
+
+    public int getAbortCount() {
+        return abortCount.get();
+    }
+
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    /**
+     * PutObject和UploadPart读取请求体后延迟响应，模拟慢速上传
+     */
+    public void setUploadDelayMillis(long uploadDelayMillis) {
+        this.uploadDelayMillis = uploadDelayMillis;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if("PUT".equals(method) && query.containsKey("uploadId")) {
+                byte[] body = readBody(exchange);
+                delay();
+                uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                uploadPartCount.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", etag(body));
+                send(exchange, 200, new byte[0]);
+            } else if("PUT".equals(method)) {
+                byte[] body = readBody(exchange);
+                delay();
+                objects.put(path, body);
+                putObjectCount.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", etag(body));
+                send(exchange, 200, new byte[0]);
+            } else if("POST".equals(method) && query.containsKey("uploads")) {
+                readBody(exchange);
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new TreeMap<>());
+                sendXml(exchange, "<InitiateMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                        + "<Bucket>" + bucket(path) + "</Bucket><Key>" + key(path) + "</Key><UploadId>" + uploadId + "</UploadId>"
+                        + "</InitiateMultipartUploadResult>");
+            } else if("POST".equals(method) && query.containsKey("uploadId")) {
+                readBody(exchange);
+                Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (byte[] part : parts.values()) {
+                    out.write(part);
+                }
+                objects.put(path, out.toByteArray());
+                sendXml(exchange, "<CompleteMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                        + "<Location>" + endpoint() + "/" + path + "</Location><Bucket>" + bucket(path) + "</Bucket>"
+                        + "<Key>" + key(path) + "</Key><ETag>\"" + UUID.randomUUID().toString().replace("-", "") + "-" + parts.size() + "\"</ETag>"
+                        + "</CompleteMultipartUploadResult>");
+            } else if("DELETE".equals(method) && query.containsKey("uploadId")) {
+                uploads.remove(query.get("uploadId"));
+                abortCount.incrementAndGet();
+                send(exchange, 204, null);
+            } else {
+                send(exchange, 400, new byte[0]);
+            }
+        } catch (Exception e) {
+            send(exchange, 500, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void delay() throws InterruptedException {
+        if(uploadDelayMillis > 0) {
+            Thread.sleep(uploadDelayMillis);
+        }
+    }
+
+    /**
+     * 读取请求体，兼容aws-chunked编码
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        boolean chunked = (sha256 != null && sha256.startsWith("STREAMING-")) || (encoding != null && encoding.contains("aws-chunked"));
+        return chunked ? decodeAwsChunked(raw) : raw;
+    }
+
+    private static byte[] decodeAwsChunked(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new ByteArrayInputStream(raw);
+        while (true) {
+            String header = readLine(in);
+            if(header == null) {
+                break;
+            }
+            int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+            if(size == 0) {
+                break;
+            }
+            out.write(in.readNBytes(size));
+            readLine(in);
+        }
+        return out.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if(c == '\n') {
+                return sb.toString().trim();
+            }
+            sb.append((char) c);
+        }
+        return sb.length() == 0 ? null : sb.toString().trim();
+    }
+
+    private static String etag(byte[] body) throws Exception {
+        byte[] digest = MessageDigest.getInstance("MD5").digest(body);
+        StringBuilder sb = new StringBuilder("\"");
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        send(exchange, 200, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if(body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> result = new HashMap<>();
+        if(query == null) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String name = URLDecoder.decode(index < 0 ? pair : pair.substring(0, index), StandardCharsets.UTF_8);
+            String value = index < 0 ? "" : URLDecoder.decode(pair.substring(index + 1), StandardCharsets.UTF_8);
+            result.put(name, value);
+        }
+        return result;
+    }
+
+    private static String bucket(String path) {
+        return path.substring(0, path.indexOf('/'));
+    }
+
+    private static String key(String path) {
+        return path.substring(path.indexOf('/') + 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ke.assistant.service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.theokanning.openai.response.Response;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseSnapshotCache 测试类
+ * 验证执行中的Response在run状态变化后失效，以及终态快照覆盖执行中的缓存
+ */
+public class ResponseSnapshotCacheTest {
+
+    private ResponseSnapshotCache cache;
+    private AtomicReference<String> runStatus;
+
+    @BeforeEach
+    public void setUp() {
+        AssistantProperties properties = new AssistantProperties();
+        properties.getResponseCache().setRedisEnabled(false);
+        cache = new ResponseSnapshotCache();
+        ReflectionTestUtils.setField(cache, "assistantProperties", properties);
+        cache.init();
+        runStatus = new AtomicReference<>("queued");
+    }
+
+    @Test
+    public void testReturnCachedWhileStatusUnchanged() {
+        Response response = new Response();
+        cache.putInProgress("resp_1", "thread_1", "run_1", "queued", response);
+
+        assertSame(response, cache.getInProgress("resp_1", (threadId, runId) -> runStatus.get()));
+        assertSame(response, cache.getInProgress("resp_1", (threadId, runId) -> runStatus.get()));
+    }
+
+    @Test
+    public void testInvalidateOnStatusChange() {
+        cache.putInProgress("resp_1", "thread_1", "run_1", "queued", new Response());
+
+        // queued -> in_progress 仍是执行中，但快照中的状态已过期
+        runStatus.set("in_progress");
+        assertNull(cache.getInProgress("resp_1", (threadId, runId) -> runStatus.get()));
+
+        // 失效后不再返回旧快照，即使状态查询结果与旧快照一致
+        runStatus.set("queued");
+        assertNull(cache.getInProgress("resp_1", (threadId, runId) -> runStatus.get()));
+    }
+
+    @Test
+    public void testInvalidateWhenRunMissing() {
+        cache.putInProgress("resp_1", "thread_1", "run_1", "in_progress", new Response());
+
+        assertNull(cache.getInProgress("resp_1", (threadId, runId) -> null));
+    }
+
+    @Test
+    public void testTerminalReplacesInProgress() {
+        cache.putInProgress("resp_1", "thread_1", "run_1", "in_progress", new Response());
+        Response completed = new Response();
+        cache.putTerminal("resp_1", completed, false);
+
+        assertSame(completed, cache.getTerminal("resp_1"));
+        assertNull(cache.getInProgress("resp_1", (threadId, runId) -> "in_progress"));
+    }
+}
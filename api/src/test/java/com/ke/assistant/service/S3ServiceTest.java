@@ -0,0 +1,185 @@
+package com.ke.assistant.service;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.S3Properties;
+import com.ke.assistant.util.Base64Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * S3Service 测试类
+ * 基于本地S3兼容服务验证流式解码上传和分片上传
+ */
+public class S3ServiceTest {
+
+    private static final String BUCKET = "test-bucket";
+    private static final int MB = 1024 * 1024;
+
+    private FakeS3Server server;
+    private S3Service s3Service;
+    private S3Properties s3;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new FakeS3Server();
+        AssistantProperties properties = new AssistantProperties();
+        s3 = properties.getS3();
+        s3.setBucketName(BUCKET);
+        s3.setAccessKey("test-access-key");
+        s3.setSecretKey("test-secret-key");
+        s3.setEndpoint(server.endpoint());
+        s3.setPathStyleAccess(true);
+        s3.getUpload().setMultipartThreshold(5 * MB);
+        s3.getUpload().setPartSize(5 * MB);
+        s3.getUpload().setMaxConcurrentParts(2);
+        s3.getUpload().setTimeoutSeconds(30);
+
+        s3Service = new S3Service();
+        ReflectionTestUtils.setField(s3Service, "properties", properties);
+        s3Service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        s3Service.cleanup();
+        server.close();
+    }
+
+    @Test
+    public void testUploadBase64SinglePut() {
+        byte[] data = randomBytes(300 * 1024);
+        String base64 = Base64.getEncoder().encodeToString(data);
+
+        String url = s3Service.uploadBase64(base64, "image/png", ".png");
+
+        assertArrayEquals(data, server.getObject(objectPath(url)));
+        assertEquals(1, server.getPutObjectCount());
+        assertEquals(0, server.getUploadPartCount());
+    }
+
+    @Test
+    public void testUploadBase64Multipart() {
+        byte[] data = randomBytes(12 * MB + 123);
+        String base64 = Base64.getEncoder().encodeToString(data);
+
+        String url = s3Service.uploadBase64(base64, "image/png", ".png");
+
+        assertArrayEquals(data, server.getObject(objectPath(url)));
+        assertEquals(0, server.getPutObjectCount());
+        assertEquals(3, server.getUploadPartCount());
+    }
+
+    @Test
+    public void testUploadFileAsync() throws Exception {
+        byte[] data = randomBytes(64 * 1024);
+        InputStream inputStream = new ByteArrayInputStream(data);
+
+        String url = s3Service.uploadFileAsync(inputStream, data.length, "image/jpeg", ".jpg").get(30, TimeUnit.SECONDS);
+
+        assertArrayEquals(data, server.getObject(objectPath(url)));
+    }
+
+    @Test
+    public void testTruncatedStreamFails() throws InterruptedException {
+        byte[] data = randomBytes(6 * MB);
+        String base64 = Base64.getEncoder().encodeToString(data);
+        // 只提供一半的数据，但声明完整长度
+        InputStream inputStream = Base64Utils.decodingStream(base64, 0, base64.length() / 2 / 4 * 4);
+
+        assertThrows(Exception.class, () -> s3Service.uploadFileAsync(inputStream, data.length, "image/png", ".png")
+                .get(30, TimeUnit.SECONDS));
+        // 中止分片上传是异步发出的
+        for (int i = 0; i < 50 && server.getAbortCount() == 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertEquals(1, server.getAbortCount());
+    }
+
+    @Test
+    public void testTruncatedStreamFailsSinglePut() {
+        byte[] data = randomBytes(300 * 1024);
+        InputStream inputStream = new ByteArrayInputStream(data, 0, data.length / 2);
+
+        assertThrows(Exception.class, () -> s3Service.uploadFileAsync(inputStream, data.length, "image/png", ".png")
+                .get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeoutAbortsMultipart() throws InterruptedException {
+        s3.getUpload().setTimeoutSeconds(1);
+        server.setUploadDelayMillis(3000);
+        String base64 = Base64.getEncoder().encodeToString(randomBytes(12 * MB));
+
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> s3Service.uploadBase64(base64, "image/png", ".png"));
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+
+        // 超时后中止分片上传，慢请求返回后也不会再合并对象
+        for (int i = 0; i < 50 && server.getAbortCount() == 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertEquals(1, server.getAbortCount());
+        TimeUnit.MILLISECONDS.sleep(3500);
+        assertEquals(0, server.getObjectCount());
+    }
+
+    @Test
+    public void testTimeoutCancelsSinglePut() {
+        s3.getUpload().setTimeoutSeconds(1);
+        server.setUploadDelayMillis(3000);
+        String base64 = Base64.getEncoder().encodeToString(randomBytes(300 * 1024));
+
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> s3Service.uploadBase64(base64, "image/png", ".png"));
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    public void testProcessImageUrlWithDataUrl() {
+        ImageStorageService imageStorageService = new ImageStorageService();
+        ReflectionTestUtils.setField(imageStorageService, "s3Service", s3Service);
+        byte[] data = randomBytes(10 * 1024);
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(data);
+
+        String url = imageStorageService.processImageUrl(dataUrl);
+
+        assertTrue(url.endsWith(".png"));
+        assertArrayEquals(data, server.getObject(objectPath(url)));
+        assertEquals("https://example.com/a.png", imageStorageService.processImageUrl("https://example.com/a.png"));
+    }
+
+    @Test
+    public void testDecodedLength() {
+        for (int size = 0; size < 16; size++) {
+            byte[] data = randomBytes(size);
+            String padded = Base64.getEncoder().encodeToString(data);
+            String unpadded = Base64.getEncoder().withoutPadding().encodeToString(data);
+            assertEquals(size, Base64Utils.decodedLength(padded));
+            assertEquals(size, Base64Utils.decodedLength(unpadded));
+        }
+    }
+
+    private String objectPath(String url) {
+        String prefix = server.endpoint() + "/";
+        assertTrue(url.startsWith(prefix + BUCKET + "/"), url);
+        return url.substring(prefix.length());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
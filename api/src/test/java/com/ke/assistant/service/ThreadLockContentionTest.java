@@ -0,0 +1,208 @@
+package com.ke.assistant.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ke.assistant.configuration.AssistantProperties;
+import com.ke.assistant.configuration.ThreadLockProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ThreadLockService 分层锁并发测试
+ * 使用内存版Redis锁模拟多个服务实例，验证HIERARCHICAL模式下读锁共用Redis加锁、读写互斥以及写锁重入；
+ * benchmarkContention 对比两种模式的Redis往返次数和加锁延迟，默认不执行，使用 -Dbenchmark=true 启动
+ */
+public class ThreadLockContentionTest {
+
+    @Test
+    public void testReadersShareRedisLock() throws Exception {
+        FakeRedisLocks redis = new FakeRedisLocks(0);
+        ThreadLockService service = service(redis, ThreadLockProperties.Mode.HIERARCHICAL);
+        int readers = 8;
+        CountDownLatch allInside = new CountDownLatch(readers);
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                futures.add(pool.submit(() -> service.executeWithReadLock("thread_hot", () -> {
+                    // 所有读请求同时持有读锁，属于同一个读锁组
+                    allInside.countDown();
+                    await(allInside);
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, redis.getReadAcquires());
+        assertFalse(service.isLocked("thread_hot"), "锁应该已释放");
+    }
+
+    @Test
+    public void testReentrantWriteAndReadInsideWrite() {
+        FakeRedisLocks redis = new FakeRedisLocks(0);
+        ThreadLockService service = service(redis, ThreadLockProperties.Mode.HIERARCHICAL);
+        String result = service.executeWithWriteLock("thread_reentrant", () -> {
+            assertTrue(service.isWriteLocked("thread_reentrant"));
+            return service.executeWithWriteLock("thread_reentrant",
+                    () -> service.executeWithReadLock("thread_reentrant", () -> "ok"));
+        });
+        assertEquals("ok", result);
+        assertEquals(1, redis.getWriteAcquires());
+        assertEquals(0, redis.getReadAcquires());
+        assertFalse(service.isLocked("thread_reentrant"), "锁应该已释放");
+    }
+
+    @Test
+    public void testWriteTimeoutWhileReadHeldOnOtherInstance() throws Exception {
+        FakeRedisLocks redis = new FakeRedisLocks(0);
+        ThreadLockService first = service(redis, ThreadLockProperties.Mode.HIERARCHICAL);
+        ThreadLockService second = service(redis, ThreadLockProperties.Mode.HIERARCHICAL);
+        CountDownLatch readHeld = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> first.executeWithReadLock("thread_cross", () -> {
+            readHeld.countDown();
+            await(done);
+        }));
+        reader.start();
+        try {
+            assertTrue(readHeld.await(5, TimeUnit.SECONDS));
+            assertThrows(RuntimeException.class,
+                    () -> second.executeWithWriteLock("thread_cross", () -> {}, 200, TimeUnit.MILLISECONDS));
+        } finally {
+            done.countDown();
+            reader.join(5000);
+        }
+        second.executeWithWriteLock("thread_cross", () -> {}, 1, TimeUnit.SECONDS);
+        assertFalse(first.isLocked("thread_cross"), "锁应该已释放");
+    }
+
+    @Test
+    public void testMutualExclusionAcrossInstances() throws Exception {
+        FakeRedisLocks redis = new FakeRedisLocks(0);
+        Result result = run(redis, ThreadLockProperties.Mode.HIERARCHICAL, 2, 16, 300, 4, 0.1);
+        assertEquals(0, result.violations.get(), "写锁期间不应有其他读写");
+        assertEquals(0, result.failures.get());
+        assertTrue(redis.getReadAcquires() < result.reads.get(), "读锁组应减少Redis加锁次数");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkContention() throws Exception {
+        long latencyMicros = Long.getLong("benchmark.redisLatencyMicros", 500);
+        int threads = Integer.getInteger("benchmark.concurrency", 32);
+        int operations = Integer.getInteger("benchmark.iterations", 500);
+        System.out.printf("%-13s %10s %10s %10s %10s %10s%n", "mode", "ops", "redis-rt", "avg(ms)", "p99(ms)", "total(ms)");
+        for (ThreadLockProperties.Mode mode : ThreadLockProperties.Mode.values()) {
+            FakeRedisLocks redis = new FakeRedisLocks(latencyMicros);
+            long start = System.nanoTime();
+            Result result = run(redis, mode, 2, threads, operations, 8, 0.05);
+            long total = System.nanoTime() - start;
+            long[] latencies = result.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-13s %10d %10d %10.3f %10.3f %10.1f%n", mode, latencies.length, redis.getRoundTrips(),
+                    Arrays.stream(latencies).average().orElse(0) / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6, total / 1e6);
+            assertEquals(0, result.violations.get());
+        }
+    }
+
+    /**
+     * 多个实例、多个线程对少量热点thread随机加读锁或写锁，并检查写锁的互斥性
+     */
+    private static Result run(FakeRedisLocks redis, ThreadLockProperties.Mode mode, int instances, int threadsPerInstance,
+            int operationsPerThread, int hotThreads, double writeRatio) throws Exception {
+        Result result = new Result();
+        Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(instances * threadsPerInstance);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                ThreadLockService service = service(redis, mode);
+                for (int t = 0; t < threadsPerInstance; t++) {
+                    long seed = i * 1000L + t;
+                    futures.add(pool.submit(() -> {
+                        Random random = new Random(seed);
+                        for (int op = 0; op < operationsPerThread; op++) {
+                            String threadId = "thread_" + random.nextInt(hotThreads);
+                            AtomicInteger counter = active.computeIfAbsent(threadId, k -> new AtomicInteger());
+                            boolean write = random.nextDouble() < writeRatio;
+                            long start = System.nanoTime();
+                            try {
+                                if(write) {
+                                    service.executeWithWriteLock(threadId, () -> {
+                                        result.latencies.add(System.nanoTime() - start);
+                                        // 写锁期间计数器为负，其他读写看到负数即违反互斥
+                                        if(!counter.compareAndSet(0, -1)) {
+                                            result.violations.incrementAndGet();
+                                        }
+                                        counter.set(0);
+                                    });
+                                } else {
+                                    result.reads.incrementAndGet();
+                                    service.executeWithReadLock(threadId, () -> {
+                                        result.latencies.add(System.nanoTime() - start);
+                                        if(counter.incrementAndGet() <= 0) {
+                                            result.violations.incrementAndGet();
+                                        }
+                                        counter.decrementAndGet();
+                                    });
+                                }
+                            } catch (RuntimeException e) {
+                                result.failures.incrementAndGet();
+                            }
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    private static ThreadLockService service(FakeRedisLocks redis, ThreadLockProperties.Mode mode) {
+        AssistantProperties properties = new AssistantProperties();
+        properties.getThreadLock().setMode(mode);
+        properties.getThreadLock().setStripes(64);
+        ThreadLockService service = new ThreadLockService();
+        ReflectionTestUtils.setField(service, "redissonClient", redis.client());
+        ReflectionTestUtils.setField(service, "assistantProperties", properties);
+        service.init();
+        return service;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Result {
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    }
+}
@@ -0,0 +1,187 @@
+-- 压测用H2表结构，与 sql/01-init-tables.sql 保持一致
+-- H2中索引名在schema内唯一，因此部分索引名加了表名前缀
+
+CREATE TABLE IF NOT EXISTS assistant (
+    id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    model VARCHAR(128) NOT NULL DEFAULT '',
+    object VARCHAR(1024) NOT NULL DEFAULT '',
+    name VARCHAR(128) NOT NULL DEFAULT '',
+    description VARCHAR(256) NOT NULL DEFAULT '',
+    instructions TEXT NULL,
+    temperature FLOAT NOT NULL DEFAULT 0.01,
+    top_p FLOAT NOT NULL DEFAULT 1,
+    response_format VARCHAR(50) NOT NULL DEFAULT 'auto',
+    user VARCHAR(50) NOT NULL DEFAULT '',
+    reasoning_effort VARCHAR(100) NOT NULL DEFAULT '',
+    profile TINYINT NOT NULL DEFAULT 0,
+    owner VARCHAR(64) NOT NULL DEFAULT '',
+    metadata VARCHAR(4096) NOT NULL DEFAULT '',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS index_assistant_owner ON assistant (owner);
+
+CREATE TABLE IF NOT EXISTS assistant_file_relation (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    file_id VARCHAR(64) NOT NULL DEFAULT '',
+    assistant_id VARCHAR(64) NOT NULL DEFAULT '',
+    object VARCHAR(64) NOT NULL DEFAULT '',
+    tool_name VARCHAR(100) NOT NULL DEFAULT '',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT unique_index_name UNIQUE (file_id, assistant_id, tool_name)
+);
+CREATE INDEX IF NOT EXISTS afr_index_assistant_id ON assistant_file_relation (assistant_id);
+CREATE INDEX IF NOT EXISTS afr_index_file_id ON assistant_file_relation (file_id);
+
+CREATE TABLE IF NOT EXISTS thread (
+    id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    object VARCHAR(128) NOT NULL DEFAULT '',
+    owner VARCHAR(64) NOT NULL DEFAULT '',
+    user VARCHAR(100) NOT NULL,
+    environment VARCHAR(1000) NOT NULL DEFAULT '{}',
+    metadata VARCHAR(2048) NOT NULL DEFAULT '',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS index_thread_owner ON thread (owner);
+
+CREATE TABLE IF NOT EXISTS thread_file_relation (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    file_id VARCHAR(256) NOT NULL DEFAULT '',
+    thread_id VARCHAR(32) NOT NULL DEFAULT '',
+    object VARCHAR(64) NOT NULL DEFAULT '',
+    tool_name VARCHAR(100) NOT NULL DEFAULT '',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT idx_unique_file_tool_thread UNIQUE (file_id, thread_id, tool_name)
+);
+CREATE INDEX IF NOT EXISTS tfr_index_thread_id ON thread_file_relation (thread_id);
+
+CREATE TABLE IF NOT EXISTS message (
+    id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    role VARCHAR(16) NOT NULL DEFAULT '',
+    thread_id VARCHAR(64) NOT NULL DEFAULT '',
+    object VARCHAR(64) NOT NULL DEFAULT '',
+    status VARCHAR(64) NOT NULL DEFAULT 'completed',
+    content CLOB NULL,
+    reasoning_content CLOB NULL,
+    attachments VARCHAR(4096) NOT NULL DEFAULT '[]',
+    file_ids VARCHAR(2048) NOT NULL DEFAULT '',
+    metadata VARCHAR(2048) NOT NULL DEFAULT '',
+    assistant_id VARCHAR(64) NOT NULL DEFAULT '',
+    run_id VARCHAR(64) NOT NULL DEFAULT '',
+    name VARCHAR(100) NOT NULL DEFAULT '',
+    message_type VARCHAR(64) NOT NULL DEFAULT 'mixed',
+    summarized_by VARCHAR(64) NOT NULL DEFAULT '',
+    message_status VARCHAR(64) NOT NULL DEFAULT 'original',
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_msg_run_id ON message (run_id);
+CREATE INDEX IF NOT EXISTS idx_msg_thread_id ON message (thread_id);
+
+CREATE TABLE IF NOT EXISTS run (
+    id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    object VARCHAR(64) NOT NULL DEFAULT '',
+    assistant_id VARCHAR(64) NOT NULL DEFAULT '',
+    thread_id VARCHAR(64) NOT NULL DEFAULT '',
+    status VARCHAR(64) NOT NULL DEFAULT '',
+    model VARCHAR(64) NOT NULL DEFAULT '',
+    instructions TEXT NULL,
+    temperature FLOAT NOT NULL DEFAULT 0.01,
+    top_p FLOAT NOT NULL DEFAULT 1,
+    max_prompt_tokens INT NOT NULL DEFAULT 0,
+    max_completion_tokens INT NOT NULL DEFAULT 0,
+    truncation_strategy VARCHAR(100) NOT NULL DEFAULT '',
+    tool_choice VARCHAR(3096) NOT NULL DEFAULT 'auto',
+    parallel_tool_calls TINYINT NOT NULL DEFAULT 1,
+    response_format VARCHAR(50) NOT NULL DEFAULT 'auto',
+    user VARCHAR(100) NOT NULL,
+    file_ids VARCHAR(2048) NOT NULL DEFAULT '',
+    metadata VARCHAR(2048) NOT NULL DEFAULT '',
+    last_error VARCHAR(4096) NOT NULL DEFAULT '',
+    required_action TEXT NULL,
+    incomplete_details VARCHAR(2048) NOT NULL DEFAULT '',
+    `usage` VARCHAR(512) NOT NULL DEFAULT '',
+    started_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    completed_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    cancelled_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    expires_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 09:00:00',
+    failed_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    task_id VARCHAR(64) NOT NULL DEFAULT '',
+    save_message TINYINT NOT NULL DEFAULT 1,
+    additional_message_ids VARCHAR(200) NOT NULL DEFAULT '',
+    reasoning_time INT NOT NULL DEFAULT 0,
+    reasoning_effort VARCHAR(100) NOT NULL DEFAULT '',
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_run_thread_id ON run (thread_id);
+CREATE INDEX IF NOT EXISTS idx_status ON run (status);
+
+CREATE TABLE IF NOT EXISTS run_step (
+    id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    status VARCHAR(16) NOT NULL DEFAULT '',
+    type VARCHAR(16) NOT NULL DEFAULT '',
+    assistant_id VARCHAR(64) NOT NULL DEFAULT '',
+    thread_id VARCHAR(64) NOT NULL DEFAULT '',
+    run_id VARCHAR(64) NOT NULL DEFAULT '',
+    object VARCHAR(16) NOT NULL DEFAULT '',
+    metadata VARCHAR(2048) NOT NULL DEFAULT '{}',
+    last_error VARCHAR(4096) NOT NULL DEFAULT '',
+    step_details CLOB NULL,
+    completed_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    cancelled_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    expires_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    failed_at TIMESTAMP NOT NULL DEFAULT '1970-01-01 08:00:00',
+    message_id VARCHAR(64) NOT NULL DEFAULT '',
+    `usage` VARCHAR(1024) NOT NULL DEFAULT '',
+    llm_input CLOB NULL,
+    reasoning_time INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_step_run_id ON run_step (run_id);
+CREATE INDEX IF NOT EXISTS idx_step_thread_id ON run_step (thread_id);
+
+CREATE TABLE IF NOT EXISTS assistant_tool (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    assistant_id VARCHAR(64) NOT NULL DEFAULT '',
+    tool TEXT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS at_index_assistant_id ON assistant_tool (assistant_id);
+
+CREATE TABLE IF NOT EXISTS run_tool (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    run_id VARCHAR(64) NOT NULL DEFAULT '',
+    tool TEXT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS index_run_id ON run_tool (run_id);
+
+CREATE TABLE IF NOT EXISTS response_id_mapping (
+    response_id VARCHAR(64) NOT NULL DEFAULT '' PRIMARY KEY,
+    thread_id VARCHAR(64) NOT NULL DEFAULT '',
+    run_id VARCHAR(64) NOT NULL DEFAULT '',
+    previous_response_id VARCHAR(64) NOT NULL DEFAULT '',
+    user VARCHAR(64) NOT NULL DEFAULT '0',
+    status VARCHAR(16) NOT NULL DEFAULT 'active',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS id_sequence (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    prefix VARCHAR(32) NOT NULL DEFAULT '',
+    current_value BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT unique_prefix UNIQUE (prefix)
+);